@@ -0,0 +1,34 @@
+#!/usr/bin/env bash
+# Side-by-side recordSales load on the servlet (8081) and reactive (8082) stacks against the same database.
+# Prerequisites: docker-compose up postgres kafka, and the schema migrated (run the servlet app once).
+# Pin each server to the same cores, e.g. SERVER_CPUS=0-1, so requests/s per core is comparable.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+SERVER_CPUS=${SERVER_CPUS:-0}
+SECONDS_PER_RUN=${SECONDS_PER_RUN:-20}
+OUT=target/compare
+mkdir -p "$OUT"
+
+./mvnw -q -Preactive package -DskipTests && cp target/inStore-0.0.1-SNAPSHOT.jar "$OUT/reactive.jar"
+./mvnw -q package -DskipTests && cp target/inStore-0.0.1-SNAPSHOT.jar "$OUT/servlet.jar"
+
+psql_items=$(docker-compose exec -T postgres psql -U admin -d instore_db -tAc \
+  "SELECT min(item_id) || '-' || max(item_id) FROM item WHERE is_deleted = false")
+
+cores=$(( $(echo "$SERVER_CPUS" | tr ',' '\n' | awk -F- '{ n += ($2 == "" ? 1 : $2 - $1 + 1) } END { print n }') ))
+taskset -c "$SERVER_CPUS" java -jar "$OUT/servlet.jar" --spring.jpa.show-sql=false > "$OUT/servlet.log" 2>&1 &
+servlet=$!
+taskset -c "$SERVER_CPUS" java -jar "$OUT/reactive.jar" > "$OUT/reactive.log" 2>&1 &
+reactive=$!
+trap 'kill $servlet $reactive 2>/dev/null || true' EXIT
+
+for port in 8081 8082; do
+  until curl -sf -o /dev/null "http://localhost:$port/actuator/health"; do sleep 0.5; done
+done
+
+# Only one server is under load at a time; the idle one costs next to nothing on the shared cores
+./mvnw -q test -Dtest=InventoryLoadComparisonBenchmark \
+  -Dbenchmark.targets=http://localhost:8081,http://localhost:8082 \
+  -Dbenchmark.items="$psql_items" -Dbenchmark.seconds="$SECONDS_PER_RUN" -Dbenchmark.server-cores="$cores" \
+  | grep '^target=' | tee "$OUT/results.txt"
@@ -0,0 +1,44 @@
+#!/usr/bin/env bash
+# Tracks time-to-first-request for the default and fast-start builds.
+# Prerequisites: docker-compose up postgres kafka, then ./mvnw -Pfast-start package -DskipTests
+# Results are appended to target/startup-benchmark.csv (mode,run,first_request_ms,ready_ms).
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${RUNS:-5}
+PORT=${PORT:-8081}
+JAR=target/inStore-0.0.1-SNAPSHOT.jar
+CDS_DIR=target/fast-start
+RESULTS=target/startup-benchmark.csv
+
+[ -f "$RESULTS" ] || echo "mode,run,first_request_ms,ready_ms" > "$RESULTS"
+
+now_ms() { date +%s%3N; }
+
+wait_for() {
+  local url=$1
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' "$url")" != "000" ]; do sleep 0.02; done
+}
+
+wait_for_ready() {
+  until curl -sf -o /dev/null "http://localhost:$PORT/actuator/health/readiness"; do sleep 0.02; done
+}
+
+measure() {
+  local mode=$1; shift
+  for run in $(seq 1 "$RUNS"); do
+    local start; start=$(now_ms)
+    "$@" > "target/startup-$mode-$run.log" 2>&1 &
+    local pid=$!
+    wait_for "http://localhost:$PORT/inventory/availability/-1"
+    local first=$(( $(now_ms) - start ))
+    wait_for_ready
+    local ready=$(( $(now_ms) - start ))
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+    echo "$mode,$run,$first,$ready" | tee -a "$RESULTS"
+  done
+}
+
+measure default java -Dmanagement.endpoint.health.probes.enabled=true -jar "$JAR"
+measure fast-start java -XX:SharedArchiveFile="$CDS_DIR/application.jsa" -Dspring.aot.enabled=true \
+  -Dspring.profiles.active=fast-start -jar "$CDS_DIR/inStore-0.0.1-SNAPSHOT.jar"
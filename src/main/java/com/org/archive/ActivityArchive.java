@@ -0,0 +1,198 @@
+package com.org.archive;
+
+import com.org.model.ArchivedActivity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+// Activity moved out of inventory_activity by ActivityArchiveJob: columnar files in a local directory,
+// listed in activity_archive_file. Scans look the files up in the catalog first, inside the caller's
+// transaction, so they see exactly the files whose rows that transaction no longer sees in the table.
+// Readers are opened on first use and kept mapped. The files are local: a scan that needs a file this instance
+// does not have fails with ArchiveUnavailableException rather than answering without it.
+@Component
+@Slf4j
+public class ActivityArchive {
+
+  public static final String EXTENSION = ".iac";
+  static final String PENDING = ".pending";
+
+  private static final String FILES_SQL = """
+      SELECT file_name FROM activity_archive_file
+      WHERE (?::bigint IS NULL OR ?::bigint BETWEEN item_from AND item_to)
+        AND month_start <= ? AND month_end > ?
+      ORDER BY month_start, item_from, min_activity_id""";
+
+  public record Totals(long activities, long quantity) {
+
+    public Totals plus(long activities, long quantity) {
+      return new Totals(this.activities + activities, this.quantity + quantity);
+    }
+  }
+
+  // Activity of one store in (from, to], as stock-at-time replays it
+  public record ReplayWindow(long storeId, LocalDateTime from, LocalDateTime to) {
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Path directory;
+  private final Map<String, ActivityColumnReader> readers = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+  private final Counter rowsScanned;
+
+  public ActivityArchive(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+      @Value("${instore.archive.dir:archive}") Path directory) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.directory = directory;
+    this.meterRegistry = meterRegistry;
+    this.rowsScanned = meterRegistry.counter("instore.archive.rows.scanned");
+    Gauge.builder("instore.archive.files.mapped", readers, Map::size).register(meterRegistry);
+    Gauge.builder("instore.archive.mapped.bytes", readers,
+            open -> open.values().stream().mapToLong(ActivityColumnReader::sizeInBytes).sum())
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  public Path directory() {
+    return directory;
+  }
+
+  // Full rows of one item with activity time in [from, to], oldest first
+  public List<ArchivedActivity> history(long itemId, LocalDateTime from, LocalDateTime to) {
+    List<ArchivedActivity> rows = new ArrayList<>();
+    scan("history", itemId, from, to, reader -> reader.read(itemId, from, to, rows::add));
+    rows.sort(Comparator.comparing(ArchivedActivity::getActivityTimestamp).thenComparing(ArchivedActivity::getActivityId));
+    return rows;
+  }
+
+  // Activities and summed numeric values per upper-cased activity type, for one item or all of them
+  public Map<String, Totals> totals(Long itemId, LocalDateTime from, LocalDateTime to) {
+    Map<String, Totals> totals = new HashMap<>();
+    scan("totals", itemId, from, to, reader -> reader.scan(itemId, from, to,
+        (rowItemId, storeId, activityType, quantity, timeMicros) -> totals.merge(activityType,
+            new Totals(1, quantity == ActivityColumnReader.NOT_A_QUANTITY ? 0 : quantity),
+            (a, b) -> a.plus(b.activities(), b.quantity()))));
+    return totals;
+  }
+
+  // Net ADD - REMOVE - SELL per store within each window; rows without a store belong to the default store
+  public Map<Long, Totals> replay(long itemId, long defaultStoreId, List<ReplayWindow> windows) {
+    Map<Long, Totals> replays = new HashMap<>();
+    if (windows.isEmpty()) {
+      return replays;
+    }
+    LocalDateTime from = windows.stream().map(ReplayWindow::from).min(Comparator.naturalOrder()).orElseThrow();
+    LocalDateTime to = windows.stream().map(ReplayWindow::to).max(Comparator.naturalOrder()).orElseThrow();
+    Map<Long, long[]> bounds = new HashMap<>();
+    for (ReplayWindow window : windows) {
+      bounds.put(window.storeId(), new long[]{ActivityColumns.toMicros(window.from()), ActivityColumns.toMicros(window.to())});
+    }
+    scan("replay", itemId, from, to, reader -> reader.scan(itemId, from, to,
+        (rowItemId, storeId, activityType, quantity, timeMicros) -> {
+          long store = storeId == ActivityColumnReader.NO_STORE ? defaultStoreId : storeId;
+          long[] window = bounds.get(store);
+          if (window == null || timeMicros <= window[0] || timeMicros > window[1]) {
+            return;
+          }
+          long sign = switch (activityType) {
+            case "ADD" -> 1;
+            case "REMOVE", "SELL" -> -1;
+            default -> 0;
+          };
+          if (sign != 0) {
+            long delta = quantity == ActivityColumnReader.NOT_A_QUANTITY ? 0 : sign * quantity;
+            replays.merge(store, new Totals(1, delta), (a, b) -> a.plus(b.activities(), b.quantity()));
+          }
+        }));
+    return replays;
+  }
+
+  // Promotes pending files whose catalog row committed and removes the rest, left by a run that died
+  public void recoverPending() throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    Set<String> pending = new HashSet<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files.map(path -> path.getFileName().toString())
+          .filter(name -> name.endsWith(EXTENSION + PENDING))
+          .forEach(name -> pending.add(name.substring(0, name.length() - PENDING.length())));
+    }
+    for (String fileName : pending) {
+      Integer committed = jdbcTemplate.queryForObject("SELECT count(*) FROM activity_archive_file WHERE file_name = ?",
+          Integer.class, fileName);
+      if (committed != null && committed > 0) {
+        publish(fileName);
+        log.info("Recovered archive file {}", fileName);
+      } else {
+        Files.deleteIfExists(pendingPath(fileName));
+        log.info("Removed uncommitted archive file {}", fileName);
+      }
+    }
+  }
+
+  public Path pendingPath(String fileName) {
+    return directory.resolve(fileName + PENDING);
+  }
+
+  // Once its catalog row has committed
+  public void publish(String fileName) throws IOException {
+    Files.move(pendingPath(fileName), directory.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private interface FileScan {
+    long scan(ActivityColumnReader reader);
+  }
+
+  private void scan(String query, Long itemId, LocalDateTime from, LocalDateTime to, FileScan fileScan) {
+    List<String> fileNames = jdbcTemplate.queryForList(FILES_SQL, String.class, itemId, itemId, Timestamp.valueOf(to),
+        Timestamp.valueOf(from));
+    if (fileNames.isEmpty()) {
+      return;
+    }
+    Timer.Sample sample = Timer.start(meterRegistry);
+    long decoded = 0;
+    for (String fileName : fileNames) {
+      decoded += fileScan.scan(readers.computeIfAbsent(fileName, this::open));
+    }
+    rowsScanned.increment(decoded);
+    sample.stop(Timer.builder("instore.archive.scan").tag("query", query).publishPercentiles(0.5, 0.99)
+        .register(meterRegistry));
+  }
+
+  private ActivityColumnReader open(String fileName) {
+    Path path = directory.resolve(fileName);
+    // Committed, not yet renamed by the archiving run
+    if (!Files.exists(path) && Files.exists(pendingPath(fileName))) {
+      path = pendingPath(fileName);
+    }
+    if (!Files.exists(path)) {
+      throw new ArchiveUnavailableException("Archive file " + fileName + " is not available on this instance in " + directory);
+    }
+    try {
+      return ActivityColumnReader.open(path);
+    } catch (IOException e) {
+      throw new ArchiveUnavailableException("Archive file " + fileName + " is not readable in " + directory, e);
+    }
+  }
+}
@@ -0,0 +1,276 @@
+package com.org.archive;
+
+import static com.org.archive.ActivityColumns.ACTIVITY_ID;
+import static com.org.archive.ActivityColumns.ACTIVITY_TIME;
+import static com.org.archive.ActivityColumns.ACTIVITY_TYPE;
+import static com.org.archive.ActivityColumns.ACTIVITY_VALUE;
+import static com.org.archive.ActivityColumns.COLUMNS;
+import static com.org.archive.ActivityColumns.CREATION_TIME;
+import static com.org.archive.ActivityColumns.DICTIONARY_COLUMNS;
+import static com.org.archive.ActivityColumns.ITEM_ID;
+import static com.org.archive.ActivityColumns.ITEM_NAME;
+import static com.org.archive.ActivityColumns.MESSAGE;
+import static com.org.archive.ActivityColumns.STORE_ID;
+import static com.org.archive.ActivityColumns.fromMicros;
+import static com.org.archive.ActivityColumns.toMicros;
+import static com.org.archive.ActivityColumns.unZigZag;
+
+import com.org.archive.ActivityColumns.Cursor;
+import com.org.model.ArchivedActivity;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Reads an archive file through a read-only memory map: column blocks are inflated straight from the
+// mapped pages, so the page cache is the only copy of the compressed file. Groups whose item and time
+// bounds miss the query are skipped without touching their pages. Safe for concurrent scans.
+public class ActivityColumnReader {
+
+  public static final long NO_STORE = Long.MIN_VALUE;
+  public static final long NOT_A_QUANTITY = Long.MIN_VALUE;
+
+  // One row of an aggregate scan: the activity type upper-cased, the value parsed once per dictionary
+  // entry (NOT_A_QUANTITY when it is not an integer) and the store NO_STORE when the row has none
+  public interface RowVisitor {
+    void visit(long itemId, long storeId, String activityType, long quantity, long timeMicros);
+  }
+
+  private record Group(int rows, long minItem, long maxItem, long minTime, long maxTime, long[] offsets, int[] lengths,
+      int[] rawLengths) {
+
+    boolean overlaps(Long itemId, long fromMicros, long toMicros) {
+      return (itemId == null || (itemId >= minItem && itemId <= maxItem)) && maxTime >= fromMicros && minTime <= toMicros;
+    }
+  }
+
+  private final Path path;
+  private final MappedByteBuffer buffer;
+  private final int rows;
+  private final long minActivityId;
+  private final long maxActivityId;
+  private final List<Group> groups;
+  private final String[][] dictionaries;
+  private final String[] types;
+  private final long[] quantities;
+
+  private ActivityColumnReader(Path path, MappedByteBuffer buffer) {
+    this.path = path;
+    this.buffer = buffer;
+    int size = buffer.capacity();
+    if (size < 8 + ActivityColumns.TRAILER_BYTES || buffer.getInt(0) != ActivityColumns.MAGIC
+        || buffer.getInt(size - 4) != ActivityColumns.MAGIC) {
+      throw new IllegalStateException("Not an activity archive file: " + path);
+    }
+    if (buffer.getInt(4) != ActivityColumns.VERSION) {
+      throw new IllegalStateException("Unsupported archive version " + buffer.getInt(4) + " in " + path);
+    }
+
+    ByteBuffer footer = buffer.slice((int) buffer.getLong(size - ActivityColumns.TRAILER_BYTES),
+        buffer.getInt(size - ActivityColumns.TRAILER_BYTES + 8));
+    this.rows = footer.getInt();
+    this.minActivityId = footer.getLong();
+    this.maxActivityId = footer.getLong();
+    int groupCount = footer.getInt();
+    this.groups = new ArrayList<>(groupCount);
+    for (int g = 0; g < groupCount; g++) {
+      int groupRows = footer.getInt();
+      long minItem = footer.getLong();
+      long maxItem = footer.getLong();
+      long minTime = footer.getLong();
+      long maxTime = footer.getLong();
+      long[] offsets = new long[COLUMNS];
+      int[] lengths = new int[COLUMNS];
+      int[] rawLengths = new int[COLUMNS];
+      for (int column = 0; column < COLUMNS; column++) {
+        offsets[column] = footer.getLong();
+        lengths[column] = footer.getInt();
+        rawLengths[column] = footer.getInt();
+      }
+      groups.add(new Group(groupRows, minItem, maxItem, minTime, maxTime, offsets, lengths, rawLengths));
+    }
+
+    Cursor dictionary = new Cursor(inflate(footer.getLong(), footer.getInt(), footer.getInt()));
+    this.dictionaries = new String[COLUMNS][];
+    for (int column : DICTIONARY_COLUMNS) {
+      // Code 0 is null
+      String[] entries = new String[(int) dictionary.readVarLong() + 1];
+      for (int code = 1; code < entries.length; code++) {
+        entries[code] = dictionary.readString();
+      }
+      dictionaries[column] = entries;
+    }
+    String[] typeEntries = dictionaries[ACTIVITY_TYPE];
+    this.types = new String[typeEntries.length];
+    for (int code = 1; code < typeEntries.length; code++) {
+      types[code] = typeEntries[code].toUpperCase(Locale.ROOT);
+    }
+    String[] valueEntries = dictionaries[ACTIVITY_VALUE];
+    this.quantities = new long[valueEntries.length];
+    for (int code = 0; code < valueEntries.length; code++) {
+      quantities[code] = quantity(valueEntries[code]);
+    }
+  }
+
+  public static ActivityColumnReader open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Archive file over 2 GB: " + path);
+      }
+      // The mapping stays valid after the channel closes
+      return new ActivityColumnReader(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  public int rows() {
+    return rows;
+  }
+
+  public long minActivityId() {
+    return minActivityId;
+  }
+
+  public long maxActivityId() {
+    return maxActivityId;
+  }
+
+  public long sizeInBytes() {
+    return buffer.capacity();
+  }
+
+  // Full rows of one item (or all items) with activity time in [from, to]; returns the rows decoded
+  public long read(Long itemId, LocalDateTime from, LocalDateTime to, Consumer<ArchivedActivity> consumer) {
+    long fromMicros = toMicros(from);
+    long toMicros = toMicros(to);
+    long decoded = 0;
+    for (Group group : groups) {
+      if (!group.overlaps(itemId, fromMicros, toMicros)) {
+        continue;
+      }
+      long[] itemIds = deltas(group, ITEM_ID);
+      long[] times = deltas(group, ACTIVITY_TIME);
+      Cursor activityIds = column(group, ACTIVITY_ID);
+      Cursor storeIds = column(group, STORE_ID);
+      Cursor typeCodes = column(group, ACTIVITY_TYPE);
+      Cursor valueCodes = column(group, ACTIVITY_VALUE);
+      Cursor nameCodes = column(group, ITEM_NAME);
+      Cursor messageCodes = column(group, MESSAGE);
+      Cursor creationTimes = column(group, CREATION_TIME);
+      long activityId = 0;
+      for (int row = 0; row < group.rows(); row++) {
+        activityId += unZigZag(activityIds.readVarLong());
+        long storeId = storeIds.readVarLong();
+        int typeCode = (int) typeCodes.readVarLong();
+        int valueCode = (int) valueCodes.readVarLong();
+        int nameCode = (int) nameCodes.readVarLong();
+        int messageCode = (int) messageCodes.readVarLong();
+        long creationTime = creationTimes.readVarLong();
+        if ((itemId != null && itemIds[row] != itemId) || times[row] < fromMicros || times[row] > toMicros) {
+          continue;
+        }
+        consumer.accept(ArchivedActivity.builder()
+            .activityId(activityId)
+            .itemId(itemIds[row])
+            .storeId(storeId == 0 ? null : unZigZag(storeId - 1))
+            .activityType(dictionaries[ACTIVITY_TYPE][typeCode])
+            .activityValue(dictionaries[ACTIVITY_VALUE][valueCode])
+            .itemName(dictionaries[ITEM_NAME][nameCode])
+            .message(dictionaries[MESSAGE][messageCode])
+            .activityTimestamp(fromMicros(times[row]))
+            .creationTimestamp(creationTime == 0 ? null : fromMicros(times[row] + unZigZag(creationTime - 1)))
+            .archived(true)
+            .build());
+      }
+      decoded += group.rows();
+    }
+    return decoded;
+  }
+
+  // Aggregate scan over the item, store, type, value and time columns only; returns the rows decoded
+  public long scan(Long itemId, LocalDateTime from, LocalDateTime to, RowVisitor visitor) {
+    long fromMicros = toMicros(from);
+    long toMicros = toMicros(to);
+    long decoded = 0;
+    for (Group group : groups) {
+      if (!group.overlaps(itemId, fromMicros, toMicros)) {
+        continue;
+      }
+      long[] itemIds = deltas(group, ITEM_ID);
+      long[] times = deltas(group, ACTIVITY_TIME);
+      Cursor storeIds = column(group, STORE_ID);
+      Cursor typeCodes = column(group, ACTIVITY_TYPE);
+      Cursor valueCodes = column(group, ACTIVITY_VALUE);
+      for (int row = 0; row < group.rows(); row++) {
+        long storeId = storeIds.readVarLong();
+        int typeCode = (int) typeCodes.readVarLong();
+        int valueCode = (int) valueCodes.readVarLong();
+        if ((itemId != null && itemIds[row] != itemId) || times[row] < fromMicros || times[row] > toMicros) {
+          continue;
+        }
+        visitor.visit(itemIds[row], storeId == 0 ? NO_STORE : unZigZag(storeId - 1), types[typeCode],
+            quantities[valueCode], times[row]);
+      }
+      decoded += group.rows();
+    }
+    return decoded;
+  }
+
+  private long[] deltas(Group group, int column) {
+    Cursor cursor = column(group, column);
+    long[] values = new long[group.rows()];
+    long value = 0;
+    for (int row = 0; row < values.length; row++) {
+      value += unZigZag(cursor.readVarLong());
+      values[row] = value;
+    }
+    return values;
+  }
+
+  private Cursor column(Group group, int column) {
+    return new Cursor(inflate(group.offsets()[column], group.lengths()[column], group.rawLengths()[column]));
+  }
+
+  private byte[] inflate(long offset, int length, int rawLength) {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(buffer.slice((int) offset, length));
+      byte[] raw = new byte[rawLength];
+      int inflated = 0;
+      while (inflated < rawLength && !inflater.finished()) {
+        int n = inflater.inflate(raw, inflated, rawLength - inflated);
+        if (n == 0 && inflater.needsInput()) {
+          break;
+        }
+        inflated += n;
+      }
+      if (inflated != rawLength) {
+        throw new IllegalStateException("Truncated column block in " + path);
+      }
+      return raw;
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Corrupt column block in " + path, e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static long quantity(String value) {
+    if (value == null) {
+      return NOT_A_QUANTITY;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return NOT_A_QUANTITY;
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.org.archive;
+
+import static com.org.archive.ActivityColumns.ACTIVITY_ID;
+import static com.org.archive.ActivityColumns.ACTIVITY_TIME;
+import static com.org.archive.ActivityColumns.ACTIVITY_TYPE;
+import static com.org.archive.ActivityColumns.ACTIVITY_VALUE;
+import static com.org.archive.ActivityColumns.COLUMNS;
+import static com.org.archive.ActivityColumns.CREATION_TIME;
+import static com.org.archive.ActivityColumns.DICTIONARY_COLUMNS;
+import static com.org.archive.ActivityColumns.ITEM_ID;
+import static com.org.archive.ActivityColumns.ITEM_NAME;
+import static com.org.archive.ActivityColumns.MESSAGE;
+import static com.org.archive.ActivityColumns.STORE_ID;
+import static com.org.archive.ActivityColumns.toMicros;
+import static com.org.archive.ActivityColumns.zigZag;
+
+import com.org.archive.ActivityColumns.Buffer;
+import com.org.model.ArchivedActivity;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+// Writes one archive file (layout in ActivityColumns). Rows are cut into groups of up to groupRows; each
+// column of a group is deflated on its own, so a scan inflates only the columns it reads, and only from
+// the groups whose item and time bounds it overlaps. Rows written in item and time order compress best
+// and prune best, but any order reads back correctly. Only finish() makes the file durable.
+public class ActivityColumnWriter implements Closeable {
+
+  public static final int DEFAULT_GROUP_ROWS = 4_096;
+
+  private final FileChannel channel;
+  private final int groupRows;
+  private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+  private final Buffer[] columns = new Buffer[COLUMNS];
+  private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+  private final Buffer groupMeta = new Buffer(4_096);
+  private final byte[] deflated = new byte[64 * 1_024];
+  private long position;
+
+  private int fileRows;
+  private int groups;
+  private long minActivityId = Long.MAX_VALUE;
+  private long maxActivityId = Long.MIN_VALUE;
+
+  private int rows;
+  private long minItem;
+  private long maxItem;
+  private long minTime;
+  private long maxTime;
+  private long previousActivityId;
+  private long previousItemId;
+  private long previousTime;
+
+  public ActivityColumnWriter(Path path) throws IOException {
+    this(path, DEFAULT_GROUP_ROWS);
+  }
+
+  public ActivityColumnWriter(Path path, int groupRows) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    this.groupRows = groupRows;
+    for (int column = 0; column < COLUMNS; column++) {
+      columns[column] = new Buffer(groupRows * 2);
+    }
+    for (int i = 0; i < DICTIONARY_COLUMNS.length; i++) {
+      dictionaries.add(new HashMap<>());
+    }
+    Buffer header = new Buffer(8);
+    header.writeInt(ActivityColumns.MAGIC);
+    header.writeInt(ActivityColumns.VERSION);
+    write(header.array(), header.size());
+  }
+
+  // Item id and activity time are required; the archiver only moves rows that have both
+  public void write(ArchivedActivity row) throws IOException {
+    long activityId = row.getActivityId();
+    long itemId = row.getItemId();
+    long time = toMicros(row.getActivityTimestamp());
+    if (rows == 0) {
+      minItem = maxItem = itemId;
+      minTime = maxTime = time;
+      previousActivityId = previousItemId = previousTime = 0;
+    }
+    columns[ACTIVITY_ID].writeVarLong(zigZag(activityId - previousActivityId));
+    columns[ITEM_ID].writeVarLong(zigZag(itemId - previousItemId));
+    columns[STORE_ID].writeVarLong(row.getStoreId() == null ? 0 : zigZag(row.getStoreId()) + 1);
+    columns[ACTIVITY_TYPE].writeVarLong(code(0, row.getActivityType()));
+    columns[ACTIVITY_VALUE].writeVarLong(code(1, row.getActivityValue()));
+    columns[ITEM_NAME].writeVarLong(code(2, row.getItemName()));
+    columns[MESSAGE].writeVarLong(code(3, row.getMessage()));
+    columns[ACTIVITY_TIME].writeVarLong(zigZag(time - previousTime));
+    columns[CREATION_TIME].writeVarLong(row.getCreationTimestamp() == null ? 0
+        : zigZag(toMicros(row.getCreationTimestamp()) - time) + 1);
+
+    previousActivityId = activityId;
+    previousItemId = itemId;
+    previousTime = time;
+    minItem = Math.min(minItem, itemId);
+    maxItem = Math.max(maxItem, itemId);
+    minTime = Math.min(minTime, time);
+    maxTime = Math.max(maxTime, time);
+    minActivityId = Math.min(minActivityId, activityId);
+    maxActivityId = Math.max(maxActivityId, activityId);
+    fileRows++;
+    if (++rows == groupRows) {
+      flushGroup();
+    }
+  }
+
+  public int rows() {
+    return fileRows;
+  }
+
+  public long minActivityId() {
+    return minActivityId;
+  }
+
+  public long maxActivityId() {
+    return maxActivityId;
+  }
+
+  // Writes the dictionaries and footer and forces the file to disk; returns the file size
+  public long finish() throws IOException {
+    if (rows > 0) {
+      flushGroup();
+    }
+    Buffer dictionary = new Buffer(4_096);
+    for (Map<String, Integer> codes : dictionaries) {
+      String[] entries = new String[codes.size()];
+      codes.forEach((value, code) -> entries[code - 1] = value);
+      dictionary.writeVarLong(entries.length);
+      for (String entry : entries) {
+        dictionary.writeString(entry);
+      }
+    }
+    long dictionaryOffset = position;
+    int dictionaryLength = deflate(dictionary);
+
+    Buffer footer = new Buffer(groupMeta.size() + 48);
+    footer.writeInt(fileRows);
+    footer.writeLong(fileRows == 0 ? 0 : minActivityId);
+    footer.writeLong(fileRows == 0 ? 0 : maxActivityId);
+    footer.writeInt(groups);
+    footer.writeBytes(groupMeta);
+    footer.writeLong(dictionaryOffset);
+    footer.writeInt(dictionaryLength);
+    footer.writeInt(dictionary.size());
+    long footerOffset = position;
+    write(footer.array(), footer.size());
+
+    Buffer trailer = new Buffer(ActivityColumns.TRAILER_BYTES);
+    trailer.writeLong(footerOffset);
+    trailer.writeInt(footer.size());
+    trailer.writeInt(ActivityColumns.MAGIC);
+    write(trailer.array(), trailer.size());
+    channel.force(true);
+    return position;
+  }
+
+  @Override
+  public void close() throws IOException {
+    deflater.end();
+    channel.close();
+  }
+
+  private long code(int dictionary, String value) {
+    if (value == null) {
+      return 0;
+    }
+    Map<String, Integer> codes = dictionaries.get(dictionary);
+    return codes.computeIfAbsent(value, key -> codes.size() + 1);
+  }
+
+  private void flushGroup() throws IOException {
+    groupMeta.writeInt(rows);
+    groupMeta.writeLong(minItem);
+    groupMeta.writeLong(maxItem);
+    groupMeta.writeLong(minTime);
+    groupMeta.writeLong(maxTime);
+    for (Buffer column : columns) {
+      long offset = position;
+      int length = deflate(column);
+      groupMeta.writeLong(offset);
+      groupMeta.writeInt(length);
+      groupMeta.writeInt(column.size());
+      column.clear();
+    }
+    groups++;
+    rows = 0;
+  }
+
+  private int deflate(Buffer raw) throws IOException {
+    deflater.reset();
+    deflater.setInput(raw.array(), 0, raw.size());
+    deflater.finish();
+    int length = 0;
+    while (!deflater.finished()) {
+      int n = deflater.deflate(deflated);
+      write(deflated, n);
+      length += n;
+    }
+    return length;
+  }
+
+  private void write(byte[] bytes, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer);
+    }
+  }
+}
@@ -0,0 +1,152 @@
+package com.org.archive;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// Layout shared by the archive writer and reader.
+//
+// file    := MAGIC VERSION group* dictionaries footer footerOffset:long footerLength:int MAGIC
+// group   := one deflated block per column, in COLUMNS order
+// footer  := rows:int minActivityId:long maxActivityId:long groupCount:int
+//            (rows:int minItem:long maxItem:long minTime:long maxTime:long (offset:long length:int raw:int){COLUMNS})*
+//            dictionaries (offset:long length:int raw:int)
+//
+// Within a group each column is a run of varints: ids and times as zig-zag deltas from the previous row
+// (starting from 0 in every group, so groups decode on their own), strings as codes into the file's
+// dictionary for that column (0 is null), store ids and creation times zig-zagged with 0 for null.
+// Times are microseconds since the epoch of the stored local date-time, as Postgres keeps them.
+final class ActivityColumns {
+
+  static final int MAGIC = 0x49414354;
+  static final int VERSION = 1;
+  static final int TRAILER_BYTES = 16;
+
+  static final int ACTIVITY_ID = 0;
+  static final int ITEM_ID = 1;
+  static final int STORE_ID = 2;
+  static final int ACTIVITY_TYPE = 3;
+  static final int ACTIVITY_VALUE = 4;
+  static final int ITEM_NAME = 5;
+  static final int MESSAGE = 6;
+  static final int ACTIVITY_TIME = 7;
+  static final int CREATION_TIME = 8;
+  static final int COLUMNS = 9;
+
+  // Dictionary-coded columns, in the order their dictionaries are stored
+  static final int[] DICTIONARY_COLUMNS = {ACTIVITY_TYPE, ACTIVITY_VALUE, ITEM_NAME, MESSAGE};
+
+  private ActivityColumns() {
+  }
+
+  static long toMicros(LocalDateTime time) {
+    return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + time.getNano() / 1_000;
+  }
+
+  static LocalDateTime fromMicros(long micros) {
+    return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+        (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+  }
+
+  static long zigZag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  static long unZigZag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  // Growable byte buffer with the encodings above
+  static final class Buffer {
+
+    private byte[] bytes;
+    private int size;
+
+    Buffer(int capacity) {
+      this.bytes = new byte[capacity];
+    }
+
+    void writeVarLong(long value) {
+      ensure(10);
+      while ((value & ~0x7FL) != 0) {
+        bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      bytes[size++] = (byte) value;
+    }
+
+    void writeInt(int value) {
+      ensure(4);
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        bytes[size++] = (byte) (value >>> shift);
+      }
+    }
+
+    void writeLong(long value) {
+      writeInt((int) (value >>> 32));
+      writeInt((int) value);
+    }
+
+    void writeBytes(Buffer other) {
+      ensure(other.size);
+      System.arraycopy(other.bytes, 0, bytes, size, other.size);
+      size += other.size;
+    }
+
+    void writeString(String value) {
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      writeVarLong(utf8.length);
+      ensure(utf8.length);
+      System.arraycopy(utf8, 0, bytes, size, utf8.length);
+      size += utf8.length;
+    }
+
+    byte[] array() {
+      return bytes;
+    }
+
+    int size() {
+      return size;
+    }
+
+    void clear() {
+      size = 0;
+    }
+
+    private void ensure(int more) {
+      if (size + more > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + more));
+      }
+    }
+  }
+
+  // Reads varints and strings back from an inflated column
+  static final class Cursor {
+
+    private final byte[] bytes;
+    private int position;
+
+    Cursor(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    long readVarLong() {
+      long value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = bytes[position++];
+        value |= (long) (b & 0x7F) << shift;
+        if (b >= 0) {
+          return value;
+        }
+      }
+    }
+
+    String readString() {
+      int length = (int) readVarLong();
+      String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+  }
+}
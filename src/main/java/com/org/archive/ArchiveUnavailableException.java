@@ -0,0 +1,14 @@
+package com.org.archive;
+
+// A catalogued archive file is not on this instance's disk (the catalog is shared, the files are local to the
+// instance that archived them) or cannot be read; queries that need it answer 503 instead of a partial result
+public class ArchiveUnavailableException extends RuntimeException {
+
+  public ArchiveUnavailableException(String message) {
+    super(message);
+  }
+
+  public ArchiveUnavailableException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
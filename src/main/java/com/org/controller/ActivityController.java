@@ -0,0 +1,55 @@
+package com.org.controller;
+
+import com.org.entity.ActivityDeadLetter;
+import com.org.model.ActivitySummaryResponse;
+import com.org.model.ArchivedActivity;
+import com.org.model.DeadLetterReplayRequest;
+import com.org.model.DeadLetterReplayResponse;
+import com.org.service.ActivityDeadLetterService;
+import com.org.service.ActivityHistoryService;
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("activity")
+@AllArgsConstructor
+public class ActivityController {
+
+  private final ActivityDeadLetterService activityDeadLetterService;
+  private final ActivityHistoryService activityHistoryService;
+
+  @GetMapping("dead-letters")
+  public ResponseEntity<List<ActivityDeadLetter>> listDeadLetters(@RequestParam(defaultValue = "100") int limit) {
+    return activityDeadLetterService.listPending(limit);
+  }
+
+  @PostMapping("dead-letters/replay")
+  public ResponseEntity<DeadLetterReplayResponse> replayDeadLetters(@RequestBody List<DeadLetterReplayRequest> request) {
+    return activityDeadLetterService.replay(request);
+  }
+
+  @GetMapping("history/{itemId}")
+  public ResponseEntity<List<ArchivedActivity>> getHistory(@PathVariable Long itemId,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+      @RequestParam(defaultValue = "1000") int limit) {
+    return activityHistoryService.getHistory(itemId, from, to, limit);
+  }
+
+  @GetMapping("summary")
+  public ResponseEntity<ActivitySummaryResponse> getSummary(@RequestParam(required = false) Long itemId,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+    return activityHistoryService.getSummary(itemId, from, to);
+  }
+}
@@ -0,0 +1,34 @@
+package com.org.controller;
+
+import com.org.service.FlightRecorderService;
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Off unless instore.diagnostics.endpoint.enabled=true: a recording carries system properties, environment and
+// thread stacks, so only expose it where the port is not reachable by clients. The continuous recording is separate.
+@RestController
+@RequestMapping("diagnostics")
+@ConditionalOnProperty(prefix = "instore.diagnostics.endpoint", name = "enabled", havingValue = "true")
+@AllArgsConstructor
+public class DiagnosticsController {
+
+  private final FlightRecorderService flightRecorderService;
+
+  @GetMapping("recording")
+  public ResponseEntity<StreamingResponseBody> record(@RequestParam(defaultValue = "PT30S") Duration duration,
+      @RequestParam(defaultValue = "profile") String settings) {
+    return flightRecorderService.record(duration, settings);
+  }
+
+  @GetMapping("recording/continuous")
+  public ResponseEntity<StreamingResponseBody> dumpContinuous() {
+    return flightRecorderService.dumpContinuous();
+  }
+}
@@ -1,15 +1,34 @@
 package com.org.controller;
 
+import com.org.job.StockReconciliationJob;
+import com.org.model.BasketSaleRequest;
+import com.org.model.BasketSaleResponse;
 import com.org.model.InventoryRequest;
-import com.org.model.InventoryResponse;
+import com.org.model.ReconciliationReport;
+import com.org.model.StockAtTimeResponse;
+import com.org.model.StockAvailabilityResponse;
+import com.org.service.AdmissionControl;
+import com.org.service.AdmissionControl.Ticket;
+import com.org.service.BasketSaleService;
+import com.org.service.InventoryExportService;
 import com.org.service.InventoryService;
+import com.org.service.StockHistoryService;
+import com.org.utility.AdmissionEndpoint;
+import jakarta.servlet.http.HttpServletRequest;
+import java.time.LocalDateTime;
 import java.util.List;
 import lombok.AllArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("inventory")
@@ -17,14 +36,61 @@ import org.springframework.web.bind.annotation.RestController;
 public class InventoryController {
 
   private final InventoryService inventoryService;
+  private final BasketSaleService basketSaleService;
+  private final StockReconciliationJob stockReconciliationJob;
+  private final InventoryExportService inventoryExportService;
+  private final StockHistoryService stockHistoryService;
+  private final AdmissionControl admissionControl;
 
   @PutMapping("update")
-  public ResponseEntity<List<InventoryResponse>> updateInventory(@RequestBody List<InventoryRequest> request) {
-    return inventoryService.updateInventory(request);
+  public ResponseEntity<?> updateInventory(@RequestBody List<InventoryRequest> request,
+      @RequestParam(defaultValue = "false") boolean failuresOnly, HttpServletRequest servletRequest) {
+    try (Ticket ticket = admissionControl.tryAdmit(AdmissionEndpoint.INVENTORY_UPDATE, servletRequest, request == null ? 0 : request.size())) {
+      if (!ticket.isAdmitted()) {
+        return ticket.rejection();
+      }
+      return failuresOnly ? inventoryService.updateInventoryFailures(request) : inventoryService.updateInventory(request);
+    }
   }
 
   @PutMapping("recordSales")
-  public ResponseEntity<List<InventoryResponse>> recordSales(@RequestBody List<InventoryRequest> request) {
-    return inventoryService.recordSales(request);
+  public ResponseEntity<?> recordSales(@RequestBody List<InventoryRequest> request,
+      @RequestParam(defaultValue = "false") boolean failuresOnly, HttpServletRequest servletRequest) {
+    try (Ticket ticket = admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, servletRequest, request == null ? 0 : request.size())) {
+      if (!ticket.isAdmitted()) {
+        return ticket.rejection();
+      }
+      return failuresOnly ? inventoryService.recordSalesFailures(request) : inventoryService.recordSales(request);
+    }
+  }
+
+  @PutMapping("basket")
+  public ResponseEntity<BasketSaleResponse> sellBasket(@RequestBody BasketSaleRequest request, HttpServletRequest servletRequest) {
+    int lines = request == null || request.getLines() == null ? 0 : request.getLines().size();
+    try (Ticket ticket = admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, servletRequest, lines)) {
+      return ticket.isAdmitted() ? basketSaleService.sellBasket(request) : ticket.rejection();
+    }
+  }
+
+  @GetMapping("availability/{itemId}")
+  public ResponseEntity<StockAvailabilityResponse> getAvailability(@PathVariable Long itemId) {
+    return inventoryService.getAvailability(itemId);
+  }
+
+  @GetMapping("stock-at/{itemId}")
+  public ResponseEntity<StockAtTimeResponse> getStockAt(@PathVariable Long itemId,
+      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at,
+      @RequestParam(required = false) Long storeId) {
+    return stockHistoryService.getStockAt(itemId, at, storeId);
+  }
+
+  @PostMapping("reconcile")
+  public ResponseEntity<ReconciliationReport> reconcile(@RequestParam(defaultValue = "false") boolean repair) {
+    return ResponseEntity.ok(stockReconciliationJob.reconcile(repair));
+  }
+
+  @GetMapping("export")
+  public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String format) {
+    return inventoryExportService.exportSnapshot(format);
   }
 }
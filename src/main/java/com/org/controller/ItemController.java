@@ -1,10 +1,16 @@
 package com.org.controller;
 
 import com.org.model.AddItemRequest;
-import com.org.model.AddItemResponse;
+import com.org.model.BulkDeleteResponse;
+import com.org.model.BulkRepriceRequest;
+import com.org.model.BulkRepriceResponse;
 import com.org.model.UpdateItemRequest;
 import com.org.model.UpdateItemResponse;
+import com.org.service.AdmissionControl;
+import com.org.service.AdmissionControl.Ticket;
 import com.org.service.ItemService;
+import com.org.utility.AdmissionEndpoint;
+import jakarta.servlet.http.HttpServletRequest;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -13,6 +19,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -20,19 +27,39 @@ import org.springframework.web.bind.annotation.RestController;
 @AllArgsConstructor
 public class ItemController {
   private final ItemService itemService;
+  private final AdmissionControl admissionControl;
 
   @PostMapping("add")
-  public ResponseEntity<List<AddItemResponse>> addItem(@RequestBody List<AddItemRequest> request) {
-    return itemService.addItem(request);
+  public ResponseEntity<?> addItem(@RequestBody List<AddItemRequest> request,
+      @RequestParam(defaultValue = "false") boolean failuresOnly, HttpServletRequest servletRequest) {
+    try (Ticket ticket = admissionControl.tryAdmit(AdmissionEndpoint.ITEM_ADD, servletRequest, request == null ? 0 : request.size())) {
+      if (!ticket.isAdmitted()) {
+        return ticket.rejection();
+      }
+      return failuresOnly ? itemService.addItemFailures(request) : itemService.addItem(request);
+    }
   }
 
   @PutMapping("update")
-  public ResponseEntity<List<UpdateItemResponse>> updateItem(@RequestBody List<UpdateItemRequest> request) {
-    return itemService.updateItem(request);
+  public ResponseEntity<List<UpdateItemResponse>> updateItem(@RequestBody List<UpdateItemRequest> request,
+      HttpServletRequest servletRequest) {
+    try (Ticket ticket = admissionControl.tryAdmit(AdmissionEndpoint.ITEM_UPDATE, servletRequest, request == null ? 0 : request.size())) {
+      return ticket.isAdmitted() ? itemService.updateItem(request) : ticket.rejection();
+    }
+  }
+
+  @PutMapping("reprice")
+  public ResponseEntity<BulkRepriceResponse> repriceItems(@RequestBody BulkRepriceRequest request) {
+    return itemService.repriceItems(request);
   }
 
   @PostMapping("delete/{itemId}")
   public ResponseEntity<String> deleteItem(@PathVariable Long itemId) {
     return itemService.deleteItem(itemId);
   }
+
+  @PostMapping("delete")
+  public ResponseEntity<BulkDeleteResponse> deleteItems(@RequestBody List<Long> itemIds) {
+    return itemService.deleteItems(itemIds);
+  }
 }
@@ -0,0 +1,37 @@
+package com.org.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+// Read-only connections: from the replica while it is in rotation, otherwise from the primary
+public class ReplicaDataSource extends DelegatingDataSource {
+
+  private final DataSource primary;
+  private final ReplicaLagMonitor lagMonitor;
+
+  public ReplicaDataSource(DataSource replica, DataSource primary, ReplicaLagMonitor lagMonitor) {
+    super(replica);
+    this.primary = primary;
+    this.lagMonitor = lagMonitor;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    if (lagMonitor.isUsable()) {
+      return obtainTargetDataSource().getConnection();
+    }
+    lagMonitor.fellBack();
+    return primary.getConnection();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    if (lagMonitor.isUsable()) {
+      return obtainTargetDataSource().getConnection(username, password);
+    }
+    lagMonitor.fellBack();
+    return primary.getConnection(username, password);
+  }
+}
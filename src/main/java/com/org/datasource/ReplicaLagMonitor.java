@@ -0,0 +1,77 @@
+package com.org.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Probes how far the replica's replay is behind and takes it out of rotation while that exceeds the
+// allowed lag or the probe fails. A replica with everything received replayed is current, however old its
+// last replayed transaction; a server that is not in recovery (one instance standing in for both) is too.
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "instore.datasource.replica", name = "url")
+public class ReplicaLagMonitor {
+
+  private static final String LAG_SQL = """
+      SELECT CASE
+        WHEN NOT pg_is_in_recovery() THEN 0
+        WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+        ELSE coalesce(extract(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+      END""";
+
+  private final JdbcTemplate replicaJdbcTemplate;
+  private final double maxLagSeconds;
+  private final Counter fallbacks;
+
+  // Out of rotation until the first probe has passed
+  private volatile boolean usable;
+  private volatile double lagSeconds = Double.NaN;
+
+  public ReplicaLagMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource, MeterRegistry meterRegistry,
+      @Value("${instore.datasource.replica.max-lag:PT5S}") Duration maxLag) {
+    this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+    this.replicaJdbcTemplate.setQueryTimeout(5);
+    this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+    this.fallbacks = meterRegistry.counter("instore.datasource.replica.fallbacks");
+    Gauge.builder("instore.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    Gauge.builder("instore.datasource.replica.usable", this, monitor -> monitor.usable ? 1 : 0).register(meterRegistry);
+  }
+
+  @Scheduled(fixedDelayString = "${instore.datasource.replica.lag-check-interval:PT1S}")
+  public void probe() {
+    boolean wasUsable = usable;
+    try {
+      Double lag = replicaJdbcTemplate.queryForObject(LAG_SQL, Double.class);
+      lagSeconds = lag != null ? lag : 0;
+      usable = lagSeconds <= maxLagSeconds;
+    } catch (Exception e) {
+      lagSeconds = Double.NaN;
+      usable = false;
+      if (wasUsable) {
+        log.warn("Replica lag probe failed, reading from the primary: {}", e.getMessage());
+      }
+    }
+    if (wasUsable != usable) {
+      log.info("Replica {} rotation at {}s lag", usable ? "back in" : "out of", lagSeconds);
+    }
+  }
+
+  public boolean isUsable() {
+    return usable;
+  }
+
+  void fellBack() {
+    fallbacks.increment();
+  }
+}
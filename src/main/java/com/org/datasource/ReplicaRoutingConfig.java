@@ -0,0 +1,60 @@
+package com.org.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+// With instore.datasource.replica.url set, read-only transactions (and connections marked read-only before
+// their first statement, like the snapshot export's) run on a replica pool and everything else on the
+// primary pool. The connection is only taken from a pool at the first statement, once the transaction
+// manager has marked it read-only. Each pool is its own Hikari pool, so hikaricp.* metrics come per pool.
+@Configuration
+@ConditionalOnProperty(prefix = "instore.datasource.replica", name = "url")
+public class ReplicaRoutingConfig {
+
+  @Bean
+  @ConfigurationProperties("spring.datasource.hikari")
+  public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+    HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    dataSource.setPoolName("primary");
+    return dataSource;
+  }
+
+  @Bean
+  @ConfigurationProperties("instore.datasource.replica.hikari")
+  public HikariDataSource replicaDataSource(DataSourceProperties properties,
+      @Value("${instore.datasource.replica.url}") String url,
+      @Value("${instore.datasource.replica.username:${spring.datasource.username:}}") String username,
+      @Value("${instore.datasource.replica.password:${spring.datasource.password:}}") String password) {
+    HikariDataSource dataSource = DataSourceBuilder.create()
+        .type(HikariDataSource.class)
+        .driverClassName(properties.determineDriverClassName())
+        .url(url)
+        .username(username)
+        .password(password)
+        .build();
+    dataSource.setPoolName("replica");
+    dataSource.setReadOnly(true);
+    // Refuse writes outside transactions too, so nothing writes to the replica even when one instance stands in for both
+    dataSource.addDataSourceProperty("readOnlyMode", "always");
+    return dataSource;
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+      @Qualifier("replicaDataSource") DataSource replicaDataSource, ReplicaLagMonitor replicaLagMonitor) {
+    LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primaryDataSource);
+    routing.setReadOnlyDataSource(new ReplicaDataSource(replicaDataSource, primaryDataSource, replicaLagMonitor));
+    return routing;
+  }
+}
@@ -0,0 +1,37 @@
+package com.org.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Serializing one activity event and handing it to the spool or the Kafka producer
+@Name("com.org.inventory.ActivityEventSend")
+@Label("Activity Event Send")
+@Category({"InStore", "Kafka"})
+@Description("An activity event serialized and handed to the spool or the Kafka producer")
+@StackTrace(false)
+public class ActivityEventSendEvent extends Event {
+
+  @Label("Activity Type")
+  public String activityType;
+
+  @Label("Item Id")
+  public long itemId;
+
+  @Label("Store Id")
+  public long storeId;
+
+  @Label("Batch Size")
+  public int batchSize;
+
+  @Label("Destination")
+  public String destination;
+
+  @Label("Size")
+  @DataAmount
+  public int size;
+}
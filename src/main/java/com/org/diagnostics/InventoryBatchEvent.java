@@ -0,0 +1,26 @@
+package com.org.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// One inventory/update or inventory/recordSales batch, from the request thread handing it over until every line is answered
+@Name("com.org.inventory.Batch")
+@Label("Inventory Batch")
+@Category({"InStore", "Inventory"})
+@Description("An inventory update or sales batch, start to last line answered")
+@StackTrace(false)
+public class InventoryBatchEvent extends Event {
+
+  @Label("Endpoint")
+  public String endpoint;
+
+  @Label("Batch Size")
+  public int batchSize;
+
+  @Label("Failed Lines")
+  public int failedLines;
+}
@@ -0,0 +1,40 @@
+package com.org.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// One line on its store lane; the event duration is the work on the lane, queuedTime the wait before it
+@Name("com.org.inventory.Line")
+@Label("Inventory Line")
+@Category({"InStore", "Inventory"})
+@Description("One inventory line applied on its store lane")
+@StackTrace(false)
+public class InventoryLineEvent extends Event {
+
+  @Label("Item Id")
+  public long itemId;
+
+  @Label("Store Id")
+  public long storeId;
+
+  @Label("Operation Type")
+  public String operationType;
+
+  @Label("Batch Size")
+  public int batchSize;
+
+  @Label("Status")
+  public String status;
+
+  @Label("Message")
+  public String message;
+
+  @Label("Queued Time")
+  @Timespan(Timespan.NANOSECONDS)
+  public long queuedTime;
+}
@@ -0,0 +1,35 @@
+package com.org.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// A Spring Data repository call, tagged with the inventory line the thread is working on (if any)
+@Name("com.org.inventory.RepositoryCall")
+@Label("Repository Call")
+@Category({"InStore", "Database"})
+@Description("A repository method call and the inventory line it was made for")
+@StackTrace(false)
+public class RepositoryCallEvent extends Event {
+
+  @Label("Repository")
+  public String repository;
+
+  @Label("Method")
+  public String method;
+
+  @Label("Item Id")
+  public long itemId;
+
+  @Label("Operation Type")
+  public String operationType;
+
+  @Label("Batch Size")
+  public int batchSize;
+
+  @Label("Failed")
+  public boolean failed;
+}
@@ -0,0 +1,54 @@
+package com.org.diagnostics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Component;
+
+// Times every Spring Data repository call as a JFR event. With no recording running shouldCommit() is
+// false and the cost is a timestamp pair; names are only resolved for events that are kept.
+@Aspect
+@Component
+public class RepositoryTracingAspect {
+
+  private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+
+  @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+  public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+    RepositoryCallEvent event = new RepositoryCallEvent();
+    event.begin();
+    boolean failed = true;
+    try {
+      Object result = joinPoint.proceed();
+      failed = false;
+      return result;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        TraceContext context = TraceContext.current();
+        event.repository = repositoryName(joinPoint.getThis().getClass());
+        event.method = joinPoint.getSignature().getName();
+        event.itemId = context.itemId();
+        event.operationType = context.operationType();
+        event.batchSize = context.batchSize();
+        event.failed = failed;
+        event.commit();
+      }
+    }
+  }
+
+  // The proxy implements the application's repository interface next to Spring's own; report ours
+  private String repositoryName(Class<?> proxyClass) {
+    return repositoryNames.computeIfAbsent(proxyClass, type -> {
+      for (Class<?> candidate : type.getInterfaces()) {
+        if (Repository.class.isAssignableFrom(candidate) && !candidate.getName().startsWith("org.springframework.")) {
+          return candidate.getSimpleName();
+        }
+      }
+      return type.getSimpleName();
+    });
+  }
+}
@@ -0,0 +1,42 @@
+package com.org.diagnostics;
+
+// The inventory line the current thread is working on, so events raised below the service (repository
+// calls, activity sends) carry its item id, operation type and batch size. One mutable holder per thread.
+public final class TraceContext {
+
+  private static final ThreadLocal<TraceContext> CURRENT = ThreadLocal.withInitial(TraceContext::new);
+
+  private long itemId;
+  private String operationType;
+  private int batchSize;
+
+  private TraceContext() {
+  }
+
+  public static TraceContext current() {
+    return CURRENT.get();
+  }
+
+  public static void enter(Long itemId, String operationType, int batchSize) {
+    TraceContext context = CURRENT.get();
+    context.itemId = itemId != null ? itemId : 0;
+    context.operationType = operationType;
+    context.batchSize = batchSize;
+  }
+
+  public static void exit() {
+    enter(null, null, 0);
+  }
+
+  public long itemId() {
+    return itemId;
+  }
+
+  public String operationType() {
+    return operationType;
+  }
+
+  public int batchSize() {
+    return batchSize;
+  }
+}
@@ -0,0 +1,45 @@
+package com.org.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
+@Entity
+@Table(name = "activity_dead_letter")
+@Data
+public class ActivityDeadLetter {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "dead_letter_id")
+  private Long id;
+
+  @Column(name = "payload", nullable = false)
+  private String payload;
+
+  @Column(name = "error")
+  private String error;
+
+  @Column(name = "source_topic")
+  private String sourceTopic;
+
+  @Column(name = "source_partition")
+  private Integer sourcePartition;
+
+  @Column(name = "source_offset")
+  private Long sourceOffset;
+
+  @Column(name = "failed_at", nullable = false, updatable = false)
+  @CreationTimestamp
+  private LocalDateTime failedAt;
+
+  @Column(name = "replayed_at")
+  private LocalDateTime replayedAt;
+
+}
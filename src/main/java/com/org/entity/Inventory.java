@@ -32,6 +32,9 @@ public class Inventory {
     @Column(name = "item_id")
     private Long itemId;
 
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
     @Column(name = "available_quantity", nullable = false)
     private Integer availableQuantity;
 
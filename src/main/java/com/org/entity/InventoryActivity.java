@@ -35,6 +35,9 @@ public class InventoryActivity {
   @Column(name = "item_id")
   private Long itemId;
 
+  @Column(name = "store_id")
+  private Long storeId;
+
   @Column(name = "activity_timestamp")
   private LocalDateTime activityTimestamp;
 
@@ -46,4 +46,7 @@ public class Item {
 
     @Column(name = "is_deleted")
     private Boolean isDeleted;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
 }
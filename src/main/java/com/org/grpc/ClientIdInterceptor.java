@@ -0,0 +1,39 @@
+package com.org.grpc;
+
+import com.org.service.AdmissionControl;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Grpc;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+// Puts the caller's identity in the call context: the x-client-id header a terminal sends, else its address.
+// Same keying as the X-Client-Id header on the REST endpoints so per-client rate limits line up.
+public class ClientIdInterceptor implements ServerInterceptor {
+
+  public static final Context.Key<String> CLIENT_ID = Context.keyWithDefault("instore-client-id", "unknown");
+
+  private static final Metadata.Key<String> CLIENT_ID_HEADER =
+      Metadata.Key.of(AdmissionControl.CLIENT_ID_HEADER.toLowerCase(), Metadata.ASCII_STRING_MARSHALLER);
+
+  @Override
+  public <Q, R> ServerCall.Listener<Q> interceptCall(ServerCall<Q, R> call, Metadata headers,
+      ServerCallHandler<Q, R> next) {
+    String clientId = headers.get(CLIENT_ID_HEADER);
+    if (clientId == null || clientId.isBlank()) {
+      clientId = remoteAddress(call.getAttributes().get(Grpc.TRANSPORT_ATTR_REMOTE_ADDR));
+    }
+    return Contexts.interceptCall(Context.current().withValue(CLIENT_ID, clientId), call, headers, next);
+  }
+
+  private String remoteAddress(SocketAddress address) {
+    if (address instanceof InetSocketAddress inet) {
+      return inet.getAddress() != null ? inet.getAddress().getHostAddress() : inet.getHostString();
+    }
+    return String.valueOf(address);
+  }
+}
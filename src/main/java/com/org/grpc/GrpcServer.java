@@ -0,0 +1,93 @@
+package com.org.grpc;
+
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+// Netty gRPC listener for POS terminals next to the servlet port. Handlers only decode and hand off to the
+// store lanes, so a few handler threads are enough; terminals keep one connection open and ping to hold it.
+// Off unless instore.grpc.enabled=true.
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "instore.grpc", name = "enabled", havingValue = "true")
+public class GrpcServer implements SmartLifecycle {
+
+  private final InventoryGrpcService inventoryGrpcService;
+  private final int port;
+  private final int handlerThreads;
+  private final Duration shutdownGrace;
+
+  private ExecutorService executor;
+  private Server server;
+
+  public GrpcServer(InventoryGrpcService inventoryGrpcService,
+      @Value("${instore.grpc.port:9090}") int port,
+      @Value("${instore.grpc.handler-threads:4}") int handlerThreads,
+      @Value("${instore.grpc.shutdown-grace:PT10S}") Duration shutdownGrace) {
+    this.inventoryGrpcService = inventoryGrpcService;
+    this.port = port;
+    this.handlerThreads = handlerThreads;
+    this.shutdownGrace = shutdownGrace;
+  }
+
+  @Override
+  public synchronized void start() {
+    executor = Executors.newFixedThreadPool(handlerThreads, runnable -> {
+      Thread thread = new Thread(runnable, "grpc-handler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    try {
+      server = NettyServerBuilder.forPort(port)
+          .executor(executor)
+          .addService(ServerInterceptors.intercept(inventoryGrpcService, new ClientIdInterceptor()))
+          .permitKeepAliveTime(30, TimeUnit.SECONDS)
+          .keepAliveTime(2, TimeUnit.MINUTES)
+          .build()
+          .start();
+      log.info("gRPC server listening on port {}", server.getPort());
+    } catch (IOException e) {
+      executor.shutdownNow();
+      throw new UncheckedIOException("Cannot start gRPC server on port " + port, e);
+    }
+  }
+
+  // Stops taking calls first, then gives in-flight baskets the grace period to finish on their lanes
+  @Override
+  public synchronized void stop() {
+    if (server == null) {
+      return;
+    }
+    server.shutdown();
+    try {
+      if (!server.awaitTermination(shutdownGrace.toMillis(), TimeUnit.MILLISECONDS)) {
+        server.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      server.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    executor.shutdownNow();
+    server = null;
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return server != null;
+  }
+
+  public synchronized int getPort() {
+    return server != null ? server.getPort() : -1;
+  }
+}
@@ -0,0 +1,235 @@
+package com.org.grpc;
+
+import com.org.grpc.proto.InventoryLine;
+import com.org.grpc.proto.InventorySalesGrpc;
+import com.org.grpc.proto.LineResult;
+import com.org.grpc.proto.SaleStatus;
+import com.org.grpc.proto.SalesReply;
+import com.org.grpc.proto.SalesRequest;
+import com.org.model.InventoryRequest;
+import com.org.model.InventoryResponse;
+import com.org.service.AdmissionControl;
+import com.org.service.AdmissionControl.Ticket;
+import com.org.service.InventoryService;
+import com.org.utility.AdmissionEndpoint;
+import com.org.utility.ResponseStatus;
+import com.org.utility.StockOperationType;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+// Sales from POS terminals over gRPC. Baskets are mapped onto InventoryRequest and go through
+// InventoryService.recordSalesAsync, so store lanes, admission budgets and activity events are the
+// same as PUT /inventory/recordSales; only the wire format and the connection model differ.
+@Component
+@Slf4j
+public class InventoryGrpcService extends InventorySalesGrpc.InventorySalesImplBase {
+
+  public static final Metadata.Key<String> RETRY_AFTER = Metadata.Key.of("retry-after", Metadata.ASCII_STRING_MARSHALLER);
+
+  private final InventoryService inventoryService;
+  private final AdmissionControl admissionControl;
+  private final int streamWindow;
+
+  public InventoryGrpcService(InventoryService inventoryService, AdmissionControl admissionControl,
+      @Value("${instore.grpc.stream-window:32}") int streamWindow) {
+    this.inventoryService = inventoryService;
+    this.admissionControl = admissionControl;
+    this.streamWindow = streamWindow;
+  }
+
+  @Override
+  public void recordSales(SalesRequest request, StreamObserver<SalesReply> responseObserver) {
+    processSafely(request).whenComplete((reply, error) -> {
+      if (error != null) {
+        responseObserver.onError(toStatusException(error));
+      } else {
+        responseObserver.onNext(reply);
+        responseObserver.onCompleted();
+      }
+    });
+  }
+
+  // Up to streamWindow baskets per connection are in flight at once; the next one is only pulled off
+  // the wire when a reply goes out, so a fast till cannot queue unbounded work on the server
+  @Override
+  public StreamObserver<SalesRequest> streamSales(StreamObserver<SalesReply> responseObserver) {
+    ServerCallStreamObserver<SalesReply> replies = (ServerCallStreamObserver<SalesReply>) responseObserver;
+    SalesStream stream = new SalesStream(replies);
+    replies.setOnCancelHandler(stream::cancelled);
+    replies.disableAutoRequest();
+    replies.request(streamWindow);
+    return stream;
+  }
+
+  // A synchronous throw still has to end in a reply: on a stream it would otherwise leave the basket
+  // counted as pending forever, and the stream would never complete
+  private CompletableFuture<SalesReply> processSafely(SalesRequest request) {
+    try {
+      return process(request);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private CompletableFuture<SalesReply> process(SalesRequest request) {
+    List<InventoryRequest> lines = toInventoryRequests(request);
+    Ticket ticket = admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, ClientIdInterceptor.CLIENT_ID.get(), lines.size());
+    if (!ticket.isAdmitted()) {
+      return CompletableFuture.failedFuture(rejection(ticket));
+    }
+    try {
+      return inventoryService.recordSalesAsync(lines)
+          .whenComplete((response, error) -> ticket.close())
+          .thenApply(response -> toReply(request.getSequence(), lines, response));
+    } catch (RuntimeException e) {
+      ticket.close();
+      throw e;
+    }
+  }
+
+  // Other known operation types are dropped, as on REST (an unset one means SELL); an unknown one is passed
+  // on and fails only its own line. Results then line up index by index.
+  private List<InventoryRequest> toInventoryRequests(SalesRequest request) {
+    List<InventoryRequest> requests = new ArrayList<>(request.getLinesCount());
+    for (InventoryLine line : request.getLinesList()) {
+      String operationType = line.getOperationType().isEmpty() ? StockOperationType.SELL.name() : line.getOperationType();
+      StockOperationType operation = StockOperationType.parse(operationType);
+      if (operation != null && operation != StockOperationType.SELL) {
+        continue;
+      }
+      requests.add(InventoryRequest.builder()
+          .quantity(line.getQuantity())
+          .operationType(operationType)
+          .itemId(line.getItemId())
+          .storeId(line.hasStoreId() ? line.getStoreId() : null)
+          .build());
+    }
+    return requests;
+  }
+
+  private SalesReply toReply(long sequence, List<InventoryRequest> lines, ResponseEntity<List<InventoryResponse>> response) {
+    if (response.getStatusCode() == HttpStatus.BAD_REQUEST) {
+      throw Status.INVALID_ARGUMENT.withDescription("Basket has no sale lines").asRuntimeException();
+    }
+    if (response.getBody() == null) {
+      throw Status.INTERNAL.withDescription("Sales could not be recorded").asRuntimeException();
+    }
+
+    SalesReply.Builder reply = SalesReply.newBuilder()
+        .setSequence(sequence)
+        .setComplete(response.getStatusCode() == HttpStatus.OK);
+    List<InventoryResponse> results = response.getBody();
+    for (int i = 0; i < results.size(); i++) {
+      InventoryRequest line = lines.get(i);
+      InventoryResponse result = results.get(i);
+      LineResult.Builder lineResult = LineResult.newBuilder()
+          .setQuantity(line.getQuantity())
+          .setItemId(line.getItemId())
+          .setStatus(result.getStatus() == ResponseStatus.SUCCESS ? SaleStatus.SUCCESS : SaleStatus.FAILED);
+      if (line.getStoreId() != null) {
+        lineResult.setStoreId(line.getStoreId());
+      }
+      if (result.getMessage() != null) {
+        lineResult.setMessage(result.getMessage());
+      }
+      reply.addResults(lineResult);
+    }
+    return reply.build();
+  }
+
+  private StatusRuntimeException rejection(Ticket ticket) {
+    Status status = ticket.getRejectionStatus() == HttpStatus.SERVICE_UNAVAILABLE ? Status.UNAVAILABLE : Status.RESOURCE_EXHAUSTED;
+    Metadata trailers = new Metadata();
+    if (ticket.getRetryAfterSeconds() > 0) {
+      trailers.put(RETRY_AFTER, Long.toString(ticket.getRetryAfterSeconds()));
+    }
+    return status.withDescription(ticket.getRejectionStatus().getReasonPhrase()).asRuntimeException(trailers);
+  }
+
+  private StatusRuntimeException toStatusException(Throwable error) {
+    Status status = Status.fromThrowable(error);
+    if (status.getCode() == Status.Code.UNKNOWN) {
+      log.error("Error recording gRPC sales: {}", error.getMessage());
+    }
+    return status.asRuntimeException(Status.trailersFromThrowable(error));
+  }
+
+  // A refused basket gets an error reply rather than failing the call, so one busy moment does not
+  // drop a till's connection and everything else it has in flight
+  private SalesReply refusedReply(long sequence, Throwable error) {
+    StatusRuntimeException exception = toStatusException(error);
+    String retryAfter = exception.getTrailers() != null ? exception.getTrailers().get(RETRY_AFTER) : null;
+    Status status = exception.getStatus();
+    return SalesReply.newBuilder()
+        .setSequence(sequence)
+        .setError(status.getDescription() != null ? status.getCode() + ": " + status.getDescription() : status.getCode().name())
+        .setRetryAfterSeconds(retryAfter != null ? Integer.parseInt(retryAfter) : 0)
+        .build();
+  }
+
+  private class SalesStream implements StreamObserver<SalesRequest> {
+
+    private final ServerCallStreamObserver<SalesReply> replies;
+    private int pending;
+    private boolean inputDone;
+    private boolean finished;
+
+    SalesStream(ServerCallStreamObserver<SalesReply> replies) {
+      this.replies = replies;
+    }
+
+    @Override
+    public void onNext(SalesRequest request) {
+      synchronized (this) {
+        pending++;
+      }
+      processSafely(request).whenComplete((reply, error) -> send(error == null ? reply : refusedReply(request.getSequence(), error)));
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      log.debug("Sales stream closed by terminal: {}", t.getMessage());
+      cancelled();
+    }
+
+    @Override
+    public synchronized void onCompleted() {
+      inputDone = true;
+      completeIfDrained();
+    }
+
+    synchronized void cancelled() {
+      finished = true;
+    }
+
+    private void send(SalesReply reply) {
+      synchronized (this) {
+        pending--;
+        if (finished) {
+          return;
+        }
+        replies.onNext(reply);
+        completeIfDrained();
+      }
+      replies.request(1);
+    }
+
+    private void completeIfDrained() {
+      if (inputDone && pending == 0 && !finished) {
+        finished = true;
+        replies.onCompleted();
+      }
+    }
+  }
+}
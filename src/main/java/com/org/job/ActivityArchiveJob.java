@@ -0,0 +1,253 @@
+package com.org.job;
+
+import com.org.archive.ActivityArchive;
+import com.org.archive.ActivityColumnWriter;
+import com.org.model.ArchivedActivity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Moves the activity of whole months that ended more than the retention ago out of inventory_activity into
+// archive files, oldest month first, one item range per transaction. In one repeatable-read transaction the
+// rows are streamed into a file, the file is forced to disk under a pending name, its catalog row and the
+// archived balances are written and exactly the rows read are deleted. The pending name is only dropped
+// after the commit; a run that dies in between is settled by ActivityArchive.recoverPending.
+// Off unless instore.archive.enabled is set, and only one instance should archive.
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "instore.archive", name = "enabled", havingValue = "true")
+public class ActivityArchiveJob {
+
+  private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+  private static final Set<String> STOCK_TYPES = Set.of("ADD", "REMOVE", "SELL");
+
+  private static final String OLDEST_MONTH_SQL = """
+      SELECT date_trunc('month', min(activity_timestamp)) FROM inventory_activity
+      WHERE activity_timestamp < ? AND item_id IS NOT NULL""";
+
+  private static final String ITEM_BOUNDS_SQL = """
+      SELECT min(item_id)::bigint, max(item_id)::bigint FROM inventory_activity
+      WHERE activity_timestamp >= ? AND activity_timestamp < ? AND item_id IS NOT NULL""";
+
+  private static final String ROWS_SQL = """
+      SELECT activity_id, item_id, store_id, activity_type, activity_value, message, item_name,
+             activity_timestamp, creation_timestamp
+      FROM inventory_activity
+      WHERE item_id BETWEEN ? AND ? AND activity_timestamp >= ? AND activity_timestamp < ?
+      ORDER BY item_id, activity_timestamp, activity_id""";
+
+  private static final String DELETE_SQL = """
+      DELETE FROM inventory_activity
+      WHERE item_id BETWEEN ? AND ? AND activity_timestamp >= ? AND activity_timestamp < ?""";
+
+  private static final String CATALOG_SQL = """
+      INSERT INTO activity_archive_file (file_name, item_from, item_to, month_start, month_end, row_count, file_bytes,
+                                         min_activity_id, max_activity_id)
+      VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)""";
+
+  private static final String BALANCE_SQL = """
+      INSERT INTO activity_archive_balance (item_id, store_id, activities, net_quantity) VALUES (?, ?, ?, ?)
+      ON CONFLICT (item_id, store_id) DO UPDATE
+      SET activities = activity_archive_balance.activities + excluded.activities,
+          net_quantity = activity_archive_balance.net_quantity + excluded.net_quantity""";
+
+  private record Balance(long itemId, long storeId) {
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate archiveTransaction;
+  private final ActivityArchive activityArchive;
+  private final Long defaultStoreId;
+  private final Duration retention;
+  private final long itemRangeSize;
+  private final int fetchSize;
+  private final int maxFilesPerRun;
+  private final Counter rowsArchived;
+  private final Counter bytesWritten;
+
+  public ActivityArchiveJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      ActivityArchive activityArchive, MeterRegistry meterRegistry,
+      @Value("${instore.store.default-id:1}") Long defaultStoreId,
+      @Value("${instore.archive.retention:P365D}") Duration retention,
+      @Value("${instore.archive.item-range-size:10000}") long itemRangeSize,
+      @Value("${instore.archive.fetch-size:5000}") int fetchSize,
+      @Value("${instore.archive.max-files-per-run:200}") int maxFilesPerRun) {
+    this.jdbcTemplate = jdbcTemplate;
+    // The delete then removes exactly the rows the scan read, whatever is inserted meanwhile
+    this.archiveTransaction = new TransactionTemplate(transactionManager);
+    this.archiveTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.activityArchive = activityArchive;
+    this.defaultStoreId = defaultStoreId;
+    this.retention = retention;
+    this.itemRangeSize = itemRangeSize;
+    this.fetchSize = fetchSize;
+    this.maxFilesPerRun = maxFilesPerRun;
+    this.rowsArchived = meterRegistry.counter("instore.archive.rows.archived");
+    this.bytesWritten = meterRegistry.counter("instore.archive.bytes.written");
+  }
+
+  @Scheduled(fixedDelayString = "${instore.archive.interval:PT6H}", initialDelayString = "${instore.archive.initial-delay:PT15M}")
+  public void scheduledArchive() {
+    try {
+      long archived = archive();
+      if (archived > 0) {
+        log.info("Archived {} activity rows older than {}", archived, retention);
+      }
+    } catch (Exception e) {
+      log.error("Activity archiving failed: {}", e.getMessage());
+    }
+  }
+
+  public long archive() throws IOException {
+    activityArchive.recoverPending();
+    Files.createDirectories(activityArchive.directory());
+    LocalDateTime cutoff = LocalDateTime.now().minus(retention).truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1);
+    long archived = 0;
+    int files = 0;
+    while (files < maxFilesPerRun) {
+      Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_MONTH_SQL, Timestamp.class, Timestamp.valueOf(cutoff));
+      if (oldest == null) {
+        break;
+      }
+      LocalDateTime monthStart = oldest.toLocalDateTime();
+      LocalDateTime monthEnd = monthStart.plusMonths(1);
+      Long[] bounds = jdbcTemplate.queryForObject(ITEM_BOUNDS_SQL,
+          (rs, rowNum) -> new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)},
+          Timestamp.valueOf(monthStart), Timestamp.valueOf(monthEnd));
+      if (bounds == null || bounds[0] == null) {
+        break;
+      }
+      for (long from = Math.floorDiv(bounds[0], itemRangeSize) * itemRangeSize;
+          from <= bounds[1] && files < maxFilesPerRun; from += itemRangeSize) {
+        long rows = archiveRange(from, from + itemRangeSize - 1, monthStart, monthEnd);
+        if (rows > 0) {
+          archived += rows;
+          files++;
+        }
+      }
+    }
+    return archived;
+  }
+
+  private long archiveRange(long itemFrom, long itemTo, LocalDateTime monthStart, LocalDateTime monthEnd) throws IOException {
+    String month = MONTH.format(monthStart);
+    Path partial = activityArchive.directory().resolve("activity-" + month + "-" + itemFrom + ".partial");
+    Files.deleteIfExists(partial);
+    String[] fileName = new String[1];
+    try {
+      Long rows = archiveTransaction.execute(status -> {
+        try (ActivityColumnWriter writer = new ActivityColumnWriter(partial)) {
+          Map<Balance, long[]> balances = new HashMap<>();
+          jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(ROWS_SQL);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, itemFrom);
+            ps.setLong(2, itemTo);
+            ps.setTimestamp(3, Timestamp.valueOf(monthStart));
+            ps.setTimestamp(4, Timestamp.valueOf(monthEnd));
+            return ps;
+          }, rs -> {
+            ArchivedActivity row = ArchivedActivity.builder()
+                .activityId(rs.getLong(1))
+                .itemId(rs.getLong(2))
+                .storeId(rs.getObject(3, Long.class))
+                .activityType(rs.getString(4))
+                .activityValue(rs.getString(5))
+                .message(rs.getString(6))
+                .itemName(rs.getString(7))
+                .activityTimestamp(rs.getTimestamp(8).toLocalDateTime())
+                .creationTimestamp(rs.getTimestamp(9) != null ? rs.getTimestamp(9).toLocalDateTime() : null)
+                .build();
+            try {
+              writer.write(row);
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+            addToBalance(balances, row);
+          });
+          if (writer.rows() == 0) {
+            return 0L;
+          }
+
+          long bytes = writer.finish();
+          fileName[0] = "activity-" + month + "-" + itemFrom + "-" + writer.minActivityId() + ActivityArchive.EXTENSION;
+          Files.move(partial, activityArchive.pendingPath(fileName[0]), StandardCopyOption.ATOMIC_MOVE);
+          jdbcTemplate.update(CATALOG_SQL, fileName[0], itemFrom, itemTo, Timestamp.valueOf(monthStart),
+              Timestamp.valueOf(monthEnd), writer.rows(), bytes, writer.minActivityId(), writer.maxActivityId());
+          int deleted = jdbcTemplate.update(DELETE_SQL, itemFrom, itemTo, Timestamp.valueOf(monthStart), Timestamp.valueOf(monthEnd));
+          if (deleted != writer.rows()) {
+            throw new IllegalStateException("Archived " + writer.rows() + " rows of " + fileName[0] + " but deleted " + deleted);
+          }
+          List<Object[]> balanceArgs = new ArrayList<>(balances.size());
+          balances.forEach((balance, totals) -> balanceArgs.add(
+              new Object[]{balance.itemId(), balance.storeId(), totals[0], totals[1]}));
+          jdbcTemplate.batchUpdate(BALANCE_SQL, balanceArgs);
+          bytesWritten.increment(bytes);
+          return (long) writer.rows();
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      if (fileName[0] != null) {
+        activityArchive.publish(fileName[0]);
+      }
+      rowsArchived.increment(rows);
+      return rows;
+    } catch (RuntimeException e) {
+      // Whether the commit went through is settled from the catalog, not guessed
+      if (fileName[0] != null) {
+        try {
+          activityArchive.recoverPending();
+        } catch (Exception recovery) {
+          e.addSuppressed(recovery);
+        }
+      }
+      throw e;
+    } finally {
+      Files.deleteIfExists(partial);
+    }
+  }
+
+  // Same rules as the reconciliation ledger: rows without a store belong to the default store
+  private void addToBalance(Map<Balance, long[]> balances, ArchivedActivity row) {
+    String type = row.getActivityType().toUpperCase(Locale.ROOT);
+    if (!STOCK_TYPES.contains(type)) {
+      return;
+    }
+    long quantity;
+    try {
+      quantity = Long.parseLong(row.getActivityValue().trim());
+    } catch (NumberFormatException e) {
+      quantity = 0;
+    }
+    long[] totals = balances.computeIfAbsent(
+        new Balance(row.getItemId(), row.getStoreId() != null ? row.getStoreId() : defaultStoreId), key -> new long[2]);
+    totals[0]++;
+    totals[1] += type.equals("ADD") ? quantity : -quantity;
+  }
+}
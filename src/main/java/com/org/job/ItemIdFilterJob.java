@@ -0,0 +1,32 @@
+package com.org.job;
+
+import com.org.service.ItemIdFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Rebuilds the item id filter from the item table: purged and deleted items leave it, ids added by other
+// instances enter it, and the filter is resized to the current item count.
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "instore.item-filter", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ItemIdFilterJob {
+
+  private final ItemIdFilter itemIdFilter;
+
+  public ItemIdFilterJob(ItemIdFilter itemIdFilter) {
+    this.itemIdFilter = itemIdFilter;
+  }
+
+  @Scheduled(fixedDelayString = "${instore.item-filter.rebuild-interval:PT15M}",
+      initialDelayString = "${instore.item-filter.rebuild-interval:PT15M}")
+  public void rebuild() {
+    try {
+      long items = itemIdFilter.rebuild();
+      log.debug("Item id filter rebuilt from {} items", items);
+    } catch (Exception e) {
+      log.error("Item id filter rebuild failed, keeping the previous filter: {}", e.getMessage());
+    }
+  }
+}
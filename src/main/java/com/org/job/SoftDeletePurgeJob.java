@@ -0,0 +1,72 @@
+package com.org.job;
+
+import com.org.kafka.StockStatePublisher;
+import com.org.repository.ItemRepository;
+import com.org.repository.ItemRepositoryCustom.PurgedStock;
+import java.time.Duration;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Physically removes items (with their inventory, activity, archived balances and checkpoints) that have been
+// soft-deleted for longer than the retention, and tombstones their stock state. Opt-in. Each chunk commits on
+// its own and the job pauses in between, so autovacuum can keep up and the purge never holds long locks or
+// competes hard with live traffic.
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "instore.purge", name = "enabled", havingValue = "true")
+public class SoftDeletePurgeJob {
+
+  private final ItemRepository itemRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final StockStatePublisher stockStatePublisher;
+  private final Duration retention;
+  private final int chunkSize;
+  private final Duration pause;
+  private final int maxChunksPerRun;
+
+  public SoftDeletePurgeJob(ItemRepository itemRepository, TransactionTemplate transactionTemplate,
+      StockStatePublisher stockStatePublisher,
+      @Value("${instore.purge.retention:P30D}") Duration retention,
+      @Value("${instore.purge.chunk-size:500}") int chunkSize,
+      @Value("${instore.purge.pause:PT0.2S}") Duration pause,
+      @Value("${instore.purge.max-chunks-per-run:200}") int maxChunksPerRun) {
+    this.itemRepository = itemRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.stockStatePublisher = stockStatePublisher;
+    this.retention = retention;
+    this.chunkSize = chunkSize;
+    this.pause = pause;
+    this.maxChunksPerRun = maxChunksPerRun;
+  }
+
+  @Scheduled(fixedDelayString = "${instore.purge.interval:PT1H}", initialDelayString = "${instore.purge.initial-delay:PT5M}")
+  public void purge() {
+    int total = 0;
+    try {
+      for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+        List<PurgedStock> rows = transactionTemplate.execute(status -> itemRepository.purgeDeleted(retention, chunkSize));
+        rows.stream().filter(row -> row.storeId() != null)
+            .forEach(row -> stockStatePublisher.publishRemoved(row.storeId(), row.itemId()));
+        int purged = (int) rows.stream().mapToLong(PurgedStock::itemId).distinct().count();
+        total += purged;
+        if (purged < chunkSize) {
+          break;
+        }
+        Thread.sleep(pause.toMillis());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      log.error("Purge of soft-deleted items failed after {} items: {}", total, e.getMessage());
+    }
+
+    if (total > 0) {
+      log.info("Purged {} soft-deleted items older than {}", total, retention);
+    }
+  }
+}
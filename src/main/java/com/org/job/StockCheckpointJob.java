@@ -0,0 +1,56 @@
+package com.org.job;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// Copies inventory.available_quantity into stock_checkpoint, stamped with the row's last change. A row's
+// quantity includes exactly the activity stamped up to that time, so stock at any time is a checkpoint plus
+// the activity between the two. Rows unchanged since the last run map to an existing checkpoint and are
+// skipped, so the table grows with changed rows only. Each item id range is one autocommitted statement.
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "instore.checkpoint", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StockCheckpointJob {
+
+  private static final String CHECKPOINT_SQL = """
+      INSERT INTO stock_checkpoint (item_id, store_id, checkpoint_at, available_quantity)
+      SELECT item_id, store_id, coalesce(updation_date, creation_date), available_quantity FROM inventory
+      WHERE item_id BETWEEN ? AND ? AND coalesce(updation_date, creation_date) IS NOT NULL
+      ON CONFLICT DO NOTHING""";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final long rangeSize;
+
+  public StockCheckpointJob(JdbcTemplate jdbcTemplate, @Value("${instore.checkpoint.range-size:50000}") long rangeSize) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.rangeSize = rangeSize;
+  }
+
+  @Scheduled(fixedDelayString = "${instore.checkpoint.interval:PT6H}", initialDelayString = "${instore.checkpoint.initial-delay:PT10M}")
+  public void scheduledCheckpoint() {
+    try {
+      long written = checkpoint();
+      log.info("Stock checkpoint wrote {} changed rows", written);
+    } catch (Exception e) {
+      log.error("Stock checkpoint failed: {}", e.getMessage());
+    }
+  }
+
+  public long checkpoint() {
+    Long[] bounds = jdbcTemplate.queryForObject(
+        "SELECT min(item_id)::bigint, max(item_id)::bigint FROM inventory",
+        (rs, rowNum) -> new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+    if (bounds == null || bounds[0] == null) {
+      return 0;
+    }
+    long written = 0;
+    for (long from = bounds[0]; from <= bounds[1]; from += rangeSize) {
+      written += jdbcTemplate.update(CHECKPOINT_SQL, from, from + rangeSize - 1);
+    }
+    return written;
+  }
+}
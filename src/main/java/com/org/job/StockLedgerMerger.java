@@ -0,0 +1,102 @@
+package com.org.job;
+
+import com.org.model.StockDrift;
+import com.org.utility.StockOperationType;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Merge-joins inventory rows and activity rows that are both ordered by item id. Only the rows of
+// the current item are held in memory, so a range of any size is reconciled in constant heap.
+public class StockLedgerMerger {
+
+  public record StockRow(long itemId, long storeId, int availableQuantity, LocalDateTime updatedAt) { }
+
+  public record LedgerRow(long itemId, Long storeId, String activityType, String activityValue) { }
+
+  public record Result(long stockRows, long activityRows, long drifts) { }
+
+  private final Long defaultStoreId;
+  private final LocalDateTime settledBefore;
+
+  public StockLedgerMerger(Long defaultStoreId, LocalDateTime settledBefore) {
+    this.defaultStoreId = defaultStoreId;
+    this.settledBefore = settledBefore;
+  }
+
+  public Result merge(Iterator<StockRow> stock, Iterator<LedgerRow> ledger, Consumer<StockDrift> driftConsumer) {
+    StockRow nextStock = stock.hasNext() ? stock.next() : null;
+    LedgerRow nextLedger = ledger.hasNext() ? ledger.next() : null;
+    long stockRows = 0;
+    long activityRows = 0;
+    long drifts = 0;
+
+    Map<Long, StockRow> actual = new HashMap<>();
+    Map<Long, Long> expected = new HashMap<>();
+    while (nextStock != null || nextLedger != null) {
+      long itemId = Math.min(nextStock != null ? nextStock.itemId() : Long.MAX_VALUE,
+          nextLedger != null ? nextLedger.itemId() : Long.MAX_VALUE);
+
+      actual.clear();
+      while (nextStock != null && nextStock.itemId() == itemId) {
+        actual.put(nextStock.storeId(), nextStock);
+        stockRows++;
+        nextStock = stock.hasNext() ? stock.next() : null;
+      }
+
+      expected.clear();
+      while (nextLedger != null && nextLedger.itemId() == itemId) {
+        Long storeId = nextLedger.storeId() != null ? nextLedger.storeId() : defaultStoreId;
+        expected.merge(storeId, delta(nextLedger), Long::sum);
+        activityRows++;
+        nextLedger = ledger.hasNext() ? ledger.next() : null;
+      }
+
+      drifts += compare(itemId, actual, expected, driftConsumer);
+    }
+    return new Result(stockRows, activityRows, drifts);
+  }
+
+  private long compare(long itemId, Map<Long, StockRow> actual, Map<Long, Long> expected,
+      Consumer<StockDrift> driftConsumer) {
+    Set<Long> stores = new HashSet<>(actual.keySet());
+    stores.addAll(expected.keySet());
+    long drifts = 0;
+    for (Long storeId : stores) {
+      StockRow row = actual.get(storeId);
+      // Rows written recently may still have their activity event in flight
+      if (row != null && row.updatedAt() != null && row.updatedAt().isAfter(settledBefore)) {
+        continue;
+      }
+      long expectedQuantity = expected.getOrDefault(storeId, 0L);
+      if (row == null || row.availableQuantity() != expectedQuantity) {
+        drifts++;
+        driftConsumer.accept(StockDrift.builder()
+            .itemId(itemId)
+            .storeId(storeId)
+            .availableQuantity(row != null ? row.availableQuantity() : null)
+            .expectedQuantity(expectedQuantity)
+            .build());
+      }
+    }
+    return drifts;
+  }
+
+  private long delta(LedgerRow row) {
+    long quantity;
+    try {
+      quantity = Long.parseLong(row.activityValue().trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+    return switch (StockOperationType.valueOf(row.activityType().toUpperCase())) {
+      case ADD -> quantity;
+      case REMOVE, SELL -> -quantity;
+      default -> 0;
+    };
+  }
+}
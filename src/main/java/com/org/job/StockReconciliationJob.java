@@ -0,0 +1,252 @@
+package com.org.job;
+
+import com.org.job.StockLedgerMerger.LedgerRow;
+import com.org.job.StockLedgerMerger.StockRow;
+import com.org.kafka.StockStatePublisher;
+import com.org.model.ReconciliationReport;
+import com.org.model.StockDrift;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Checks inventory.available_quantity against the ADD/REMOVE/SELL history in inventory_activity and the
+// balances of archived activity. The item id space is split into ranges that are reconciled in parallel;
+// each range streams both through forward-only server-side cursors and merge-joins them, so heap use stays flat.
+@Component
+@Slf4j
+public class StockReconciliationJob {
+
+  private static final int MAX_REPORTED_DRIFTS = 1000;
+
+  private static final String STOCK_SQL = """
+      SELECT item_id, store_id, available_quantity, updation_date FROM inventory
+      WHERE item_id BETWEEN ? AND ?
+      ORDER BY item_id""";
+
+  // Archived activity counts as one ADD of its net quantity per item and store. Purged items keep their
+  // ledger but have no stock left to check it against.
+  private static final String LEDGER_SQL = """
+      SELECT a.item_id, a.store_id, a.activity_type, a.activity_value FROM inventory_activity a
+      WHERE a.item_id BETWEEN ? AND ? AND upper(a.activity_type) IN ('ADD', 'REMOVE', 'SELL')
+        AND EXISTS (SELECT 1 FROM item i WHERE i.item_id = a.item_id)
+      UNION ALL
+      SELECT b.item_id, b.store_id, 'ADD', b.net_quantity::text FROM activity_archive_balance b
+      WHERE b.item_id BETWEEN ? AND ? AND EXISTS (SELECT 1 FROM item i WHERE i.item_id = b.item_id)
+      ORDER BY item_id""";
+
+  private static final String REPAIR_SQL = """
+      UPDATE inventory SET available_quantity = ?, updation_date = LOCALTIMESTAMP
+      WHERE item_id = ? AND store_id = ? AND available_quantity = ?""";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate readTransaction;
+  private final TransactionTemplate writeTransaction;
+  private final Long defaultStoreId;
+  private final int parallelism;
+  private final long rangeSize;
+  private final int fetchSize;
+  private final Duration settleTime;
+  private final boolean repairOnSchedule;
+  private final StockStatePublisher stockStatePublisher;
+
+  public StockReconciliationJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      StockStatePublisher stockStatePublisher,
+      @Value("${instore.store.default-id:1}") Long defaultStoreId,
+      @Value("${instore.reconcile.parallelism:4}") int parallelism,
+      @Value("${instore.reconcile.range-size:20000}") long rangeSize,
+      @Value("${instore.reconcile.fetch-size:5000}") int fetchSize,
+      @Value("${instore.reconcile.settle-time:PT1M}") Duration settleTime,
+      @Value("${instore.reconcile.repair-on-schedule:false}") boolean repairOnSchedule) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.readTransaction = new TransactionTemplate(transactionManager);
+    this.readTransaction.setReadOnly(true);
+    this.writeTransaction = new TransactionTemplate(transactionManager);
+    this.defaultStoreId = defaultStoreId;
+    this.parallelism = parallelism;
+    this.rangeSize = rangeSize;
+    this.fetchSize = fetchSize;
+    this.settleTime = settleTime;
+    this.repairOnSchedule = repairOnSchedule;
+    this.stockStatePublisher = stockStatePublisher;
+  }
+
+  @Scheduled(cron = "${instore.reconcile.cron:-}")
+  public void scheduledReconcile() {
+    ReconciliationReport report = reconcile(repairOnSchedule);
+    log.info("Scheduled stock reconciliation found {} drifted rows, repaired {}", report.getDriftCount(), report.getRepaired());
+  }
+
+  public ReconciliationReport reconcile(boolean repair) {
+    long start = System.nanoTime();
+    LocalDateTime settledBefore = LocalDateTime.now().minus(settleTime);
+    List<StockDrift> reported = Collections.synchronizedList(new ArrayList<>());
+    AtomicLong stockRows = new AtomicLong();
+    AtomicLong activityRows = new AtomicLong();
+    AtomicLong drifts = new AtomicLong();
+    AtomicLong repaired = new AtomicLong();
+
+    Long[] bounds = jdbcTemplate.queryForObject(
+        "SELECT (SELECT min(item_id)::bigint FROM item), (SELECT max(item_id)::bigint FROM item)",
+        (rs, rowNum) -> new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+
+    if (bounds != null && bounds[0] != null) {
+      long min = bounds[0];
+      long ranges = (bounds[1] - min) / rangeSize + 1;
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        pool.submit(() -> LongStream.range(0, ranges).parallel().forEach(range -> {
+          long from = min + range * rangeSize;
+          List<StockDrift> rangeDrifts = new ArrayList<>();
+          StockLedgerMerger.Result result = readTransaction.execute(status ->
+              reconcileRange(from, from + rangeSize - 1, settledBefore, rangeDrifts::add));
+          stockRows.addAndGet(result.stockRows());
+          activityRows.addAndGet(result.activityRows());
+          drifts.addAndGet(result.drifts());
+          if (repair && !rangeDrifts.isEmpty()) {
+            repaired.addAndGet(repairRange(rangeDrifts));
+          }
+          rangeDrifts.stream()
+              .limit(Math.max(0, MAX_REPORTED_DRIFTS - reported.size()))
+              .forEach(reported::add);
+        })).get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Stock reconciliation interrupted", e);
+      } catch (Exception e) {
+        throw new IllegalStateException("Stock reconciliation failed: " + e.getMessage(), e);
+      } finally {
+        pool.shutdown();
+      }
+    }
+
+    return ReconciliationReport.builder()
+        .stockRowsChecked(stockRows.get())
+        .activityRowsRead(activityRows.get())
+        .driftCount(drifts.get())
+        .repaired(repaired.get())
+        .durationMs((System.nanoTime() - start) / 1_000_000)
+        .drifts(new ArrayList<>(reported))
+        .build();
+  }
+
+  private StockLedgerMerger.Result reconcileRange(long fromItemId, long toItemId, LocalDateTime settledBefore,
+      Consumer<StockDrift> driftConsumer) {
+    return jdbcTemplate.execute((ConnectionCallback<StockLedgerMerger.Result>) connection -> {
+      try (PreparedStatement stockStatement = cursor(connection, STOCK_SQL, 1, fromItemId, toItemId);
+          PreparedStatement ledgerStatement = cursor(connection, LEDGER_SQL, 2, fromItemId, toItemId);
+          ResultSet stock = stockStatement.executeQuery();
+          ResultSet ledger = ledgerStatement.executeQuery()) {
+        return new StockLedgerMerger(defaultStoreId, settledBefore).merge(
+            new CursorIterator<>(stock, rs -> new StockRow(rs.getLong(1), rs.getLong(2), rs.getInt(3), toLocalDateTime(rs.getTimestamp(4)))),
+            new CursorIterator<>(ledger, rs -> new LedgerRow(rs.getLong(1), rs.getObject(2, Long.class), rs.getString(3), rs.getString(4))),
+            driftConsumer);
+      }
+    });
+  }
+
+  // Postgres only streams with a cursor when auto-commit is off (we run inside a read transaction) and a fetch size is set
+  private PreparedStatement cursor(Connection connection, String sql, int ranges, long fromItemId, long toItemId)
+      throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    statement.setFetchSize(fetchSize);
+    for (int range = 0; range < ranges; range++) {
+      statement.setLong(2 * range + 1, fromItemId);
+      statement.setLong(2 * range + 2, toItemId);
+    }
+    return statement;
+  }
+
+  // Compare-and-set, so a stock write that lands after the scan is never overwritten
+  private long repairRange(List<StockDrift> drifts) {
+    List<StockDrift> repairable = drifts.stream()
+        .filter(drift -> drift.getAvailableQuantity() != null)
+        .toList();
+    List<Object[]> args = repairable.stream()
+        .map(drift -> new Object[]{drift.getExpectedQuantity().intValue(), drift.getItemId(), drift.getStoreId(), drift.getAvailableQuantity()})
+        .toList();
+    int[][] counts = writeTransaction.execute(status -> jdbcTemplate.batchUpdate(REPAIR_SQL, args, 500,
+        (ps, row) -> {
+          for (int i = 0; i < row.length; i++) {
+            ps.setObject(i + 1, row[i]);
+          }
+        }));
+    long repaired = 0;
+    int index = 0;
+    for (int[] batch : counts) {
+      for (int count : batch) {
+        StockDrift drift = repairable.get(index++);
+        if (count > 0) {
+          repaired += count;
+          stockStatePublisher.publish(drift.getStoreId(), drift.getItemId(), drift.getExpectedQuantity().intValue(), LocalDateTime.now());
+        }
+      }
+    }
+    return repaired;
+  }
+
+  private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+    return timestamp != null ? timestamp.toLocalDateTime() : null;
+  }
+
+  private interface RowReader<T> {
+    T read(ResultSet resultSet) throws SQLException;
+  }
+
+  private static class CursorIterator<T> implements Iterator<T> {
+
+    private final ResultSet resultSet;
+    private final RowReader<T> reader;
+    private Boolean hasNext;
+
+    CursorIterator(ResultSet resultSet, RowReader<T> reader) {
+      this.resultSet = resultSet;
+      this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (hasNext == null) {
+        try {
+          hasNext = resultSet.next();
+        } catch (SQLException e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return hasNext;
+    }
+
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      hasNext = null;
+      try {
+        return reader.read(resultSet);
+      } catch (SQLException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package com.org.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.org.model.InventoryActivityEvent;
+import com.org.service.JacksonConfig;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Component;
+
+@Component
+@AllArgsConstructor
+public class ActivityEventReader {
+
+  private final JacksonConfig jacksonConfig;
+
+  public InventoryActivityEvent read(String message) {
+    InventoryActivityEvent event;
+    try {
+      event = jacksonConfig.objectMapper().readValue(message, InventoryActivityEvent.class);
+    } catch (JsonProcessingException e) {
+      throw new InvalidActivityEventException("Malformed activity event: " + e.getOriginalMessage(), e);
+    }
+    if (event == null) {
+      throw new InvalidActivityEventException("Empty activity event");
+    }
+    if (event.getActivityType() == null || event.getActivityValue() == null) {
+      throw new InvalidActivityEventException("Activity event without type or value");
+    }
+    if (event.getActivityTimeStamp() == null) {
+      throw new InvalidActivityEventException("Activity event without activityTimeStamp");
+    }
+    if (event.getLines() != null && event.getLines().stream().anyMatch(line -> line.getItemId() == null || line.getQuantity() == null)) {
+      throw new InvalidActivityEventException("Activity event line without item or quantity");
+    }
+    return event;
+  }
+}
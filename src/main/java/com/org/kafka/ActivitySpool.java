@@ -0,0 +1,298 @@
+package com.org.kafka;
+
+import com.org.utility.SpoolFsyncPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+// Append-only local log of activity events in fixed-size memory-mapped segments. Appends are a memory
+// copy; the forwarder reads from the checkpoint, ships to Kafka and moves the checkpoint once acked.
+// Record layout: [int length][int crc32c][utf-8 payload]; a zero length marks the end of a segment's data.
+@Component
+@ConditionalOnProperty(name = "instore.spool.enabled", havingValue = "true")
+@Slf4j
+public class ActivitySpool {
+
+  private static final int HEADER_BYTES = 8;
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final String CHECKPOINT = "checkpoint";
+
+  private final Path directory;
+  private final int segmentSize;
+  private final long maxSegments;
+  private final SpoolFsyncPolicy fsyncPolicy;
+  private final Counter appended;
+  private final Counter rejected;
+  private final Counter forces;
+
+  private MappedByteBuffer writeBuffer;
+  private long writeSegment;
+  private int lastForced;
+  private volatile Position head;
+  private volatile Position checkpoint;
+
+  private MappedByteBuffer readBuffer;
+  private long readSegment = -1;
+
+  public ActivitySpool(@Value("${instore.spool.dir:data/spool}") Path directory,
+      @Value("${instore.spool.segment-size:16MB}") DataSize segmentSize,
+      @Value("${instore.spool.max-size:1GB}") DataSize maxSize,
+      @Value("${instore.spool.fsync:interval}") String fsyncPolicy,
+      MeterRegistry meterRegistry) {
+    this.directory = directory;
+    this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+    this.maxSegments = Math.max(2, maxSize.toBytes() / segmentSize.toBytes());
+    this.fsyncPolicy = SpoolFsyncPolicy.valueOf(fsyncPolicy.toUpperCase().replace('-', '_'));
+    this.appended = meterRegistry.counter("instore.spool.records", "result", "appended");
+    this.rejected = meterRegistry.counter("instore.spool.records", "result", "rejected");
+    this.forces = meterRegistry.counter("instore.spool.forces");
+    Gauge.builder("instore.spool.backlog.segments", this, spool -> spool.head.segment() - spool.checkpoint.segment() + 1)
+        .register(meterRegistry);
+  }
+
+  public record Position(long segment, int offset) {
+  }
+
+  public record Batch(List<String> records, Position end) {
+  }
+
+  @PostConstruct
+  public synchronized void open() {
+    try {
+      Files.createDirectories(directory);
+      List<Long> segments = listSegments();
+      checkpoint = readCheckpoint(segments.isEmpty() ? 0 : segments.get(0));
+      writeSegment = segments.isEmpty() ? checkpoint.segment() : segments.get(segments.size() - 1);
+      writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+      int offset = recover(writeBuffer);
+      writeBuffer.position(offset);
+      lastForced = offset;
+      head = new Position(writeSegment, offset);
+      log.info("Opened activity spool at {}: checkpoint={}, head={}", directory, checkpoint, head);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open activity spool at " + directory, e);
+    }
+  }
+
+  // False means the spool is full (or the record can never fit) and the caller must deliver some other way
+  public synchronized boolean append(String message) {
+    byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+    int recordSize = HEADER_BYTES + payload.length;
+    if (recordSize + Integer.BYTES > segmentSize) {
+      rejected.increment();
+      return false;
+    }
+    try {
+      if (writeBuffer.remaining() < recordSize + Integer.BYTES) {
+        if (writeSegment + 1 - checkpoint.segment() >= maxSegments) {
+          rejected.increment();
+          return false;
+        }
+        roll();
+      }
+      int offset = writeBuffer.position();
+      CRC32C crc = new CRC32C();
+      crc.update(payload);
+      // Payload and checksum first, length last: a torn record reads as end-of-data on recovery
+      writeBuffer.put(offset + HEADER_BYTES, payload);
+      writeBuffer.putInt(offset + Integer.BYTES, (int) crc.getValue());
+      writeBuffer.putInt(offset, payload.length);
+      writeBuffer.position(offset + recordSize);
+      if (fsyncPolicy == SpoolFsyncPolicy.EVERY_WRITE) {
+        force(writeBuffer, offset, recordSize);
+        lastForced = offset + recordSize;
+      }
+      head = new Position(writeSegment, offset + recordSize);
+      appended.increment();
+      return true;
+    } catch (IOException e) {
+      log.error("Activity spool append failed: {}", e.getMessage());
+      rejected.increment();
+      return false;
+    }
+  }
+
+  public synchronized void flush() {
+    int position = writeBuffer.position();
+    if (position > lastForced) {
+      force(writeBuffer, lastForced, position - lastForced);
+      lastForced = position;
+    }
+  }
+
+  public SpoolFsyncPolicy fsyncPolicy() {
+    return fsyncPolicy;
+  }
+
+  public Position head() {
+    return head;
+  }
+
+  public Position checkpoint() {
+    return checkpoint;
+  }
+
+  // Single reader: only the forwarder calls read/commit
+  public Batch read(Position from, int maxRecords) {
+    Position limit = head;
+    List<String> records = new ArrayList<>();
+    long segment = from.segment();
+    int offset = from.offset();
+    try {
+      while (records.size() < maxRecords && (segment < limit.segment() || offset < limit.offset())) {
+        ByteBuffer buffer = readBuffer(segment);
+        int length = offset + HEADER_BYTES <= segmentSize ? buffer.getInt(offset) : 0;
+        if (length == 0) {
+          if (segment == limit.segment()) {
+            break;
+          }
+          segment++;
+          offset = 0;
+          continue;
+        }
+        byte[] payload = new byte[length];
+        buffer.get(offset + HEADER_BYTES, payload);
+        records.add(new String(payload, StandardCharsets.UTF_8));
+        offset += HEADER_BYTES + length;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return new Batch(records, new Position(segment, offset));
+  }
+
+  public void commit(Position position) {
+    try {
+      Path temp = directory.resolve(CHECKPOINT + ".tmp");
+      ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+          .putLong(position.segment())
+          .putInt(position.offset())
+          .flip();
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        channel.write(buffer);
+        channel.force(true);
+      }
+      Files.move(temp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      checkpoint = position;
+      for (Long segment : listSegments()) {
+        if (segment < position.segment()) {
+          Files.deleteIfExists(segmentPath(segment));
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @PreDestroy
+  public synchronized void close() {
+    if (writeBuffer != null) {
+      force(writeBuffer, 0, segmentSize);
+    }
+  }
+
+  private void roll() throws IOException {
+    force(writeBuffer, 0, segmentSize);
+    writeSegment++;
+    writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+    lastForced = 0;
+    log.debug("Activity spool rolled to segment {}", writeSegment);
+  }
+
+  private ByteBuffer readBuffer(long segment) throws IOException {
+    if (segment != readSegment) {
+      readBuffer = map(segment, FileChannel.MapMode.READ_ONLY);
+      readSegment = segment;
+    }
+    return readBuffer;
+  }
+
+  private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+    try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(mode, 0, segmentSize);
+    }
+  }
+
+  // Finds the end of the last intact record; anything after a torn or corrupt record is zeroed
+  private int recover(MappedByteBuffer buffer) {
+    int offset = 0;
+    while (offset + HEADER_BYTES <= segmentSize) {
+      int length = buffer.getInt(offset);
+      if (length <= 0 || offset + HEADER_BYTES + length > segmentSize) {
+        break;
+      }
+      byte[] payload = new byte[length];
+      buffer.get(offset + HEADER_BYTES, payload);
+      CRC32C crc = new CRC32C();
+      crc.update(payload);
+      if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+        break;
+      }
+      offset += HEADER_BYTES + length;
+    }
+    if (offset + Integer.BYTES <= segmentSize && buffer.getInt(offset) != 0) {
+      log.warn("Activity spool segment {} has a torn record at {}, truncating", writeSegment, offset);
+      for (int i = offset; i < segmentSize; i++) {
+        buffer.put(i, (byte) 0);
+      }
+      force(buffer, 0, segmentSize);
+    }
+    return offset;
+  }
+
+  // With fsync=none segment pages are left to the OS to write back; only the checkpoint file is still synced
+  private void force(MappedByteBuffer buffer, int offset, int length) {
+    if (fsyncPolicy == SpoolFsyncPolicy.NONE) {
+      return;
+    }
+    buffer.force(offset, length);
+    forces.increment();
+  }
+
+  private Position readCheckpoint(long firstSegment) throws IOException {
+    Path path = directory.resolve(CHECKPOINT);
+    if (!Files.exists(path)) {
+      return new Position(firstSegment, 0);
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+    return new Position(buffer.getLong(), buffer.getInt());
+  }
+
+  private List<Long> listSegments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(path -> path.getFileName().toString())
+          .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+          .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private Path segmentPath(long segment) {
+    return directory.resolve(SEGMENT_PREFIX + String.format("%020d", segment) + SEGMENT_SUFFIX);
+  }
+}
@@ -0,0 +1,94 @@
+package com.org.kafka;
+
+import com.org.kafka.ActivitySpool.Batch;
+import com.org.utility.SpoolFsyncPolicy;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// Drains the spool to Kafka on its own thread so a slow broker never shares a thread with the
+// scheduled jobs. Batches are acked as a whole before the checkpoint moves: delivery is at-least-once.
+@Component
+@ConditionalOnProperty(name = "instore.spool.enabled", havingValue = "true")
+@Slf4j
+public class ActivitySpoolForwarder {
+
+  private final ActivitySpool activitySpool;
+  private final KafkaProducer kafkaProducer;
+  private final int batchSize;
+  private final Duration pollInterval;
+  private final Duration fsyncInterval;
+  private final Duration ackTimeout;
+  private final Counter forwarded;
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "activity-spool-forwarder");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public ActivitySpoolForwarder(ActivitySpool activitySpool, KafkaProducer kafkaProducer, MeterRegistry meterRegistry,
+      @Value("${instore.spool.forward-batch-size:5000}") int batchSize,
+      @Value("${instore.spool.forward-interval:PT0.1S}") Duration pollInterval,
+      @Value("${instore.spool.fsync-interval:PT0.2S}") Duration fsyncInterval,
+      @Value("${instore.spool.ack-timeout:PT30S}") Duration ackTimeout) {
+    this.activitySpool = activitySpool;
+    this.kafkaProducer = kafkaProducer;
+    this.batchSize = batchSize;
+    this.pollInterval = pollInterval;
+    this.fsyncInterval = fsyncInterval;
+    this.ackTimeout = ackTimeout;
+    this.forwarded = meterRegistry.counter("instore.spool.records", "result", "forwarded");
+  }
+
+  @PostConstruct
+  public void start() {
+    executor.scheduleWithFixedDelay(this::forwardSafely, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    if (activitySpool.fsyncPolicy() == SpoolFsyncPolicy.INTERVAL) {
+      executor.scheduleWithFixedDelay(activitySpool::flush, fsyncInterval.toMillis(), fsyncInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  // Returns the number of records forwarded; stops at the first batch that isn't fully acked
+  public long forward() throws Exception {
+    long total = 0;
+    while (true) {
+      Batch batch = activitySpool.read(activitySpool.checkpoint(), batchSize);
+      if (batch.records().isEmpty()) {
+        if (!batch.end().equals(activitySpool.checkpoint())) {
+          activitySpool.commit(batch.end());
+        }
+        return total;
+      }
+      CompletableFuture.allOf(batch.records().stream()
+              .map(kafkaProducer::sendTracked)
+              .toArray(CompletableFuture[]::new))
+          .get(ackTimeout.toMillis(), TimeUnit.MILLISECONDS);
+      activitySpool.commit(batch.end());
+      forwarded.increment(batch.records().size());
+      total += batch.records().size();
+    }
+  }
+
+  private void forwardSafely() {
+    try {
+      forward();
+    } catch (Exception e) {
+      log.warn("Activity spool forwarding paused, will retry from checkpoint {}: {}", activitySpool.checkpoint(), e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,13 @@
+package com.org.kafka;
+
+// A record that can never be ingested as-is; it skips the retry topics and goes straight to the DLT
+public class InvalidActivityEventException extends RuntimeException {
+
+  public InvalidActivityEventException(String message) {
+    super(message);
+  }
+
+  public InvalidActivityEventException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
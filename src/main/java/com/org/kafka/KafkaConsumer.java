@@ -1,34 +1,92 @@
 package com.org.kafka;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.org.entity.InventoryActivity;
 import com.org.model.InventoryActivityEvent;
 import com.org.repository.InventoryActivityRepository;
-import com.org.service.JacksonConfig;
+import com.org.service.ActivityDeadLetterService;
+import com.org.utility.StockOperationType;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
 
+// Failures are retried on delayed retry topics so the main partition keeps flowing; records that can
+// never be ingested (malformed or invalid) skip the retries. Whatever is left ends in the DLT table.
 @Service
 @Slf4j
 @AllArgsConstructor
 public class KafkaConsumer {
 
-  private final JacksonConfig jacksonConfig;
+  private final ActivityEventReader activityEventReader;
   private final InventoryActivityRepository repository;
+  private final ActivityDeadLetterService activityDeadLetterService;
+  private final MeterRegistry meterRegistry;
 
+  @RetryableTopic(
+      attempts = "${instore.consumer.retry.attempts:4}",
+      backoff = @Backoff(delayExpression = "${instore.consumer.retry.delay-ms:1000}", multiplier = 2.0,
+          maxDelayExpression = "${instore.consumer.retry.max-delay-ms:30000}"),
+      exclude = InvalidActivityEventException.class,
+      traversingCauses = "true",
+      autoCreateTopics = "${instore.consumer.retry.auto-create-topics:true}")
   @KafkaListener(topics = "activity", groupId = "my-group")
-  public void consume(String message) throws JsonProcessingException {
-    InventoryActivityEvent event = jacksonConfig.objectMapper().readValue(message, InventoryActivityEvent.class);
+  public void consume(ConsumerRecord<String, String> record) {
+    if (!"activity".equals(record.topic())) {
+      meterRegistry.counter("instore.activity.consumed", "outcome", "retried").increment();
+    }
+    InventoryActivityEvent event = activityEventReader.read(record.value());
+    LocalDateTime activityTimestamp = LocalDateTime.ofInstant(event.getActivityTimeStamp(), ZoneOffset.UTC);
+    if (event.getLines() != null) {
+      // A basket is ledgered per item, like individual sales, so reconciliation reads it the same way
+      repository.saveAll(event.getLines().stream()
+          .map(line -> activity(StockOperationType.SELL.name(), line.getQuantity().toString(), activityTimestamp,
+              line.getItemId(), line.getItemName(), event.getStoreId()))
+          .toList());
+    } else {
+      repository.save(activity(event.getActivityType(), event.getActivityValue(), activityTimestamp, event.getItemId(),
+          event.getItemName(), event.getStoreId()));
+    }
+    meterRegistry.counter("instore.activity.consumed", "outcome", "processed").increment();
+  }
+
+  private InventoryActivity activity(String activityType, String activityValue, LocalDateTime activityTimestamp, Long itemId,
+      String itemName, Long storeId) {
     InventoryActivity activity = new InventoryActivity();
-    activity.setActivityType(event.getActivityType());
-    activity.setActivityTimestamp(LocalDateTime.ofInstant(event.getActivityTimeStamp(), ZoneOffset.UTC));
-    activity.setActivityValue(event.getActivityValue());
-    activity.setItemId(event.getItemId());
-    activity.setItemName(event.getItemName());
-    repository.save(activity);
+    activity.setActivityType(activityType);
+    activity.setActivityTimestamp(activityTimestamp);
+    activity.setActivityValue(activityValue);
+    activity.setItemId(itemId);
+    activity.setItemName(itemName);
+    activity.setStoreId(storeId);
+    return activity;
+  }
+
+  @DltHandler
+  public void deadLetter(ConsumerRecord<String, String> record) {
+    String error = headerString(record, KafkaHeaders.EXCEPTION_MESSAGE);
+    Header partition = record.headers().lastHeader(KafkaHeaders.ORIGINAL_PARTITION);
+    Header offset = record.headers().lastHeader(KafkaHeaders.ORIGINAL_OFFSET);
+    log.warn("Dead-lettering activity record from {}: {}", record.topic(), error);
+    activityDeadLetterService.record(record.value(), error,
+        headerString(record, KafkaHeaders.ORIGINAL_TOPIC),
+        partition != null ? ByteBuffer.wrap(partition.value()).getInt() : null,
+        offset != null ? ByteBuffer.wrap(offset.value()).getLong() : null);
+    meterRegistry.counter("instore.activity.consumed", "outcome", "dead-lettered").increment();
+  }
+
+  private String headerString(ConsumerRecord<String, String> record, String name) {
+    Header header = record.headers().lastHeader(name);
+    return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
   }
 }
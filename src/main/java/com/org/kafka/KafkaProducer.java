@@ -1,20 +1,170 @@
 package com.org.kafka;
 
-import java.util.UUID;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+// Sends are fire-and-track: at most maxInFlight unacknowledged records, the rest (and every failed
+// send) go to a bounded retry buffer that is replayed in the background. Callers never block on Kafka.
+// Records are keyed by store and item, read from the event itself, so one item's events stay in order on one
+// partition and a resend, spool forward or dead-letter replay carries the key of the original send.
 @Service
+@Slf4j
 public class KafkaProducer {
 
+  private static final String TOPIC = "activity";
+  private static final int RETRY_BATCH = 1_000;
+  private static final JsonFactory JSON = new JsonFactory();
+
   private final KafkaTemplate<String, String> kafkaTemplate;
+  private final Semaphore inFlight;
+  private final int maxInFlight;
+  private final BlockingQueue<String> retryBuffer;
+  private final Counter sent;
+  private final Counter failed;
+  private final Counter deferred;
+  private final Counter dropped;
+  private final Timer ackLatency;
 
-  public KafkaProducer(KafkaTemplate<String, String> kafkaTemplate) {
+  public KafkaProducer(KafkaTemplate<String, String> kafkaTemplate, MeterRegistry meterRegistry,
+      @Value("${instore.kafka.producer.max-in-flight:10000}") int maxInFlight,
+      @Value("${instore.kafka.producer.retry-buffer-size:100000}") int retryBufferSize) {
     this.kafkaTemplate = kafkaTemplate;
+    this.maxInFlight = maxInFlight;
+    this.inFlight = new Semaphore(maxInFlight);
+    this.retryBuffer = new ArrayBlockingQueue<>(retryBufferSize);
+    this.sent = meterRegistry.counter("instore.kafka.send", "result", "acked");
+    this.failed = meterRegistry.counter("instore.kafka.send", "result", "failed");
+    this.deferred = meterRegistry.counter("instore.kafka.send", "result", "deferred");
+    this.dropped = meterRegistry.counter("instore.kafka.send", "result", "dropped");
+    this.ackLatency = Timer.builder("instore.kafka.ack.latency")
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+    Gauge.builder("instore.kafka.in-flight", inFlight, s -> maxInFlight - s.availablePermits())
+        .register(meterRegistry);
+    Gauge.builder("instore.kafka.retry-buffer.size", retryBuffer, BlockingQueue::size)
+        .register(meterRegistry);
   }
 
   public void sendMessage(String message) {
-    kafkaTemplate.send("activity", UUID.randomUUID().toString() ,message);
+    if (!inFlight.tryAcquire()) {
+      deferred.increment();
+      buffer(message);
+      return;
+    }
+    send(message);
+  }
+
+  // Replays what was buffered when the run started while there is in-flight headroom
+  @Scheduled(fixedDelayString = "${instore.kafka.producer.retry-interval:PT5S}")
+  public void retryBufferedMessages() {
+    List<String> batch = new ArrayList<>(RETRY_BATCH);
+    int remaining = retryBuffer.size();
+    while (remaining > 0 && retryBuffer.drainTo(batch, Math.min(remaining, RETRY_BATCH)) > 0) {
+      remaining -= batch.size();
+      for (int i = 0; i < batch.size(); i++) {
+        if (!inFlight.tryAcquire()) {
+          batch.subList(i, batch.size()).forEach(this::buffer);
+          return;
+        }
+        send(batch.get(i));
+      }
+      batch.clear();
+    }
+  }
+
+  public int inFlightCount() {
+    return maxInFlight - inFlight.availablePermits();
+  }
+
+  public int bufferedCount() {
+    return retryBuffer.size();
   }
 
+  // Sends one record outside the in-flight budget and retry buffer; the caller owns redelivery
+  public CompletableFuture<Void> sendTracked(String message) {
+    long start = System.nanoTime();
+    return kafkaTemplate.send(TOPIC, key(message), message)
+        .handle((result, e) -> {
+          if (e != null) {
+            failed.increment();
+            throw new CompletionException(e);
+          }
+          sent.increment();
+          ackLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+          return null;
+        });
+  }
+
+  // storeId:itemId as on the stock-state topic, the store alone for a basket event, no key for anything else.
+  // Only the top-level fields are read, so a basket's lines are skipped unparsed.
+  public static String key(String message) {
+    Long storeId = null;
+    Long itemId = null;
+    try (JsonParser parser = JSON.createParser(message)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (value == JsonToken.VALUE_NUMBER_INT && "storeId".equals(field)) {
+          storeId = parser.getLongValue();
+        } else if (value == JsonToken.VALUE_NUMBER_INT && "itemId".equals(field)) {
+          itemId = parser.getLongValue();
+        } else {
+          parser.skipChildren();
+        }
+      }
+    } catch (IOException e) {
+      return null;
+    }
+    if (itemId != null && storeId != null) {
+      return StockStatePublisher.key(storeId, itemId);
+    }
+    return storeId != null ? storeId.toString() : null;
+  }
+
+  private void send(String message) {
+    try {
+      sendTracked(message).whenComplete((result, e) -> {
+        inFlight.release();
+        if (e != null) {
+          log.warn("Activity event send failed, buffering for retry: {}", e.getMessage());
+          buffer(message);
+        }
+      });
+    } catch (RuntimeException e) {
+      // Raised synchronously when metadata or buffer space isn't available within max.block.ms
+      inFlight.release();
+      failed.increment();
+      log.warn("Activity event send refused, buffering for retry: {}", e.getMessage());
+      buffer(message);
+    }
+  }
+
+  private void buffer(String message) {
+    if (!retryBuffer.offer(message)) {
+      dropped.increment();
+      log.error("Retry buffer full, dropping activity event: {}", message);
+    }
+  }
 }
@@ -0,0 +1,54 @@
+package com.org.kafka;
+
+import com.org.utility.ProducerProfile;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.config.TopicConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+
+// The profile supplies linger/batch/compression defaults; anything set under spring.kafka.producer.* wins.
+@Configuration
+public class KafkaProducerConfig {
+
+  @Bean
+  public DefaultKafkaProducerFactoryCustomizer producerProfileCustomizer(KafkaProperties kafkaProperties,
+      @Value("${instore.kafka.producer.profile:balanced}") String profile,
+      @Value("${instore.kafka.producer.max-block:PT0.5S}") Duration maxBlock) {
+    return producerFactory -> producerFactory.updateConfigs(producerProperties(
+        ProducerProfile.valueOf(profile.toUpperCase()), maxBlock, kafkaProperties.buildProducerProperties(null)));
+  }
+
+  // Compacted: the broker keeps the latest record per "storeId:itemId", so replaying it is O(stock rows), not O(sales)
+  @Bean
+  @ConditionalOnProperty(prefix = "instore.stock-state", name = "create-topic", havingValue = "true", matchIfMissing = true)
+  public NewTopic stockStateTopic(@Value("${instore.stock-state.topic:stock-state}") String topic,
+      @Value("${instore.stock-state.partitions:6}") int partitions) {
+    return TopicBuilder.name(topic)
+        .partitions(partitions)
+        .compact()
+        .config(TopicConfig.MIN_CLEANABLE_DIRTY_RATIO_CONFIG, "0.1")
+        .config(TopicConfig.SEGMENT_MS_CONFIG, Long.toString(Duration.ofHours(1).toMillis()))
+        .build();
+  }
+
+  public static Map<String, Object> producerProperties(ProducerProfile profile, Duration maxBlock,
+      Map<String, Object> overrides) {
+    Map<String, Object> properties = new HashMap<>();
+    properties.put(ProducerConfig.LINGER_MS_CONFIG, profile.getLingerMs());
+    properties.put(ProducerConfig.BATCH_SIZE_CONFIG, profile.getBatchSize());
+    properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, profile.getCompressionType());
+    // Request threads must never sit on broker metadata; a send that can't start quickly goes to the retry buffer
+    properties.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, (int) maxBlock.toMillis());
+    properties.putAll(overrides);
+    return properties;
+  }
+}
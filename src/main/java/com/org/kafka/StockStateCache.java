@@ -0,0 +1,207 @@
+package com.org.kafka;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.service.JacksonConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.stereotype.Component;
+
+// In-memory stock per store and item, rebuilt from the compacted stock-state topic instead of Postgres.
+// Reads every partition from the beginning up to the end offsets seen at startup (the web port opens only
+// after that), then keeps following the topic. No consumer group: each instance reads the whole topic.
+@Component
+@ConditionalOnProperty(prefix = "instore.stock-state.cache", name = "enabled", havingValue = "true")
+@Slf4j
+public class StockStateCache implements SmartLifecycle {
+
+  // Before the web server (Integer.MAX_VALUE - 1) starts and after it stops
+  private static final int PHASE = Integer.MAX_VALUE - 2;
+  private static final String AVAILABLE_QUANTITY = "availableQuantity";
+
+  private final Map<StockKey, Integer> stock = new ConcurrentHashMap<>();
+  private final Map<String, Object> consumerProperties;
+  private final ObjectMapper objectMapper;
+  private final String topic;
+  private final Duration bootstrapTimeout;
+  private final CountDownLatch loaded = new CountDownLatch(1);
+
+  private volatile boolean running;
+  private volatile Consumer<String, String> consumer;
+  private Thread follower;
+
+  public StockStateCache(KafkaProperties kafkaProperties, JacksonConfig jacksonConfig, MeterRegistry meterRegistry,
+      @Value("${instore.stock-state.topic:stock-state}") String topic,
+      @Value("${instore.stock-state.cache.bootstrap-timeout:PT2M}") Duration bootstrapTimeout) {
+    this.consumerProperties = consumerProperties(kafkaProperties.buildConsumerProperties(null));
+    this.objectMapper = jacksonConfig.objectMapper();
+    this.topic = topic;
+    this.bootstrapTimeout = bootstrapTimeout;
+    Gauge.builder("instore.stock-state.cache.size", stock, Map::size).register(meterRegistry);
+  }
+
+  public record StockKey(long storeId, long itemId) {
+  }
+
+  // Group-less, read-only and tuned for bulk catch-up: large fetches, nothing committed
+  private static Map<String, Object> consumerProperties(Map<String, Object> base) {
+    Map<String, Object> properties = new HashMap<>(base);
+    properties.remove(ConsumerConfig.GROUP_ID_CONFIG);
+    properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+    properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+    properties.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10_000);
+    properties.put(ConsumerConfig.FETCH_MAX_BYTES_CONFIG, 64 * 1024 * 1024);
+    properties.put(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 16 * 1024 * 1024);
+    return properties;
+  }
+
+  public Optional<Integer> availableQuantity(Long storeId, Long itemId) {
+    return Optional.ofNullable(stock.get(new StockKey(storeId, itemId)));
+  }
+
+  public boolean isLoaded() {
+    return loaded.getCount() == 0;
+  }
+
+  public int size() {
+    return stock.size();
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    follower = new Thread(this::follow, "stock-state-cache");
+    follower.setDaemon(true);
+    follower.start();
+    try {
+      if (!loaded.await(bootstrapTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+        log.warn("Stock state cache not caught up after {}, continuing startup with {} entries", bootstrapTimeout, stock.size());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    Consumer<String, String> current = consumer;
+    if (current != null) {
+      current.wakeup();
+    }
+    try {
+      follower.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
+  }
+
+  private void follow() {
+    try (Consumer<String, String> kafkaConsumer = new DefaultKafkaConsumerFactory<String, String>(consumerProperties).createConsumer()) {
+      consumer = kafkaConsumer;
+      List<TopicPartition> partitions = kafkaConsumer.partitionsFor(topic).stream()
+          .map(info -> new TopicPartition(info.topic(), info.partition()))
+          .toList();
+      kafkaConsumer.assign(partitions);
+      kafkaConsumer.seekToBeginning(partitions);
+      Map<TopicPartition, Long> endOffsets = kafkaConsumer.endOffsets(partitions);
+
+      long start = System.nanoTime();
+      long records = 0;
+      while (running && !caughtUp(kafkaConsumer, endOffsets)) {
+        records += apply(kafkaConsumer);
+      }
+      log.info("Stock state cache loaded {} entries from {} records on {} partitions in {} ms",
+          stock.size(), records, partitions.size(), (System.nanoTime() - start) / 1_000_000);
+      loaded.countDown();
+
+      while (running) {
+        apply(kafkaConsumer);
+      }
+    } catch (WakeupException e) {
+      // stop() while polling
+    } catch (Exception e) {
+      log.error("Stock state cache stopped following {}: {}", topic, e.getMessage());
+    } finally {
+      consumer = null;
+      loaded.countDown();
+    }
+  }
+
+  private boolean caughtUp(Consumer<String, String> kafkaConsumer, Map<TopicPartition, Long> endOffsets) {
+    return endOffsets.entrySet().stream().allMatch(end -> kafkaConsumer.position(end.getKey()) >= end.getValue());
+  }
+
+  private int apply(Consumer<String, String> kafkaConsumer) {
+    int applied = 0;
+    for (ConsumerRecord<String, String> record : kafkaConsumer.poll(Duration.ofMillis(500))) {
+      apply(record.key(), record.value());
+      applied++;
+    }
+    return applied;
+  }
+
+  // A null value is a tombstone: the store no longer stocks the item
+  private void apply(String key, String value) {
+    try {
+      int separator = key.indexOf(':');
+      StockKey stockKey = new StockKey(Long.parseLong(key, 0, separator, 10), Long.parseLong(key, separator + 1, key.length(), 10));
+      if (value == null) {
+        stock.remove(stockKey);
+        return;
+      }
+      Integer availableQuantity = availableQuantity(value);
+      if (availableQuantity != null) {
+        stock.put(stockKey, availableQuantity);
+      }
+    } catch (IOException | RuntimeException e) {
+      log.warn("Skipping unreadable stock state record {}: {}", key, e.getMessage());
+    }
+  }
+
+  // Streams to the one field the cache keeps instead of binding the whole StockState (timestamp parsing
+  // included); catch-up at 1M records is mostly this method
+  private Integer availableQuantity(String value) throws IOException {
+    try (JsonParser parser = objectMapper.getFactory().createParser(value)) {
+      while (parser.nextToken() != null) {
+        if (parser.currentToken() == JsonToken.FIELD_NAME && AVAILABLE_QUANTITY.equals(parser.currentName())) {
+          return parser.nextToken() == JsonToken.VALUE_NUMBER_INT ? parser.getIntValue() : null;
+        }
+      }
+      return null;
+    }
+  }
+}
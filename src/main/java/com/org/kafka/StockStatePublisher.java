@@ -0,0 +1,172 @@
+package com.org.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.entity.Inventory;
+import com.org.model.StockState;
+import com.org.service.JacksonConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+// Current stock per store and item on a log-compacted topic keyed "storeId:itemId". Only the latest
+// state of a key matters, so writes are coalesced per key and shipped on a dedicated thread: a hot
+// item sold many times between flushes costs one record, and a slow broker never holds a store lane.
+@Component
+@Slf4j
+public class StockStatePublisher {
+
+  private final KafkaTemplate<String, String> kafkaTemplate;
+  private final ObjectMapper objectMapper;
+  private final String topic;
+  private final boolean enabled;
+  private final Duration publishInterval;
+  private final AtomicLong versions = new AtomicLong();
+  private final Map<String, StockUpdate> pending = new ConcurrentHashMap<>();
+  private final Map<String, Long> inFlight = new ConcurrentHashMap<>();
+  private final Counter published;
+  private final Counter coalesced;
+  private final Counter failed;
+  private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "stock-state-publisher");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public StockStatePublisher(KafkaTemplate<String, String> kafkaTemplate, JacksonConfig jacksonConfig,
+      MeterRegistry meterRegistry,
+      @Value("${instore.stock-state.topic:stock-state}") String topic,
+      @Value("${instore.stock-state.enabled:true}") boolean enabled,
+      @Value("${instore.stock-state.publish-interval:PT0.1S}") Duration publishInterval) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.objectMapper = jacksonConfig.objectMapper();
+    this.topic = topic;
+    this.enabled = enabled;
+    this.publishInterval = publishInterval;
+    this.published = meterRegistry.counter("instore.stock-state.records", "result", "published");
+    this.coalesced = meterRegistry.counter("instore.stock-state.records", "result", "coalesced");
+    this.failed = meterRegistry.counter("instore.stock-state.records", "result", "failed");
+    Gauge.builder("instore.stock-state.pending", pending, Map::size).register(meterRegistry);
+  }
+
+  record StockUpdate(long version, String value) {
+  }
+
+  public static String key(Long storeId, Long itemId) {
+    return storeId + ":" + itemId;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (enabled) {
+      executor.scheduleWithFixedDelay(this::flushSafely, publishInterval.toMillis(), publishInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  public void publish(Inventory inventory) {
+    publish(inventory.getStoreId(), inventory.getItemId(), inventory.getAvailableQuantity(), inventory.getUpdationDate());
+  }
+
+  public void publish(Long storeId, Long itemId, Integer availableQuantity, LocalDateTime updatedAt) {
+    if (!enabled) {
+      return;
+    }
+    StockState state = StockState.builder()
+        .itemId(itemId)
+        .storeId(storeId)
+        .availableQuantity(availableQuantity)
+        .updatedAt(updatedAt != null ? updatedAt.toInstant(ZoneOffset.UTC) : Instant.now())
+        .build();
+    try {
+      StockUpdate update = new StockUpdate(versions.incrementAndGet(), objectMapper.writeValueAsString(state));
+      if (pending.put(key(storeId, itemId), update) != null) {
+        coalesced.increment();
+      }
+    } catch (JsonProcessingException e) {
+      log.error("Cannot serialize stock state for item {} in store {}: {}", itemId, storeId, e.getMessage());
+    }
+  }
+
+  // A tombstone: the store no longer stocks the item, and compaction eventually drops the key
+  public void publishRemoved(Long storeId, Long itemId) {
+    if (!enabled) {
+      return;
+    }
+    if (pending.put(key(storeId, itemId), new StockUpdate(versions.incrementAndGet(), null)) != null) {
+      coalesced.increment();
+    }
+  }
+
+  // Ships everything pending; stops at the first send the producer refuses outright (no broker
+  // metadata within max.block.ms) and leaves the rest for the next round
+  public int flush() {
+    int sent = 0;
+    for (String key : pending.keySet()) {
+      StockUpdate update = pending.remove(key);
+      if (update == null) {
+        continue;
+      }
+      inFlight.put(key, update.version());
+      try {
+        kafkaTemplate.send(topic, key, update.value()).whenComplete((result, e) -> {
+          if (e == null) {
+            inFlight.remove(key, update.version());
+            published.increment();
+          } else {
+            failed(key, update, e);
+          }
+        });
+        sent++;
+      } catch (RuntimeException e) {
+        failed(key, update, e);
+        break;
+      }
+    }
+    return sent;
+  }
+
+  public int pendingCount() {
+    return pending.size();
+  }
+
+  // Requeued only if nothing newer for the key has been sent since, and never over a newer pending state
+  private void failed(String key, StockUpdate update, Throwable e) {
+    failed.increment();
+    if (inFlight.remove(key, update.version())) {
+      pending.putIfAbsent(key, update);
+    }
+    log.debug("Stock state send for {} failed, will retry: {}", key, e.getMessage());
+  }
+
+  private void flushSafely() {
+    try {
+      flush();
+    } catch (Exception e) {
+      log.warn("Stock state publishing paused: {}", e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+    if (enabled) {
+      flushSafely();
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package com.org.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityLine {
+
+  private Long itemId;
+  private String itemName;
+  private Integer quantity;
+}
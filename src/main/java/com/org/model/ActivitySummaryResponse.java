@@ -0,0 +1,22 @@
+package com.org.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivitySummaryResponse {
+
+  private Long itemId;
+  private LocalDateTime from;
+  private LocalDateTime to;
+  private Long archivedActivities;
+  private Long liveActivities;
+  private List<ActivityTypeTotal> totals;
+}
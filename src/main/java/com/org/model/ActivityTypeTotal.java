@@ -0,0 +1,18 @@
+package com.org.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ActivityTypeTotal {
+
+  private String activityType;
+  private Long activities;
+  // Sum of the numeric activity values; other values count as activities only
+  private Long quantity;
+}
@@ -0,0 +1,25 @@
+package com.org.model;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArchivedActivity {
+
+  private Long activityId;
+  private Long itemId;
+  private Long storeId;
+  private String activityType;
+  private String activityValue;
+  private String message;
+  private String itemName;
+  private LocalDateTime activityTimestamp;
+  private LocalDateTime creationTimestamp;
+  private boolean archived;
+}
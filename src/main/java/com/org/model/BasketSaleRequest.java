@@ -0,0 +1,19 @@
+package com.org.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BasketSaleRequest {
+
+  // Client reference echoed back, e.g. the till's receipt number
+  private String basketId;
+  private Long storeId;
+  private List<InventoryRequest> lines;
+}
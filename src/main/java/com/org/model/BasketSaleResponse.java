@@ -0,0 +1,23 @@
+package com.org.model;
+
+import com.org.utility.ResponseStatus;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BasketSaleResponse {
+
+  private String basketId;
+  private Long storeId;
+  private ResponseStatus status;
+  private String message;
+  private Integer lines;
+  private Integer units;
+  private List<InventoryResponse> failures;
+}
@@ -0,0 +1,21 @@
+package com.org.model;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Failures-only answer to a batch: counts, plus the message of each failed line keyed by its request index
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchSummaryResponse {
+
+  private Integer lines;
+  private Integer succeeded;
+  private Integer failed;
+  private Integer skipped;
+  private Map<Integer, String> failures;
+}
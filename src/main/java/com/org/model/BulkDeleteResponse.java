@@ -0,0 +1,18 @@
+package com.org.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkDeleteResponse {
+
+  private Integer requested;
+  private Integer deleted;
+  private List<Long> notFound;
+}
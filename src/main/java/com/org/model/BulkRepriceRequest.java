@@ -0,0 +1,17 @@
+package com.org.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkRepriceRequest {
+
+  private List<UpdateItemRequest> prices;
+  private RepriceRule rule;
+}
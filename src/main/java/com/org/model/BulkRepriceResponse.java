@@ -0,0 +1,18 @@
+package com.org.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkRepriceResponse {
+
+  private Integer requested;
+  private Integer updated;
+  private List<UpdateItemResponse> failures;
+}
@@ -0,0 +1,17 @@
+package com.org.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeadLetterReplayRequest {
+
+  private Long id;
+  // Corrected event JSON; when absent the stored payload is replayed as-is
+  private String payload;
+}
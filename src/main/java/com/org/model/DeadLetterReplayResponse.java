@@ -0,0 +1,18 @@
+package com.org.model;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DeadLetterReplayResponse {
+
+  private Integer requested;
+  private Integer replayed;
+  private Map<Long, String> failures;
+}
@@ -1,6 +1,8 @@
 package com.org.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.time.Instant;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
@@ -16,5 +18,9 @@ public class InventoryActivityEvent {
   private Instant activityTimeStamp;
   private String itemName;
   private Long itemId;
+  private Long storeId;
+  // Only on grouped events (a basket sale); one entry per item
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  private List<ActivityLine> lines;
 
 }
@@ -14,8 +14,9 @@ public class InventoryRequest {
   private Integer quantity;
   private String operationType;
   private Long itemId;
+  private Long storeId;
 
   public static InventoryRequest of(Integer quantity) {
-    return new InventoryRequest(quantity, null, null);
+    return new InventoryRequest(quantity, null, null, null);
   }
 }
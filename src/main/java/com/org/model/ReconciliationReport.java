@@ -0,0 +1,21 @@
+package com.org.model;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationReport {
+
+  private Long stockRowsChecked;
+  private Long activityRowsRead;
+  private Long driftCount;
+  private Long repaired;
+  private Long durationMs;
+  private List<StockDrift> drifts;
+}
@@ -0,0 +1,19 @@
+package com.org.model;
+
+import java.math.BigDecimal;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class RepriceRule {
+
+  private BigDecimal percentage;
+  private String itemNameContains;
+  private BigDecimal minPrice;
+  private BigDecimal maxPrice;
+}
@@ -0,0 +1,20 @@
+package com.org.model;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockAtTimeResponse {
+
+  private Long itemId;
+  private LocalDateTime at;
+  private Integer totalQuantity;
+  private List<StoreStockAtTime> stores;
+}
@@ -0,0 +1,18 @@
+package com.org.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockDrift {
+
+  private Long itemId;
+  private Long storeId;
+  private Integer availableQuantity;
+  private Long expectedQuantity;
+}
@@ -0,0 +1,18 @@
+package com.org.model;
+
+import java.time.Instant;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockState {
+  private Long itemId;
+  private Long storeId;
+  private Integer availableQuantity;
+  private Instant updatedAt;
+}
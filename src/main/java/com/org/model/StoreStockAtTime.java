@@ -0,0 +1,19 @@
+package com.org.model;
+
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StoreStockAtTime {
+
+  private Long storeId;
+  private Integer availableQuantity;
+  private LocalDateTime checkpointAt;
+  private Long replayedActivities;
+}
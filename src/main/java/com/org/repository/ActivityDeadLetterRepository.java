@@ -0,0 +1,11 @@
+package com.org.repository;
+
+import com.org.entity.ActivityDeadLetter;
+import java.util.List;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ActivityDeadLetterRepository extends JpaRepository<ActivityDeadLetter, Long> {
+
+  List<ActivityDeadLetter> findByReplayedAtIsNullOrderByIdAsc(Pageable pageable);
+}
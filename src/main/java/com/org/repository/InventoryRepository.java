@@ -1,17 +1,29 @@
 package com.org.repository;
 
 import com.org.entity.Inventory;
-import com.org.entity.Item;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
-import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface InventoryRepository extends JpaRepository<Inventory,Long> {
+public interface InventoryRepository extends JpaRepository<Inventory,Long>, InventoryRepositoryCustom {
 
-    Optional<Inventory> findByItemId(Long itemId);
+    Optional<Inventory> findByStoreIdAndItemId(Long storeId, Long itemId);
+
+    List<Inventory> findAllByItemId(Long itemId);
+
+    // Locked in item order, as the basket sale locks: a store's lanes run its writes side by side
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.storeId = :storeId AND i.itemId IN :itemIds ORDER BY i.itemId")
+    List<Inventory> findAllByStoreIdAndItemIdIn(@Param("storeId") Long storeId, @Param("itemIds") Collection<Long> itemIds);
+
+    boolean existsByStoreId(Long storeId);
+
+    // Any stock row, for the startup warmup
+    Optional<Inventory> findFirstByOrderByIdDesc();
 }
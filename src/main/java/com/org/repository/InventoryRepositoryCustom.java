@@ -0,0 +1,30 @@
+package com.org.repository;
+
+import com.org.entity.Inventory;
+import java.util.List;
+
+public interface InventoryRepositoryCustom {
+
+  List<Inventory> insertStock(List<Long> itemIds, List<Long> storeIds, List<Integer> quantities);
+
+  // Stock row of a live item, locked for the rest of the transaction
+  record LockedStock(long itemId, int availableQuantity, String itemName) {
+  }
+
+  // Locks in ascending item id order; itemIds need not be sorted
+  List<LockedStock> lockStock(Long storeId, List<Long> itemIds);
+
+  List<Inventory> decrementStock(Long storeId, List<Long> itemIds, List<Integer> quantities);
+
+  // Stock row of a live item as a stock engine shard holds it
+  record OwnedStock(long storeId, long itemId, int availableQuantity, String itemName) {
+  }
+
+  // storeIds and itemIds are pairs; pairs with no stock row or a deleted item are missing from the result
+  List<OwnedStock> loadStock(List<Long> storeIds, List<Long> itemIds);
+
+  // Sets each row to its new quantity only while it still holds the expected one and its item is live.
+  // Rows changed by another writer are left alone and missing from the result.
+  List<Inventory> compareAndSetStock(List<Long> storeIds, List<Long> itemIds, List<Integer> expected,
+      List<Integer> quantities);
+}
@@ -0,0 +1,115 @@
+package com.org.repository;
+
+import com.org.entity.Inventory;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@AllArgsConstructor
+public class InventoryRepositoryCustomImpl implements InventoryRepositoryCustom {
+
+  private static final String INSERT_STOCK_SQL = """
+      INSERT INTO inventory (item_id, store_id, available_quantity, updation_date)
+      SELECT v.item_id, v.store_id, v.quantity, LOCALTIMESTAMP
+      FROM unnest(?::bigint[], ?::bigint[], ?::int[]) AS v(item_id, store_id, quantity)
+      RETURNING item_id, store_id, available_quantity, updation_date""";
+
+  // Rows are locked as they leave the sort, so every transaction takes its locks in the same order and two
+  // baskets sharing items queue behind each other instead of deadlocking
+  private static final String LOCK_STOCK_SQL = """
+      SELECT inv.item_id, inv.available_quantity, i.item_name
+      FROM inventory inv JOIN item i ON i.item_id = inv.item_id AND i.is_deleted = false
+      WHERE inv.store_id = ? AND inv.item_id = ANY(?::bigint[])
+      ORDER BY inv.item_id
+      FOR UPDATE OF inv""";
+
+  private static final String DECREMENT_STOCK_SQL = """
+      UPDATE inventory inv SET available_quantity = inv.available_quantity - v.quantity, updation_date = LOCALTIMESTAMP
+      FROM unnest(?::bigint[], ?::int[]) AS v(item_id, quantity)
+      WHERE inv.store_id = ? AND inv.item_id = v.item_id
+      RETURNING inv.item_id, inv.store_id, inv.available_quantity, inv.updation_date""";
+
+  private static final String LOAD_STOCK_SQL = """
+      SELECT inv.store_id, inv.item_id, inv.available_quantity, i.item_name
+      FROM unnest(?::bigint[], ?::bigint[]) AS k(store_id, item_id)
+      JOIN inventory inv ON inv.store_id = k.store_id AND inv.item_id = k.item_id
+      JOIN item i ON i.item_id = inv.item_id AND i.is_deleted = false""";
+
+  // The UPDATE locks rows in whatever order its join yields them, so they are locked by store and item first,
+  // the order LOCK_STOCK_SQL and the per-store chunks lock in; a row changed while waiting fails the compare
+  private static final String COMPARE_AND_SET_STOCK_SQL = """
+      WITH v AS (
+        SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::int[], ?::int[]) AS v(store_id, item_id, expected, quantity)
+      ), locked AS MATERIALIZED (
+        SELECT inv.store_id, inv.item_id FROM inventory inv JOIN v ON inv.store_id = v.store_id AND inv.item_id = v.item_id
+        ORDER BY inv.store_id, inv.item_id
+        FOR UPDATE OF inv
+      )
+      UPDATE inventory inv SET available_quantity = v.quantity, updation_date = LOCALTIMESTAMP
+      FROM v JOIN locked l ON l.store_id = v.store_id AND l.item_id = v.item_id, item i
+      WHERE inv.store_id = v.store_id AND inv.item_id = v.item_id AND inv.available_quantity = v.expected
+        AND i.item_id = inv.item_id AND i.is_deleted = false
+      RETURNING inv.item_id, inv.store_id, inv.available_quantity, inv.updation_date""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public List<Inventory> insertStock(List<Long> itemIds, List<Long> storeIds, List<Integer> quantities) {
+    return jdbcTemplate.query(INSERT_STOCK_SQL, ps -> {
+      ps.setArray(1, ps.getConnection().createArrayOf("bigint", itemIds.toArray()));
+      ps.setArray(2, ps.getConnection().createArrayOf("bigint", storeIds.toArray()));
+      ps.setArray(3, ps.getConnection().createArrayOf("int", quantities.toArray()));
+    }, (rs, rowNum) -> Inventory.builder()
+        .itemId(rs.getLong(1))
+        .storeId(rs.getLong(2))
+        .availableQuantity(rs.getInt(3))
+        .updationDate(rs.getTimestamp(4).toLocalDateTime())
+        .build());
+  }
+
+  @Override
+  public List<LockedStock> lockStock(Long storeId, List<Long> itemIds) {
+    return jdbcTemplate.query(LOCK_STOCK_SQL, ps -> {
+      ps.setLong(1, storeId);
+      ps.setArray(2, ps.getConnection().createArrayOf("bigint", itemIds.toArray()));
+    }, (rs, rowNum) -> new LockedStock(rs.getLong(1), rs.getInt(2), rs.getString(3)));
+  }
+
+  @Override
+  public List<Inventory> decrementStock(Long storeId, List<Long> itemIds, List<Integer> quantities) {
+    return jdbcTemplate.query(DECREMENT_STOCK_SQL, ps -> {
+      ps.setArray(1, ps.getConnection().createArrayOf("bigint", itemIds.toArray()));
+      ps.setArray(2, ps.getConnection().createArrayOf("int", quantities.toArray()));
+      ps.setLong(3, storeId);
+    }, (rs, rowNum) -> Inventory.builder()
+        .itemId(rs.getLong(1))
+        .storeId(rs.getLong(2))
+        .availableQuantity(rs.getInt(3))
+        .updationDate(rs.getTimestamp(4).toLocalDateTime())
+        .build());
+  }
+
+  @Override
+  public List<OwnedStock> loadStock(List<Long> storeIds, List<Long> itemIds) {
+    return jdbcTemplate.query(LOAD_STOCK_SQL, ps -> {
+      ps.setArray(1, ps.getConnection().createArrayOf("bigint", storeIds.toArray()));
+      ps.setArray(2, ps.getConnection().createArrayOf("bigint", itemIds.toArray()));
+    }, (rs, rowNum) -> new OwnedStock(rs.getLong(1), rs.getLong(2), rs.getInt(3), rs.getString(4)));
+  }
+
+  @Override
+  public List<Inventory> compareAndSetStock(List<Long> storeIds, List<Long> itemIds, List<Integer> expected,
+      List<Integer> quantities) {
+    return jdbcTemplate.query(COMPARE_AND_SET_STOCK_SQL, ps -> {
+      ps.setArray(1, ps.getConnection().createArrayOf("bigint", storeIds.toArray()));
+      ps.setArray(2, ps.getConnection().createArrayOf("bigint", itemIds.toArray()));
+      ps.setArray(3, ps.getConnection().createArrayOf("int", expected.toArray()));
+      ps.setArray(4, ps.getConnection().createArrayOf("int", quantities.toArray()));
+    }, (rs, rowNum) -> Inventory.builder()
+        .itemId(rs.getLong(1))
+        .storeId(rs.getLong(2))
+        .availableQuantity(rs.getInt(3))
+        .updationDate(rs.getTimestamp(4).toLocalDateTime())
+        .build());
+  }
+}
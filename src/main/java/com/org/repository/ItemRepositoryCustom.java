@@ -0,0 +1,30 @@
+package com.org.repository;
+
+import com.org.entity.Item;
+import com.org.model.RepriceRule;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+public interface ItemRepositoryCustom {
+
+  // One row per purged inventory row; storeId is null for a purged item that had no inventory
+  record PurgedStock(long itemId, Long storeId) {
+  }
+
+  // Items the rule matched, and how many of them were repriced; the rest would have left the valid price range
+  record RepriceCount(int matched, int updated) {
+  }
+
+  List<Item> insertItems(List<String> names, List<BigDecimal> prices);
+
+  List<Long> updateItems(List<Long> itemIds, List<String> names, List<BigDecimal> prices);
+
+  List<Long> updatePrices(List<Long> itemIds, List<BigDecimal> prices);
+
+  RepriceCount applyPriceRule(RepriceRule rule);
+
+  List<Long> markDeleted(List<Long> itemIds);
+
+  List<PurgedStock> purgeDeleted(Duration deletedFor, int limit);
+}
@@ -0,0 +1,150 @@
+package com.org.repository;
+
+import com.org.entity.Item;
+import com.org.model.RepriceRule;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@AllArgsConstructor
+public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
+
+  // Rows are inserted in request order, so the serial ids come out ascending in that order
+  private static final String INSERT_ITEMS_SQL = """
+      INSERT INTO item (item_name, item_price, is_deleted)
+      SELECT v.item_name, v.item_price, false
+      FROM unnest(?::varchar[], ?::numeric[]) WITH ORDINALITY AS v(item_name, item_price, ord)
+      ORDER BY v.ord
+      RETURNING item_id, creation_date""";
+
+  // A null name or price keeps the current value
+  private static final String UPDATE_ITEMS_SQL = """
+      UPDATE item i SET item_name = COALESCE(v.item_name, i.item_name), item_price = COALESCE(v.item_price, i.item_price),
+        updation_date = CURRENT_TIMESTAMP
+      FROM unnest(?::bigint[], ?::varchar[], ?::numeric[]) AS v(item_id, item_name, item_price)
+      WHERE i.item_id = v.item_id
+      RETURNING i.item_id""";
+
+  private static final String UPDATE_PRICES_SQL = """
+      UPDATE item i SET item_price = v.price, updation_date = CURRENT_TIMESTAMP
+      FROM unnest(?::bigint[], ?::numeric[]) AS v(item_id, price)
+      WHERE i.item_id = v.item_id AND i.is_deleted = false
+      RETURNING i.item_id""";
+
+  private static final String MARK_DELETED_SQL = """
+      UPDATE item SET is_deleted = true, deleted_at = LOCALTIMESTAMP, updation_date = LOCALTIMESTAMP
+      WHERE item_id = ANY(?::bigint[]) AND is_deleted = false
+      RETURNING item_id""";
+
+  // SKIP LOCKED keeps concurrent purge runs from queueing on the same rows. Only the item and its stock go:
+  // its activity, archived balances and checkpoints stay, so history and stock-at-time still answer for it.
+  private static final String PURGE_DELETED_SQL = """
+      WITH purged AS (
+        SELECT item_id FROM item
+        WHERE is_deleted = true AND deleted_at < LOCALTIMESTAMP - make_interval(secs => ?)
+        ORDER BY deleted_at
+        LIMIT ?
+        FOR UPDATE SKIP LOCKED
+      ), purged_inventory AS (
+        DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM purged)
+        RETURNING item_id, store_id
+      ), purged_item AS (
+        DELETE FROM item WHERE item_id IN (SELECT item_id FROM purged)
+        RETURNING item_id
+      )
+      SELECT p.item_id, i.store_id FROM purged_item p LEFT JOIN purged_inventory i ON i.item_id = p.item_id""";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Override
+  public List<Item> insertItems(List<String> names, List<BigDecimal> prices) {
+    List<Item> inserted = jdbcTemplate.query(INSERT_ITEMS_SQL, ps -> {
+      ps.setArray(1, ps.getConnection().createArrayOf("varchar", names.toArray()));
+      ps.setArray(2, ps.getConnection().createArrayOf("numeric", prices.toArray()));
+    }, (rs, rowNum) -> Item.builder()
+        .id(rs.getLong(1))
+        .creationDate(rs.getTimestamp(2).toLocalDateTime())
+        .isDeleted(false)
+        .build());
+
+    List<Item> items = new ArrayList<>(inserted);
+    items.sort(Comparator.comparing(Item::getId));
+    for (int i = 0; i < items.size(); i++) {
+      items.get(i).setItemName(names.get(i));
+      items.get(i).setItemPrice(prices.get(i));
+    }
+    return items;
+  }
+
+  @Override
+  public List<Long> updateItems(List<Long> itemIds, List<String> names, List<BigDecimal> prices) {
+    return jdbcTemplate.query(UPDATE_ITEMS_SQL, ps -> {
+      ps.setArray(1, ps.getConnection().createArrayOf("bigint", itemIds.toArray()));
+      ps.setArray(2, ps.getConnection().createArrayOf("varchar", names.toArray()));
+      ps.setArray(3, ps.getConnection().createArrayOf("numeric", prices.toArray()));
+    }, (rs, rowNum) -> rs.getLong(1));
+  }
+
+  @Override
+  public List<Long> updatePrices(List<Long> itemIds, List<BigDecimal> prices) {
+    return jdbcTemplate.query(UPDATE_PRICES_SQL, ps -> {
+      ps.setArray(1, ps.getConnection().createArrayOf("bigint", itemIds.toArray()));
+      ps.setArray(2, ps.getConnection().createArrayOf("numeric", prices.toArray()));
+    }, (rs, rowNum) -> rs.getLong(1));
+  }
+
+  // Items whose new price would round to zero or overflow DECIMAL(10,2) keep their price and are only counted.
+  // Both counts come from one statement, so they see the same snapshot.
+  @Override
+  public RepriceCount applyPriceRule(RepriceRule rule) {
+    BigDecimal multiplier = BigDecimal.ONE.add(rule.getPercentage().divide(BigDecimal.valueOf(100), 6, RoundingMode.HALF_UP));
+    StringBuilder filter = new StringBuilder("is_deleted = false");
+    List<Object> filterArgs = new ArrayList<>();
+
+    if (rule.getItemNameContains() != null && !rule.getItemNameContains().isBlank()) {
+      filter.append(" AND item_name ILIKE ? ESCAPE '\\'");
+      filterArgs.add("%" + escapeLike(rule.getItemNameContains()) + "%");
+    }
+    if (rule.getMinPrice() != null) {
+      filter.append(" AND item_price >= ?");
+      filterArgs.add(rule.getMinPrice());
+    }
+    if (rule.getMaxPrice() != null) {
+      filter.append(" AND item_price <= ?");
+      filterArgs.add(rule.getMaxPrice());
+    }
+
+    String sql = "WITH updated AS (UPDATE item SET item_price = ROUND(item_price * ?, 2), updation_date = CURRENT_TIMESTAMP"
+        + " WHERE " + filter + " AND ROUND(item_price * ?, 2) BETWEEN 0.01 AND 99999999.99 RETURNING 1)"
+        + " SELECT (SELECT count(*) FROM item WHERE " + filter + "), (SELECT count(*) FROM updated)";
+    List<Object> args = new ArrayList<>();
+    args.add(multiplier);
+    args.addAll(filterArgs);
+    args.add(multiplier);
+    args.addAll(filterArgs);
+    return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new RepriceCount(rs.getInt(1), rs.getInt(2)), args.toArray());
+  }
+
+  @Override
+  public List<Long> markDeleted(List<Long> itemIds) {
+    return jdbcTemplate.query(MARK_DELETED_SQL,
+        ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", itemIds.toArray())),
+        (rs, rowNum) -> rs.getLong(1));
+  }
+
+  @Override
+  public List<PurgedStock> purgeDeleted(Duration deletedFor, int limit) {
+    return jdbcTemplate.query(PURGE_DELETED_SQL,
+        (rs, rowNum) -> new PurgedStock(rs.getLong("item_id"), rs.getObject("store_id", Long.class)),
+        deletedFor.toSeconds(), limit);
+  }
+
+  private String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+}
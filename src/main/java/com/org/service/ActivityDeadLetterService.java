@@ -0,0 +1,130 @@
+package com.org.service;
+
+import com.org.entity.ActivityDeadLetter;
+import com.org.kafka.ActivityEventReader;
+import com.org.kafka.InvalidActivityEventException;
+import com.org.kafka.KafkaProducer;
+import com.org.model.DeadLetterReplayRequest;
+import com.org.model.DeadLetterReplayResponse;
+import com.org.repository.ActivityDeadLetterRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+@Service
+@Slf4j
+public class ActivityDeadLetterService {
+
+  private static final int MAX_LIST_LIMIT = 1_000;
+  private static final int MAX_ERROR_LENGTH = 4_000;
+  private static final String INVALID_PAYLOAD = "Invalid payload";
+
+  private final ActivityDeadLetterRepository activityDeadLetterRepository;
+  private final ActivityEventReader activityEventReader;
+  private final KafkaProducer kafkaProducer;
+  private final MeterRegistry meterRegistry;
+  private final Duration ackTimeout;
+
+  public ActivityDeadLetterService(ActivityDeadLetterRepository activityDeadLetterRepository,
+      ActivityEventReader activityEventReader, KafkaProducer kafkaProducer, MeterRegistry meterRegistry,
+      @Value("${instore.consumer.replay.ack-timeout:PT30S}") Duration ackTimeout) {
+    this.activityDeadLetterRepository = activityDeadLetterRepository;
+    this.activityEventReader = activityEventReader;
+    this.kafkaProducer = kafkaProducer;
+    this.meterRegistry = meterRegistry;
+    this.ackTimeout = ackTimeout;
+  }
+
+  public void record(String payload, String error, String sourceTopic, Integer sourcePartition, Long sourceOffset) {
+    ActivityDeadLetter deadLetter = new ActivityDeadLetter();
+    deadLetter.setPayload(payload != null ? payload : "");
+    deadLetter.setError(error != null && error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error);
+    deadLetter.setSourceTopic(sourceTopic);
+    deadLetter.setSourcePartition(sourcePartition);
+    deadLetter.setSourceOffset(sourceOffset);
+    activityDeadLetterRepository.save(deadLetter);
+  }
+
+  public ResponseEntity<List<ActivityDeadLetter>> listPending(int limit) {
+    if (limit <= 0 || limit > MAX_LIST_LIMIT) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    return new ResponseEntity<>(activityDeadLetterRepository.findByReplayedAtIsNullOrderByIdAsc(PageRequest.of(0, limit)),
+        HttpStatus.OK);
+  }
+
+  // Re-publishes dead letters (optionally with a corrected payload) to the activity topic. A record is
+  // marked replayed only after Kafka acked it; invalid payloads are reported and left pending.
+  public ResponseEntity<DeadLetterReplayResponse> replay(List<DeadLetterReplayRequest> requests) {
+    if (requests == null || requests.isEmpty() || requests.stream().map(DeadLetterReplayRequest::getId).anyMatch(Objects::isNull)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    Map<Long, ActivityDeadLetter> deadLetters = activityDeadLetterRepository
+        .findAllById(requests.stream().map(DeadLetterReplayRequest::getId).toList()).stream()
+        .collect(Collectors.toMap(ActivityDeadLetter::getId, Function.identity()));
+    Map<Long, String> failures = new LinkedHashMap<>();
+    Map<Long, CompletableFuture<Void>> sends = new LinkedHashMap<>();
+
+    for (DeadLetterReplayRequest request : requests) {
+      ActivityDeadLetter deadLetter = deadLetters.get(request.getId());
+      if (deadLetter == null) {
+        failures.put(request.getId(), "Dead letter not found");
+        continue;
+      }
+      if (deadLetter.getReplayedAt() != null || sends.containsKey(deadLetter.getId())) {
+        failures.put(request.getId(), "Already replayed");
+        continue;
+      }
+      String payload = request.getPayload() != null ? request.getPayload() : deadLetter.getPayload();
+      try {
+        activityEventReader.read(payload);
+      } catch (InvalidActivityEventException e) {
+        // The parser's text can quote the payload back; it stays in the log
+        log.warn("Dead letter {} not replayed, invalid payload: {}", request.getId(), e.getMessage());
+        failures.put(request.getId(), INVALID_PAYLOAD);
+        continue;
+      }
+      deadLetter.setPayload(payload);
+      sends.put(deadLetter.getId(), kafkaProducer.sendTracked(payload));
+    }
+
+    List<ActivityDeadLetter> replayed = new ArrayList<>();
+    LocalDateTime now = LocalDateTime.now();
+    sends.forEach((id, send) -> {
+      ActivityDeadLetter deadLetter = deadLetters.get(id);
+      try {
+        send.get(ackTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        deadLetter.setReplayedAt(now);
+        replayed.add(deadLetter);
+      } catch (Exception e) {
+        log.error("Replay of dead letter {} failed: {}", id, e.getMessage());
+        failures.put(id, "Publish failed, retry later");
+      }
+    });
+    activityDeadLetterRepository.saveAll(replayed);
+    meterRegistry.counter("instore.activity.consumed", "outcome", "replayed").increment(replayed.size());
+
+    DeadLetterReplayResponse response = DeadLetterReplayResponse.builder()
+        .requested(requests.size())
+        .replayed(replayed.size())
+        .failures(failures)
+        .build();
+    return new ResponseEntity<>(response, failures.isEmpty() ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT);
+  }
+}
@@ -0,0 +1,135 @@
+package com.org.service;
+
+import com.org.archive.ActivityArchive;
+import com.org.archive.ActivityArchive.Totals;
+import com.org.archive.ArchiveUnavailableException;
+import com.org.model.ActivitySummaryResponse;
+import com.org.model.ActivityTypeTotal;
+import com.org.model.ArchivedActivity;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Activity history of an item and per-type totals over live and archived activity. The archive catalog and
+// inventory_activity are read in one snapshot, so a concurrent archiving run can neither hide a row nor
+// show it twice.
+@Service
+@Slf4j
+public class ActivityHistoryService {
+
+  private static final int MAX_HISTORY_ROWS = 10_000;
+
+  private static final String LIVE_HISTORY_SQL = """
+      SELECT activity_id, item_id, store_id, activity_type, activity_value, message, item_name,
+             activity_timestamp, creation_timestamp
+      FROM inventory_activity
+      WHERE item_id = ? AND activity_timestamp BETWEEN ? AND ?
+      ORDER BY activity_timestamp, activity_id
+      LIMIT ?""";
+
+  private static final String LIVE_TOTALS_SQL = """
+      SELECT upper(activity_type), count(*),
+             coalesce(sum(CASE WHEN trim(activity_value) ~ '^[+-]?[0-9]+$' THEN trim(activity_value)::bigint ELSE 0 END), 0)
+      FROM inventory_activity
+      WHERE (?::bigint IS NULL OR item_id = ?) AND activity_timestamp BETWEEN ? AND ?
+      GROUP BY 1""";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ActivityArchive activityArchive;
+  private final TransactionTemplate readTransaction;
+
+  public ActivityHistoryService(JdbcTemplate jdbcTemplate, ActivityArchive activityArchive,
+      PlatformTransactionManager transactionManager) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.activityArchive = activityArchive;
+    this.readTransaction = new TransactionTemplate(transactionManager);
+    this.readTransaction.setReadOnly(true);
+    this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+  }
+
+  // Oldest first, archived rows before live ones at the same time
+  public ResponseEntity<List<ArchivedActivity>> getHistory(Long itemId, LocalDateTime from, LocalDateTime to, int limit) {
+    if (itemId == null || from == null || to == null || from.isAfter(to) || limit <= 0) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    int rows = Math.min(limit, MAX_HISTORY_ROWS);
+
+    List<ArchivedActivity> history;
+    try {
+      history = readTransaction.execute(status -> {
+        List<ArchivedActivity> archived = activityArchive.history(itemId, from, to);
+        List<ArchivedActivity> combined = new ArrayList<>(archived.subList(0, Math.min(rows, archived.size())));
+        if (combined.size() < rows) {
+          combined.addAll(jdbcTemplate.query(LIVE_HISTORY_SQL, (rs, rowNum) -> ArchivedActivity.builder()
+              .activityId(rs.getLong(1))
+              .itemId(rs.getLong(2))
+              .storeId(rs.getObject(3, Long.class))
+              .activityType(rs.getString(4))
+              .activityValue(rs.getString(5))
+              .message(rs.getString(6))
+              .itemName(rs.getString(7))
+              .activityTimestamp(rs.getTimestamp(8).toLocalDateTime())
+              .creationTimestamp(rs.getTimestamp(9) != null ? rs.getTimestamp(9).toLocalDateTime() : null)
+              .build(), itemId, Timestamp.valueOf(from), Timestamp.valueOf(to), rows - combined.size()));
+        }
+        combined.sort(Comparator.comparing(ArchivedActivity::getActivityTimestamp));
+        return combined;
+      });
+    } catch (ArchiveUnavailableException e) {
+      log.warn("Activity history of item {} needs archived activity: {}", itemId, e.getMessage());
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    return new ResponseEntity<>(history, HttpStatus.OK);
+  }
+
+  // For one item, or every item when itemId is null
+  public ResponseEntity<ActivitySummaryResponse> getSummary(Long itemId, LocalDateTime from, LocalDateTime to) {
+    if (from == null || to == null || from.isAfter(to)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      return readTransaction.execute(status -> {
+        Map<String, Totals> archived = activityArchive.totals(itemId, from, to);
+        Map<String, Totals> totals = new TreeMap<>(archived);
+        long[] liveActivities = new long[1];
+        jdbcTemplate.query(LIVE_TOTALS_SQL, rs -> {
+          long activities = rs.getLong(2);
+          liveActivities[0] += activities;
+          totals.merge(rs.getString(1), new Totals(activities, rs.getLong(3)),
+              (a, b) -> a.plus(b.activities(), b.quantity()));
+        }, itemId, itemId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+
+        List<ActivityTypeTotal> typeTotals = new ArrayList<>(totals.size());
+        totals.forEach((activityType, total) -> typeTotals.add(ActivityTypeTotal.builder()
+            .activityType(activityType)
+            .activities(total.activities())
+            .quantity(total.quantity())
+            .build()));
+        return new ResponseEntity<>(ActivitySummaryResponse.builder()
+            .itemId(itemId)
+            .from(from)
+            .to(to)
+            .archivedActivities(archived.values().stream().mapToLong(Totals::activities).sum())
+            .liveActivities(liveActivities[0])
+            .totals(typeTotals)
+            .build(), HttpStatus.OK);
+      });
+    } catch (ArchiveUnavailableException e) {
+      log.warn("Activity summary needs archived activity: {}", e.getMessage());
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+  }
+}
\ No newline at end of file
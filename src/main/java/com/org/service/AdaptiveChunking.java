@@ -0,0 +1,157 @@
+package com.org.service;
+
+import com.org.utility.ChunkedWrite;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+// Chunk size and parallelism for batch writes, steered by AIMD on what each committed chunk observed.
+// A chunk whose transaction took longer than the latency target halves the size; one that waited longer
+// than the wait target for its connection halves the parallelism. Chunks within both targets grow the size
+// by one step and the parallelism by one per round of chunks. Only chunks cut under the current decision
+// count, so the chunks still in flight from before a decrease cannot shrink it twice.
+@Component
+public class AdaptiveChunking {
+
+  public record ChunkPlan(ChunkedWrite write, int size, int parallelism, long generation) {
+  }
+
+  private final Map<ChunkedWrite, Controller> controllers = new EnumMap<>(ChunkedWrite.class);
+
+  public AdaptiveChunking(Environment environment, MeterRegistry meterRegistry) {
+    boolean adaptive = environment.getProperty("instore.chunking.adaptive", Boolean.class, true);
+    for (ChunkedWrite write : ChunkedWrite.values()) {
+      String prefix = "instore.chunking." + write.getKey() + ".";
+      int minSize = environment.getProperty(prefix + "min-size", Integer.class, write.getDefaultMinSize());
+      int maxSize = environment.getProperty(prefix + "max-size", Integer.class, write.getDefaultMaxSize());
+      int initialSize = environment.getProperty(prefix + "initial-size", Integer.class, write.getDefaultInitialSize());
+      int maxParallelism = environment.getProperty(prefix + "max-parallelism", Integer.class, write.getDefaultMaxParallelism());
+      controllers.put(write, new Controller(write, adaptive, minSize, maxSize,
+          Math.max(minSize, Math.min(initialSize, maxSize)),
+          environment.getProperty(prefix + "size-step", Integer.class, minSize),
+          Math.max(1, maxParallelism),
+          environment.getProperty(prefix + "latency-target", Duration.class, Duration.ofMillis(200)).toNanos(),
+          environment.getProperty(prefix + "connection-wait-target", Duration.class, Duration.ofMillis(20)).toNanos(),
+          meterRegistry));
+    }
+  }
+
+  public ChunkPlan plan(ChunkedWrite write) {
+    return controllers.get(write).plan();
+  }
+
+  // Called once per committed chunk with the time it waited for a connection and the time its transaction took
+  public void record(ChunkPlan plan, long connectionWaitNanos, long commitNanos) {
+    controllers.get(plan.write()).record(plan, connectionWaitNanos, commitNanos);
+  }
+
+  private static class Controller {
+
+    private final ChunkedWrite write;
+    private final boolean adaptive;
+    private final int minSize;
+    private final int maxSize;
+    private final int sizeStep;
+    private final int maxParallelism;
+    private final long latencyTargetNanos;
+    private final long waitTargetNanos;
+    private final Timer commitLatency;
+    private final Timer connectionWait;
+    private final Counter increased;
+    private final Counter decreasedForLatency;
+    private final Counter decreasedForWait;
+    private int size;
+    private int parallelism;
+    private int chunksWithinTargets;
+    private long generation;
+
+    Controller(ChunkedWrite write, boolean adaptive, int minSize, int maxSize, int initialSize, int sizeStep,
+        int maxParallelism, long latencyTargetNanos, long waitTargetNanos, MeterRegistry meterRegistry) {
+      this.write = write;
+      this.adaptive = adaptive;
+      this.minSize = minSize;
+      this.maxSize = maxSize;
+      this.sizeStep = Math.max(1, sizeStep);
+      this.maxParallelism = maxParallelism;
+      this.latencyTargetNanos = latencyTargetNanos;
+      this.waitTargetNanos = waitTargetNanos;
+      this.size = initialSize;
+      this.parallelism = maxParallelism;
+
+      Gauge.builder("instore.chunking.size", this, controller -> controller.plan().size())
+          .tag("write", write.getKey())
+          .register(meterRegistry);
+      Gauge.builder("instore.chunking.parallelism", this, controller -> controller.plan().parallelism())
+          .tag("write", write.getKey())
+          .register(meterRegistry);
+      this.commitLatency = Timer.builder("instore.chunking.commit.latency")
+          .tag("write", write.getKey())
+          .publishPercentiles(0.5, 0.99)
+          .register(meterRegistry);
+      this.connectionWait = Timer.builder("instore.chunking.connection.wait")
+          .tag("write", write.getKey())
+          .publishPercentiles(0.5, 0.99)
+          .register(meterRegistry);
+      this.increased = decisions(meterRegistry, "increase");
+      this.decreasedForLatency = decisions(meterRegistry, "decrease-latency");
+      this.decreasedForWait = decisions(meterRegistry, "decrease-connection-wait");
+    }
+
+    private Counter decisions(MeterRegistry meterRegistry, String decision) {
+      return Counter.builder("instore.chunking.decisions")
+          .tag("write", write.getKey())
+          .tag("decision", decision)
+          .register(meterRegistry);
+    }
+
+    synchronized ChunkPlan plan() {
+      return new ChunkPlan(write, size, parallelism, generation);
+    }
+
+    synchronized void record(ChunkPlan plan, long connectionWaitNanos, long commitNanos) {
+      commitLatency.record(commitNanos, TimeUnit.NANOSECONDS);
+      connectionWait.record(connectionWaitNanos, TimeUnit.NANOSECONDS);
+      if (!adaptive || plan.generation() != generation) {
+        return;
+      }
+
+      boolean slowCommit = commitNanos > latencyTargetNanos;
+      boolean slowConnection = connectionWaitNanos > waitTargetNanos;
+      if (slowCommit || slowConnection) {
+        if (slowCommit && size > minSize) {
+          size = Math.max(minSize, size / 2);
+          decreasedForLatency.increment();
+        }
+        if (slowConnection && parallelism > 1) {
+          parallelism = Math.max(1, parallelism / 2);
+          decreasedForWait.increment();
+        }
+        chunksWithinTargets = 0;
+        generation++;
+        return;
+      }
+
+      boolean grew = false;
+      if (size < maxSize) {
+        size = Math.min(maxSize, size + sizeStep);
+        grew = true;
+      }
+      if (++chunksWithinTargets >= parallelism && parallelism < maxParallelism) {
+        parallelism++;
+        chunksWithinTargets = 0;
+        grew = true;
+      }
+      if (grew) {
+        increased.increment();
+        generation++;
+      }
+    }
+  }
+}
@@ -0,0 +1,164 @@
+package com.org.service;
+
+import com.org.utility.AdmissionEndpoint;
+import com.org.utility.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+// Decides up front whether a batch may enter the worker pools. Each endpoint has its own budget of
+// queued lines and all endpoints share a global in-flight budget; when either is exhausted the batch
+// is turned away immediately with a Retry-After instead of growing the queues and everyone's latency.
+@Component
+@Slf4j
+public class AdmissionControl {
+
+  public static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+  private static final int MAX_TRACKED_CLIENTS = 10_000;
+
+  private final Map<AdmissionEndpoint, Semaphore> endpointBudgets = new EnumMap<>(AdmissionEndpoint.class);
+  private final Map<AdmissionEndpoint, Integer> endpointLimits = new EnumMap<>(AdmissionEndpoint.class);
+  private final Semaphore inFlightBudget;
+  private final int maxInFlightLines;
+  private final long retryAfterSeconds;
+  private final double clientLinesPerSecond;
+  private final double clientBurstLines;
+  private final Map<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+
+  public AdmissionControl(Environment environment, MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+    this.maxInFlightLines = environment.getProperty("instore.admission.max-in-flight-lines", Integer.class, 50_000);
+    this.inFlightBudget = new Semaphore(maxInFlightLines);
+    this.retryAfterSeconds = environment.getProperty("instore.admission.retry-after", Duration.class, Duration.ofSeconds(1)).toSeconds();
+    this.clientLinesPerSecond = environment.getProperty("instore.admission.client.lines-per-second", Double.class, 0d);
+    this.clientBurstLines = environment.getProperty("instore.admission.client.burst-lines", Double.class, clientLinesPerSecond * 10);
+
+    for (AdmissionEndpoint endpoint : AdmissionEndpoint.values()) {
+      int limit = environment.getProperty("instore.admission." + endpoint.getKey() + ".max-queued-lines", Integer.class,
+          endpoint.getDefaultMaxLines());
+      endpointLimits.put(endpoint, limit);
+      Semaphore budget = new Semaphore(limit);
+      endpointBudgets.put(endpoint, budget);
+      Gauge.builder("instore.admission.queued.lines", budget, b -> limit - b.availablePermits())
+          .tag("endpoint", endpoint.getKey())
+          .register(meterRegistry);
+    }
+    Gauge.builder("instore.admission.in-flight.lines", inFlightBudget, b -> maxInFlightLines - b.availablePermits())
+        .register(meterRegistry);
+  }
+
+  public Ticket tryAdmit(AdmissionEndpoint endpoint, HttpServletRequest request, int lines) {
+    return tryAdmit(endpoint, clientId(request), lines);
+  }
+
+  // Non-HTTP callers (gRPC terminals) identify themselves directly. The client's tokens are taken last,
+  // so a batch turned away for a saturated budget does not also spend its client's rate.
+  public Ticket tryAdmit(AdmissionEndpoint endpoint, String clientId, int lines) {
+    boolean clientLimited = clientLinesPerSecond > 0;
+    if (lines > endpointLimits.get(endpoint) || lines > maxInFlightLines || clientLimited && lines > clientBurstLines) {
+      return reject(endpoint, "too-large", HttpStatus.PAYLOAD_TOO_LARGE, 0);
+    }
+
+    Semaphore endpointBudget = endpointBudgets.get(endpoint);
+    if (!endpointBudget.tryAcquire(lines)) {
+      return reject(endpoint, "endpoint-saturated", HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+    }
+    if (!inFlightBudget.tryAcquire(lines)) {
+      endpointBudget.release(lines);
+      return reject(endpoint, "global-saturated", HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+    }
+
+    if (clientLimited) {
+      long waitNanos = clientBucket(clientId).tryConsume(lines);
+      if (waitNanos > 0) {
+        inFlightBudget.release(lines);
+        endpointBudget.release(lines);
+        return reject(endpoint, "client-rate", HttpStatus.TOO_MANY_REQUESTS,
+            Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos) + 1));
+      }
+    }
+    return new Ticket(() -> {
+      inFlightBudget.release(lines);
+      endpointBudget.release(lines);
+    }, null, 0);
+  }
+
+  private Ticket reject(AdmissionEndpoint endpoint, String reason, HttpStatus status, long retryAfter) {
+    Counter.builder("instore.admission.rejected")
+        .tag("endpoint", endpoint.getKey())
+        .tag("reason", reason)
+        .register(meterRegistry)
+        .increment();
+    log.debug("Rejected {} batch: {}", endpoint.getKey(), reason);
+    return new Ticket(null, status, retryAfter);
+  }
+
+  private TokenBucket clientBucket(String clientId) {
+    if (clientBuckets.size() > MAX_TRACKED_CLIENTS) {
+      clientBuckets.values().removeIf(TokenBucket::isFull);
+    }
+    return clientBuckets.computeIfAbsent(clientId, id -> new TokenBucket(clientBurstLines, clientLinesPerSecond));
+  }
+
+  private String clientId(HttpServletRequest request) {
+    String clientId = request.getHeader(CLIENT_ID_HEADER);
+    return clientId != null && !clientId.isBlank() ? clientId : request.getRemoteAddr();
+  }
+
+  public static class Ticket implements AutoCloseable {
+
+    private final Runnable release;
+    private final HttpStatus rejectionStatus;
+    private final long retryAfterSeconds;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Ticket(Runnable release, HttpStatus rejectionStatus, long retryAfterSeconds) {
+      this.release = release;
+      this.rejectionStatus = rejectionStatus;
+      this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public boolean isAdmitted() {
+      return rejectionStatus == null;
+    }
+
+    public HttpStatus getRejectionStatus() {
+      return rejectionStatus;
+    }
+
+    public long getRetryAfterSeconds() {
+      return retryAfterSeconds;
+    }
+
+    public <T> ResponseEntity<T> rejection() {
+      ResponseEntity.BodyBuilder builder = ResponseEntity.status(rejectionStatus);
+      if (retryAfterSeconds > 0) {
+        builder.header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+      }
+      return builder.build();
+    }
+
+    @Override
+    public void close() {
+      if (release != null && released.compareAndSet(false, true)) {
+        release.run();
+      }
+    }
+  }
+}
@@ -0,0 +1,255 @@
+package com.org.service;
+
+import com.org.diagnostics.InventoryBatchEvent;
+import com.org.entity.Inventory;
+import com.org.kafka.StockStatePublisher;
+import com.org.model.ActivityLine;
+import com.org.model.BasketSaleRequest;
+import com.org.model.BasketSaleResponse;
+import com.org.model.InventoryRequest;
+import com.org.model.InventoryResponse;
+import com.org.repository.InventoryRepository;
+import com.org.repository.InventoryRepositoryCustom.LockedStock;
+import com.org.utility.ExecutionLane;
+import com.org.utility.LineOutcome;
+import com.org.utility.ResponseStatus;
+import com.org.utility.StockOperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// A checkout basket is recorded whole or not at all: one short transaction locks the basket's stock rows
+// in item id order, checks every line and decrements them with one UPDATE. Baskets sharing items then wait
+// on each other instead of deadlocking, also across instances and against other writers of the same rows.
+@Service
+@Slf4j
+public class BasketSaleService {
+
+  private static final int MAX_ATTEMPTS = 3;
+  private static final String DEADLOCK_SQL_STATE = "40P01";
+  private static final String NOT_RECORDED = "Basket not recorded";
+
+  private final InventoryRepository inventoryRepository;
+  private final StoreWriteRouter storeWriteRouter;
+  private final InventoryActivityEventProducer inventoryActivityEventProducer;
+  private final StockStatePublisher stockStatePublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final Counter committed;
+  private final Counter rejected;
+  private final Counter invalid;
+  private final Counter busy;
+  private final Counter failed;
+  private final Counter deadlocks;
+
+  public BasketSaleService(InventoryRepository inventoryRepository, StoreWriteRouter storeWriteRouter,
+      InventoryActivityEventProducer inventoryActivityEventProducer, StockStatePublisher stockStatePublisher,
+      TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
+    this.inventoryRepository = inventoryRepository;
+    this.storeWriteRouter = storeWriteRouter;
+    this.inventoryActivityEventProducer = inventoryActivityEventProducer;
+    this.stockStatePublisher = stockStatePublisher;
+    this.transactionTemplate = transactionTemplate;
+    this.committed = meterRegistry.counter("instore.basket.sales", "outcome", "committed");
+    this.rejected = meterRegistry.counter("instore.basket.sales", "outcome", "rejected");
+    this.invalid = meterRegistry.counter("instore.basket.sales", "outcome", "invalid");
+    this.busy = meterRegistry.counter("instore.basket.sales", "outcome", "busy");
+    this.failed = meterRegistry.counter("instore.basket.sales", "outcome", "error");
+    this.deadlocks = meterRegistry.counter("instore.basket.deadlocks");
+  }
+
+  private record Outcome(List<InventoryResponse> failures, List<Inventory> updated, Map<Long, String> itemNames) {
+  }
+
+  public ResponseEntity<BasketSaleResponse> sellBasket(BasketSaleRequest request) {
+    return sellBasketAsync(request).join();
+  }
+
+  public CompletableFuture<ResponseEntity<BasketSaleResponse>> sellBasketAsync(BasketSaleRequest request) {
+    if (request == null || request.getLines() == null || request.getLines().isEmpty()) {
+      invalid.increment();
+      return CompletableFuture.completedFuture(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+    }
+    Long storeId = storeWriteRouter.resolveStoreId(request.getStoreId());
+
+    // Sorted by item id: the lock order, and one line per item however often the till scanned it
+    Map<Long, Integer> quantities = new TreeMap<>();
+    List<InventoryResponse> failures = new ArrayList<>();
+    for (InventoryRequest line : request.getLines()) {
+      String error = validate(line, storeId);
+      if (error != null) {
+        failures.add(failure(line.getItemId(), line.getQuantity(), storeId, error));
+      } else {
+        quantities.merge(line.getItemId(), line.getQuantity(), Integer::sum);
+      }
+    }
+    if (!failures.isEmpty()) {
+      invalid.increment();
+      return CompletableFuture.completedFuture(
+          response(request, storeId, HttpStatus.BAD_REQUEST, ResponseStatus.FAILED, NOT_RECORDED, quantities, failures));
+    }
+
+    if (!storeWriteRouter.isKnownStore(storeId)) {
+      List<InventoryResponse> unknown = quantities.entrySet().stream()
+          .map(line -> failure(line.getKey(), line.getValue(), storeId, LineOutcome.ITEM_NOT_FOUND.getMessage()))
+          .toList();
+      return CompletableFuture.completedFuture(rejected(request, storeId, quantities, new Outcome(unknown, List.of(), Map.of())));
+    }
+
+    return storeWriteRouter.submit(storeId, ExecutionLane.INTERACTIVE, () -> sell(request, storeId, quantities), () -> {
+      busy.increment();
+      return response(request, storeId, HttpStatus.SERVICE_UNAVAILABLE, ResponseStatus.FAILED, LineOutcome.STORE_BUSY.getMessage(),
+          quantities, List.of());
+    });
+  }
+
+  private String validate(InventoryRequest line, Long storeId) {
+    if (line.getItemId() == null) {
+      return "Item id is required";
+    }
+    if (line.getQuantity() == null) {
+      return LineOutcome.MISSING_QUANTITY.getMessage();
+    }
+    if (line.getQuantity() <= 0) {
+      return "Quantity must be positive";
+    }
+    if (line.getOperationType() != null && StockOperationType.parse(line.getOperationType()) != StockOperationType.SELL) {
+      return LineOutcome.INVALID_OPERATION.getMessage();
+    }
+    if (line.getStoreId() != null && !line.getStoreId().equals(storeId)) {
+      return "Line store differs from basket store";
+    }
+    return null;
+  }
+
+  // Runs on a store lane. A deadlock can still come from writers that lock in another order (a
+  // reconciliation repair, an older instance); the whole basket is retried, it has changed nothing yet.
+  private ResponseEntity<BasketSaleResponse> sell(BasketSaleRequest request, Long storeId, Map<Long, Integer> quantities) {
+    InventoryBatchEvent batch = new InventoryBatchEvent();
+    batch.begin();
+    ResponseEntity<BasketSaleResponse> response = null;
+    for (int attempt = 1; response == null; attempt++) {
+      try {
+        Outcome outcome = transactionTemplate.execute(status -> apply(storeId, quantities, status));
+        response = outcome.failures().isEmpty() ? committed(request, storeId, quantities, outcome) : rejected(request, storeId, quantities, outcome);
+      } catch (PessimisticLockingFailureException e) {
+        if (isDeadlock(e)) {
+          deadlocks.increment();
+        }
+        if (attempt == MAX_ATTEMPTS) {
+          log.warn("Giving up on basket {} in store {} after {} lock conflicts: {}", request.getBasketId(), storeId, attempt, e.getMessage());
+          busy.increment();
+          response = response(request, storeId, HttpStatus.SERVICE_UNAVAILABLE, ResponseStatus.FAILED,
+              LineOutcome.STORE_BUSY.getMessage(), quantities, List.of());
+        }
+      } catch (RuntimeException e) {
+        log.warn("Error recording basket {} in store {}: {}", request.getBasketId(), storeId, e.getMessage());
+        failed.increment();
+        response = response(request, storeId, HttpStatus.INTERNAL_SERVER_ERROR, ResponseStatus.FAILED,
+            LineOutcome.ERROR.getMessage(), quantities, List.of());
+      }
+    }
+
+    batch.end();
+    if (batch.shouldCommit()) {
+      batch.endpoint = "sellBasket";
+      batch.batchSize = quantities.size();
+      batch.failedLines = response.getStatusCode() == HttpStatus.OK ? 0 : quantities.size();
+      batch.commit();
+    }
+    return response;
+  }
+
+  private Outcome apply(Long storeId, Map<Long, Integer> quantities, TransactionStatus status) {
+    List<Long> itemIds = new ArrayList<>(quantities.keySet());
+    Map<Long, LockedStock> locked = new HashMap<>();
+    for (LockedStock stock : inventoryRepository.lockStock(storeId, itemIds)) {
+      locked.put(stock.itemId(), stock);
+    }
+
+    List<InventoryResponse> failures = new ArrayList<>();
+    Map<Long, String> itemNames = new HashMap<>();
+    for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+      LockedStock stock = locked.get(line.getKey());
+      if (stock == null) {
+        failures.add(failure(line.getKey(), line.getValue(), storeId, LineOutcome.ITEM_NOT_FOUND.getMessage()));
+      } else if (line.getValue() > stock.availableQuantity()) {
+        failures.add(failure(line.getKey(), line.getValue(), storeId, LineOutcome.INSUFFICIENT_STOCK.getMessage()));
+      } else {
+        itemNames.put(stock.itemId(), stock.itemName());
+      }
+    }
+    if (!failures.isEmpty()) {
+      status.setRollbackOnly();
+      return new Outcome(failures, List.of(), itemNames);
+    }
+    List<Inventory> updated = inventoryRepository.decrementStock(storeId, itemIds, new ArrayList<>(quantities.values()));
+    return new Outcome(List.of(), updated, itemNames);
+  }
+
+  // Stock state and the grouped event go out only after the commit
+  private ResponseEntity<BasketSaleResponse> committed(BasketSaleRequest request, Long storeId, Map<Long, Integer> quantities,
+      Outcome outcome) {
+    List<ActivityLine> lines = new ArrayList<>(quantities.size());
+    for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+      lines.add(ActivityLine.builder()
+          .itemId(line.getKey())
+          .itemName(outcome.itemNames().get(line.getKey()))
+          .quantity(line.getValue())
+          .build());
+    }
+    outcome.updated().forEach(stockStatePublisher::publish);
+    inventoryActivityEventProducer.sendBasketSaleEvent(storeId, outcome.updated().get(0).getUpdationDate(), lines);
+    committed.increment();
+    return response(request, storeId, HttpStatus.OK, ResponseStatus.SUCCESS, null, quantities, List.of());
+  }
+
+  private ResponseEntity<BasketSaleResponse> rejected(BasketSaleRequest request, Long storeId, Map<Long, Integer> quantities,
+      Outcome outcome) {
+    rejected.increment();
+    return response(request, storeId, HttpStatus.CONFLICT, ResponseStatus.FAILED, NOT_RECORDED, quantities, outcome.failures());
+  }
+
+  private boolean isDeadlock(PessimisticLockingFailureException e) {
+    return e.getMostSpecificCause() instanceof SQLException sqlException && DEADLOCK_SQL_STATE.equals(sqlException.getSQLState());
+  }
+
+  private InventoryResponse failure(Long itemId, Integer quantity, Long storeId, String message) {
+    return InventoryResponse.builder()
+        .itemId(itemId)
+        .quantity(quantity)
+        .storeId(storeId)
+        .status(ResponseStatus.FAILED)
+        .message(message)
+        .build();
+  }
+
+  private ResponseEntity<BasketSaleResponse> response(BasketSaleRequest request, Long storeId, HttpStatus httpStatus,
+      ResponseStatus status, String message, Map<Long, Integer> quantities, List<InventoryResponse> failures) {
+    int units = 0;
+    for (Integer quantity : quantities.values()) {
+      units += quantity;
+    }
+    return new ResponseEntity<>(BasketSaleResponse.builder()
+        .basketId(request.getBasketId())
+        .storeId(storeId)
+        .status(status)
+        .message(message)
+        .lines(quantities.size())
+        .units(units)
+        .failures(failures)
+        .build(), httpStatus);
+  }
+}
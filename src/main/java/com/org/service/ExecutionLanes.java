@@ -0,0 +1,126 @@
+package com.org.service;
+
+import com.org.utility.ExecutionLane;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Connection budgets for the two kinds of write work. Interactive work (checkout) and bulk work
+// (stock loads, item imports) each have their own number of concurrently running tasks, sized so the
+// two together fit the connection pool. While any interactive work is queued or running, bulk work is
+// squeezed down to its contended budget so it can't hold the connections checkout needs.
+@Component
+@Slf4j
+public class ExecutionLanes {
+
+  private final Map<ExecutionLane, AtomicInteger> queued = new EnumMap<>(ExecutionLane.class);
+  private final Map<ExecutionLane, AtomicInteger> running = new EnumMap<>(ExecutionLane.class);
+  private final Map<ExecutionLane, Timer> queueWait = new EnumMap<>(ExecutionLane.class);
+  private final int interactiveConnections;
+  private final int bulkConnections;
+  private final int bulkContendedConnections;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition released = lock.newCondition();
+
+  public ExecutionLanes(@Value("${instore.lanes.interactive.max-connections:6}") int interactiveConnections,
+      @Value("${instore.lanes.bulk.max-connections:4}") int bulkConnections,
+      @Value("${instore.lanes.bulk.contended-connections:1}") int bulkContendedConnections,
+      MeterRegistry meterRegistry) {
+    this.interactiveConnections = interactiveConnections;
+    this.bulkConnections = bulkConnections;
+    this.bulkContendedConnections = Math.min(bulkContendedConnections, bulkConnections);
+
+    for (ExecutionLane lane : ExecutionLane.values()) {
+      AtomicInteger laneQueued = new AtomicInteger();
+      AtomicInteger laneRunning = new AtomicInteger();
+      queued.put(lane, laneQueued);
+      running.put(lane, laneRunning);
+      Gauge.builder("instore.lane.queued", laneQueued, AtomicInteger::get)
+          .tag("lane", lane.getKey())
+          .register(meterRegistry);
+      Gauge.builder("instore.lane.running", laneRunning, AtomicInteger::get)
+          .tag("lane", lane.getKey())
+          .register(meterRegistry);
+      queueWait.put(lane, Timer.builder("instore.lane.queue.wait")
+          .tag("lane", lane.getKey())
+          .publishPercentiles(0.5, 0.99)
+          .register(meterRegistry));
+    }
+  }
+
+  // Call when a task is handed to a queue; the returned timestamp is passed back when it starts
+  public long enqueued(ExecutionLane lane) {
+    queued.get(lane).incrementAndGet();
+    return System.nanoTime();
+  }
+
+  public void dropped(ExecutionLane lane) {
+    queued.get(lane).decrementAndGet();
+  }
+
+  // Runs the task once the lane has a free connection, blocking the calling worker until then
+  public <T> T run(ExecutionLane lane, long enqueuedAt, Supplier<T> task) {
+    while (!tryStart(lane, enqueuedAt, 1, TimeUnit.SECONDS)) {
+      log.debug("Still waiting for a {} connection", lane.getKey());
+    }
+    try {
+      return task.get();
+    } finally {
+      finished(lane);
+    }
+  }
+
+  public boolean tryStart(ExecutionLane lane, long enqueuedAt, long timeout, TimeUnit unit) {
+    long remaining = unit.toNanos(timeout);
+    lock.lock();
+    try {
+      while (!hasCapacity(lane)) {
+        if (remaining <= 0) {
+          return false;
+        }
+        remaining = released.awaitNanos(remaining);
+      }
+      queued.get(lane).decrementAndGet();
+      running.get(lane).incrementAndGet();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      lock.unlock();
+    }
+    queueWait.get(lane).record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+    return true;
+  }
+
+  public void finished(ExecutionLane lane) {
+    lock.lock();
+    try {
+      running.get(lane).decrementAndGet();
+      released.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public boolean hasInteractiveDemand() {
+    return queued.get(ExecutionLane.INTERACTIVE).get() > 0 || running.get(ExecutionLane.INTERACTIVE).get() > 0;
+  }
+
+  private boolean hasCapacity(ExecutionLane lane) {
+    int active = running.get(lane).get();
+    if (lane == ExecutionLane.INTERACTIVE) {
+      return active < interactiveConnections;
+    }
+    return active < (hasInteractiveDemand() ? bulkContendedConnections : bulkConnections);
+  }
+}
@@ -0,0 +1,139 @@
+package com.org.service;
+
+import com.org.diagnostics.ActivityEventSendEvent;
+import com.org.diagnostics.InventoryLineEvent;
+import com.org.diagnostics.RepositoryCallEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// In-process JDK Flight Recorder control: an opt-in bounded continuous recording, and on-demand recordings of
+// a fixed length, both downloadable over HTTP (when the endpoint is enabled) so live pods need no agent or jcmd.
+@Service
+@Slf4j
+public class FlightRecorderService {
+
+  private static final MediaType JFR = MediaType.parseMediaType("application/octet-stream");
+
+  private final boolean continuousEnabled;
+  private final Duration continuousMaxAge;
+  private final DataSize continuousMaxSize;
+  private final Duration continuousThreshold;
+  private final Duration maxDuration;
+  private final AtomicBoolean onDemandRunning = new AtomicBoolean();
+  private Recording continuous;
+
+  public FlightRecorderService(@Value("${instore.diagnostics.jfr.continuous.enabled:false}") boolean continuousEnabled,
+      @Value("${instore.diagnostics.jfr.continuous.max-age:PT15M}") Duration continuousMaxAge,
+      @Value("${instore.diagnostics.jfr.continuous.max-size:128MB}") DataSize continuousMaxSize,
+      @Value("${instore.diagnostics.jfr.continuous.threshold:PT0.01S}") Duration continuousThreshold,
+      @Value("${instore.diagnostics.jfr.max-duration:PT5M}") Duration maxDuration) {
+    this.continuousEnabled = continuousEnabled;
+    this.continuousMaxAge = continuousMaxAge;
+    this.continuousMaxSize = continuousMaxSize;
+    this.continuousThreshold = continuousThreshold;
+    this.maxDuration = maxDuration;
+  }
+
+  // JDK "default" settings (~1% overhead); per-line, repository and send events only when slower than the
+  // threshold so a busy store does not push older data out. Batch events are always kept.
+  @PostConstruct
+  public void start() {
+    if (!continuousEnabled) {
+      return;
+    }
+    try {
+      Recording recording = new Recording(Configuration.getConfiguration("default"));
+      recording.setName("instore-continuous");
+      recording.setToDisk(true);
+      recording.setMaxAge(continuousMaxAge);
+      recording.setMaxSize(continuousMaxSize.toBytes());
+      recording.enable(InventoryLineEvent.class).withThreshold(continuousThreshold);
+      recording.enable(RepositoryCallEvent.class).withThreshold(continuousThreshold);
+      recording.enable(ActivityEventSendEvent.class).withThreshold(continuousThreshold);
+      recording.start();
+      continuous = recording;
+    } catch (IOException | ParseException | RuntimeException e) {
+      log.warn("Continuous flight recording not started: {}", e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (continuous != null) {
+      continuous.close();
+    }
+  }
+
+  // Records for the given time with every event at full detail, then streams the file; one at a time
+  public ResponseEntity<StreamingResponseBody> record(Duration duration, String settings) {
+    if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    Configuration configuration;
+    try {
+      configuration = Configuration.getConfiguration(settings);
+    } catch (IOException | ParseException e) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    if (!onDemandRunning.compareAndSet(false, true)) {
+      return new ResponseEntity<>(HttpStatus.CONFLICT);
+    }
+    return download("instore-" + settings + ".jfr", out -> {
+      try (Recording recording = new Recording(configuration)) {
+        recording.setName("instore-on-demand");
+        recording.start();
+        Thread.sleep(duration.toMillis());
+        recording.stop();
+        copy(recording, out);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        onDemandRunning.set(false);
+      }
+    });
+  }
+
+  // The last max-age (or max-size) of the continuous recording; it keeps running
+  public ResponseEntity<StreamingResponseBody> dumpContinuous() {
+    Recording recording = continuous;
+    if (recording == null) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    return download("instore-continuous.jfr", out -> copy(recording, out));
+  }
+
+  private ResponseEntity<StreamingResponseBody> download(String fileName, StreamingResponseBody body) {
+    return ResponseEntity.ok()
+        .contentType(JFR)
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + fileName)
+        .body(body);
+  }
+
+  private void copy(Recording recording, OutputStream out) throws IOException {
+    Path file = Files.createTempFile("instore-", ".jfr");
+    try {
+      recording.dump(file);
+      Files.copy(file, out);
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -1,34 +1,97 @@
 package com.org.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.org.diagnostics.ActivityEventSendEvent;
+import com.org.diagnostics.TraceContext;
+import com.org.kafka.ActivitySpool;
 import com.org.kafka.KafkaProducer;
+import com.org.model.ActivityLine;
 import com.org.model.InventoryActivityEvent;
+import com.org.utility.ActivityType;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
-import lombok.AllArgsConstructor;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 @Component
-@AllArgsConstructor
+@Slf4j
 public class InventoryActivityEventProducer {
 
   private final KafkaProducer kafkaProducer;
-  private final JacksonConfig jacksonConfig;
+  private final Optional<ActivitySpool> activitySpool;
+  // Resolved once: the serializer lookup is not repeated for every event on the hot path
+  private final ObjectWriter eventWriter;
 
-  public void sendInventoryActivityEvent(String activityType, String activityValue, LocalDateTime activityTime, Long itemId, String itemName)
-      throws JsonProcessingException {
-    InventoryActivityEvent event = createInventoryActivityEvent(activityType, activityValue, activityTime, itemId, itemName);
-    kafkaProducer.sendMessage(jacksonConfig.objectMapper().writeValueAsString(event));
+  public InventoryActivityEventProducer(KafkaProducer kafkaProducer, JacksonConfig jacksonConfig,
+      Optional<ActivitySpool> activitySpool) {
+    this.kafkaProducer = kafkaProducer;
+    this.activitySpool = activitySpool;
+    this.eventWriter = jacksonConfig.objectMapper().writerFor(InventoryActivityEvent.class);
+  }
+
+  // Never throws: an event that cannot be serialized is logged and dropped, the stock change stands
+  public void sendInventoryActivityEvent(String activityType, String activityValue, LocalDateTime activityTime, Long itemId, String itemName,
+      Long storeId) {
+    ActivityEventSendEvent trace = new ActivityEventSendEvent();
+    trace.begin();
+    send(createInventoryActivityEvent(activityType, activityValue, activityTime, itemId, itemName, storeId), trace);
+  }
+
+  // One event for a whole basket; the consumer records it as one SELL row per line
+  public void sendBasketSaleEvent(Long storeId, LocalDateTime activityTime, List<ActivityLine> lines) {
+    ActivityEventSendEvent trace = new ActivityEventSendEvent();
+    trace.begin();
+    int units = 0;
+    for (ActivityLine line : lines) {
+      units += line.getQuantity();
+    }
+    send(InventoryActivityEvent.builder()
+        .activityType(ActivityType.BASKET_SALE.name())
+        .activityValue(Integer.toString(units))
+        .activityTimeStamp(activityTime.toInstant(ZoneOffset.UTC))
+        .storeId(storeId)
+        .lines(lines)
+        .build(), trace);
+  }
+
+  private void send(InventoryActivityEvent event, ActivityEventSendEvent trace) {
+    String message;
+    try {
+      message = eventWriter.writeValueAsString(event);
+    } catch (JsonProcessingException e) {
+      log.warn("Dropping unserializable {} activity event for item {}: {}", event.getActivityType(), event.getItemId(), e.getMessage());
+      return;
+    }
+    // The spool refuses only when full; the in-memory producer path is the fallback
+    boolean spooled = activitySpool.isPresent() && activitySpool.get().append(message);
+    if (!spooled) {
+      kafkaProducer.sendMessage(message);
+    }
 
+    trace.end();
+    if (trace.shouldCommit()) {
+      trace.activityType = event.getActivityType();
+      trace.itemId = event.getItemId() != null ? event.getItemId() : 0;
+      trace.storeId = event.getStoreId() != null ? event.getStoreId() : 0;
+      trace.batchSize = TraceContext.current().batchSize();
+      trace.destination = spooled ? "spool" : "kafka";
+      trace.size = message.length();
+      trace.commit();
+    }
   }
 
-  public InventoryActivityEvent createInventoryActivityEvent(String activityType, String activityValue, LocalDateTime activityTime, Long itemId, String itemName) {
+  public InventoryActivityEvent createInventoryActivityEvent(String activityType, String activityValue, LocalDateTime activityTime, Long itemId, String itemName,
+      Long storeId) {
     return InventoryActivityEvent.builder()
         .activityValue(activityValue)
         .activityType(activityType)
         .activityTimeStamp(activityTime.toInstant(ZoneOffset.UTC))
         .itemId(itemId)
         .itemName(itemName)
+        .storeId(storeId)
         .build();
   }
 
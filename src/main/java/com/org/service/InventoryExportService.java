@@ -0,0 +1,157 @@
+package com.org.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.utility.ExportFormat;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+// Streams the item/stock snapshot row by row from a forward-only cursor straight into the response,
+// without entities or a persistence context, so memory use does not grow with the table size.
+@Service
+@Slf4j
+public class InventoryExportService {
+
+  private static final String SNAPSHOT_SQL = """
+      SELECT i.item_id, i.item_name, i.item_price, v.store_id, v.available_quantity
+      FROM item i LEFT JOIN inventory v ON v.item_id = i.item_id
+      WHERE i.is_deleted = false""";
+
+  private static final String CSV_HEADER = "itemId,itemName,itemPrice,storeId,availableQuantity\n";
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final DataSource dataSource;
+  private final ObjectMapper objectMapper;
+  private final int fetchSize;
+
+  public InventoryExportService(DataSource dataSource, ObjectMapper objectMapper,
+      @Value("${instore.export.fetch-size:10000}") int fetchSize) {
+    this.dataSource = dataSource;
+    this.objectMapper = objectMapper;
+    this.fetchSize = fetchSize;
+  }
+
+  public ResponseEntity<StreamingResponseBody> exportSnapshot(String format) {
+    ExportFormat exportFormat = Arrays.stream(ExportFormat.values())
+        .filter(value -> value.name().equalsIgnoreCase(format))
+        .findFirst()
+        .orElse(null);
+    if (exportFormat == null) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    MediaType mediaType = exportFormat == ExportFormat.CSV ? new MediaType("text", "csv") : MediaType.APPLICATION_NDJSON;
+    return ResponseEntity.ok()
+        .contentType(mediaType)
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=inventory." + exportFormat.name().toLowerCase())
+        .body(out -> writeSnapshot(exportFormat, out));
+  }
+
+  public long writeSnapshot(ExportFormat format, OutputStream out) throws IOException {
+    long start = System.nanoTime();
+    long rows;
+    try (Connection connection = dataSource.getConnection()) {
+      // The Postgres driver only uses a cursor when auto-commit is off and a fetch size is set
+      connection.setAutoCommit(false);
+      connection.setReadOnly(true);
+      try (PreparedStatement statement = connection.prepareStatement(SNAPSHOT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+        statement.setFetchSize(fetchSize);
+        try (ResultSet resultSet = statement.executeQuery()) {
+          rows = format == ExportFormat.CSV ? writeCsv(resultSet, out) : writeNdjson(resultSet, out);
+        }
+      } finally {
+        connection.rollback();
+        connection.setAutoCommit(true);
+      }
+    } catch (SQLException e) {
+      log.error("Inventory snapshot export failed: {}", e.getMessage());
+      throw new IOException("Inventory snapshot export failed", e);
+    }
+    log.info("Exported {} inventory rows as {} in {} ms", rows, format, (System.nanoTime() - start) / 1_000_000);
+    return rows;
+  }
+
+  private long writeCsv(ResultSet resultSet, OutputStream out) throws SQLException, IOException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    writer.write(CSV_HEADER);
+    long rows = 0;
+    while (resultSet.next()) {
+      writer.write(resultSet.getString(1));
+      writer.write(',');
+      writeCsvValue(writer, resultSet.getString(2));
+      writer.write(',');
+      writer.write(resultSet.getString(3));
+      writer.write(',');
+      writeNullable(writer, resultSet.getString(4));
+      writer.write(',');
+      writeNullable(writer, resultSet.getString(5));
+      writer.write('\n');
+      rows++;
+    }
+    writer.flush();
+    return rows;
+  }
+
+  private long writeNdjson(ResultSet resultSet, OutputStream out) throws SQLException, IOException {
+    long rows = 0;
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      generator.setRootValueSeparator(null);
+      while (resultSet.next()) {
+        generator.writeStartObject();
+        generator.writeNumberField("itemId", resultSet.getLong(1));
+        generator.writeStringField("itemName", resultSet.getString(2));
+        generator.writeFieldName("itemPrice");
+        generator.writeNumber(resultSet.getString(3));
+        writeNullableNumber(generator, "storeId", resultSet.getString(4));
+        writeNullableNumber(generator, "availableQuantity", resultSet.getString(5));
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        rows++;
+      }
+    }
+    return rows;
+  }
+
+  private void writeCsvValue(Writer writer, String value) throws IOException {
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+      writer.write(value);
+      return;
+    }
+    writer.write('"');
+    writer.write(value.replace("\"", "\"\""));
+    writer.write('"');
+  }
+
+  private void writeNullable(Writer writer, String value) throws IOException {
+    if (value != null) {
+      writer.write(value);
+    }
+  }
+
+  private void writeNullableNumber(JsonGenerator generator, String field, String value) throws IOException {
+    generator.writeFieldName(field);
+    if (value != null) {
+      generator.writeNumber(value);
+    } else {
+      generator.writeNull();
+    }
+  }
+}
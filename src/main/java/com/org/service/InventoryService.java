@@ -1,177 +1,475 @@
 package com.org.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.org.diagnostics.InventoryBatchEvent;
+import com.org.diagnostics.InventoryLineEvent;
+import com.org.diagnostics.TraceContext;
 import com.org.entity.Inventory;
 import com.org.entity.Item;
+import com.org.kafka.StockStatePublisher;
 import com.org.model.AddItemRequest;
+import com.org.model.BatchSummaryResponse;
 import com.org.model.InventoryRequest;
 import com.org.model.InventoryResponse;
+import com.org.model.StockAvailabilityResponse;
+import com.org.model.StoreStock;
 import com.org.repository.InventoryRepository;
 import com.org.repository.ItemRepository;
+import com.org.service.AdaptiveChunking.ChunkPlan;
+import com.org.utility.ChunkedWrite;
+import com.org.utility.ExecutionLane;
+import com.org.utility.LineOutcome;
 import com.org.utility.ResponseStatus;
 import com.org.utility.StockOperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.NoSuchElementException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 @Service
 @Slf4j
 public class InventoryService {
 
+  // Sale lines per lane task and transaction. Bulk chunks are sized by AdaptiveChunking, which keeps their
+  // commits short enough that a sale never waits long behind one.
+  private static final int SALE_CHUNK_SIZE = 500;
+
+  // Shared by every line with that outcome; nothing downstream mutates a response
+  private static final InventoryResponse SUCCEEDED = buildInventoryResponse(null, ResponseStatus.SUCCESS, null);
+  private static final InventoryResponse INSUFFICIENT_STOCK =
+      buildInventoryResponse(null, ResponseStatus.FAILED, LineOutcome.INSUFFICIENT_STOCK.getMessage());
+
   private final InventoryRepository inventoryRepository;
   private final ItemRepository itemRepository;
-  private final ExecutorService executorService;
+  private final StoreWriteRouter storeWriteRouter;
   private final InventoryActivityEventProducer inventoryActivityEventProducer;
+  private final StockStatePublisher stockStatePublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final AdaptiveChunking adaptiveChunking;
+  private final ItemIdFilter itemIdFilter;
+  private final StockEngine stockEngine;
+  private final Map<LineOutcome, Counter> outcomes = new EnumMap<>(LineOutcome.class);
 
-  public InventoryService(InventoryRepository inventoryRepository, ItemRepository itemRepository, InventoryActivityEventProducer inventoryActivityEventProducer) {
+  public InventoryService(InventoryRepository inventoryRepository, ItemRepository itemRepository,
+      StoreWriteRouter storeWriteRouter, InventoryActivityEventProducer inventoryActivityEventProducer,
+      StockStatePublisher stockStatePublisher, TransactionTemplate transactionTemplate,
+      AdaptiveChunking adaptiveChunking, ItemIdFilter itemIdFilter, StockEngine stockEngine, MeterRegistry meterRegistry) {
     this.inventoryRepository = inventoryRepository;
     this.itemRepository = itemRepository;
-    this.executorService = Executors.newFixedThreadPool(10);
+    this.storeWriteRouter = storeWriteRouter;
     this.inventoryActivityEventProducer = inventoryActivityEventProducer;
+    this.stockStatePublisher = stockStatePublisher;
+    this.transactionTemplate = transactionTemplate;
+    this.adaptiveChunking = adaptiveChunking;
+    this.itemIdFilter = itemIdFilter;
+    this.stockEngine = stockEngine;
+    for (LineOutcome outcome : LineOutcome.values()) {
+      outcomes.put(outcome, meterRegistry.counter("instore.inventory.lines", "outcome", outcome.getKey()));
+    }
+  }
+
+  private record Line(int slot, InventoryRequest request, StockOperationType operation) {
+  }
+
+  private record AppliedLine(Line line, Inventory inventory, Item item) {
+  }
+
+  // Opening stock for newly inserted items in one statement; itemIds line up with requests. Returns the inserted
+  // rows for the caller to publish once its transaction has committed.
+  public List<Inventory> addItems(List<AddItemRequest> requests, List<Long> itemIds) {
+    List<Long> storeIds = new ArrayList<>(requests.size());
+    List<Integer> quantities = new ArrayList<>(requests.size());
+    for (AddItemRequest request : requests) {
+      InventoryRequest inventoryRequest = request.getInventory();
+      inventoryRequest.setStoreId(storeWriteRouter.resolveStoreId(inventoryRequest.getStoreId()));
+      storeIds.add(inventoryRequest.getStoreId());
+      quantities.add(inventoryRequest.getQuantity());
+    }
+    return inventoryRepository.insertStock(itemIds, storeIds, quantities);
   }
 
-  public void addItem(AddItemRequest request, Long itemId) {
-    Inventory inventory = Inventory.builder()
+  // Stores that just got their first stock take writes at once, without waiting out an unknown-store lookup
+  public void registerStores(List<Inventory> openingStock) {
+    openingStock.stream().map(Inventory::getStoreId).distinct().forEach(storeWriteRouter::registerStore);
+  }
+
+  public ResponseEntity<StockAvailabilityResponse> getAvailability(Long itemId) {
+    if (itemId == null) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    if (!itemIdFilter.mightExist(itemId)) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    List<Inventory> inventories = inventoryRepository.findAllByItemId(itemId);
+    if (inventories.isEmpty()) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    List<StoreStock> stores = inventories.stream()
+        .map(inventory -> StoreStock.builder()
+            .storeId(inventory.getStoreId())
+            .availableQuantity(inventory.getAvailableQuantity())
+            .build())
+        .toList();
+    int totalQuantity = stores.stream().mapToInt(StoreStock::getAvailableQuantity).sum();
+
+    return new ResponseEntity<>(StockAvailabilityResponse.builder()
         .itemId(itemId)
-        .availableQuantity(request.getInventory().getQuantity())
-        .build();
-    inventoryRepository.save(inventory);
+        .totalQuantity(totalQuantity)
+        .stores(stores)
+        .build(), HttpStatus.OK);
   }
 
-  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  // Batch writes (this, recordSales and their failures-only forms) open no transaction on the request thread:
+  // each chunk commits on its store lane, and a request-thread transaction would pin a pool connection while
+  // the lanes wait for theirs (the pool deadlocks once requests >= pool size)
   public ResponseEntity<List<InventoryResponse>> updateInventory(List<InventoryRequest> requests) {
     if (requests == null || requests.isEmpty()) {
       return buildInventoryResponse(HttpStatus.BAD_REQUEST, null);
     }
+    return inFull(requests, applyLines(requests, false, "updateInventory")).join();
+  }
 
-    List<CompletableFuture<InventoryResponse>> futures = requests.stream()
-        .map(this::processUpdateInventoryAsync)
-        .toList();
-
-    return handleInventoryResponses(futures);
+  public ResponseEntity<BatchSummaryResponse> updateInventoryFailures(List<InventoryRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    return failuresOnly(applyLines(requests, false, "updateInventory")).join();
   }
 
-  @Transactional(propagation = Propagation.REQUIRES_NEW)
   public ResponseEntity<List<InventoryResponse>> recordSales(List<InventoryRequest> requests) {
+    return recordSalesAsync(requests).join();
+  }
+
+  // Completes once every line has been applied on its store lane; the caller's thread is not held meanwhile.
+  // Lines of another known type are skipped as before; an unknown type fails just that line.
+  public CompletableFuture<ResponseEntity<List<InventoryResponse>>> recordSalesAsync(List<InventoryRequest> requests) {
     if (requests == null || requests.isEmpty()) {
-      return buildInventoryResponse(HttpStatus.BAD_REQUEST, null);
+      return CompletableFuture.completedFuture(buildInventoryResponse(HttpStatus.BAD_REQUEST, null));
     }
+    return inFull(requests, applyLines(requests, true, "recordSales"));
+  }
 
-    List<CompletableFuture<InventoryResponse>> futures = requests.stream()
-        .filter(request -> StockOperationType.SELL.equals(StockOperationType.valueOf(request.getOperationType())))
-        .map(this::processModifyInventoryAsync)
-        .toList();
+  public ResponseEntity<BatchSummaryResponse> recordSalesFailures(List<InventoryRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+    return failuresOnly(applyLines(requests, true, "recordSales")).join();
+  }
 
-    return handleInventoryResponses(futures);
+  // One response per answered line, in request order; successes share one instance
+  private CompletableFuture<ResponseEntity<List<InventoryResponse>>> inFull(List<InventoryRequest> requests,
+      CompletableFuture<LineOutcome[]> applied) {
+    return applied
+        .thenApply(outcomes -> {
+          List<InventoryResponse> results = new ArrayList<>(outcomes.length);
+          boolean allSucceeded = true;
+          for (int i = 0; i < outcomes.length; i++) {
+            LineOutcome outcome = outcomes[i];
+            if (outcome != null) {
+              results.add(response(requests.get(i), outcome));
+              allSucceeded &= outcome == LineOutcome.SUCCESS;
+            }
+          }
+          return buildInventoryResponse(allSucceeded ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT, results);
+        })
+        .exceptionally(e -> {
+          log.error("Error handling inventory responses: {}", e.getMessage());
+          return buildInventoryResponse(HttpStatus.INTERNAL_SERVER_ERROR, null);
+        });
   }
 
-  private CompletableFuture<InventoryResponse> processUpdateInventoryAsync(InventoryRequest request) {
-    return CompletableFuture.supplyAsync(() -> {
-      try {
-        return inventoryRepository.findByItemId(request.getItemId())
-            .filter(inventory -> isValidItem(inventory.getItemId()))
-            .map(inventory -> {
-              try {
-                return updateInventory(inventory, request.getQuantity(), request.getOperationType());
-              } catch (JsonProcessingException e) {
-                throw new RuntimeException(e);
-              }
-            })
-            .orElse(buildInventoryResponse(request, ResponseStatus.FAILED, "Item not found"));
-      } catch (Exception e) {
-        log.error("Error processing update inventory for item: {}, error: {}", request.getItemId(), e.getMessage());
-        return buildInventoryResponse(request, ResponseStatus.FAILED, e.getMessage());
+  private CompletableFuture<ResponseEntity<BatchSummaryResponse>> failuresOnly(CompletableFuture<LineOutcome[]> applied) {
+    return applied
+        .thenApply(outcomes -> {
+          int succeeded = 0;
+          int skipped = 0;
+          Map<Integer, String> failures = new TreeMap<>();
+          for (int i = 0; i < outcomes.length; i++) {
+            LineOutcome outcome = outcomes[i];
+            if (outcome == null) {
+              skipped++;
+            } else if (outcome == LineOutcome.SUCCESS) {
+              succeeded++;
+            } else {
+              failures.put(i, outcome.getMessage());
+            }
+          }
+          BatchSummaryResponse summary = BatchSummaryResponse.builder()
+              .lines(outcomes.length)
+              .succeeded(succeeded)
+              .failed(failures.size())
+              .skipped(skipped)
+              .failures(failures)
+              .build();
+          return new ResponseEntity<>(summary, summary.getFailed() == 0 ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT);
+        })
+        .exceptionally(e -> {
+          log.error("Error handling inventory responses: {}", e.getMessage());
+          return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+        });
+  }
+
+  // Lines that cannot succeed, malformed or for an item id that never existed, are answered here and never
+  // reach a store lane. The rest are grouped per store, in request order, and applied in chunks: per chunk
+  // one lane task, one transaction, one IN-list read of stock rows and one of items, and the changed rows
+  // flushed as JDBC batches on commit. With the stock engine enabled the lines go to its shards instead.
+  // Completes with the outcome of each request line by index, null where the endpoint skips the line.
+  private CompletableFuture<LineOutcome[]> applyLines(List<InventoryRequest> requests, boolean sale, String endpoint) {
+    InventoryBatchEvent batch = new InventoryBatchEvent();
+    batch.begin();
+    int batchSize = requests.size();
+    LineOutcome[] outcomes = new LineOutcome[batchSize];
+    int index = 0;
+    Map<Long, List<Line>> linesByStore = new LinkedHashMap<>();
+    for (InventoryRequest request : requests) {
+      int slot = index++;
+      StockOperationType operation = StockOperationType.parse(request.getOperationType());
+      if (sale && operation != null && operation != StockOperationType.SELL) {
+        continue;
       }
-    }, executorService);
-  }
-
-  private CompletableFuture<InventoryResponse> processModifyInventoryAsync(InventoryRequest request) {
-    return CompletableFuture.supplyAsync(() -> {
-      try {
-        return inventoryRepository.findByItemId(request.getItemId())
-            .filter(inventory -> isValidItem(inventory.getItemId()))
-            .map(inventory -> {
-              try {
-                return processInventorySold(inventory, request.getQuantity());
-              } catch (JsonProcessingException e) {
-                throw new RuntimeException(e);
-              }
-            })
-            .orElse(buildInventoryResponse(request, ResponseStatus.FAILED, "Item not found"));
-      } catch (Exception e) {
-        log.error("Error processing modify inventory for item: {}, error: {}", request.getItemId(), e.getMessage());
-        return buildInventoryResponse(request, ResponseStatus.FAILED, e.getMessage());
+      LineOutcome rejected = validate(request, operation);
+      if (rejected != null) {
+        record(outcomes, slot, rejected);
+      } else {
+        linesByStore.computeIfAbsent(storeWriteRouter.resolveStoreId(request.getStoreId()), storeId -> new ArrayList<>())
+            .add(new Line(slot, request, operation));
+      }
+    }
+
+    long submittedAt = System.nanoTime();
+    List<CompletableFuture<Void>> chunks = new ArrayList<>();
+    for (Map.Entry<Long, List<Line>> store : linesByStore.entrySet()) {
+      if (!storeWriteRouter.isKnownStore(store.getKey())) {
+        // No stock rows in this store, so no line could find its item
+        store.getValue().forEach(line -> record(outcomes, line.slot(), LineOutcome.ITEM_NOT_FOUND));
+        continue;
       }
-    }, executorService);
+      chunks.add(stockEngine.isEnabled()
+          ? submitToEngine(store.getKey(), store.getValue(), sale, outcomes)
+          : submitChunks(store.getKey(), store.getValue(), 0, sale, outcomes, batchSize, submittedAt));
+    }
+
+    return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+        .thenApply(ignored -> {
+          batch.end();
+          if (batch.shouldCommit()) {
+            int failedLines = 0;
+            for (LineOutcome outcome : outcomes) {
+              if (outcome != null && outcome != LineOutcome.SUCCESS) {
+                failedLines++;
+              }
+            }
+            batch.endpoint = endpoint;
+            batch.batchSize = batchSize;
+            batch.failedLines = failedLines;
+            batch.commit();
+          }
+          return outcomes;
+        });
+  }
+
+  // A call's chunks for a store run one after another, so the next one is cut only when the previous has
+  // committed, at the size adapted to what that commit took
+  private CompletableFuture<Void> submitChunks(Long storeId, List<Line> storeLines, int from, boolean sale,
+      LineOutcome[] outcomes, int batchSize, long submittedAt) {
+    ChunkPlan plan = sale ? null : adaptiveChunking.plan(ChunkedWrite.INVENTORY_UPDATE);
+    List<Line> chunk = storeLines.subList(from, Math.min(from + (sale ? SALE_CHUNK_SIZE : plan.size()), storeLines.size()));
+    CompletableFuture<Void> submitted = storeWriteRouter.submit(storeId, sale ? ExecutionLane.INTERACTIVE : ExecutionLane.BULK,
+        () -> applyChunk(storeId, chunk, sale, plan, outcomes, batchSize, submittedAt),
+        () -> rejectChunk(chunk, outcomes));
+    int next = from + chunk.size();
+    return next < storeLines.size()
+        ? submitted.thenCompose(ignored -> submitChunks(storeId, storeLines, next, sale, outcomes, batchSize, submittedAt))
+        : submitted;
+  }
+
+  // Each line is answered once its shard's group has committed; lines of one item keep their request order
+  private CompletableFuture<Void> submitToEngine(Long storeId, List<Line> storeLines, boolean sale, LineOutcome[] outcomes) {
+    CompletableFuture<?>[] lines = new CompletableFuture[storeLines.size()];
+    for (int i = 0; i < lines.length; i++) {
+      Line line = storeLines.get(i);
+      lines[i] = stockEngine.submit(storeId, line.request().getItemId(), line.request().getQuantity(), line.operation(), sale)
+          .thenAccept(outcome -> record(outcomes, line.slot(), outcome));
+    }
+    return CompletableFuture.allOf(lines);
   }
 
-  private ResponseEntity<List<InventoryResponse>> handleInventoryResponses(List<CompletableFuture<InventoryResponse>> futures) {
+  private LineOutcome validate(InventoryRequest request, StockOperationType operation) {
+    if (operation == null) {
+      return LineOutcome.INVALID_OPERATION;
+    }
+    if (request.getQuantity() == null) {
+      return LineOutcome.MISSING_QUANTITY;
+    }
+    if (!itemIdFilter.mightExist(request.getItemId())) {
+      return LineOutcome.ITEM_NOT_FOUND;
+    }
+    return null;
+  }
+
+  // Runs on a store lane. Events and stock state go out only after the chunk has committed.
+  // A bulk chunk reports its connection wait (until the callback runs) and transaction time to its plan.
+  private Void applyChunk(Long storeId, List<Line> chunk, boolean sale, ChunkPlan plan, LineOutcome[] outcomes,
+      int batchSize, long submittedAt) {
+    long startedAt = System.nanoTime();
+    InventoryLineEvent[] lineEvents = beginLineEvents(chunk.size());
+    List<AppliedLine> applied = new ArrayList<>(chunk.size());
+    TraceContext.enter(null, sale ? StockOperationType.SELL.name() : null, batchSize);
     try {
-      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
-      List<InventoryResponse> responses = futures.stream()
-          .map(CompletableFuture::join)
-          .toList();
+      long requestedAt = System.nanoTime();
+      long[] begunAt = new long[1];
+      transactionTemplate.executeWithoutResult(status -> {
+        begunAt[0] = System.nanoTime();
+        applyInTransaction(storeId, chunk, sale, outcomes, applied);
+      });
+      if (plan != null) {
+        adaptiveChunking.record(plan, begunAt[0] - requestedAt, System.nanoTime() - begunAt[0]);
+      }
+    } catch (RuntimeException e) {
+      log.warn("Error applying {} inventory lines for store: {}, error: {}", chunk.size(), storeId, e.getMessage());
+      applied.clear();
+      for (Line line : chunk) {
+        if (outcomes[line.slot()] == null) {
+          record(outcomes, line.slot(), LineOutcome.ERROR);
+        }
+      }
+    }
+
+    for (AppliedLine line : applied) {
+      Inventory inventory = line.inventory();
+      InventoryRequest request = line.line().request();
+      TraceContext.enter(request.getItemId(), line.line().operation().name(), batchSize);
+      stockStatePublisher.publish(inventory);
+      inventoryActivityEventProducer.sendInventoryActivityEvent(line.line().operation().name(), request.getQuantity().toString(),
+          inventory.getUpdationDate(), line.item().getId(), line.item().getItemName(), inventory.getStoreId());
+      record(outcomes, line.line().slot(), LineOutcome.SUCCESS);
+    }
+    TraceContext.exit();
+    commitLineEvents(lineEvents, storeId, chunk, outcomes, batchSize, startedAt - submittedAt);
+    return null;
+  }
 
-      HttpStatus status = responses.stream().allMatch(response -> response.getStatus() == ResponseStatus.SUCCESS)
-          ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT;
+  // Stock rows and items are read once for the whole chunk; lines on the same item see each other's changes
+  private void applyInTransaction(Long storeId, List<Line> chunk, boolean sale, LineOutcome[] outcomes,
+      List<AppliedLine> applied) {
+    Set<Long> itemIds = new HashSet<>();
+    for (Line line : chunk) {
+      itemIds.add(line.request().getItemId());
+    }
+    itemIds.remove(null);
+    Map<Long, Inventory> rows = new HashMap<>();
+    for (Inventory inventory : inventoryRepository.findAllByStoreIdAndItemIdIn(storeId, itemIds)) {
+      rows.put(inventory.getItemId(), inventory);
+    }
+    Map<Long, Item> liveItems = new HashMap<>();
+    for (Item item : itemRepository.findAllById(itemIds)) {
+      if (!Boolean.TRUE.equals(item.getIsDeleted())) {
+        liveItems.put(item.getId(), item);
+      }
+    }
 
-      return buildInventoryResponse(status, responses);
-    } catch (Exception e) {
-      log.error("Error handling inventory responses: {}", e.getMessage());
-      return buildInventoryResponse(HttpStatus.INTERNAL_SERVER_ERROR, null);
+    for (Line line : chunk) {
+      Inventory inventory = rows.get(line.request().getItemId());
+      Item item = inventory != null ? liveItems.get(inventory.getItemId()) : null;
+      if (item == null) {
+        record(outcomes, line.slot(), LineOutcome.ITEM_NOT_FOUND);
+        continue;
+      }
+      Integer quantity = line.request().getQuantity();
+      if (sale && quantity > inventory.getAvailableQuantity()) {
+        record(outcomes, line.slot(), LineOutcome.INSUFFICIENT_STOCK);
+        continue;
+      }
+      inventory.setAvailableQuantity(sale ? inventory.getAvailableQuantity() - quantity : updatedQuantity(inventory, quantity, line.operation()));
+      applied.add(new AppliedLine(line, inventory, item));
     }
   }
 
-  private boolean isValidItem(Long itemId) {
-    return itemRepository.findById(itemId)
-        .map(item -> !item.getIsDeleted())
-        .orElseThrow(() -> new NoSuchElementException("Item not found for ID: " + itemId));
+  private Void rejectChunk(List<Line> chunk, LineOutcome[] outcomes) {
+    for (Line line : chunk) {
+      record(outcomes, line.slot(), LineOutcome.STORE_BUSY);
+    }
+    return null;
   }
 
-  private InventoryResponse updateInventory(Inventory inventory, Integer quantity, String operation)
-      throws JsonProcessingException {
-    Integer updatedQuantity = switch (StockOperationType.valueOf(operation.toUpperCase())) {
+  private Integer updatedQuantity(Inventory inventory, Integer quantity, StockOperationType operation) {
+    return switch (operation) {
       case ADD -> inventory.getAvailableQuantity() + quantity;
       case REMOVE -> inventory.getAvailableQuantity() - quantity;
       default -> inventory.getAvailableQuantity();
     };
-
-    inventory.setAvailableQuantity(updatedQuantity);
-    Inventory inventoryUpdated = inventoryRepository.save(inventory);
-    Item item = itemRepository.findById(inventoryUpdated.getItemId()).orElseThrow(() -> new IllegalArgumentException("item not found"));
-    inventoryActivityEventProducer.sendInventoryActivityEvent(operation, quantity.toString(), inventoryUpdated.getUpdationDate(), item.getId(), item.getItemName());
-    return buildInventoryResponse(null, ResponseStatus.SUCCESS, null);
   }
 
-  public InventoryResponse processInventorySold(Inventory inventory, Integer soldItemsQuantity)
-      throws JsonProcessingException {
-    Integer currentQuantity = inventory.getAvailableQuantity();
+  // Only allocated while a recording has line events enabled; each spans the line's chunk
+  private InventoryLineEvent[] beginLineEvents(int lines) {
+    if (!new InventoryLineEvent().isEnabled()) {
+      return null;
+    }
+    InventoryLineEvent[] events = new InventoryLineEvent[lines];
+    for (int i = 0; i < lines; i++) {
+      events[i] = new InventoryLineEvent();
+      events[i].begin();
+    }
+    return events;
+  }
 
-    if (soldItemsQuantity > currentQuantity) {
-      return buildInventoryResponse(null, ResponseStatus.FAILED, "Insufficient stock");
+  private void commitLineEvents(InventoryLineEvent[] events, Long storeId, List<Line> chunk, LineOutcome[] outcomes,
+      int batchSize, long queuedTime) {
+    if (events == null) {
+      return;
+    }
+    for (int i = 0; i < events.length; i++) {
+      InventoryLineEvent event = events[i];
+      event.end();
+      if (event.shouldCommit()) {
+        Line line = chunk.get(i);
+        LineOutcome outcome = outcomes[line.slot()];
+        event.itemId = line.request().getItemId() != null ? line.request().getItemId() : 0;
+        event.storeId = storeId;
+        event.operationType = line.operation().name();
+        event.batchSize = batchSize;
+        event.queuedTime = queuedTime;
+        event.status = (outcome == LineOutcome.SUCCESS ? ResponseStatus.SUCCESS : ResponseStatus.FAILED).name();
+        event.message = outcome.getMessage();
+        event.commit();
+      }
     }
+  }
+
+  // Lines record an outcome only; a response object is built solely for callers that want every line back
+  private void record(LineOutcome[] outcomes, int slot, LineOutcome outcome) {
+    outcomes[slot] = outcome;
+    this.outcomes.get(outcome).increment();
+  }
 
-    Integer updatedQuantity = currentQuantity - soldItemsQuantity;
-    inventory.setAvailableQuantity(updatedQuantity);
-    Inventory inventoryUpdated = inventoryRepository.save(inventory);
-    Item item = itemRepository.findById(inventoryUpdated.getItemId()).orElseThrow(() -> new IllegalArgumentException("item not found"));
-    inventoryActivityEventProducer.sendInventoryActivityEvent(StockOperationType.SELL.name(), soldItemsQuantity.toString(), inventoryUpdated.getUpdationDate(), item.getId(), item.getItemName());
-    return buildInventoryResponse(null, ResponseStatus.SUCCESS, null);
+  private InventoryResponse response(InventoryRequest request, LineOutcome outcome) {
+    return switch (outcome) {
+      case SUCCESS -> SUCCEEDED;
+      case INSUFFICIENT_STOCK -> INSUFFICIENT_STOCK;
+      default -> buildInventoryResponse(request, ResponseStatus.FAILED, outcome.getMessage());
+    };
   }
 
-  private InventoryResponse buildInventoryResponse(InventoryRequest request, ResponseStatus status, String message) {
+  private static InventoryResponse buildInventoryResponse(InventoryRequest request, ResponseStatus status, String message) {
     return InventoryResponse.builder()
         .itemId(request != null ? request.getItemId() : null)
         .quantity(request != null ? request.getQuantity() : null)
+        .storeId(request != null ? request.getStoreId() : null)
         .status(status)
         .message(message)
         .build();
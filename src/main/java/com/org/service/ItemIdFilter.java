@@ -0,0 +1,169 @@
+package com.org.service;
+
+import com.org.utility.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.PreparedStatement;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Bloom filter of live item ids, so lines for ids that never existed are answered without touching the
+// database. Built from a streamed scan of item before the web port opens, fed with ids this instance adds,
+// and rebuilt by ItemIdFilterJob (which also drops purged items). Only ids up to the highest scanned id,
+// less a margin for inserts still in flight during the scan, are judged: ids above it may have been added
+// by another instance since. Until the first build succeeds every id passes.
+@Component
+@Slf4j
+public class ItemIdFilter implements SmartLifecycle {
+
+  // Before the web server (Integer.MAX_VALUE - 1) and the stock-state cache start
+  private static final int PHASE = Integer.MAX_VALUE - 3;
+  private static final int SCAN_FETCH_SIZE = 10_000;
+  // Room for the ids added until the next rebuild
+  private static final double HEADROOM = 1.5;
+
+  private static final String LIVE_ITEMS_SQL = "SELECT item_id FROM item WHERE is_deleted = false";
+
+  private record Snapshot(BloomFilter filter, long judgedUpTo) {
+  }
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate readTransaction;
+  private final boolean enabled;
+  private final double falsePositiveRate;
+  private final long minExpectedItems;
+  private final long recentIdMargin;
+  private final Counter rejected;
+  private final Timer rebuilds;
+
+  private volatile Snapshot current;
+  // Set while a rebuild scans, so ids committed after its snapshot are not lost in the swap
+  private volatile BloomFilter pending;
+  private volatile boolean running;
+
+  public ItemIdFilter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+      @Value("${instore.item-filter.enabled:true}") boolean enabled,
+      @Value("${instore.item-filter.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${instore.item-filter.expected-items:100000}") long minExpectedItems,
+      @Value("${instore.item-filter.recent-id-margin:50000}") long recentIdMargin) {
+    this.enabled = enabled;
+    this.falsePositiveRate = falsePositiveRate;
+    this.minExpectedItems = minExpectedItems;
+    this.recentIdMargin = recentIdMargin;
+    this.jdbcTemplate = jdbcTemplate;
+    // pgJDBC streams with a fetch size only inside a transaction
+    this.readTransaction = new TransactionTemplate(transactionManager);
+    this.readTransaction.setReadOnly(true);
+
+    this.rejected = meterRegistry.counter("instore.item-filter.rejected");
+    this.rebuilds = Timer.builder("instore.item-filter.rebuild").register(meterRegistry);
+    Gauge.builder("instore.item-filter.bytes", this, filter -> filter.snapshotValue(s -> s.filter().sizeInBytes()))
+        .baseUnit("bytes")
+        .register(meterRegistry);
+    Gauge.builder("instore.item-filter.items", this, filter -> filter.snapshotValue(s -> s.filter().insertions()))
+        .register(meterRegistry);
+    Gauge.builder("instore.item-filter.false-positive-rate", this,
+            filter -> filter.snapshotValue(s -> s.filter().expectedFalsePositiveRate()))
+        .register(meterRegistry);
+    Gauge.builder("instore.item-filter.target-false-positive-rate", () -> falsePositiveRate).register(meterRegistry);
+  }
+
+  private double snapshotValue(ToDoubleFunction<Snapshot> value) {
+    Snapshot snapshot = current;
+    return snapshot != null ? value.applyAsDouble(snapshot) : 0;
+  }
+
+  // False only when the id has definitely never been a live item
+  public boolean mightExist(Long itemId) {
+    Snapshot snapshot = current;
+    if (itemId == null || snapshot == null || itemId > snapshot.judgedUpTo()) {
+      return true;
+    }
+    if (itemId > 0 && snapshot.filter().mightContain(itemId)) {
+      return true;
+    }
+    rejected.increment();
+    return false;
+  }
+
+  // Called once the ids have committed. Pending is read first: once it is cleared, current is the new filter.
+  public void add(Iterable<Long> itemIds) {
+    BloomFilter rebuilding = pending;
+    Snapshot snapshot = current;
+    for (Long itemId : itemIds) {
+      if (snapshot != null) {
+        snapshot.filter().put(itemId);
+      }
+      if (rebuilding != null) {
+        rebuilding.put(itemId);
+      }
+    }
+  }
+
+  public synchronized long rebuild() {
+    if (!enabled) {
+      return 0;
+    }
+    long startedAt = System.nanoTime();
+    long live = jdbcTemplate.queryForObject("SELECT count(*) FROM item WHERE is_deleted = false", Long.class);
+    BloomFilter next = new BloomFilter(Math.max(minExpectedItems, (long) (live * HEADROOM)), falsePositiveRate);
+    // Before the scan's snapshot is taken: anything committed after it is added to both filters
+    pending = next;
+    long[] highest = new long[1];
+    try {
+      readTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+        PreparedStatement ps = con.prepareStatement(LIVE_ITEMS_SQL);
+        ps.setFetchSize(SCAN_FETCH_SIZE);
+        return ps;
+      }, rs -> {
+        long itemId = rs.getLong(1);
+        next.put(itemId);
+        highest[0] = Math.max(highest[0], itemId);
+      }));
+      current = new Snapshot(next, highest[0] - recentIdMargin);
+    } finally {
+      pending = null;
+    }
+    rebuilds.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+    return next.insertions();
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    if (!enabled) {
+      return;
+    }
+    try {
+      long items = rebuild();
+      log.info("Item id filter built from {} items", items);
+    } catch (Exception e) {
+      // Fail open: every id goes to the database until the next rebuild succeeds
+      log.error("Item id filter build failed, ids are not filtered: {}", e.getMessage());
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
+  }
+}
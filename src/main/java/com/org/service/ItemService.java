@@ -1,61 +1,117 @@
 package com.org.service;
 
+import com.org.entity.Inventory;
 import com.org.entity.Item;
+import com.org.kafka.StockStatePublisher;
 import com.org.model.AddItemRequest;
 import com.org.model.AddItemResponse;
+import com.org.model.BatchSummaryResponse;
+import com.org.model.BulkDeleteResponse;
+import com.org.model.BulkRepriceRequest;
+import com.org.model.BulkRepriceResponse;
 import com.org.model.InventoryActivityEvent;
+import com.org.model.RepriceRule;
 import com.org.model.UpdateItemRequest;
 import com.org.model.UpdateItemResponse;
 import com.org.repository.ItemRepository;
+import com.org.repository.ItemRepositoryCustom.RepriceCount;
+import com.org.service.AdaptiveChunking.ChunkPlan;
+import com.org.utility.ActivityType;
+import com.org.utility.AdmissionEndpoint;
+import com.org.utility.ChunkedWrite;
+import com.org.utility.ExecutionLane;
 import com.org.utility.ResponseStatus;
 import com.org.utility.StockOperationType;
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 @Slf4j
 public class ItemService {
 
+  private static final int BULK_CHUNK_SIZE = 10_000;
+  // Lines per update transaction; chunks of one request run in parallel on the worker pool.
+  // Add chunks are sized by AdaptiveChunking instead.
+  private static final int WRITE_CHUNK_SIZE = 1_000;
+  // Admission control keeps queued lines within the endpoint budgets; this bound is the backstop
+  private static final int WORKER_QUEUE_CAPACITY = AdmissionEndpoint.ITEM_ADD.getDefaultMaxLines()
+      + AdmissionEndpoint.ITEM_UPDATE.getDefaultMaxLines();
+  private static final String SERVER_BUSY = "Server busy, retry later";
+  // Fixed per-line messages for database failures; the details go to the log, not to the caller
+  private static final String ADD_FAILED = "Failed to add item";
+  private static final String UPDATE_FAILED = "Failed to update item";
+  private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+  private static final int MAX_NAME_LENGTH = 100;
+
   private final ItemRepository itemRepository;
   private final InventoryService inventoryService;
   private final ExecutorService executorService;
   private final InventoryActivityEventProducer inventoryActivityEventProducer;
+  private final StockStatePublisher stockStatePublisher;
+  private final ExecutionLanes executionLanes;
+  private final TransactionTemplate transactionTemplate;
+  private final AdaptiveChunking adaptiveChunking;
+  private final ItemIdFilter itemIdFilter;
 
   public ItemService(ItemRepository itemRepository, InventoryService inventoryService,
-      InventoryActivityEventProducer inventoryActivityEventProducer) {
+      InventoryActivityEventProducer inventoryActivityEventProducer, StockStatePublisher stockStatePublisher,
+      ExecutionLanes executionLanes, TransactionTemplate transactionTemplate, AdaptiveChunking adaptiveChunking,
+      ItemIdFilter itemIdFilter) {
     this.itemRepository = itemRepository;
     this.inventoryService = inventoryService;
     this.inventoryActivityEventProducer = inventoryActivityEventProducer;
-    this.executorService = Executors.newFixedThreadPool(10);
+    this.stockStatePublisher = stockStatePublisher;
+    this.executionLanes = executionLanes;
+    this.transactionTemplate = transactionTemplate;
+    this.adaptiveChunking = adaptiveChunking;
+    this.itemIdFilter = itemIdFilter;
+    this.executorService = new ThreadPoolExecutor(10, 10, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(WORKER_QUEUE_CAPACITY));
   }
 
-  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  // Batch writes (this, addItemFailures and updateItem) open no transaction on the request thread:
+  // lines commit on the worker pool, and holding a connection on the request thread as well starves the workers.
+  // Valid lines are inserted in chunks, each one transaction with one INSERT for the items and one for their stock.
   public ResponseEntity<List<AddItemResponse>> addItem(final List<AddItemRequest> requests) {
     if (requests == null || requests.isEmpty()) {
       return buildResponse(HttpStatus.BAD_REQUEST, null);
     }
 
     try {
-      List<CompletableFuture<AddItemResponse>> futures = requests.stream()
-          .map(this::submitAddItemTask)
-          .toList();
-
-      List<AddItemResponse> responses = gatherTaskResults(futures);
-
-      HttpStatus status = responses.stream().allMatch(this::isSuccess)
-          ? HttpStatus.CREATED : HttpStatus.PARTIAL_CONTENT;
-
-      return buildResponse(status, responses);
+      String[] errors = addItems(requests);
+      List<AddItemResponse> results = new ArrayList<>(errors.length);
+      boolean allSucceeded = true;
+      for (int i = 0; i < errors.length; i++) {
+        results.add(errors[i] == null
+            ? buildAddItemResponse(requests.get(i), ResponseStatus.SUCCESS, null)
+            : buildAddItemResponse(requests.get(i), ResponseStatus.FAILED, errors[i]));
+        allSucceeded &= errors[i] == null;
+      }
+      return buildResponse(allSucceeded ? HttpStatus.CREATED : HttpStatus.PARTIAL_CONTENT, results);
 
     } catch (Exception e) {
       log.error("Exception encountered while adding items: {}", e.getMessage());
@@ -63,48 +119,134 @@ public class ItemService {
     }
   }
 
-  private CompletableFuture<AddItemResponse> submitAddItemTask(
-      final AddItemRequest addItemRequest) {
-    return CompletableFuture.supplyAsync(() -> processAddItem(addItemRequest), executorService);
-  }
+  // Same work as addItem, answered with counts and the failed lines only
+  public ResponseEntity<BatchSummaryResponse> addItemFailures(final List<AddItemRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
 
-  private AddItemResponse processAddItem(final AddItemRequest addItemRequest) {
     try {
-      Item savedItem = saveItem(addItemRequest);
-      inventoryService.addItem(addItemRequest, savedItem.getId());
-      inventoryActivityEventProducer.sendInventoryActivityEvent(StockOperationType.ADD.name(),
-          addItemRequest.getInventory().getQuantity().toString(), savedItem.getCreationDate(),
-          savedItem.getId(), savedItem.getItemName());
-      return buildAddItemResponse(addItemRequest, ResponseStatus.SUCCESS, null);
+      String[] errors = addItems(requests);
+      Map<Integer, String> failures = new TreeMap<>();
+      for (int i = 0; i < errors.length; i++) {
+        if (errors[i] != null) {
+          failures.put(i, errors[i]);
+        }
+      }
+      BatchSummaryResponse summary = BatchSummaryResponse.builder()
+          .lines(errors.length)
+          .succeeded(errors.length - failures.size())
+          .failed(failures.size())
+          .skipped(0)
+          .failures(failures)
+          .build();
+      return new ResponseEntity<>(summary, failures.isEmpty() ? HttpStatus.CREATED : HttpStatus.PARTIAL_CONTENT);
 
     } catch (Exception e) {
-      e.printStackTrace();
-      log.error("Failed to process item: {}, error: {}", addItemRequest.getItemName(),
-          e.getMessage());
-      return buildAddItemResponse(addItemRequest, ResponseStatus.FAILED, e.getMessage());
+      log.error("Exception encountered while adding items: {}", e.getMessage());
+      return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
     }
   }
 
-  private Item saveItem(final AddItemRequest addItemRequest) {
-    Item item = Item.builder()
-        .itemName(addItemRequest.getItemName())
-        .itemPrice(addItemRequest.getItemPrice())
-        .isDeleted(false)
-        .build();
-    return itemRepository.save(item);
+  // The error of each line by request index, null where the item was added
+  private String[] addItems(final List<AddItemRequest> requests) {
+    String[] errors = new String[requests.size()];
+    List<Integer> accepted = new ArrayList<>(requests.size());
+    for (int i = 0; i < requests.size(); i++) {
+      errors[i] = validateAddItem(requests.get(i));
+      if (errors[i] == null) {
+        accepted.add(i);
+      }
+    }
+
+    // Each chunk is cut when it is submitted, so a long batch follows the size and parallelism as they adapt
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+    int from = 0;
+    while (from < accepted.size()) {
+      inFlight.removeIf(CompletableFuture::isDone);
+      ChunkPlan plan = adaptiveChunking.plan(ChunkedWrite.ITEM_ADD);
+      if (inFlight.size() >= plan.parallelism()) {
+        CompletableFuture.anyOf(inFlight.toArray(new CompletableFuture[0])).join();
+        continue;
+      }
+      List<Integer> chunk = accepted.subList(from, Math.min(from + plan.size(), accepted.size()));
+      from += chunk.size();
+      CompletableFuture<Void> future = submitChunk(() -> processAddItems(requests, chunk, errors, plan),
+          () -> chunk.forEach(i -> errors[i] = SERVER_BUSY));
+      futures.add(future);
+      inFlight.add(future);
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    return errors;
   }
 
-  private List<AddItemResponse> gatherTaskResults(
-      final List<CompletableFuture<AddItemResponse>> futures) {
-    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-        .thenApply(v -> futures.stream()
-            .map(CompletableFuture::join)
-            .toList())
-        .join();
+  private CompletableFuture<Void> submitChunk(Runnable chunk, Runnable whenRejected) {
+    long enqueuedAt = executionLanes.enqueued(ExecutionLane.BULK);
+    try {
+      return CompletableFuture.runAsync(
+          () -> executionLanes.run(ExecutionLane.BULK, enqueuedAt, () -> {
+            chunk.run();
+            return null;
+          }), executorService);
+    } catch (RejectedExecutionException e) {
+      executionLanes.dropped(ExecutionLane.BULK);
+      whenRejected.run();
+      return CompletableFuture.completedFuture(null);
+    }
   }
 
-  private boolean isSuccess(final AddItemResponse response) {
-    return response.getStatus() == ResponseStatus.SUCCESS;
+  // Rejected up front instead of failing the whole chunk's INSERT
+  private String validateAddItem(final AddItemRequest request) {
+    if (request.getItemName() == null || request.getItemName().isBlank() || request.getItemName().length() > MAX_NAME_LENGTH) {
+      return "Invalid item name";
+    }
+    if (!isValidPrice(request.getItemPrice())) {
+      return "Invalid item price";
+    }
+    if (request.getInventory() == null || request.getInventory().getQuantity() == null) {
+      return "Quantity is required";
+    }
+    return null;
+  }
+
+  // The transaction manager holds a connection once the callback runs: the time until then is the connection
+  // wait, the rest until the commit returns is what the chunk's size costs. Opening stock reaches the stock-state
+  // topic only after the commit, like every other stock change.
+  private void processAddItems(final List<AddItemRequest> requests, final List<Integer> chunk, final String[] errors,
+      final ChunkPlan plan) {
+    List<AddItemRequest> chunkRequests = chunk.stream().map(requests::get).toList();
+    try {
+      long requestedAt = System.nanoTime();
+      long[] begunAt = new long[1];
+      List<Inventory> openingStock = new ArrayList<>(chunk.size());
+      List<Item> savedItems = transactionTemplate.execute(status -> {
+        begunAt[0] = System.nanoTime();
+        List<Item> items = itemRepository.insertItems(
+            chunkRequests.stream().map(AddItemRequest::getItemName).toList(),
+            chunkRequests.stream().map(AddItemRequest::getItemPrice).toList());
+        openingStock.addAll(inventoryService.addItems(chunkRequests, items.stream().map(Item::getId).toList()));
+        return items;
+      });
+      adaptiveChunking.record(plan, begunAt[0] - requestedAt, System.nanoTime() - begunAt[0]);
+      itemIdFilter.add(savedItems.stream().map(Item::getId).toList());
+      inventoryService.registerStores(openingStock);
+      openingStock.forEach(stockStatePublisher::publish);
+
+      for (int i = 0; i < chunk.size(); i++) {
+        AddItemRequest addItemRequest = chunkRequests.get(i);
+        Item savedItem = savedItems.get(i);
+        inventoryActivityEventProducer.sendInventoryActivityEvent(StockOperationType.ADD.name(),
+            addItemRequest.getInventory().getQuantity().toString(), savedItem.getCreationDate(),
+            savedItem.getId(), savedItem.getItemName(), addItemRequest.getInventory().getStoreId());
+      }
+
+    } catch (Exception e) {
+      log.error("Failed to add {} items", chunk.size(), e);
+      for (Integer i : chunk) {
+        errors[i] = ADD_FAILED;
+      }
+    }
   }
 
   private AddItemResponse buildAddItemResponse(final AddItemRequest request,
@@ -124,26 +266,62 @@ public class ItemService {
     return new ResponseEntity<>(responses, status);
   }
 
-  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  // One UPDATE per chunk instead of a findById and save per line. Lines for the same item are merged,
+  // later non-null fields winning, and every such line reports the merged result.
   public ResponseEntity<List<UpdateItemResponse>> updateItem(List<UpdateItemRequest> requests) {
     if (requests == null || requests.isEmpty()) {
       return buildUpdateItemResponse(HttpStatus.BAD_REQUEST, null);
     }
 
     try {
-      // Submit tasks for parallel execution using CompletableFuture
-      List<CompletableFuture<UpdateItemResponse>> futures = requests.stream()
-          .map(this::submitUpdateItemTask)
-          .toList();
-
-      // Gather all task results
-      List<UpdateItemResponse> responses = gatherUpdateTaskResults(futures);
-
-      // Determine the overall status based on individual responses
-      HttpStatus status = responses.stream().allMatch(this::isUpdateSuccess)
+      UpdateItemResponse[] responses = new UpdateItemResponse[requests.size()];
+      Map<Long, UpdateItemRequest> merged = new LinkedHashMap<>();
+      for (int i = 0; i < requests.size(); i++) {
+        UpdateItemRequest request = requests.get(i);
+        String error = validateUpdateItem(request);
+        if (error != null) {
+          responses[i] = buildUpdateItemResponse(request, ResponseStatus.FAILED, error);
+        } else {
+          merged.merge(request.getItemId(), request, (earlier, later) -> new UpdateItemRequest(later.getItemId(),
+              later.getItemName() != null ? later.getItemName() : earlier.getItemName(),
+              later.getItemPrice() != null ? later.getItemPrice() : earlier.getItemPrice()));
+        }
+      }
+
+      List<UpdateItemRequest> updates = new ArrayList<>(merged.values());
+      Set<Long> updatedIds = ConcurrentHashMap.newKeySet();
+      Set<Long> busyIds = ConcurrentHashMap.newKeySet();
+      Set<Long> failedIds = ConcurrentHashMap.newKeySet();
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      for (int from = 0; from < updates.size(); from += WRITE_CHUNK_SIZE) {
+        List<UpdateItemRequest> chunk = updates.subList(from, Math.min(from + WRITE_CHUNK_SIZE, updates.size()));
+        futures.add(submitChunk(() -> updatedIds.addAll(itemRepository.updateItems(
+                chunk.stream().map(UpdateItemRequest::getItemId).toList(),
+                chunk.stream().map(UpdateItemRequest::getItemName).toList(),
+                chunk.stream().map(UpdateItemRequest::getItemPrice).toList())),
+            () -> chunk.forEach(update -> busyIds.add(update.getItemId())))
+            .exceptionally(e -> {
+              log.error("Failed to update {} items", chunk.size(), e);
+              chunk.forEach(update -> failedIds.add(update.getItemId()));
+              return null;
+            }));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+      for (int i = 0; i < requests.size(); i++) {
+        if (responses[i] == null) {
+          UpdateItemRequest request = requests.get(i);
+          responses[i] = updatedIds.contains(request.getItemId())
+              ? buildUpdateItemResponse(request, ResponseStatus.SUCCESS, null)
+              : buildUpdateItemResponse(request, ResponseStatus.FAILED, updateFailure(request.getItemId(), busyIds, failedIds));
+        }
+      }
+
+      List<UpdateItemResponse> results = Arrays.asList(responses);
+      HttpStatus status = results.stream().allMatch(this::isUpdateSuccess)
           ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT;
 
-      return buildUpdateItemResponse(status, responses);
+      return buildUpdateItemResponse(status, results);
 
     } catch (Exception e) {
       log.error("Exception encountered while updating items: {}", e.getMessage());
@@ -151,35 +329,28 @@ public class ItemService {
     }
   }
 
-  private CompletableFuture<UpdateItemResponse> submitUpdateItemTask(
-      UpdateItemRequest updateRequest) {
-    return CompletableFuture.supplyAsync(() -> processUpdateItem(updateRequest), executorService);
+  private static String updateFailure(Long itemId, Set<Long> busyIds, Set<Long> failedIds) {
+    if (failedIds.contains(itemId)) {
+      return UPDATE_FAILED;
+    }
+    return busyIds.contains(itemId) ? SERVER_BUSY : "Item not found";
   }
 
-  private UpdateItemResponse processUpdateItem(UpdateItemRequest updateRequest) {
-    try {
-      // Find the item and update its details
-      return itemRepository.findById(updateRequest.getItemId())
-          .map(item -> {
-            updateItemDetails(item, updateRequest);
-            return buildUpdateItemResponse(updateRequest, ResponseStatus.SUCCESS, null);
-          })
-          .orElseGet(() -> buildUpdateItemResponse(updateRequest, ResponseStatus.FAILED,
-              "Item not found"));
-    } catch (Exception e) {
-      log.error("Failed to update item: {}, error: {}", updateRequest.getItemName(),
-          e.getMessage());
-      return buildUpdateItemResponse(updateRequest, ResponseStatus.FAILED, e.getMessage());
+  private String validateUpdateItem(UpdateItemRequest request) {
+    if (request.getItemId() == null) {
+      return "Item id is required";
     }
+    if (request.getItemName() != null && (request.getItemName().isBlank() || request.getItemName().length() > MAX_NAME_LENGTH)) {
+      return "Invalid item name";
+    }
+    if (request.getItemPrice() != null && !isValidPrice(request.getItemPrice())) {
+      return "Invalid item price";
+    }
+    return null;
   }
 
-  private List<UpdateItemResponse> gatherUpdateTaskResults(
-      List<CompletableFuture<UpdateItemResponse>> futures) {
-    return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
-        .thenApply(v -> futures.stream()
-            .map(CompletableFuture::join)
-            .toList())
-        .join();
+  private boolean isValidPrice(BigDecimal price) {
+    return price != null && price.signum() > 0 && price.compareTo(MAX_PRICE) <= 0;
   }
 
   private boolean isUpdateSuccess(UpdateItemResponse response) {
@@ -202,17 +373,96 @@ public class ItemService {
     return new ResponseEntity<>(responses, status);
   }
 
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public ResponseEntity<BulkRepriceResponse> repriceItems(BulkRepriceRequest request) {
+    if (request == null || (request.getPrices() == null) == (request.getRule() == null)
+        || (request.getPrices() != null && request.getPrices().isEmpty())
+        || (request.getRule() != null && !isValidRule(request.getRule()))) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      BulkRepriceResponse response = request.getRule() != null
+          ? applyPriceRule(request.getRule())
+          : applyExplicitPrices(request.getPrices());
+
+      if (response.getUpdated() > 0) {
+        inventoryActivityEventProducer.sendInventoryActivityEvent(ActivityType.BULK_REPRICE.name(),
+            response.getUpdated().toString(), LocalDateTime.now(), null, null, null);
+      }
+
+      HttpStatus status = response.getFailures().isEmpty() && response.getUpdated().equals(response.getRequested())
+          ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT;
+      return new ResponseEntity<>(response, status);
 
-  private void updateItemDetails(Item currentItem, UpdateItemRequest request) {
-    if(request.getItemName() != null) {
-      currentItem.setItemName(request.getItemName());
+    } catch (Exception e) {
+      log.error("Exception encountered while repricing items: {}", e.getMessage());
+      return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
     }
-    if(request.getItemPrice() != null) {
-      currentItem.setItemPrice(request.getItemPrice());
+  }
+
+  private boolean isValidRule(RepriceRule rule) {
+    return rule.getPercentage() != null && rule.getPercentage().compareTo(BigDecimal.valueOf(-100)) > 0;
+  }
+
+  // Matched items left out because their new price would fall outside 0.01..MAX_PRICE only show in the counts
+  private BulkRepriceResponse applyPriceRule(RepriceRule rule) {
+    RepriceCount count = itemRepository.applyPriceRule(rule);
+    return BulkRepriceResponse.builder()
+        .requested(count.matched())
+        .updated(count.updated())
+        .failures(List.of())
+        .build();
+  }
+
+  private BulkRepriceResponse applyExplicitPrices(List<UpdateItemRequest> prices) {
+    List<UpdateItemResponse> failures = new ArrayList<>();
+    Map<Long, UpdateItemRequest> accepted = new LinkedHashMap<>();
+    for (UpdateItemRequest price : prices) {
+      String error = validatePrice(price, accepted);
+      if (error != null) {
+        failures.add(buildUpdateItemResponse(price, ResponseStatus.FAILED, error));
+      } else {
+        accepted.put(price.getItemId(), price);
+      }
     }
-    itemRepository.save(currentItem); // Save the updated item
+
+    // One set-based UPDATE per chunk instead of a findById and save per item
+    List<UpdateItemRequest> acceptedPrices = new ArrayList<>(accepted.values());
+    Set<Long> updatedIds = new HashSet<>();
+    for (int from = 0; from < acceptedPrices.size(); from += BULK_CHUNK_SIZE) {
+      List<UpdateItemRequest> chunk = acceptedPrices.subList(from, Math.min(from + BULK_CHUNK_SIZE, acceptedPrices.size()));
+      updatedIds.addAll(itemRepository.updatePrices(
+          chunk.stream().map(UpdateItemRequest::getItemId).toList(),
+          chunk.stream().map(UpdateItemRequest::getItemPrice).toList()));
+    }
+
+    acceptedPrices.stream()
+        .filter(price -> !updatedIds.contains(price.getItemId()))
+        .forEach(price -> failures.add(buildUpdateItemResponse(price, ResponseStatus.FAILED, "Item not found")));
+
+    return BulkRepriceResponse.builder()
+        .requested(prices.size())
+        .updated(updatedIds.size())
+        .failures(failures)
+        .build();
   }
 
+  private String validatePrice(UpdateItemRequest price, Map<Long, UpdateItemRequest> accepted) {
+    if (price.getItemId() == null) {
+      return "Item id is required";
+    }
+    if (!isValidPrice(price.getItemPrice())) {
+      return "Invalid item price";
+    }
+    if (accepted.containsKey(price.getItemId())) {
+      return "Duplicate item id";
+    }
+    return null;
+  }
+
+  // Single-row and set-based writes wait on no worker, so they keep their transaction on the request thread
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
   public ResponseEntity<String> deleteItem(Long itemId) {
     if (itemId == null) {
       return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
@@ -225,10 +475,42 @@ public class ItemService {
 
   private ResponseEntity<String> markItemAsDeleted(Item currentItem) {
     currentItem.setIsDeleted(true);
+    currentItem.setDeletedAt(LocalDateTime.now());
     itemRepository.save(currentItem);
     return new ResponseEntity<>(HttpStatus.OK);
   }
 
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public ResponseEntity<BulkDeleteResponse> deleteItems(List<Long> itemIds) {
+    if (itemIds == null || itemIds.isEmpty() || itemIds.stream().anyMatch(Objects::isNull)) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    try {
+      List<Long> distinctIds = itemIds.stream().distinct().toList();
+      Set<Long> deletedIds = new HashSet<>();
+      for (int from = 0; from < distinctIds.size(); from += BULK_CHUNK_SIZE) {
+        deletedIds.addAll(itemRepository.markDeleted(
+            distinctIds.subList(from, Math.min(from + BULK_CHUNK_SIZE, distinctIds.size()))));
+      }
+
+      List<Long> notFound = distinctIds.stream()
+          .filter(itemId -> !deletedIds.contains(itemId))
+          .toList();
+      BulkDeleteResponse response = BulkDeleteResponse.builder()
+          .requested(itemIds.size())
+          .deleted(deletedIds.size())
+          .notFound(notFound)
+          .build();
+
+      return new ResponseEntity<>(response, notFound.isEmpty() ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT);
+
+    } catch (Exception e) {
+      log.error("Exception encountered while deleting items: {}", e.getMessage());
+      return new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+  }
+
   private InventoryActivityEvent createInventoryActivityEvent(String activityType,
       String activityValue, LocalDateTime activityTime, Long itemId, String itemName) {
     return InventoryActivityEvent.builder()
@@ -0,0 +1,86 @@
+package com.org.service;
+
+import com.org.entity.Inventory;
+import com.org.repository.InventoryRepository;
+import com.org.repository.ItemRepository;
+import com.org.utility.ExecutionLane;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+
+// Runs before the readiness state flips to ACCEPTING_TRAFFIC. Warms up on a real stock row, since made-up ids
+// are refused by validation and the item filter before any lane or query runs: its availability over HTTP
+// (Jackson, controller, JPA), then the write chunk's and the basket's row reads on the store's lane, inside a
+// transaction that is rolled back. No stock changes and no events are sent.
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "instore.warmup", name = "enabled", havingValue = "true")
+public class StartupWarmup implements ApplicationRunner {
+
+  private final Environment environment;
+  private final InventoryRepository inventoryRepository;
+  private final ItemRepository itemRepository;
+  private final StoreWriteRouter storeWriteRouter;
+  private final TransactionTemplate transactionTemplate;
+  private final int iterations;
+
+  public StartupWarmup(Environment environment, InventoryRepository inventoryRepository, ItemRepository itemRepository,
+      StoreWriteRouter storeWriteRouter, TransactionTemplate transactionTemplate,
+      @Value("${instore.warmup.iterations:50}") int iterations) {
+    this.environment = environment;
+    this.inventoryRepository = inventoryRepository;
+    this.itemRepository = itemRepository;
+    this.storeWriteRouter = storeWriteRouter;
+    this.transactionTemplate = transactionTemplate;
+    this.iterations = iterations;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    String port = environment.getProperty("local.server.port");
+    if (port == null) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    try {
+      Optional<Inventory> stock = inventoryRepository.findFirstByOrderByIdDesc();
+      if (stock.isEmpty()) {
+        log.info("No stock to warm up on, skipping endpoint warmup");
+        return;
+      }
+      Long itemId = stock.get().getItemId();
+      Long storeId = stock.get().getStoreId();
+      RestClient client = RestClient.create("http://localhost:" + port);
+      for (int i = 0; i < iterations; i++) {
+        client.get().uri("/inventory/availability/{itemId}", itemId)
+            .retrieve()
+            .onStatus(status -> true, (request, response) -> { })
+            .toBodilessEntity();
+        storeWriteRouter.submit(storeId, ExecutionLane.BULK, () -> readRows(storeId, itemId)).join();
+      }
+      log.info("Warmed up hot paths with {} iterations in {} ms", iterations, (System.nanoTime() - start) / 1_000_000);
+    } catch (Exception e) {
+      log.warn("Endpoint warmup failed, continuing startup: {}", e.getMessage());
+    }
+  }
+
+  // The rows are locked for as long as the reads take, then released by the rollback
+  private Void readRows(Long storeId, Long itemId) {
+    return transactionTemplate.execute(status -> {
+      status.setRollbackOnly();
+      inventoryRepository.findAllByStoreIdAndItemIdIn(storeId, List.of(itemId));
+      itemRepository.findAllById(List.of(itemId));
+      inventoryRepository.lockStock(storeId, List.of(itemId));
+      return null;
+    });
+  }
+}
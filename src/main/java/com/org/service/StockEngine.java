@@ -0,0 +1,475 @@
+package com.org.service;
+
+import com.org.entity.Inventory;
+import com.org.kafka.StockStatePublisher;
+import com.org.repository.InventoryRepository;
+import com.org.repository.InventoryRepositoryCustom.OwnedStock;
+import com.org.utility.LineOutcome;
+import com.org.utility.StockOperationType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Optional single-writer path for inventory lines (instore.stock-engine.enabled). Stock rows are hashed by
+// store and item to a fixed set of shards; a shard owns the quantities of its rows in memory and applies
+// their lines one at a time on its own thread, taken from a lock-free queue, so lines on a hot item never
+// queue on a row lock. Whatever arrived while a shard's previous group committed becomes its next group:
+// one transaction and one compare-and-set UPDATE for every row the group changed. A line's future completes
+// only after that commit. A row changed meanwhile by another writer (a basket sale, a reconciliation repair,
+// another instance) fails the compare; it is reloaded and its lines applied again in the next group.
+// A sale refused for insufficient stock writes nothing, so before the refusal stands the row is read again
+// unless it was loaded in the same group. Each shard keeps its most recently used rows, up to a bound.
+@Component
+@Slf4j
+public class StockEngine implements SmartLifecycle {
+
+  // Before the web server (Integer.MAX_VALUE - 1) starts and after it stops
+  private static final int PHASE = Integer.MAX_VALUE - 2;
+  // Attempts for a line whose row keeps failing the compare, or whose group keeps losing a lock conflict,
+  // before it is answered with an error
+  private static final int MAX_ATTEMPTS = 3;
+  private static final long STOP_TIMEOUT_MILLIS = 30_000;
+
+  private static final CompletableFuture<LineOutcome> STORE_BUSY = CompletableFuture.completedFuture(LineOutcome.STORE_BUSY);
+  private static final CompletableFuture<LineOutcome> ITEM_NOT_FOUND = CompletableFuture.completedFuture(LineOutcome.ITEM_NOT_FOUND);
+
+  private final InventoryRepository inventoryRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final InventoryActivityEventProducer inventoryActivityEventProducer;
+  private final StockStatePublisher stockStatePublisher;
+  private final boolean enabled;
+  private final int maxGroupLines;
+  private final int queueCapacity;
+  private final int maxRowsPerShard;
+  private final Shard[] shards;
+  private final Timer commits;
+  private final DistributionSummary groupLines;
+  private final Counter conflicts;
+  private final Counter lockConflicts;
+  private final Counter rejected;
+  private final Counter rereads;
+
+  private volatile boolean running;
+
+  public StockEngine(InventoryRepository inventoryRepository, TransactionTemplate transactionTemplate,
+      InventoryActivityEventProducer inventoryActivityEventProducer, StockStatePublisher stockStatePublisher,
+      MeterRegistry meterRegistry,
+      @Value("${instore.stock-engine.enabled:false}") boolean enabled,
+      @Value("${instore.stock-engine.shards:1}") int shards,
+      @Value("${instore.stock-engine.max-group-lines:1000}") int maxGroupLines,
+      @Value("${instore.stock-engine.queue-capacity:50000}") int queueCapacity,
+      @Value("${instore.stock-engine.max-rows-per-shard:100000}") int maxRowsPerShard) {
+    this.inventoryRepository = inventoryRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.inventoryActivityEventProducer = inventoryActivityEventProducer;
+    this.stockStatePublisher = stockStatePublisher;
+    this.enabled = enabled;
+    this.maxGroupLines = maxGroupLines;
+    this.queueCapacity = queueCapacity;
+    // Every row of a group must fit, or a row loaded for the group could be evicted before it is applied
+    this.maxRowsPerShard = Math.max(maxRowsPerShard, maxGroupLines);
+    this.shards = new Shard[shards];
+    for (int i = 0; i < shards; i++) {
+      this.shards[i] = new Shard(i);
+    }
+
+    this.commits = Timer.builder("instore.stock-engine.commit")
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+    this.groupLines = DistributionSummary.builder("instore.stock-engine.group.lines")
+        .publishPercentiles(0.5, 0.99)
+        .register(meterRegistry);
+    this.conflicts = meterRegistry.counter("instore.stock-engine.conflicts");
+    this.lockConflicts = meterRegistry.counter("instore.stock-engine.lock-conflicts");
+    this.rejected = meterRegistry.counter("instore.stock-engine.rejected");
+    this.rereads = meterRegistry.counter("instore.stock-engine.rereads");
+    Gauge.builder("instore.stock-engine.queued", this, StockEngine::queued).register(meterRegistry);
+  }
+
+  private record StockKey(long storeId, long itemId) {
+  }
+
+  // Quantity as last committed (or loaded) for a row the shard owns
+  private static final class Slot {
+
+    private final String itemName;
+    private int quantity;
+
+    private Slot(String itemName, int quantity) {
+      this.itemName = itemName;
+      this.quantity = quantity;
+    }
+  }
+
+  private static final class Command {
+
+    private final StockKey key;
+    private final int quantity;
+    private final StockOperationType operation;
+    private final boolean sale;
+    private final CompletableFuture<LineOutcome> outcome = new CompletableFuture<>();
+    private int attempts;
+
+    private Command(StockKey key, int quantity, StockOperationType operation, boolean sale) {
+      this.key = key;
+      this.quantity = quantity;
+      this.operation = operation;
+      this.sale = sale;
+    }
+  }
+
+  // A row's quantity within the group being applied; written only if at least one line succeeded on it
+  private static final class Change {
+
+    private final int expected;
+    private int quantity;
+    private boolean written;
+
+    private Change(int expected) {
+      this.expected = expected;
+      this.quantity = expected;
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  // Completes on the shard thread once the line's group has committed. A full shard queue, or an engine
+  // that is not running, answers the line as busy straight away.
+  public CompletableFuture<LineOutcome> submit(Long storeId, Long itemId, int quantity, StockOperationType operation,
+      boolean sale) {
+    if (itemId == null) {
+      return ITEM_NOT_FOUND;
+    }
+    StockKey key = new StockKey(storeId, itemId);
+    Shard shard = shards[shardOf(key)];
+    if (!running) {
+      rejected.increment();
+      return STORE_BUSY;
+    }
+    if (shard.depth.incrementAndGet() > queueCapacity) {
+      shard.depth.decrementAndGet();
+      rejected.increment();
+      return STORE_BUSY;
+    }
+    Command command = new Command(key, quantity, operation, sale);
+    shard.queue.offer(command);
+    // Read after the offer; the shard sets the flag before its last look at the queue, so one of the two sees the other
+    if (shard.parked) {
+      LockSupport.unpark(shard.thread);
+    }
+    return command.outcome;
+  }
+
+  // Consecutive item ids land on consecutive shards, so a store's hottest items spread over all of them
+  private int shardOf(StockKey key) {
+    return Math.floorMod(31 * Long.hashCode(key.storeId()) + Long.hashCode(key.itemId()), shards.length);
+  }
+
+  private double queued() {
+    int queued = 0;
+    for (Shard shard : shards) {
+      queued += shard.depth.get();
+    }
+    return queued;
+  }
+
+  @Override
+  public void start() {
+    if (!enabled || running) {
+      return;
+    }
+    running = true;
+    for (Shard shard : shards) {
+      shard.thread = new Thread(shard, "stock-shard-" + shard.index);
+      shard.thread.setDaemon(true);
+      shard.thread.start();
+    }
+    log.info("Stock engine started with {} shards", shards.length);
+  }
+
+  // Shards finish what is queued before their threads end; a line that slipped in after that is answered as busy
+  @Override
+  public void stop() {
+    if (!running) {
+      return;
+    }
+    running = false;
+    for (Shard shard : shards) {
+      LockSupport.unpark(shard.thread);
+    }
+    for (Shard shard : shards) {
+      try {
+        shard.thread.join(STOP_TIMEOUT_MILLIS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      Command command;
+      while ((command = shard.queue.poll()) != null) {
+        command.outcome.complete(LineOutcome.STORE_BUSY);
+      }
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    return PHASE;
+  }
+
+  private final class Shard implements Runnable {
+
+    private final int index;
+    private final Queue<Command> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    // Touched only by the shard thread. In access order: a group's rows are read before any load, so the
+    // least recently used rows are the ones dropped, and a dropped row is simply loaded again when next used.
+    private final Map<StockKey, Slot> owned = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<StockKey, Slot> eldest) {
+        return size() > maxRowsPerShard;
+      }
+    };
+    private final ArrayDeque<Command> retries = new ArrayDeque<>();
+    private volatile Thread thread;
+    private volatile boolean parked;
+
+    private Shard(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public void run() {
+      List<Command> group = new ArrayList<>();
+      while (true) {
+        take(group);
+        if (!group.isEmpty()) {
+          commit(group);
+          group.clear();
+          continue;
+        }
+        if (!running) {
+          return;
+        }
+        parked = true;
+        if (queue.isEmpty() && running) {
+          LockSupport.park(this);
+        }
+        parked = false;
+      }
+    }
+
+    // Lines retried after a failed compare go first: they were queued before anything still in the queue
+    private void take(List<Command> group) {
+      while (group.size() < maxGroupLines && !retries.isEmpty()) {
+        group.add(retries.poll());
+      }
+      Command command;
+      while (group.size() < maxGroupLines && (command = queue.poll()) != null) {
+        depth.decrementAndGet();
+        group.add(command);
+      }
+    }
+
+    private void commit(List<Command> group) {
+      long startedAt = System.nanoTime();
+      LineOutcome[] outcomes = new LineOutcome[group.size()];
+      Map<StockKey, Change> changes = new LinkedHashMap<>();
+      Map<StockKey, Inventory> committed = new HashMap<>();
+      try {
+        transactionTemplate.executeWithoutResult(status -> {
+          Set<StockKey> loaded = load(group);
+          Set<StockKey> doubtful = apply(group, outcomes, changes, loaded);
+          if (!doubtful.isEmpty() && reread(doubtful)) {
+            changes.clear();
+            apply(group, outcomes, changes, null);
+          }
+          for (Inventory row : compareAndSet(changes)) {
+            committed.put(new StockKey(row.getStoreId(), row.getItemId()), row);
+          }
+        });
+      } catch (PessimisticLockingFailureException e) {
+        // A deadlock or serialization failure rolled the whole group back: nothing was written, so every
+        // line is applied again from freshly read rows
+        lockConflicts.increment();
+        log.warn("Lock conflict committing {} stock lines on shard: {}, error: {}", group.size(), index, e.getMessage());
+        for (Command command : group) {
+          owned.remove(command.key);
+          if (++command.attempts < MAX_ATTEMPTS) {
+            retries.add(command);
+          } else {
+            command.outcome.complete(LineOutcome.ERROR);
+          }
+        }
+        return;
+      } catch (RuntimeException e) {
+        log.warn("Error committing {} stock lines on shard: {}, error: {}", group.size(), index, e.getMessage());
+        for (Command command : group) {
+          owned.remove(command.key);
+          command.outcome.complete(LineOutcome.ERROR);
+        }
+        return;
+      }
+      commits.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+      groupLines.record(group.size());
+
+      for (Map.Entry<StockKey, Change> change : changes.entrySet()) {
+        Inventory row = committed.get(change.getKey());
+        if (row != null) {
+          owned.get(change.getKey()).quantity = change.getValue().quantity;
+          stockStatePublisher.publish(row);
+        } else if (change.getValue().written) {
+          conflicts.increment();
+          owned.remove(change.getKey());
+        }
+      }
+      for (int i = 0; i < group.size(); i++) {
+        Command command = group.get(i);
+        Change change = changes.get(command.key);
+        if (change != null && change.written && !committed.containsKey(command.key)) {
+          if (++command.attempts < MAX_ATTEMPTS) {
+            retries.add(command);
+          } else {
+            command.outcome.complete(LineOutcome.ERROR);
+          }
+          continue;
+        }
+        if (outcomes[i] == LineOutcome.SUCCESS) {
+          Inventory row = committed.get(command.key);
+          inventoryActivityEventProducer.sendInventoryActivityEvent(command.operation.name(), Integer.toString(command.quantity),
+              row.getUpdationDate(), command.key.itemId(), owned.get(command.key).itemName, command.key.storeId());
+        }
+        command.outcome.complete(outcomes[i]);
+      }
+    }
+
+    // One read for every row of the group the shard does not hold yet; returns the rows it asked for.
+    // The lookups also mark the held rows as recently used, so the loads cannot evict them.
+    private Set<StockKey> load(List<Command> group) {
+      Set<StockKey> missing = new HashSet<>();
+      for (Command command : group) {
+        if (owned.get(command.key) == null) {
+          missing.add(command.key);
+        }
+      }
+      if (!missing.isEmpty()) {
+        read(missing);
+      }
+      return missing;
+    }
+
+    // Rows gone or belonging to a deleted item are dropped
+    private void read(Set<StockKey> keys) {
+      List<Long> storeIds = new ArrayList<>(keys.size());
+      List<Long> itemIds = new ArrayList<>(keys.size());
+      for (StockKey key : keys) {
+        storeIds.add(key.storeId());
+        itemIds.add(key.itemId());
+        owned.remove(key);
+      }
+      for (OwnedStock stock : inventoryRepository.loadStock(storeIds, itemIds)) {
+        owned.put(new StockKey(stock.storeId(), stock.itemId()), new Slot(stock.itemName(), stock.availableQuantity()));
+      }
+    }
+
+    // Another instance or a repair may have restocked a row since the shard last saw it. True when any
+    // quantity differs, and the group has to be applied again.
+    private boolean reread(Set<StockKey> keys) {
+      rereads.increment();
+      Map<StockKey, Integer> seen = new HashMap<>();
+      for (StockKey key : keys) {
+        seen.put(key, owned.get(key).quantity);
+      }
+      read(keys);
+      for (StockKey key : keys) {
+        Slot slot = owned.get(key);
+        if (slot == null || slot.quantity != seen.get(key)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    // Lines on the same row see each other's changes, in queue order. Returns the rows where a sale was
+    // refused against a quantity not read in this group (none when loaded is null).
+    private Set<StockKey> apply(List<Command> group, LineOutcome[] outcomes, Map<StockKey, Change> changes,
+        Set<StockKey> loaded) {
+      Set<StockKey> doubtful = new HashSet<>();
+      for (int i = 0; i < group.size(); i++) {
+        Command command = group.get(i);
+        Slot slot = owned.get(command.key);
+        if (slot == null) {
+          outcomes[i] = LineOutcome.ITEM_NOT_FOUND;
+          continue;
+        }
+        Change change = changes.computeIfAbsent(command.key, key -> new Change(slot.quantity));
+        if (command.sale && command.quantity > change.quantity) {
+          outcomes[i] = LineOutcome.INSUFFICIENT_STOCK;
+          if (loaded != null && !loaded.contains(command.key)) {
+            doubtful.add(command.key);
+          }
+          continue;
+        }
+        change.quantity = updatedQuantity(change.quantity, command);
+        change.written = true;
+        outcomes[i] = LineOutcome.SUCCESS;
+      }
+      return doubtful;
+    }
+
+    private List<Inventory> compareAndSet(Map<StockKey, Change> changes) {
+      List<Long> storeIds = new ArrayList<>(changes.size());
+      List<Long> itemIds = new ArrayList<>(changes.size());
+      List<Integer> expected = new ArrayList<>(changes.size());
+      List<Integer> quantities = new ArrayList<>(changes.size());
+      for (Map.Entry<StockKey, Change> change : changes.entrySet()) {
+        if (change.getValue().written) {
+          storeIds.add(change.getKey().storeId());
+          itemIds.add(change.getKey().itemId());
+          expected.add(change.getValue().expected);
+          quantities.add(change.getValue().quantity);
+        }
+      }
+      return storeIds.isEmpty() ? List.of() : inventoryRepository.compareAndSetStock(storeIds, itemIds, expected, quantities);
+    }
+  }
+
+  // Same rules as InventoryService: a sale always decrements, an update applies its operation type
+  private static int updatedQuantity(int current, Command command) {
+    if (command.sale) {
+      return current - command.quantity;
+    }
+    return switch (command.operation) {
+      case ADD -> current + command.quantity;
+      case REMOVE -> current - command.quantity;
+      default -> current;
+    };
+  }
+}
@@ -0,0 +1,170 @@
+package com.org.service;
+
+import com.org.archive.ActivityArchive;
+import com.org.archive.ActivityArchive.ReplayWindow;
+import com.org.archive.ArchiveUnavailableException;
+import com.org.model.StockAtTimeResponse;
+import com.org.model.StoreStockAtTime;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Answers "what was the stock of item X at time T" from the checkpoint nearest to T (the live stock row counts
+// as one) plus the activity between the checkpoint and T, replayed backwards when the checkpoint is later.
+// Both lookups are index range scans on one item, so the cost follows the checkpoint interval, not the history.
+// Activity already moved to the archive is replayed from the archive files covering the item.
+@Service
+@Slf4j
+public class StockHistoryService {
+
+  // Per store of the item: the last checkpoint at or before T, the first one after it and the live row
+  private static final String NEAREST_CHECKPOINT_SQL = """
+      WITH q(item_id, at, store_id) AS (SELECT ?::bigint, ?::timestamp, ?::bigint)
+      SELECT s.store_id, p.checkpoint_at, p.available_quantity
+      FROM q, (SELECT inv.store_id FROM inventory inv, q WHERE inv.item_id = q.item_id
+               UNION SELECT c.store_id FROM stock_checkpoint c, q WHERE c.item_id = q.item_id) s
+      CROSS JOIN LATERAL (
+        SELECT * FROM (
+          (SELECT c.checkpoint_at, c.available_quantity FROM stock_checkpoint c
+           WHERE c.item_id = q.item_id AND c.store_id = s.store_id AND c.checkpoint_at <= q.at
+           ORDER BY c.checkpoint_at DESC LIMIT 1)
+          UNION ALL
+          (SELECT c.checkpoint_at, c.available_quantity FROM stock_checkpoint c
+           WHERE c.item_id = q.item_id AND c.store_id = s.store_id AND c.checkpoint_at > q.at
+           ORDER BY c.checkpoint_at LIMIT 1)
+          UNION ALL
+          SELECT coalesce(inv.updation_date, inv.creation_date), inv.available_quantity FROM inventory inv
+          WHERE inv.item_id = q.item_id AND inv.store_id = s.store_id) candidate(checkpoint_at, available_quantity)
+        WHERE candidate.checkpoint_at IS NOT NULL
+        ORDER BY abs(extract(EPOCH FROM candidate.checkpoint_at - q.at))
+        LIMIT 1) p
+      WHERE q.store_id IS NULL OR s.store_id = q.store_id
+      ORDER BY s.store_id""";
+
+  // Net ADD - REMOVE - SELL per store within (from, to]; rows without a store belong to the default store.
+  // A lateral aggregate per store keeps the time range in the index condition, also under a generic plan.
+  private static final String REPLAY_SQL = """
+      SELECT v.store_id, r.activities, r.delta
+      FROM unnest(?::bigint[], ?::timestamp[], ?::timestamp[]) AS v(store_id, from_at, to_at)
+      CROSS JOIN LATERAL (
+        SELECT count(*) AS activities,
+               coalesce(sum(CASE upper(a.activity_type) WHEN 'ADD' THEN 1 ELSE -1 END
+                   * CASE WHEN trim(a.activity_value) ~ '^[+-]?[0-9]+$' THEN trim(a.activity_value)::bigint ELSE 0 END), 0) AS delta
+        FROM inventory_activity a
+        WHERE a.item_id = ? AND a.activity_timestamp > v.from_at AND a.activity_timestamp <= v.to_at
+          AND coalesce(a.store_id, ?) = v.store_id AND upper(a.activity_type) IN ('ADD', 'REMOVE', 'SELL')) r""";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate readTransaction;
+  private final ActivityArchive activityArchive;
+  private final Long defaultStoreId;
+
+  public StockHistoryService(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      ActivityArchive activityArchive, @Value("${instore.store.default-id:1}") Long defaultStoreId) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.activityArchive = activityArchive;
+    // One snapshot for both queries, so a stock write in between cannot be counted twice
+    this.readTransaction = new TransactionTemplate(transactionManager);
+    this.readTransaction.setReadOnly(true);
+    this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    this.defaultStoreId = defaultStoreId;
+  }
+
+  private record Checkpoint(long storeId, LocalDateTime at, int availableQuantity) {
+  }
+
+  private record Replay(long activities, long delta) {
+  }
+
+  public ResponseEntity<StockAtTimeResponse> getStockAt(Long itemId, LocalDateTime at, Long storeId) {
+    if (itemId == null || at == null || at.isAfter(LocalDateTime.now())) {
+      return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+    }
+
+    List<StoreStockAtTime> stores;
+    try {
+      stores = readTransaction.execute(status -> stockAt(itemId, at, storeId));
+    } catch (ArchiveUnavailableException e) {
+      log.warn("Stock of item {} at {} needs archived activity: {}", itemId, at, e.getMessage());
+      return new ResponseEntity<>(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+    if (stores == null || stores.isEmpty()) {
+      return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    int totalQuantity = stores.stream().mapToInt(StoreStockAtTime::getAvailableQuantity).sum();
+
+    return new ResponseEntity<>(StockAtTimeResponse.builder()
+        .itemId(itemId)
+        .at(at)
+        .totalQuantity(totalQuantity)
+        .stores(stores)
+        .build(), HttpStatus.OK);
+  }
+
+  private List<StoreStockAtTime> stockAt(Long itemId, LocalDateTime at, Long storeId) {
+    List<Checkpoint> checkpoints = jdbcTemplate.query(NEAREST_CHECKPOINT_SQL,
+        (rs, rowNum) -> new Checkpoint(rs.getLong(1), rs.getTimestamp(2).toLocalDateTime(), rs.getInt(3)),
+        itemId, Timestamp.valueOf(at), storeId);
+    if (checkpoints.isEmpty()) {
+      return List.of();
+    }
+
+    Map<Long, Replay> replays = replay(itemId, at, checkpoints);
+    List<StoreStockAtTime> stores = new ArrayList<>(checkpoints.size());
+    for (Checkpoint checkpoint : checkpoints) {
+      Replay replay = replays.getOrDefault(checkpoint.storeId(), new Replay(0, 0));
+      long quantity = checkpoint.at().isAfter(at)
+          ? checkpoint.availableQuantity() - replay.delta()
+          : checkpoint.availableQuantity() + replay.delta();
+      stores.add(StoreStockAtTime.builder()
+          .storeId(checkpoint.storeId())
+          .availableQuantity(Math.toIntExact(quantity))
+          .checkpointAt(checkpoint.at())
+          .replayedActivities(replay.activities())
+          .build());
+    }
+    return stores;
+  }
+
+  private Map<Long, Replay> replay(Long itemId, LocalDateTime at, List<Checkpoint> checkpoints) {
+    Long[] storeIds = new Long[checkpoints.size()];
+    Timestamp[] from = new Timestamp[checkpoints.size()];
+    Timestamp[] to = new Timestamp[checkpoints.size()];
+    List<ReplayWindow> windows = new ArrayList<>(checkpoints.size());
+    for (int i = 0; i < checkpoints.size(); i++) {
+      Checkpoint checkpoint = checkpoints.get(i);
+      boolean later = checkpoint.at().isAfter(at);
+      storeIds[i] = checkpoint.storeId();
+      from[i] = Timestamp.valueOf(later ? at : checkpoint.at());
+      to[i] = Timestamp.valueOf(later ? checkpoint.at() : at);
+      windows.add(new ReplayWindow(checkpoint.storeId(), from[i].toLocalDateTime(), to[i].toLocalDateTime()));
+    }
+
+    Map<Long, Replay> replays = new HashMap<>();
+    jdbcTemplate.query(REPLAY_SQL, ps -> {
+      ps.setArray(1, ps.getConnection().createArrayOf("bigint", storeIds));
+      ps.setArray(2, ps.getConnection().createArrayOf("timestamp", from));
+      ps.setArray(3, ps.getConnection().createArrayOf("timestamp", to));
+      ps.setLong(4, itemId);
+      ps.setLong(5, defaultStoreId);
+    }, rs -> {
+      replays.put(rs.getLong(1), new Replay(rs.getLong(2), rs.getLong(3)));
+    });
+    activityArchive.replay(itemId, defaultStoreId, windows).forEach((storeId, archived) -> replays.merge(storeId,
+        new Replay(archived.activities(), archived.quantity()),
+        (live, old) -> new Replay(live.activities() + old.activities(), live.delta() + old.delta())));
+    return replays;
+  }
+}
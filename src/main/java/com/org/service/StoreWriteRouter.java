@@ -0,0 +1,234 @@
+package com.org.service;
+
+import com.org.repository.InventoryRepository;
+import com.org.utility.ExecutionLane;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Single-threaded lanes per store, one by default, so stores never wait on each other. With more than one, a
+// store's writes run side by side, each on the lane with the least work pending; the chunk and basket paths lock
+// their stock rows in item order, so lanes bound concurrency rather than keep items apart. Lanes exist only for
+// stores that hold stock, so a client-supplied store id cannot add threads. Each lane keeps interactive and bulk
+// work in separate queues and always takes interactive work first.
+@Component
+@Slf4j
+public class StoreWriteRouter {
+
+  private static final long BULK_POLL_MILLIS = 5;
+  // Remembered store ids without stock; past this the expired ones are dropped, or all of them
+  private static final int MAX_UNKNOWN_STORES = 10_000;
+
+  private final Map<Long, StoreLane[]> lanes = new ConcurrentHashMap<>();
+  // Store id to the System.nanoTime() until which it is answered as unknown without a lookup
+  private final Map<Long, Long> unknownUntil = new ConcurrentHashMap<>();
+  private final Long defaultStoreId;
+  private final long laneIdleSeconds;
+  private final int laneQueueCapacity;
+  private final int lanesPerStore;
+  private final long unknownStoreTtlNanos;
+  private final ExecutionLanes executionLanes;
+  private final InventoryRepository inventoryRepository;
+
+  public StoreWriteRouter(@Value("${instore.store.default-id:1}") Long defaultStoreId,
+      @Value("${instore.store.lane-idle-seconds:60}") long laneIdleSeconds,
+      @Value("${instore.store.lane-queue-capacity:50000}") int laneQueueCapacity,
+      @Value("${instore.store.lanes-per-store:1}") int lanesPerStore,
+      @Value("${instore.store.unknown-store-ttl:PT30S}") Duration unknownStoreTtl,
+      ExecutionLanes executionLanes, InventoryRepository inventoryRepository) {
+    this.defaultStoreId = defaultStoreId;
+    this.laneIdleSeconds = laneIdleSeconds;
+    this.laneQueueCapacity = laneQueueCapacity;
+    this.lanesPerStore = Math.max(1, lanesPerStore);
+    this.unknownStoreTtlNanos = unknownStoreTtl.toNanos();
+    this.executionLanes = executionLanes;
+    this.inventoryRepository = inventoryRepository;
+  }
+
+  public Long resolveStoreId(Long storeId) {
+    return storeId != null ? storeId : defaultStoreId;
+  }
+
+  // A store without a single stock row could only answer "not found". One with stock gets its lanes the first
+  // time it is seen, so it is looked up once per instance; one without is looked up again only after the TTL.
+  public boolean isKnownStore(Long storeId) {
+    return storeLanes(resolveStoreId(storeId)) != null;
+  }
+
+  // For the item-add path, once stock it created in the store has committed
+  public void registerStore(Long storeId) {
+    Long resolved = resolveStoreId(storeId);
+    unknownUntil.remove(resolved);
+    lanes.computeIfAbsent(resolved, this::createLanes);
+  }
+
+  // A full lane or an unknown store fails the returned future instead of throwing, so callers can fail just that line
+  public <T> CompletableFuture<T> submit(Long storeId, ExecutionLane lane, Supplier<T> task) {
+    CompletableFuture<T> future = enqueue(storeId, lane, task);
+    return future != null ? future : CompletableFuture.failedFuture(new RejectedExecutionException("Store lane is full"));
+  }
+
+  // For per-line hot paths: a rejected task completes with the fallback value, with no exception or extra stage
+  public <T> CompletableFuture<T> submit(Long storeId, ExecutionLane lane, Supplier<T> task, Supplier<T> whenRejected) {
+    CompletableFuture<T> future = enqueue(storeId, lane, task);
+    return future != null ? future : CompletableFuture.completedFuture(whenRejected.get());
+  }
+
+  private <T> CompletableFuture<T> enqueue(Long storeId, ExecutionLane lane, Supplier<T> task) {
+    StoreLane[] storeLanes = storeLanes(resolveStoreId(storeId));
+    if (storeLanes == null) {
+      return null;
+    }
+    StoreLane storeLane = leastPending(storeLanes);
+    CompletableFuture<T> future = new CompletableFuture<>();
+    long enqueuedAt = executionLanes.enqueued(lane);
+    LaneTask laneTask = new LaneTask(enqueuedAt, () -> {
+      try {
+        future.complete(task.get());
+      } catch (Throwable e) {
+        future.completeExceptionally(e);
+      } finally {
+        storeLane.pending.decrementAndGet();
+      }
+    });
+
+    storeLane.pending.incrementAndGet();
+    if (!storeLane.queue(lane).offer(laneTask)) {
+      storeLane.pending.decrementAndGet();
+      executionLanes.dropped(lane);
+      return null;
+    }
+    try {
+      // One drain token per queued task; the token runs whichever task has priority at that moment
+      storeLane.worker.execute(storeLane::runNext);
+    } catch (RejectedExecutionException e) {
+      if (storeLane.queue(lane).remove(laneTask)) {
+        storeLane.pending.decrementAndGet();
+        executionLanes.dropped(lane);
+      }
+      return null;
+    }
+    return future;
+  }
+
+  private StoreLane[] storeLanes(Long storeId) {
+    StoreLane[] storeLanes = lanes.get(storeId);
+    if (storeLanes != null) {
+      return storeLanes;
+    }
+    long now = System.nanoTime();
+    Long until = unknownUntil.get(storeId);
+    if (until != null && now - until < 0) {
+      return null;
+    }
+    if (inventoryRepository.existsByStoreId(storeId)) {
+      unknownUntil.remove(storeId);
+      return lanes.computeIfAbsent(storeId, this::createLanes);
+    }
+    if (unknownUntil.size() >= MAX_UNKNOWN_STORES) {
+      unknownUntil.values().removeIf(expiry -> now - expiry >= 0);
+      if (unknownUntil.size() >= MAX_UNKNOWN_STORES) {
+        unknownUntil.clear();
+      }
+    }
+    unknownUntil.put(storeId, now + unknownStoreTtlNanos);
+    return null;
+  }
+
+  private static StoreLane leastPending(StoreLane[] storeLanes) {
+    StoreLane least = storeLanes[0];
+    for (int i = 1; i < storeLanes.length && least.pending.get() > 0; i++) {
+      if (storeLanes[i].pending.get() < least.pending.get()) {
+        least = storeLanes[i];
+      }
+    }
+    return least;
+  }
+
+  // Threads start on first use and stop after the idle timeout; only the queues stay
+  private StoreLane[] createLanes(Long storeId) {
+    StoreLane[] storeLanes = new StoreLane[lanesPerStore];
+    for (int i = 0; i < lanesPerStore; i++) {
+      String name = "store-lane-" + storeId + "-" + i;
+      ThreadPoolExecutor worker = new ThreadPoolExecutor(1, 1, laneIdleSeconds, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+          });
+      worker.allowCoreThreadTimeOut(true);
+      storeLanes[i] = new StoreLane(worker, new LinkedBlockingQueue<>(laneQueueCapacity), new LinkedBlockingQueue<>(laneQueueCapacity));
+    }
+    log.debug("Created {} write lanes for store: {}", lanesPerStore, storeId);
+    return storeLanes;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    lanes.values().forEach(storeLanes -> {
+      for (StoreLane lane : storeLanes) {
+        lane.worker.shutdown();
+      }
+    });
+  }
+
+  private record LaneTask(long enqueuedAt, Runnable body) {
+  }
+
+  private class StoreLane {
+
+    private final ThreadPoolExecutor worker;
+    // Tasks queued or running on this lane
+    private final AtomicInteger pending = new AtomicInteger();
+    private final BlockingQueue<LaneTask> interactive;
+    private final BlockingQueue<LaneTask> bulk;
+
+    private StoreLane(ThreadPoolExecutor worker, BlockingQueue<LaneTask> interactive, BlockingQueue<LaneTask> bulk) {
+      this.worker = worker;
+      this.interactive = interactive;
+      this.bulk = bulk;
+    }
+
+    private BlockingQueue<LaneTask> queue(ExecutionLane lane) {
+      return lane == ExecutionLane.INTERACTIVE ? interactive : bulk;
+    }
+
+    // Bulk work waits for a bulk connection in short slices so a sale arriving meanwhile overtakes it
+    private void runNext() {
+      while (!Thread.currentThread().isInterrupted()) {
+        LaneTask task = interactive.poll();
+        if (task != null) {
+          executionLanes.run(ExecutionLane.INTERACTIVE, task.enqueuedAt(), () -> {
+            task.body().run();
+            return null;
+          });
+          return;
+        }
+        LaneTask head = bulk.peek();
+        if (head == null) {
+          return;
+        }
+        if (executionLanes.tryStart(ExecutionLane.BULK, head.enqueuedAt(), BULK_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+          try {
+            bulk.remove().body().run();
+          } finally {
+            executionLanes.finished(ExecutionLane.BULK);
+          }
+          return;
+        }
+      }
+    }
+  }
+}
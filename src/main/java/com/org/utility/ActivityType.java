@@ -0,0 +1,6 @@
+package com.org.utility;
+
+public enum ActivityType {
+  BULK_REPRICE,
+  BASKET_SALE
+}
@@ -0,0 +1,16 @@
+package com.org.utility;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum AdmissionEndpoint {
+  ITEM_ADD("item-add", 10_000),
+  ITEM_UPDATE("item-update", 20_000),
+  INVENTORY_UPDATE("inventory-update", 20_000),
+  RECORD_SALES("record-sales", 20_000);
+
+  private final String key;
+  private final int defaultMaxLines;
+}
@@ -0,0 +1,72 @@
+package com.org.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Set of long keys with no false negatives and a bounded false-positive rate. Bits are set atomically, so
+// puts and lookups may run concurrently; a lookup racing a put of the same key may still miss it.
+public class BloomFilter {
+
+  private final AtomicLongArray words;
+  private final long bits;
+  private final int hashFunctions;
+  private final AtomicLong insertions = new AtomicLong();
+
+  // Sized for the expected keys at the target rate: m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hashes
+  public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    long n = Math.max(1, expectedInsertions);
+    long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int wordCount = Math.toIntExact(Math.max(1, (m + 63) / 64));
+    this.words = new AtomicLongArray(wordCount);
+    this.bits = wordCount * 64L;
+    this.hashFunctions = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+  }
+
+  public void put(long key) {
+    long h1 = mix(key);
+    long h2 = mix(h1) | 1;
+    for (int i = 0; i < hashFunctions; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bits);
+      long mask = 1L << bit;
+      int word = (int) (bit >>> 6);
+      long current = words.get(word);
+      while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+        current = words.get(word);
+      }
+    }
+    insertions.incrementAndGet();
+  }
+
+  public boolean mightContain(long key) {
+    long h1 = mix(key);
+    long h2 = mix(h1) | 1;
+    for (int i = 0; i < hashFunctions; i++) {
+      long bit = Math.floorMod(h1 + i * h2, bits);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public long sizeInBytes() {
+    return words.length() * 8L;
+  }
+
+  public long insertions() {
+    return insertions.get();
+  }
+
+  // (1 - e^(-k n / m))^k for the keys put so far
+  public double expectedFalsePositiveRate() {
+    return Math.pow(1 - Math.exp(-hashFunctions * (double) insertions.get() / bits), hashFunctions);
+  }
+
+  // Final step of SplitMix64; sequential ids come out spread over all 64 bits
+  private static long mix(long key) {
+    long z = key + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,18 @@
+package com.org.utility;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Batch writes whose chunk size (and, where chunks may run side by side, parallelism) adapts at runtime
+@Getter
+@AllArgsConstructor
+public enum ChunkedWrite {
+  ITEM_ADD("item-add", 100, 1_000, 5_000, 4),
+  INVENTORY_UPDATE("inventory-update", 50, 500, 2_000, 1);
+
+  private final String key;
+  private final int defaultMinSize;
+  private final int defaultInitialSize;
+  private final int defaultMaxSize;
+  private final int defaultMaxParallelism;
+}
@@ -0,0 +1,13 @@
+package com.org.utility;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ExecutionLane {
+  INTERACTIVE("interactive"),
+  BULK("bulk");
+
+  private final String key;
+}
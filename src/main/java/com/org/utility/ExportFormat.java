@@ -0,0 +1,6 @@
+package com.org.utility;
+
+public enum ExportFormat {
+  CSV,
+  NDJSON
+}
@@ -0,0 +1,20 @@
+package com.org.utility;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Result of one inventory line, decided without exceptions; the message is what the caller sees
+@Getter
+@AllArgsConstructor
+public enum LineOutcome {
+  SUCCESS("success", null),
+  INVALID_OPERATION("invalid-operation", "Invalid operation type"),
+  MISSING_QUANTITY("missing-quantity", "Quantity is required"),
+  ITEM_NOT_FOUND("item-not-found", "Item not found"),
+  INSUFFICIENT_STOCK("insufficient-stock", "Insufficient stock"),
+  STORE_BUSY("store-busy", "Store is busy, retry later"),
+  ERROR("error", "Inventory update failed");
+
+  private final String key;
+  private final String message;
+}
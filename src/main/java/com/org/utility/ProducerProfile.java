@@ -0,0 +1,16 @@
+package com.org.utility;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ProducerProfile {
+  LATENCY(0, 16_384, "none"),
+  BALANCED(5, 65_536, "lz4"),
+  THROUGHPUT(20, 262_144, "zstd");
+
+  private final int lingerMs;
+  private final int batchSize;
+  private final String compressionType;
+}
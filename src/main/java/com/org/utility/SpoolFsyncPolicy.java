@@ -0,0 +1,7 @@
+package com.org.utility;
+
+public enum SpoolFsyncPolicy {
+  EVERY_WRITE,
+  INTERVAL,
+  NONE
+}
@@ -4,5 +4,20 @@ public enum StockOperationType {
   ADD,
   REMOVE,
   SELL,
-  MODIFY
+  MODIFY;
+
+  private static final StockOperationType[] VALUES = values();
+
+  // Case-insensitive lookup that returns null for unknown input instead of throwing like valueOf
+  public static StockOperationType parse(String operation) {
+    if (operation == null) {
+      return null;
+    }
+    for (StockOperationType type : VALUES) {
+      if (type.name().equalsIgnoreCase(operation)) {
+        return type;
+      }
+    }
+    return null;
+  }
 }
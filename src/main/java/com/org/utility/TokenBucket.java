@@ -0,0 +1,37 @@
+package com.org.utility;
+
+public class TokenBucket {
+
+  private final double capacity;
+  private final double refillPerNano;
+  private double tokens;
+  private long lastRefill;
+
+  public TokenBucket(double capacity, double refillPerSecond) {
+    this.capacity = capacity;
+    this.refillPerNano = refillPerSecond / 1_000_000_000d;
+    this.tokens = capacity;
+    this.lastRefill = System.nanoTime();
+  }
+
+  // Returns 0 when the tokens were taken, otherwise the nanos until enough tokens will be available
+  public synchronized long tryConsume(int amount) {
+    refill();
+    if (tokens >= amount) {
+      tokens -= amount;
+      return 0;
+    }
+    return (long) Math.ceil((amount - tokens) / refillPerNano);
+  }
+
+  public synchronized boolean isFull() {
+    refill();
+    return tokens >= capacity;
+  }
+
+  private void refill() {
+    long now = System.nanoTime();
+    tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+    lastRefill = now;
+  }
+}
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS ix_inventory_activity_item ON inventory_activity (item_id);
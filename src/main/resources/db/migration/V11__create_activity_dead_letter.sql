@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS activity_dead_letter
+(
+    dead_letter_id   BIGSERIAL PRIMARY KEY,
+    payload          TEXT      NOT NULL,
+    error            TEXT,
+    source_topic     VARCHAR(255),
+    source_partition INTEGER,
+    source_offset    BIGINT,
+    failed_at        TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    replayed_at      TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS ix_activity_dead_letter_pending ON activity_dead_letter (dead_letter_id) WHERE replayed_at IS NULL;
@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS stock_checkpoint
+(
+    item_id            BIGINT    NOT NULL,
+    store_id           BIGINT    NOT NULL,
+    checkpoint_at      TIMESTAMP NOT NULL,
+    available_quantity INTEGER   NOT NULL,
+    PRIMARY KEY (item_id, store_id, checkpoint_at)
+);
+
+-- Stock-at-time queries replay one item's activity between a checkpoint and the requested time
+CREATE INDEX IF NOT EXISTS ix_inventory_activity_item_time ON inventory_activity (item_id, activity_timestamp);
+DROP INDEX IF EXISTS ix_inventory_activity_item;
@@ -0,0 +1,30 @@
+-- Archive files holding activity moved out of inventory_activity, one per item range and month per run.
+-- Written in the same transaction that deletes the rows, so the catalog and the table never overlap.
+CREATE TABLE IF NOT EXISTS activity_archive_file
+(
+    file_name       VARCHAR(255) PRIMARY KEY,
+    item_from       BIGINT    NOT NULL,
+    item_to         BIGINT    NOT NULL,
+    month_start     TIMESTAMP NOT NULL,
+    month_end       TIMESTAMP NOT NULL,
+    row_count       BIGINT    NOT NULL,
+    file_bytes      BIGINT    NOT NULL,
+    min_activity_id BIGINT    NOT NULL,
+    max_activity_id BIGINT    NOT NULL,
+    archived_at     TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS ix_activity_archive_file_items ON activity_archive_file (item_from, item_to);
+
+-- Net ADD - REMOVE - SELL of the archived activity per item and store, so reconciliation still balances
+CREATE TABLE IF NOT EXISTS activity_archive_balance
+(
+    item_id      BIGINT NOT NULL,
+    store_id     BIGINT NOT NULL,
+    activities   BIGINT NOT NULL,
+    net_quantity BIGINT NOT NULL,
+    PRIMARY KEY (item_id, store_id)
+);
+
+-- The archiver finds the oldest month and walks it by item range
+CREATE INDEX IF NOT EXISTS ix_inventory_activity_time ON inventory_activity (activity_timestamp);
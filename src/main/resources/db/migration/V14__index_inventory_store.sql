@@ -0,0 +1,2 @@
+-- Store lanes look a store up before creating its lanes; (item_id, store_id) cannot serve that
+CREATE INDEX IF NOT EXISTS ix_inventory_store ON inventory (store_id);
@@ -0,0 +1,5 @@
+ALTER TABLE inventory ADD COLUMN IF NOT EXISTS store_id BIGINT NOT NULL DEFAULT 1;
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_inventory_item_store ON inventory (item_id, store_id);
+
+ALTER TABLE inventory_activity ADD COLUMN IF NOT EXISTS store_id BIGINT;
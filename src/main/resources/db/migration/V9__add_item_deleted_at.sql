@@ -0,0 +1,5 @@
+ALTER TABLE item ADD COLUMN IF NOT EXISTS deleted_at TIMESTAMP;
+
+UPDATE item SET deleted_at = updation_date WHERE is_deleted = true AND deleted_at IS NULL;
+
+CREATE INDEX IF NOT EXISTS ix_item_deleted_at ON item (deleted_at) WHERE is_deleted = true;
@@ -0,0 +1,81 @@
+package com.org.reactive;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.kafka.KafkaProducerConfig;
+import com.org.model.InventoryActivityEvent;
+import com.org.utility.ProducerProfile;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.SenderRecord;
+
+// Non-blocking counterpart of KafkaProducer: same topic, same producer profiles, bounded in-flight sends.
+// Like the servlet path, a failed publish is counted and logged but never fails the stock write.
+@Component
+@Slf4j
+public class ReactiveActivityPublisher {
+
+  private static final String TOPIC = "activity";
+
+  private final KafkaSender<String, String> kafkaSender;
+  private final ObjectMapper objectMapper;
+  private final Counter acked;
+  private final Counter failed;
+
+  public ReactiveActivityPublisher(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+      @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+      @Value("${instore.kafka.producer.profile:balanced}") String profile,
+      @Value("${instore.kafka.producer.max-block:PT0.5S}") Duration maxBlock,
+      @Value("${instore.kafka.producer.max-in-flight:10000}") int maxInFlight) {
+    this.objectMapper = objectMapper;
+    this.kafkaSender = KafkaSender.create(SenderOptions.<String, String>create(KafkaProducerConfig.producerProperties(
+            ProducerProfile.valueOf(profile.toUpperCase()), maxBlock, Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class)))
+        .maxInFlight(maxInFlight)
+        .stopOnError(false));
+    this.acked = meterRegistry.counter("instore.kafka.send", "result", "acked");
+    this.failed = meterRegistry.counter("instore.kafka.send", "result", "failed");
+  }
+
+  public void publish(InventoryActivityEvent event) {
+    String message;
+    try {
+      message = objectMapper.writeValueAsString(event);
+    } catch (JsonProcessingException e) {
+      log.error("Cannot serialize activity event for item {}: {}", event.getItemId(), e.getMessage());
+      return;
+    }
+    kafkaSender.send(Mono.just(SenderRecord.create(new ProducerRecord<>(TOPIC, UUID.randomUUID().toString(), message), event.getItemId())))
+        .subscribe(result -> {
+          if (result.exception() == null) {
+            acked.increment();
+          } else {
+            failed.increment();
+            log.warn("Activity event for item {} not delivered: {}", result.correlationMetadata(), result.exception().getMessage());
+          }
+        }, e -> {
+          failed.increment();
+          log.warn("Activity event publish failed: {}", e.getMessage());
+        });
+  }
+
+  @PreDestroy
+  public void close() {
+    kafkaSender.close();
+  }
+}
@@ -0,0 +1,23 @@
+package com.org.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.flyway.FlywayAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.kafka.KafkaAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+// Reactive entry point for the inventory write endpoints. It shares the DTOs and the schema (owned by the
+// servlet application's Flyway migrations) but none of the JPA services, so the blocking stack is left out.
+@SpringBootApplication(exclude = {DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+    FlywayAutoConfiguration.class, KafkaAutoConfiguration.class})
+public class ReactiveInStoreApplication {
+
+  public static void main(String[] args) {
+    new SpringApplicationBuilder(ReactiveInStoreApplication.class)
+        .web(WebApplicationType.REACTIVE)
+        .profiles("reactive")
+        .run(args);
+  }
+}
@@ -0,0 +1,30 @@
+package com.org.reactive;
+
+import com.org.model.InventoryRequest;
+import com.org.model.InventoryResponse;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+@RestController
+@RequestMapping("inventory")
+@AllArgsConstructor
+public class ReactiveInventoryController {
+
+  private final ReactiveInventoryService reactiveInventoryService;
+
+  @PutMapping("update")
+  public Mono<ResponseEntity<List<InventoryResponse>>> updateInventory(@RequestBody List<InventoryRequest> request) {
+    return reactiveInventoryService.updateInventory(request);
+  }
+
+  @PutMapping("recordSales")
+  public Mono<ResponseEntity<List<InventoryResponse>>> recordSales(@RequestBody List<InventoryRequest> request) {
+    return reactiveInventoryService.recordSales(request);
+  }
+}
@@ -0,0 +1,172 @@
+package com.org.reactive;
+
+import com.org.model.InventoryActivityEvent;
+import com.org.model.InventoryRequest;
+import com.org.model.InventoryResponse;
+import com.org.utility.ResponseStatus;
+import com.org.utility.StockOperationType;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Same contract as InventoryService.updateInventory/recordSales. Each line is one conditional UPDATE, so
+// there is no read-modify-write to serialize and lines run concurrently without per-store lanes.
+@Service
+@Slf4j
+public class ReactiveInventoryService {
+
+  private static final String ADJUST_STOCK = """
+      UPDATE inventory inv
+      SET available_quantity = inv.available_quantity + :delta, updation_date = LOCALTIMESTAMP
+      FROM item i
+      WHERE inv.store_id = :storeId AND inv.item_id = :itemId
+        AND i.item_id = inv.item_id AND i.is_deleted = false
+      RETURNING inv.updation_date, i.item_name
+      """;
+  private static final String SELL_STOCK = """
+      UPDATE inventory inv
+      SET available_quantity = inv.available_quantity - :quantity, updation_date = LOCALTIMESTAMP
+      FROM item i
+      WHERE inv.store_id = :storeId AND inv.item_id = :itemId
+        AND i.item_id = inv.item_id AND i.is_deleted = false
+        AND inv.available_quantity >= :quantity
+      RETURNING inv.updation_date, i.item_name
+      """;
+  private static final String STOCK_EXISTS = """
+      SELECT 1 FROM inventory inv JOIN item i ON i.item_id = inv.item_id
+      WHERE inv.store_id = :storeId AND inv.item_id = :itemId AND i.is_deleted = false
+      """;
+
+  private final DatabaseClient databaseClient;
+  private final ReactiveActivityPublisher activityPublisher;
+  private final Long defaultStoreId;
+  private final int lineConcurrency;
+
+  public ReactiveInventoryService(DatabaseClient databaseClient, ReactiveActivityPublisher activityPublisher,
+      @Value("${instore.store.default-id:1}") Long defaultStoreId,
+      @Value("${instore.reactive.line-concurrency:16}") int lineConcurrency) {
+    this.databaseClient = databaseClient;
+    this.activityPublisher = activityPublisher;
+    this.defaultStoreId = defaultStoreId;
+    this.lineConcurrency = lineConcurrency;
+  }
+
+  public Mono<ResponseEntity<List<InventoryResponse>>> updateInventory(List<InventoryRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+    }
+    return collect(Flux.fromIterable(requests)
+        .flatMapSequential(this::processUpdate, lineConcurrency));
+  }
+
+  public Mono<ResponseEntity<List<InventoryResponse>>> recordSales(List<InventoryRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      return Mono.just(new ResponseEntity<>(HttpStatus.BAD_REQUEST));
+    }
+    return collect(Flux.fromIterable(requests)
+        .filter(request -> StockOperationType.SELL.equals(StockOperationType.valueOf(request.getOperationType())))
+        .flatMapSequential(this::processSale, lineConcurrency));
+  }
+
+  private Mono<InventoryResponse> processUpdate(InventoryRequest request) {
+    return Mono.defer(() -> adjustStock(request, request.getOperationType()))
+        .onErrorResume(e -> failed(request, e));
+  }
+
+  private Mono<InventoryResponse> adjustStock(InventoryRequest request, String operation) {
+    int delta = switch (StockOperationType.valueOf(operation.toUpperCase())) {
+      case ADD -> request.getQuantity();
+      case REMOVE -> -request.getQuantity();
+      default -> 0;
+    };
+    return databaseClient.sql(ADJUST_STOCK)
+        .bind("delta", delta)
+        .bind("storeId", resolveStoreId(request))
+        .bind("itemId", request.getItemId())
+        .map((row, metadata) -> activityEvent(operation, request, row.get("updation_date", LocalDateTime.class),
+            row.get("item_name", String.class)))
+        .one()
+        .map(this::publishAndSucceed)
+        .defaultIfEmpty(buildInventoryResponse(request, ResponseStatus.FAILED, "Item not found"));
+  }
+
+  private Mono<InventoryResponse> processSale(InventoryRequest request) {
+    return Mono.defer(() -> sellStock(request))
+        .onErrorResume(e -> failed(request, e));
+  }
+
+  private Mono<InventoryResponse> sellStock(InventoryRequest request) {
+    return databaseClient.sql(SELL_STOCK)
+        .bind("quantity", request.getQuantity())
+        .bind("storeId", resolveStoreId(request))
+        .bind("itemId", request.getItemId())
+        .map((row, metadata) -> activityEvent(StockOperationType.SELL.name(), request,
+            row.get("updation_date", LocalDateTime.class), row.get("item_name", String.class)))
+        .one()
+        .map(this::publishAndSucceed)
+        // Nothing updated: tell a missing item apart from a short one
+        .switchIfEmpty(Mono.defer(() -> databaseClient.sql(STOCK_EXISTS)
+            .bind("storeId", resolveStoreId(request))
+            .bind("itemId", request.getItemId())
+            .fetch()
+            .first()
+            .map(row -> buildInventoryResponse(null, ResponseStatus.FAILED, "Insufficient stock"))
+            .defaultIfEmpty(buildInventoryResponse(request, ResponseStatus.FAILED, "Item not found"))));
+  }
+
+  private Mono<ResponseEntity<List<InventoryResponse>>> collect(Flux<InventoryResponse> responses) {
+    return responses.collectList()
+        .map(list -> {
+          HttpStatus status = list.stream().allMatch(response -> response.getStatus() == ResponseStatus.SUCCESS)
+              ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT;
+          return new ResponseEntity<>(list, status);
+        })
+        .onErrorResume(e -> {
+          log.error("Error handling inventory responses: {}", e.getMessage());
+          return Mono.just(new ResponseEntity<>(HttpStatus.INTERNAL_SERVER_ERROR));
+        });
+  }
+
+  private InventoryResponse publishAndSucceed(InventoryActivityEvent event) {
+    activityPublisher.publish(event);
+    return buildInventoryResponse(null, ResponseStatus.SUCCESS, null);
+  }
+
+  private Mono<InventoryResponse> failed(InventoryRequest request, Throwable e) {
+    log.error("Error processing inventory line for item: {}, error: {}", request.getItemId(), e.getMessage());
+    return Mono.just(buildInventoryResponse(request, ResponseStatus.FAILED, e.getMessage()));
+  }
+
+  private Long resolveStoreId(InventoryRequest request) {
+    return request.getStoreId() != null ? request.getStoreId() : defaultStoreId;
+  }
+
+  private InventoryActivityEvent activityEvent(String operation, InventoryRequest request, LocalDateTime time, String itemName) {
+    return InventoryActivityEvent.builder()
+        .activityType(operation)
+        .activityValue(request.getQuantity().toString())
+        .activityTimeStamp(time.toInstant(ZoneOffset.UTC))
+        .itemId(request.getItemId())
+        .itemName(itemName)
+        .storeId(resolveStoreId(request))
+        .build();
+  }
+
+  private InventoryResponse buildInventoryResponse(InventoryRequest request, ResponseStatus status, String message) {
+    return InventoryResponse.builder()
+        .itemId(request != null ? request.getItemId() : null)
+        .quantity(request != null ? request.getQuantity() : null)
+        .storeId(request != null ? request.getStoreId() : null)
+        .status(status)
+        .message(message)
+        .build();
+  }
+}
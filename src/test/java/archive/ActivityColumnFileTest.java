@@ -0,0 +1,97 @@
+package archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.org.archive.ActivityColumnReader;
+import com.org.archive.ActivityColumnWriter;
+import com.org.model.ArchivedActivity;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ActivityColumnFileTest {
+
+  private static final LocalDateTime START = LocalDateTime.of(2023, 3, 1, 8, 0, 0, 123_456_000);
+
+  @TempDir
+  Path directory;
+
+  // Items 1..10, five rows each a minute apart, in groups of four rows
+  private Path writeFile(List<ArchivedActivity> rows) throws IOException {
+    Path path = directory.resolve("activity.iac");
+    try (ActivityColumnWriter writer = new ActivityColumnWriter(path, 4)) {
+      long activityId = 1_000;
+      for (long itemId = 1; itemId <= 10; itemId++) {
+        for (int i = 0; i < 5; i++) {
+          ArchivedActivity row = ArchivedActivity.builder()
+              .activityId(activityId++)
+              .itemId(itemId)
+              .storeId(i == 4 ? null : itemId % 3)
+              .activityType(i % 2 == 0 ? "ADD" : "sell")
+              .activityValue(i == 3 ? "n/a" : String.valueOf(i + 1))
+              .message(i == 0 ? null : "line " + i)
+              .itemName("item-" + itemId)
+              .activityTimestamp(START.plusMinutes(i))
+              .creationTimestamp(i == 2 ? null : START.plusMinutes(i).plusSeconds(3))
+              .build();
+          writer.write(row);
+          rows.add(row);
+        }
+      }
+      writer.finish();
+    }
+    return path;
+  }
+
+  @Test
+  void read_ShouldReturnRowsAsWritten_ForOneItemAndTimeRange() throws IOException {
+    List<ArchivedActivity> written = new ArrayList<>();
+    ActivityColumnReader reader = ActivityColumnReader.open(writeFile(written));
+
+    List<ArchivedActivity> rows = new ArrayList<>();
+    long decoded = reader.read(7L, START.plusMinutes(1), START.plusMinutes(4), rows::add);
+
+    assertEquals(50, reader.rows());
+    assertEquals(written.subList(31, 35).stream().peek(row -> row.setArchived(true)).toList(), rows);
+    assertNull(rows.get(3).getStoreId());
+    assertNull(rows.get(1).getCreationTimestamp());
+    // Only the groups holding item 7 were inflated
+    assertTrue(decoded <= 8, "decoded " + decoded);
+  }
+
+  @Test
+  void scan_ShouldGroupByUpperCasedTypeAndParseValuesOnce_AcrossAllItems() throws IOException {
+    ActivityColumnReader reader = ActivityColumnReader.open(writeFile(new ArrayList<>()));
+
+    Map<String, long[]> totals = new HashMap<>();
+    long decoded = reader.scan(null, START, START.plusMinutes(10), (itemId, storeId, activityType, quantity, timeMicros) -> {
+      long[] total = totals.computeIfAbsent(activityType, key -> new long[2]);
+      total[0]++;
+      total[1] += quantity == ActivityColumnReader.NOT_A_QUANTITY ? 0 : quantity;
+    });
+
+    assertEquals(50, decoded);
+    // Per item: ADD 1, 3, 5 and SELL 2, n/a
+    assertEquals(30, totals.get("ADD")[0]);
+    assertEquals(90, totals.get("ADD")[1]);
+    assertEquals(20, totals.get("SELL")[0]);
+    assertEquals(20, totals.get("SELL")[1]);
+  }
+
+  @Test
+  void open_ShouldRejectFilesThatAreNotArchives() throws IOException {
+    Path path = Files.write(directory.resolve("other.iac"), new byte[64]);
+
+    assertThrows(IllegalStateException.class, () -> ActivityColumnReader.open(path));
+  }
+}
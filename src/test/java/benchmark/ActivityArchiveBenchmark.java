@@ -0,0 +1,203 @@
+package benchmark;
+
+import com.org.archive.ActivityColumnReader;
+import com.org.archive.ActivityColumnWriter;
+import com.org.model.ArchivedActivity;
+import com.zaxxer.hikari.HikariDataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// One month of activity for 20,000 items (2,000,000 rows of random sales, restocks, removals and reprices) in a
+// copy of inventory_activity with the same indexes, against the same rows in archive files of 10,000 items
+// each. Reported: bytes on disk, per-type totals over every row, and the month's history of single items.
+// Scans are warm (best of five) on both sides, so they compare the formats, not the disks. Group size can be
+// varied with -Dbenchmark.group-rows.
+// Run with: mvn test -Dtest=ActivityArchiveBenchmark -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5433/instore_db
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+class ActivityArchiveBenchmark {
+
+  private static final String TABLE = "activity_archive_bench";
+  private static final int ITEMS = 20_000;
+  private static final int ROWS = Integer.getInteger("benchmark.rows", 2_000_000);
+  private static final int ITEMS_PER_FILE = 10_000;
+  private static final int GROUP_ROWS = Integer.getInteger("benchmark.group-rows", ActivityColumnWriter.DEFAULT_GROUP_ROWS);
+  private static final int HISTORY_QUERIES = 200;
+  private static final LocalDateTime MONTH = LocalDateTime.of(2023, 5, 1, 0, 0);
+
+  private static final String TOTALS_SQL = """
+      SELECT upper(activity_type), count(*),
+             coalesce(sum(CASE WHEN trim(activity_value) ~ '^[+-]?[0-9]+$' THEN trim(activity_value)::bigint ELSE 0 END), 0)
+      FROM activity_archive_bench GROUP BY 1""";
+
+  private static final String HISTORY_SQL = """
+      SELECT activity_id, item_id, store_id, activity_type, activity_value, message, item_name,
+             activity_timestamp, creation_timestamp
+      FROM activity_archive_bench
+      WHERE item_id = ? AND activity_timestamp BETWEEN ? AND ?
+      ORDER BY activity_timestamp, activity_id""";
+
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void archiveAgainstTable() throws IOException {
+    Path directory = Files.createTempDirectory("activity-archive-bench");
+    try (HikariDataSource dataSource = new HikariDataSource()) {
+      dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url"));
+      dataSource.setUsername(System.getProperty("benchmark.jdbc.user", "admin"));
+      dataSource.setPassword(System.getProperty("benchmark.jdbc.password", "root"));
+      jdbcTemplate = new JdbcTemplate(dataSource);
+      try {
+        seed();
+        long heapBytes = jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class, TABLE);
+        long totalBytes = jdbcTemplate.queryForObject("SELECT pg_total_relation_size(?::regclass)", Long.class, TABLE);
+
+        long start = System.nanoTime();
+        List<ActivityColumnReader> readers = write(directory, new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        double writeSeconds = (System.nanoTime() - start) / 1e9;
+        long archiveBytes = readers.stream().mapToLong(ActivityColumnReader::sizeInBytes).sum();
+        System.out.printf("rows=%d table=%.1fMB table+indexes=%.1fMB archive=%.1fMB ratio=%.1fx (%.1fx with indexes) bytes/row=%.1f write=%.1fs%n",
+            ROWS, heapBytes / 1e6, totalBytes / 1e6, archiveBytes / 1e6, (double) heapBytes / archiveBytes,
+            (double) totalBytes / archiveBytes, (double) archiveBytes / ROWS, writeSeconds);
+
+        totals(readers);
+        histories(readers);
+      } finally {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        try (var files = Files.list(directory)) {
+          files.forEach(path -> path.toFile().delete());
+        }
+        Files.deleteIfExists(directory);
+      }
+    }
+  }
+
+  private void totals(List<ActivityColumnReader> readers) {
+    double tableMillis = best(() -> jdbcTemplate.query(TOTALS_SQL, rs -> {
+    }));
+    double archiveMillis = best(() -> {
+      Map<String, long[]> totals = new HashMap<>();
+      for (ActivityColumnReader reader : readers) {
+        reader.scan(null, MONTH, MONTH.plusMonths(1), (itemId, storeId, activityType, quantity, timeMicros) -> {
+          long[] total = totals.computeIfAbsent(activityType, key -> new long[2]);
+          total[0]++;
+          total[1] += quantity == ActivityColumnReader.NOT_A_QUANTITY ? 0 : quantity;
+        });
+      }
+    });
+    System.out.printf("query=totals  table=%.0fms (%.1fM rows/s) archive=%.0fms (%.1fM rows/s)%n",
+        tableMillis, ROWS / tableMillis / 1e3, archiveMillis, ROWS / archiveMillis / 1e3);
+  }
+
+  private void histories(List<ActivityColumnReader> readers) {
+    long[] itemIds = ThreadLocalRandom.current().longs(HISTORY_QUERIES, 1, ITEMS + 1).toArray();
+    Timestamp from = Timestamp.valueOf(MONTH);
+    Timestamp to = Timestamp.valueOf(MONTH.plusMonths(1));
+    long[] rows = new long[2];
+    double tableMillis = best(() -> {
+      rows[0] = 0;
+      for (long itemId : itemIds) {
+        rows[0] += jdbcTemplate.query(HISTORY_SQL, (rs, rowNum) -> rs.getLong(1), itemId, from, to).size();
+      }
+    });
+    double archiveMillis = best(() -> {
+      rows[1] = 0;
+      for (long itemId : itemIds) {
+        ActivityColumnReader reader = readers.get((int) ((itemId - 1) / ITEMS_PER_FILE));
+        List<ArchivedActivity> history = new ArrayList<>();
+        reader.read(itemId, MONTH, MONTH.plusMonths(1), history::add);
+        rows[1] += history.size();
+      }
+    });
+    System.out.printf("query=history items=%d rows=%d/%d table=%.2fms/item archive=%.2fms/item%n",
+        HISTORY_QUERIES, rows[0], rows[1], tableMillis / HISTORY_QUERIES, archiveMillis / HISTORY_QUERIES);
+  }
+
+  private double best(Runnable run) {
+    double best = Double.MAX_VALUE;
+    for (int round = 0; round < 5; round++) {
+      long start = System.nanoTime();
+      run.run();
+      best = Math.min(best, (System.nanoTime() - start) / 1e6);
+    }
+    return best;
+  }
+
+  // One file per item range, rows streamed in item and time order as the archive job writes them
+  private List<ActivityColumnReader> write(Path directory, TransactionTemplate readTransaction) throws IOException {
+    List<ActivityColumnReader> readers = new ArrayList<>();
+    for (long from = 1; from <= ITEMS; from += ITEMS_PER_FILE) {
+      Path path = directory.resolve("activity-" + from + ".iac");
+      long itemFrom = from;
+      try (ActivityColumnWriter writer = new ActivityColumnWriter(path, GROUP_ROWS)) {
+        readTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+          PreparedStatement ps = con.prepareStatement("""
+              SELECT activity_id, item_id, store_id, activity_type, activity_value, message, item_name,
+                     activity_timestamp, creation_timestamp
+              FROM activity_archive_bench WHERE item_id BETWEEN ? AND ?
+              ORDER BY item_id, activity_timestamp, activity_id""");
+          ps.setFetchSize(10_000);
+          ps.setLong(1, itemFrom);
+          ps.setLong(2, itemFrom + ITEMS_PER_FILE - 1);
+          return ps;
+        }, rs -> {
+          try {
+            writer.write(ArchivedActivity.builder()
+                .activityId(rs.getLong(1))
+                .itemId(rs.getLong(2))
+                .storeId(rs.getObject(3, Long.class))
+                .activityType(rs.getString(4))
+                .activityValue(rs.getString(5))
+                .message(rs.getString(6))
+                .itemName(rs.getString(7))
+                .activityTimestamp(rs.getTimestamp(8).toLocalDateTime())
+                .creationTimestamp(rs.getTimestamp(9).toLocalDateTime())
+                .build());
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }));
+        writer.finish();
+      }
+      readers.add(ActivityColumnReader.open(path));
+    }
+    return readers;
+  }
+
+  // Mostly small sales, some restocks, removals and reprices, at random times of the month in five stores
+  private void seed() {
+    jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+    jdbcTemplate.execute("CREATE TABLE " + TABLE + " (LIKE inventory_activity INCLUDING ALL)");
+    jdbcTemplate.update("""
+        INSERT INTO activity_archive_bench (activity_type, activity_value, message, item_name, item_id, store_id,
+                                            activity_timestamp, creation_timestamp)
+        SELECT t.activity_type, t.activity_value, t.message, 'item-' || k.i, k.i, k.store_id, k.ts,
+               k.ts + make_interval(secs => k.lag)
+        FROM (SELECT 1 + floor(random() * ?)::bigint AS i, 1 + floor(random() * 5)::int AS store_id, random() AS r,
+                     random() AS v, random() * 0.5 AS lag,
+                     ?::timestamp + make_interval(secs => random() * 30 * 86400) AS ts
+              FROM generate_series(1, ?)) k
+        CROSS JOIN LATERAL (SELECT
+            CASE WHEN k.r < 0.6 THEN 'SELL' WHEN k.r < 0.85 THEN 'ADD' WHEN k.r < 0.95 THEN 'REMOVE' ELSE 'BULK_REPRICE' END,
+            CASE WHEN k.r < 0.6 THEN (1 + floor(k.v * 4))::text WHEN k.r < 0.85 THEN (10 * (1 + floor(k.v * 20)))::text
+                 WHEN k.r < 0.95 THEN (1 + floor(k.v * 10))::text ELSE round((0.99 + k.v * 50)::numeric, 2)::text END,
+            CASE WHEN k.r < 0.6 THEN 'Stock sold' WHEN k.r < 0.85 THEN 'Inventory updated successfully'
+                 WHEN k.r < 0.95 THEN 'Stock removed' ELSE 'Price updated' END) t(activity_type, activity_value, message)""",
+        ITEMS, Timestamp.valueOf(MONTH), ROWS);
+    jdbcTemplate.execute("VACUUM ANALYZE " + TABLE);
+  }
+}
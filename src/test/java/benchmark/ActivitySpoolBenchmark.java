@@ -0,0 +1,55 @@
+package benchmark;
+
+import com.org.kafka.ActivitySpool;
+import com.org.utility.SpoolFsyncPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+// Run with: mvn test -Dtest=ActivitySpoolBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ActivitySpoolBenchmark {
+
+  private static final String EVENT = "{\"activityType\":\"SELL\",\"activityValue\":\"%d\","
+      + "\"activityTimeStamp\":\"2024-10-01T10:15:30Z\",\"itemId\":%d,\"itemName\":\"Item %d\",\"storeId\":3}";
+
+  @Test
+  void appendLatencyByFsyncPolicy() throws Exception {
+    for (SpoolFsyncPolicy policy : SpoolFsyncPolicy.values()) {
+      int appends = policy == SpoolFsyncPolicy.EVERY_WRITE ? 20_000 : 500_000;
+      Path directory = Files.createTempDirectory("spool-bench");
+      ActivitySpool spool = new ActivitySpool(directory, DataSize.ofMegabytes(16), DataSize.ofGigabytes(1),
+          policy.name(), new SimpleMeterRegistry());
+      spool.open();
+      ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+      if (policy == SpoolFsyncPolicy.INTERVAL) {
+        flusher.scheduleWithFixedDelay(spool::flush, 200, 200, TimeUnit.MILLISECONDS);
+      }
+
+      long[] latencies = new long[appends];
+      long start = System.nanoTime();
+      for (int i = 0; i < appends; i++) {
+        long t = System.nanoTime();
+        spool.append(EVENT.formatted(i % 10, i, i));
+        latencies[i] = System.nanoTime() - t;
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+
+      flusher.shutdownNow();
+      spool.close();
+      Arrays.sort(latencies);
+      System.out.printf("fsync=%-11s appends=%d throughput=%.0f/s p50=%.1fus p99=%.1fus p999=%.1fus%n",
+          policy, appends, appends / seconds, latencies[appends / 2] / 1e3,
+          latencies[appends * 99 / 100] / 1e3, latencies[appends * 999 / 1000] / 1e3);
+      FileSystemUtils.deleteRecursively(directory);
+    }
+  }
+}
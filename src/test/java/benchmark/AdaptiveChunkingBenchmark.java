@@ -0,0 +1,240 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.kafka.ActivitySpool;
+import com.org.kafka.KafkaProducer;
+import com.org.kafka.StockStatePublisher;
+import com.org.model.AddItemRequest;
+import com.org.model.InventoryRequest;
+import com.org.repository.InventoryRepository;
+import com.org.repository.InventoryRepositoryCustomImpl;
+import com.org.repository.ItemRepository;
+import com.org.repository.ItemRepositoryCustomImpl;
+import com.org.service.AdaptiveChunking;
+import com.org.service.ExecutionLanes;
+import com.org.service.InventoryActivityEventProducer;
+import com.org.service.InventoryService;
+import com.org.service.ItemIdFilter;
+import com.org.service.ItemService;
+import com.org.service.JacksonConfig;
+import com.org.service.StockEngine;
+import com.org.service.StoreWriteRouter;
+import com.org.utility.ChunkedWrite;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+// item/add batches back to back through quiet, busy and quiet phases, with static chunk sizes against the
+// adaptive sizing. In the busy phase checkout writers (a short UPDATE holding its connection for 10 ms) and a
+// report reader (an aggregate that keeps a database core busy) share the connection pool and the database.
+// Reported per phase: lines added per second, checkout p99 including the wait for a connection, and the
+// chunk size and parallelism in use at the end of the phase.
+// Run with: mvn test -Dtest=AdaptiveChunkingBenchmark -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5433/instore_db
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+class AdaptiveChunkingBenchmark {
+
+  private static final String PREFIX = "chunking-bench-";
+  private static final int BATCH_LINES = 20_000;
+  private static final int SECONDS = Integer.getInteger("benchmark.seconds", 20);
+  private static final int CHECKOUT_WRITERS = 6;
+  private static final int REPORT_READERS = 1;
+  private static final int POOL_SIZE = 8;
+
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate transactionTemplate;
+  private long hotItemId;
+  private ActivitySpool spool;
+
+  @Test
+  void shiftingLoad() throws Exception {
+    try (HikariDataSource dataSource = new HikariDataSource()) {
+      dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url"));
+      dataSource.setUsername(System.getProperty("benchmark.jdbc.user", "admin"));
+      dataSource.setPassword(System.getProperty("benchmark.jdbc.password", "root"));
+      dataSource.setMaximumPoolSize(POOL_SIZE);
+      jdbcTemplate = new JdbcTemplate(dataSource);
+      transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+      seed();
+      try {
+        run("static-200", new MockEnvironment().withProperty("instore.chunking.adaptive", "false")
+            .withProperty("instore.chunking.item-add.initial-size", "200"));
+        run("static-5000", new MockEnvironment().withProperty("instore.chunking.adaptive", "false")
+            .withProperty("instore.chunking.item-add.initial-size", "5000"));
+        run("adaptive", new MockEnvironment());
+      } finally {
+        cleanUp();
+      }
+    }
+  }
+
+  private void run(String mode, MockEnvironment environment) throws Exception {
+    AdaptiveChunking adaptiveChunking = new AdaptiveChunking(environment, new SimpleMeterRegistry());
+    ItemService itemService = itemService(adaptiveChunking);
+    List<AddItemRequest> batch = batch(mode);
+    itemService.addItem(batch);
+
+    AtomicBoolean stopped = new AtomicBoolean();
+    AtomicLong linesAdded = new AtomicLong();
+    ExecutorService bulk = Executors.newSingleThreadExecutor();
+    bulk.execute(() -> {
+      while (!stopped.get()) {
+        itemService.addItem(batch);
+        linesAdded.addAndGet(BATCH_LINES);
+      }
+    });
+    for (String phase : new String[]{"quiet", "busy", "quiet"}) {
+      long linesBefore = linesAdded.get();
+      long start = System.nanoTime();
+      long[] checkoutMicros = phase.equals("busy") ? busy() : quiet();
+      double seconds = (System.nanoTime() - start) / 1e9;
+      AdaptiveChunking.ChunkPlan plan = adaptiveChunking.plan(ChunkedWrite.ITEM_ADD);
+      System.out.printf("mode=%-11s phase=%-5s lines/s=%7.0f checkout p99=%s chunk size=%d parallelism=%d%n",
+          mode, phase, (linesAdded.get() - linesBefore) / seconds,
+          checkoutMicros.length == 0 ? "-" : String.format("%.1fms", percentile(checkoutMicros, 0.99) / 1000.0),
+          plan.size(), plan.parallelism());
+    }
+    stopped.set(true);
+    bulk.shutdown();
+    bulk.awaitTermination(5, TimeUnit.MINUTES);
+    spool.close();
+    cleanUpItems();
+  }
+
+  private long[] quiet() throws InterruptedException {
+    TimeUnit.SECONDS.sleep(SECONDS);
+    return new long[0];
+  }
+
+  private long[] busy() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+    ConcurrentLinkedQueue<Long> checkouts = new ConcurrentLinkedQueue<>();
+    ExecutorService load = Executors.newFixedThreadPool(CHECKOUT_WRITERS + REPORT_READERS);
+    for (int i = 0; i < CHECKOUT_WRITERS; i++) {
+      load.execute(() -> {
+        while (System.nanoTime() < deadline) {
+          long start = System.nanoTime();
+          transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE inventory SET updation_date = LOCALTIMESTAMP WHERE item_id = ?", hotItemId);
+            jdbcTemplate.queryForObject("SELECT pg_sleep(0.01)::text", String.class);
+          });
+          checkouts.add((System.nanoTime() - start) / 1_000);
+        }
+      });
+    }
+    for (int i = 0; i < REPORT_READERS; i++) {
+      load.execute(() -> {
+        while (System.nanoTime() < deadline) {
+          jdbcTemplate.queryForObject("SELECT sum(g % 7) FROM generate_series(1, 2000000) g", Long.class);
+        }
+      });
+    }
+    load.shutdown();
+    load.awaitTermination(SECONDS + 60L, TimeUnit.SECONDS);
+    return checkouts.stream().mapToLong(Long::longValue).toArray();
+  }
+
+  private long percentile(long[] values, double p) {
+    Arrays.sort(values);
+    return values[(int) Math.min(values.length - 1, values.length * p)];
+  }
+
+  private List<AddItemRequest> batch(String mode) {
+    List<AddItemRequest> lines = new ArrayList<>(BATCH_LINES);
+    for (int i = 0; i < BATCH_LINES; i++) {
+      lines.add(new AddItemRequest(PREFIX + mode + "-" + i, BigDecimal.valueOf(9.99),
+          InventoryRequest.builder().quantity(5).storeId(1L).build()));
+    }
+    return lines;
+  }
+
+  private ItemService itemService(AdaptiveChunking adaptiveChunking) throws Exception {
+    ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    JacksonConfig jacksonConfig = new JacksonConfig() {
+      @Override
+      public ObjectMapper objectMapper() {
+        return objectMapper;
+      }
+    };
+    spool = new ActivitySpool(Files.createTempDirectory("chunking-spool"), DataSize.ofMegabytes(64),
+        DataSize.ofGigabytes(4), "none", new SimpleMeterRegistry());
+    spool.open();
+    InventoryActivityEventProducer producer = new InventoryActivityEventProducer(
+        new KafkaProducer(null, new SimpleMeterRegistry(), 1, 1), jacksonConfig, Optional.of(spool));
+    ExecutionLanes lanes = new ExecutionLanes(4, 4, 4, new SimpleMeterRegistry());
+    StockStatePublisher stockStatePublisher =
+        new StockStatePublisher(null, jacksonConfig, new SimpleMeterRegistry(), "stock-state", true, null);
+    InventoryService inventoryService = new InventoryService(inventoryRepository(), itemRepository(),
+        new StoreWriteRouter(1L, 60, BATCH_LINES, 1, Duration.ofSeconds(30), lanes, inventoryRepository()), producer,
+        stockStatePublisher, transactionTemplate, adaptiveChunking, unfiltered(), withoutEngine(), new SimpleMeterRegistry());
+    return new ItemService(itemRepository(), inventoryService, producer, stockStatePublisher, lanes, transactionTemplate,
+        adaptiveChunking, unfiltered());
+  }
+
+  @SuppressWarnings("unchecked")
+  private InventoryRepository inventoryRepository() {
+    InventoryRepositoryCustomImpl custom = new InventoryRepositoryCustomImpl(jdbcTemplate);
+    return (InventoryRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{InventoryRepository.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "insertStock" -> custom.insertStock((List<Long>) args[0], (List<Long>) args[1], (List<Integer>) args[2]);
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private ItemRepository itemRepository() {
+    ItemRepositoryCustomImpl custom = new ItemRepositoryCustomImpl(jdbcTemplate);
+    return (ItemRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ItemRepository.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "insertItems" -> custom.insertItems((List<String>) args[0], (List<BigDecimal>) args[1]);
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  private void seed() {
+    cleanUp();
+    hotItemId = jdbcTemplate.queryForObject("INSERT INTO item (item_name, item_price, is_deleted) VALUES (?, 1.00, false) RETURNING item_id",
+        Long.class, PREFIX + "hot");
+    jdbcTemplate.update("INSERT INTO inventory (item_id, store_id, available_quantity) VALUES (?, 1, 1000000)", hotItemId);
+  }
+
+  private void cleanUpItems() {
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name LIKE ? AND item_id <> ?)",
+        PREFIX + "%", hotItemId);
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ? AND item_id <> ?", PREFIX + "%", hotItemId);
+  }
+
+  private void cleanUp() {
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name LIKE ?)", PREFIX + "%");
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ?", PREFIX + "%");
+  }
+
+  // Never built, so every id passes
+  private ItemIdFilter unfiltered() {
+    return new ItemIdFilter(null, null, new SimpleMeterRegistry(), false, 0.01, 0, 0);
+  }
+
+  // Disabled, so every line goes through the store lanes
+  private StockEngine withoutEngine() {
+    return new StockEngine(null, null, null, null, new SimpleMeterRegistry(), false, 1, 1, 1, 1);
+  }
+}
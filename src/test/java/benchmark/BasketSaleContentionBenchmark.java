@@ -0,0 +1,141 @@
+package benchmark;
+
+import com.org.repository.InventoryRepositoryCustom.LockedStock;
+import com.org.repository.InventoryRepositoryCustomImpl;
+import com.zaxxer.hikari.HikariDataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Overlapping baskets (5 of 50 hot items, scanned in random order) from concurrent writers on one store,
+// each basket in one transaction. "scan-order" locks each line as scanned, as recordSales would inside a
+// transaction; "item-order" is the basket endpoint's lock-in-item-order query and single UPDATE.
+// Writers stand in for a store's lanes, other instances and other writers running side by side. Postgres
+// detects a deadlock only after deadlock_timeout (1 s by default), which is what a deadlock costs here.
+// Run with: mvn test -Dtest=BasketSaleContentionBenchmark -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5433/instore_db
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+class BasketSaleContentionBenchmark {
+
+  private static final String PREFIX = "basket-bench-";
+  private static final int HOT_ITEMS = 50;
+  private static final int LINES_PER_BASKET = 5;
+  private static final int WRITERS = Integer.getInteger("benchmark.writers", 16);
+  private static final int SECONDS = Integer.getInteger("benchmark.seconds", 30);
+  private static final long STORE_ID = 1L;
+
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate transactionTemplate;
+  private List<Long> itemIds;
+
+  @Test
+  void overlappingBaskets() throws Exception {
+    try (HikariDataSource dataSource = new HikariDataSource()) {
+      dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url"));
+      dataSource.setUsername(System.getProperty("benchmark.jdbc.user", "admin"));
+      dataSource.setPassword(System.getProperty("benchmark.jdbc.password", "root"));
+      dataSource.setMaximumPoolSize(WRITERS);
+      jdbcTemplate = new JdbcTemplate(dataSource);
+      transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+      InventoryRepositoryCustomImpl repository = new InventoryRepositoryCustomImpl(jdbcTemplate);
+      seed();
+      try {
+        for (boolean warmup : new boolean[]{true, false}) {
+          run("scan-order", warmup, this::sellInScanOrder);
+          run("item-order", warmup, basket -> sellInItemOrder(repository, basket));
+        }
+      } finally {
+        cleanUp();
+      }
+    }
+  }
+
+  // Each writer sells baskets back to back for the run's duration
+  private void run(String mode, boolean warmup, Basket sale) throws Exception {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmup ? SECONDS / 5 : SECONDS);
+    AtomicLong deadlocks = new AtomicLong();
+    AtomicLong committed = new AtomicLong();
+    ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+    long start = System.nanoTime();
+    for (int i = 0; i < WRITERS; i++) {
+      writers.execute(() -> {
+        while (System.nanoTime() < deadline) {
+          try {
+            sale.sell(randomBasket());
+            committed.incrementAndGet();
+          } catch (PessimisticLockingFailureException e) {
+            if (e.getMostSpecificCause() instanceof SQLException sqlException && "40P01".equals(sqlException.getSQLState())) {
+              deadlocks.incrementAndGet();
+            }
+          }
+        }
+      });
+    }
+    writers.shutdown();
+    writers.awaitTermination(5, TimeUnit.MINUTES);
+    double seconds = (System.nanoTime() - start) / 1e9;
+    if (!warmup) {
+      System.out.printf("mode=%-10s writers=%d baskets=%d baskets/s=%7.0f deadlocks=%d (%.1f per 1000 baskets)%n",
+          mode, WRITERS, committed.get(), committed.get() / seconds, deadlocks.get(),
+          1000.0 * deadlocks.get() / Math.max(committed.get(), 1));
+    }
+  }
+
+  private void sellInScanOrder(List<Long> basket) {
+    transactionTemplate.executeWithoutResult(status -> {
+      for (Long itemId : basket) {
+        jdbcTemplate.queryForObject("SELECT available_quantity FROM inventory WHERE store_id = ? AND item_id = ? FOR UPDATE",
+            Integer.class, STORE_ID, itemId);
+        jdbcTemplate.update("UPDATE inventory SET available_quantity = available_quantity - 1, updation_date = LOCALTIMESTAMP "
+            + "WHERE store_id = ? AND item_id = ?", STORE_ID, itemId);
+      }
+    });
+  }
+
+  private void sellInItemOrder(InventoryRepositoryCustomImpl repository, List<Long> basket) {
+    TreeMap<Long, Integer> quantities = new TreeMap<>();
+    basket.forEach(itemId -> quantities.put(itemId, 1));
+    transactionTemplate.executeWithoutResult(status -> {
+      List<LockedStock> locked = repository.lockStock(STORE_ID, new ArrayList<>(quantities.keySet()));
+      if (locked.size() == quantities.size()) {
+        repository.decrementStock(STORE_ID, new ArrayList<>(quantities.keySet()), new ArrayList<>(quantities.values()));
+      }
+    });
+  }
+
+  private List<Long> randomBasket() {
+    List<Long> basket = new ArrayList<>(itemIds);
+    Collections.shuffle(basket, ThreadLocalRandom.current());
+    return basket.subList(0, LINES_PER_BASKET);
+  }
+
+  private void seed() {
+    cleanUp();
+    jdbcTemplate.update("INSERT INTO item (item_name, item_price, is_deleted) SELECT ? || g, 1.00, false FROM generate_series(1, ?) g",
+        PREFIX, HOT_ITEMS);
+    itemIds = jdbcTemplate.queryForList("SELECT item_id FROM item WHERE item_name LIKE ?", Long.class, PREFIX + "%");
+    jdbcTemplate.update("INSERT INTO inventory (item_id, store_id, available_quantity) SELECT item_id, ?, 1000000000 FROM item "
+        + "WHERE item_name LIKE ?", STORE_ID, PREFIX + "%");
+  }
+
+  private void cleanUp() {
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name LIKE ?)", PREFIX + "%");
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ?", PREFIX + "%");
+  }
+
+  private interface Basket {
+    void sell(List<Long> itemIds);
+  }
+}
@@ -0,0 +1,230 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.entity.Inventory;
+import com.org.entity.Item;
+import com.org.kafka.ActivitySpool;
+import com.org.kafka.KafkaProducer;
+import com.org.kafka.StockStatePublisher;
+import com.org.model.AddItemRequest;
+import com.org.model.InventoryRequest;
+import com.org.repository.InventoryRepository;
+import com.org.repository.ItemRepository;
+import com.org.service.AdaptiveChunking;
+import com.org.service.ExecutionLanes;
+import com.org.service.InventoryActivityEventProducer;
+import com.org.service.InventoryService;
+import com.org.service.ItemIdFilter;
+import com.org.service.ItemService;
+import com.org.service.JacksonConfig;
+import com.org.service.StockEngine;
+import com.org.service.StoreWriteRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+// Full versus failures-only responses for 50k-line item/add and inventory/update batches where 1% of the
+// lines fail: serialized body size, bytes allocated for the call plus serialization, and GC activity.
+// Repositories are in-memory and events go to a spool, so only the service and response work is measured.
+// Run with: mvn test -Dtest=BatchResponseModeBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BatchResponseModeBenchmark {
+
+  private static final int LINES = 50_000;
+  private static final int ROUNDS = 10;
+
+  private final Map<Long, Item> items = new HashMap<>();
+  private final Map<Long, Inventory> inventory = new HashMap<>();
+  private final AtomicLong nextItemId = new AtomicLong(1_000_000);
+
+  @Test
+  void responseModes() throws Exception {
+    for (long itemId = 1; itemId <= LINES; itemId++) {
+      items.put(itemId, Item.builder().id(itemId).itemName("Item " + itemId).isDeleted(false).build());
+      inventory.put(itemId, Inventory.builder().itemId(itemId).storeId(1L).availableQuantity(1_000_000)
+          .updationDate(LocalDateTime.now()).build());
+    }
+    ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    JacksonConfig jacksonConfig = new JacksonConfig() {
+      @Override
+      public ObjectMapper objectMapper() {
+        return objectMapper;
+      }
+    };
+    ActivitySpool spool = new ActivitySpool(Files.createTempDirectory("response-spool"), DataSize.ofMegabytes(64),
+        DataSize.ofGigabytes(4), "none", new SimpleMeterRegistry());
+    spool.open();
+    InventoryActivityEventProducer producer = new InventoryActivityEventProducer(
+        new KafkaProducer(null, new SimpleMeterRegistry(), 1, 1), jacksonConfig, Optional.of(spool));
+    ExecutionLanes lanes = new ExecutionLanes(4, 4, 1, new SimpleMeterRegistry());
+    TransactionTemplate transactionTemplate = new TransactionTemplate(noTransactions());
+    AdaptiveChunking adaptiveChunking = new AdaptiveChunking(new MockEnvironment(), new SimpleMeterRegistry());
+    // One lane per store keeps each call a single chain of chunks, as in the recorded runs
+    StockStatePublisher stockStatePublisher =
+        new StockStatePublisher(null, jacksonConfig, new SimpleMeterRegistry(), "stock-state", true, null);
+    InventoryService inventoryService = new InventoryService(inventoryRepository(), itemRepository(),
+        new StoreWriteRouter(1L, 60, LINES, 1, Duration.ofSeconds(30), lanes, inventoryRepository()), producer,
+        stockStatePublisher, transactionTemplate, adaptiveChunking, unfiltered(), withoutEngine(), new SimpleMeterRegistry());
+    ItemService itemService = new ItemService(itemRepository(), inventoryService, producer, stockStatePublisher, lanes,
+        transactionTemplate, adaptiveChunking, unfiltered());
+
+    List<InventoryRequest> updates = updates();
+    List<AddItemRequest> adds = adds();
+    for (int warmup = 0; warmup < 3; warmup++) {
+      objectMapper.writeValueAsBytes(inventoryService.updateInventory(updates).getBody());
+      objectMapper.writeValueAsBytes(inventoryService.updateInventoryFailures(updates).getBody());
+      objectMapper.writeValueAsBytes(itemService.addItem(adds).getBody());
+      objectMapper.writeValueAsBytes(itemService.addItemFailures(adds).getBody());
+    }
+    measure(objectMapper, "inventory/update", "full", () -> inventoryService.updateInventory(updates));
+    measure(objectMapper, "inventory/update", "failures-only", () -> inventoryService.updateInventoryFailures(updates));
+    measure(objectMapper, "item/add", "full", () -> itemService.addItem(adds));
+    measure(objectMapper, "item/add", "failures-only", () -> itemService.addItemFailures(adds));
+    spool.close();
+  }
+
+  private void measure(ObjectMapper objectMapper, String endpoint, String mode, Supplier<ResponseEntity<?>> call)
+      throws Exception {
+    System.gc();
+    long allocatedBefore = allocatedBytes();
+    long collectionsBefore = collections();
+    long gcMillisBefore = gcMillis();
+    long start = System.nanoTime();
+    int bodyBytes = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      bodyBytes = objectMapper.writeValueAsBytes(call.get().getBody()).length;
+    }
+    double millis = (System.nanoTime() - start) / 1e6 / ROUNDS;
+    System.out.printf("endpoint=%-16s mode=%-13s lines=%d body=%7.1fKB allocated/batch=%6.1fMB time/batch=%6.1fms gc=%d collections, %dms over %d batches%n",
+        endpoint, mode, LINES, bodyBytes / 1024.0, (allocatedBytes() - allocatedBefore) / 1e6 / ROUNDS, millis,
+        collections() - collectionsBefore, gcMillis() - gcMillisBefore, ROUNDS);
+  }
+
+  // Every hundredth line fails: an unknown item for updates, a missing price for adds
+  private List<InventoryRequest> updates() {
+    List<InventoryRequest> lines = new ArrayList<>(LINES);
+    for (int i = 0; i < LINES; i++) {
+      lines.add(InventoryRequest.builder()
+          .itemId(i % 100 == 7 ? LINES + 1L + i : i + 1L)
+          .storeId(1L)
+          .quantity(1)
+          .operationType(i % 2 == 0 ? "ADD" : "REMOVE")
+          .build());
+    }
+    return lines;
+  }
+
+  private List<AddItemRequest> adds() {
+    List<AddItemRequest> lines = new ArrayList<>(LINES);
+    for (int i = 0; i < LINES; i++) {
+      lines.add(new AddItemRequest("Added item " + i, i % 100 == 7 ? null : BigDecimal.valueOf(9.99),
+          InventoryRequest.builder().quantity(5).storeId(1L).build()));
+    }
+    return lines;
+  }
+
+  private long allocatedBytes() {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long total = 0;
+    for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+      total += Math.max(allocated, 0);
+    }
+    return total;
+  }
+
+  private long collections() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionCount).sum();
+  }
+
+  private long gcMillis() {
+    return ManagementFactory.getGarbageCollectorMXBeans().stream().mapToLong(GarbageCollectorMXBean::getCollectionTime).sum();
+  }
+
+  private PlatformTransactionManager noTransactions() {
+    return new PlatformTransactionManager() {
+      @Override
+      public TransactionStatus getTransaction(TransactionDefinition definition) {
+        return new SimpleTransactionStatus();
+      }
+
+      @Override
+      public void commit(TransactionStatus status) {
+      }
+
+      @Override
+      public void rollback(TransactionStatus status) {
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private InventoryRepository inventoryRepository() {
+    return (InventoryRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{InventoryRepository.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "existsByStoreId" -> true;
+          case "findAllByStoreIdAndItemIdIn" -> ((Collection<?>) args[1]).stream()
+              .map(inventory::get)
+              .filter(Objects::nonNull)
+              .toList();
+          case "insertStock" -> IntStream.range(0, ((List<Long>) args[0]).size())
+              .mapToObj(i -> Inventory.builder()
+                  .itemId(((List<Long>) args[0]).get(i))
+                  .storeId(((List<Long>) args[1]).get(i))
+                  .availableQuantity(((List<Integer>) args[2]).get(i))
+                  .build())
+              .toList();
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  @SuppressWarnings("unchecked")
+  private ItemRepository itemRepository() {
+    return (ItemRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ItemRepository.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "findAllById" -> ((Collection<?>) args[0]).stream()
+              .map(items::get)
+              .filter(Objects::nonNull)
+              .toList();
+          case "insertItems" -> ((List<String>) args[0]).stream()
+              .map(name -> Item.builder().id(nextItemId.incrementAndGet()).itemName(name).isDeleted(false)
+                  .creationDate(LocalDateTime.now()).build())
+              .toList();
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  // Never built, so every id passes
+  private ItemIdFilter unfiltered() {
+    return new ItemIdFilter(null, null, new SimpleMeterRegistry(), false, 0.01, 0, 0);
+  }
+
+  // Disabled, so every line goes through the store lanes
+  private StockEngine withoutEngine() {
+    return new StockEngine(null, null, null, null, new SimpleMeterRegistry(), false, 1, 1, 1, 1);
+  }
+}
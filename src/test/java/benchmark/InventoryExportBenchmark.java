@@ -0,0 +1,63 @@
+package benchmark;
+
+import com.org.service.InventoryExportService;
+import com.org.service.JacksonConfig;
+import com.org.utility.ExportFormat;
+import java.io.IOException;
+import java.io.OutputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// Seeds 5M items with one inventory row each into a scratch database, then streams the snapshot to a null sink.
+// Run with: mvn test -Dtest=InventoryExportBenchmark -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5433/bench_db
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+class InventoryExportBenchmark {
+
+  private static final int ITEMS = 5_000_000;
+
+  @Test
+  void exportFiveMillionRows() throws IOException {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getProperty("benchmark.jdbc.url"),
+        System.getProperty("benchmark.jdbc.user", "admin"), System.getProperty("benchmark.jdbc.password", "root"));
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    Long items = jdbcTemplate.queryForObject("SELECT count(*) FROM item", Long.class);
+    if (items == null || items != ITEMS) {
+      jdbcTemplate.execute("TRUNCATE inventory, item RESTART IDENTITY CASCADE");
+      jdbcTemplate.update("INSERT INTO item (item_name, item_price) SELECT 'item, \"' || g, (g % 1000) + 0.99 FROM generate_series(1, ?) g", ITEMS);
+      jdbcTemplate.update("INSERT INTO inventory (item_id, store_id, available_quantity) SELECT g, 1, g % 500 FROM generate_series(1, ?) g", ITEMS);
+      jdbcTemplate.execute("ANALYZE item");
+      jdbcTemplate.execute("ANALYZE inventory");
+    }
+
+    InventoryExportService service = new InventoryExportService(dataSource, new JacksonConfig().objectMapper(), 10_000);
+    for (ExportFormat format : ExportFormat.values()) {
+      CountingOutputStream out = new CountingOutputStream();
+      Runtime runtime = Runtime.getRuntime();
+      System.gc();
+      long start = System.nanoTime();
+      long rows = service.writeSnapshot(format, out);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      System.out.printf("format=%s rows=%d bytes=%dMB time=%.1fs throughput=%.0f rows/s heapUsed=%dMB%n",
+          format, rows, out.bytes / (1024 * 1024), seconds, rows / seconds,
+          (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+    }
+  }
+
+  private static class CountingOutputStream extends OutputStream {
+
+    private long bytes;
+
+    @Override
+    public void write(int b) {
+      bytes++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+      bytes += len;
+    }
+  }
+}
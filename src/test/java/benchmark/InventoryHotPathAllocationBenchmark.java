@@ -0,0 +1,216 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.entity.Inventory;
+import com.org.entity.Item;
+import com.org.kafka.ActivitySpool;
+import com.org.kafka.KafkaProducer;
+import com.org.kafka.StockStatePublisher;
+import com.org.model.InventoryRequest;
+import com.org.repository.InventoryRepository;
+import com.org.repository.ItemRepository;
+import com.org.service.AdaptiveChunking;
+import com.org.service.ExecutionLanes;
+import com.org.service.InventoryActivityEventProducer;
+import com.org.service.InventoryService;
+import com.org.service.ItemIdFilter;
+import com.org.service.JacksonConfig;
+import com.org.service.StockEngine;
+import com.org.service.StoreWriteRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+// Allocation and exception profile of a 100k-line updateInventory batch and a 100k-line recordSales batch
+// with a misconfigured-till mix (unknown and deleted item ids, bad operation types, oversells). Repositories
+// are in-memory so only service-side work is measured; events go to a real spool. Each run leaves a JFR
+// file under target/jfr for JMC.
+// Run with: mvn test -Dtest=InventoryHotPathAllocationBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class InventoryHotPathAllocationBenchmark {
+
+  private static final int LINES = 100_000;
+  private static final int ITEMS = 10_000;
+  private static final long STORES = 4;
+
+  private final Map<Long, Item> items = new HashMap<>();
+  private final Map<String, Inventory> inventory = new ConcurrentHashMap<>();
+
+  @Test
+  void allocationsPerLine() throws Exception {
+    for (long itemId = 1; itemId <= ITEMS; itemId++) {
+      items.put(itemId, Item.builder().id(itemId).itemName("Item " + itemId).isDeleted(itemId % 10 == 0).build());
+      for (long storeId = 1; storeId <= STORES; storeId++) {
+        inventory.put(storeId + ":" + itemId, Inventory.builder().itemId(itemId).storeId(storeId)
+            .availableQuantity(1_000_000).updationDate(LocalDateTime.now()).build());
+      }
+    }
+    // Outside Spring JacksonConfig.objectMapper() builds a new mapper per call; share one like the bean does
+    ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    JacksonConfig jacksonConfig = new JacksonConfig() {
+      @Override
+      public ObjectMapper objectMapper() {
+        return objectMapper;
+      }
+    };
+    Path spoolDir = Files.createTempDirectory("alloc-spool");
+    ActivitySpool spool = new ActivitySpool(spoolDir, DataSize.ofMegabytes(64), DataSize.ofGigabytes(4), "none",
+        new SimpleMeterRegistry());
+    spool.open();
+    // One lane per store keeps each call a single chain of chunks, as in the recorded runs
+    InventoryService inventoryService = new InventoryService(inventoryRepository(), itemRepository(),
+        new StoreWriteRouter(1L, 60, LINES, 1, Duration.ofSeconds(30), new ExecutionLanes(4, 4, 1, new SimpleMeterRegistry()),
+            inventoryRepository()),
+        new InventoryActivityEventProducer(new KafkaProducer(null, new SimpleMeterRegistry(), 1, 1), jacksonConfig,
+            Optional.of(spool)),
+        new StockStatePublisher(null, jacksonConfig, new SimpleMeterRegistry(), "stock-state", true, null),
+        new TransactionTemplate(noTransactions()),
+        new AdaptiveChunking(new MockEnvironment(), new SimpleMeterRegistry()), unfiltered(), withoutEngine(), new SimpleMeterRegistry());
+
+    List<InventoryRequest> updates = batch(new String[]{"ADD", "REMOVE", "ADD", "add", "RESTOCK"});
+    List<InventoryRequest> sales = batch(new String[]{"SELL"});
+    // Warm up, then profile
+    inventoryService.updateInventory(updates);
+    inventoryService.recordSales(sales);
+    profile("updateInventory", () -> inventoryService.updateInventory(updates));
+    profile("recordSales", () -> inventoryService.recordSales(sales));
+    spool.close();
+  }
+
+  // 20% unknown item ids, 10% deleted items (every tenth id), 10% oversells; one in five update lines has a bad type
+  private List<InventoryRequest> batch(String[] operations) {
+    List<InventoryRequest> lines = new ArrayList<>(LINES);
+    for (int i = 0; i < LINES; i++) {
+      long itemId = i % 5 == 1 ? ITEMS + 1 + i : (i % ITEMS) + 1;
+      int quantity = i % 10 == 3 ? 10_000_000 : 1;
+      lines.add(InventoryRequest.builder()
+          .itemId(itemId)
+          .storeId(i % STORES + 1)
+          .quantity(quantity)
+          .operationType(operations[i % operations.length])
+          .build());
+    }
+    return lines;
+  }
+
+  private void profile(String phase, Supplier<?> run) throws Exception {
+    Path jfr = Path.of("target", "jfr", phase + ".jfr");
+    Files.createDirectories(jfr.getParent());
+    long allocatedBefore = allocatedBytes();
+    long start = System.nanoTime();
+    try (Recording recording = new Recording()) {
+      recording.enable("jdk.ObjectAllocationSample").with("throttle", "10000/s");
+      recording.enable("jdk.JavaExceptionThrow");
+      recording.start();
+      run.get();
+      recording.stop();
+      recording.dump(jfr);
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+    long allocated = allocatedBytes() - allocatedBefore;
+
+    Map<String, Long> weightByClass = new HashMap<>();
+    long exceptions = 0;
+    for (RecordedEvent event : RecordingFile.readAllEvents(jfr)) {
+      String type = event.getEventType().getName();
+      if (type.equals("jdk.JavaExceptionThrow")) {
+        exceptions++;
+      } else if (type.equals("jdk.ObjectAllocationSample")) {
+        weightByClass.merge(event.getClass("objectClass").getName(), event.getLong("weight"), Long::sum);
+      }
+    }
+    System.out.printf("phase=%s lines=%d time=%.2fs allocated=%dMB bytes/line=%d exceptions=%d jfr=%s%n",
+        phase, LINES, seconds, allocated / (1024 * 1024), allocated / LINES, exceptions, jfr);
+    weightByClass.entrySet().stream()
+        .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+        .limit(10)
+        .forEach(entry -> System.out.printf("  %-60s %6dMB%n", entry.getKey(), entry.getValue() / (1024 * 1024)));
+  }
+
+  // Allocation by every live thread (request thread and store lanes)
+  private long allocatedBytes() {
+    com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long total = 0;
+    for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+      total += Math.max(allocated, 0);
+    }
+    return total;
+  }
+
+  // Chunks still go through the template, but there is no database to commit to
+  private PlatformTransactionManager noTransactions() {
+    return new PlatformTransactionManager() {
+      @Override
+      public TransactionStatus getTransaction(TransactionDefinition definition) {
+        return new SimpleTransactionStatus();
+      }
+
+      @Override
+      public void commit(TransactionStatus status) {
+      }
+
+      @Override
+      public void rollback(TransactionStatus status) {
+      }
+    };
+  }
+
+  private InventoryRepository inventoryRepository() {
+    return (InventoryRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{InventoryRepository.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "existsByStoreId" -> true;
+          case "findAllByStoreIdAndItemIdIn" -> ((Collection<?>) args[1]).stream()
+              .map(itemId -> inventory.get(args[0] + ":" + itemId))
+              .filter(Objects::nonNull)
+              .toList();
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  private ItemRepository itemRepository() {
+    return (ItemRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ItemRepository.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "findAllById" -> ((Collection<?>) args[0]).stream()
+              .map(items::get)
+              .filter(Objects::nonNull)
+              .toList();
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  // Never built, so every id passes
+  private ItemIdFilter unfiltered() {
+    return new ItemIdFilter(null, null, new SimpleMeterRegistry(), false, 0.01, 0, 0);
+  }
+
+  // Disabled, so every line goes through the store lanes
+  private StockEngine withoutEngine() {
+    return new StockEngine(null, null, null, null, new SimpleMeterRegistry(), false, 1, 1, 1, 1);
+  }
+}
@@ -0,0 +1,89 @@
+package benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+// Drives recordSales on already running servlet and reactive instances with the same request mix.
+// Run with: scripts/reactive-load-compare.sh (or mvn test -Dtest=InventoryLoadComparisonBenchmark
+//   -Dbenchmark.targets=http://localhost:8081,http://localhost:8082 -Dbenchmark.items=4-1003)
+@EnabledIfSystemProperty(named = "benchmark.targets", matches = ".+")
+class InventoryLoadComparisonBenchmark {
+
+  private static final int LINES_PER_REQUEST = 5;
+  private static final int STORES = Integer.getInteger("benchmark.stores", 8);
+  private static final Duration RUN_TIME = Duration.ofSeconds(Long.getLong("benchmark.seconds", 20));
+  private static final int SERVER_CORES = Integer.getInteger("benchmark.server-cores", Runtime.getRuntime().availableProcessors());
+
+  @Test
+  void recordSalesUnderIncreasingConcurrency() throws Exception {
+    String[] items = System.getProperty("benchmark.items", "1-1000").split("-");
+    long firstItem = Long.parseLong(items[0]);
+    long lastItem = Long.parseLong(items[1]);
+    for (String target : System.getProperty("benchmark.targets").split(",")) {
+      for (int concurrency : new int[]{16, 64, 256, 1024}) {
+        run(target, concurrency, firstItem, lastItem);
+      }
+    }
+  }
+
+  private void run(String target, int concurrency, long firstItem, long lastItem) throws Exception {
+    HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+    Semaphore inFlight = new Semaphore(concurrency);
+    AtomicLong ok = new AtomicLong();
+    AtomicLong errors = new AtomicLong();
+    ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+    long start = System.nanoTime();
+    long end = start + RUN_TIME.toNanos();
+    while (System.nanoTime() < end) {
+      inFlight.acquire();
+      long sent = System.nanoTime();
+      client.sendAsync(HttpRequest.newBuilder(URI.create(target + "/inventory/recordSales"))
+              .timeout(Duration.ofSeconds(30))
+              .header("Content-Type", "application/json")
+              .PUT(HttpRequest.BodyPublishers.ofString(salesBody(firstItem, lastItem)))
+              .build(), HttpResponse.BodyHandlers.discarding())
+          .whenComplete((response, e) -> {
+            if (e == null && response.statusCode() == 200) {
+              ok.incrementAndGet();
+              latencies.add(System.nanoTime() - sent);
+            } else {
+              errors.incrementAndGet();
+            }
+            inFlight.release();
+          });
+    }
+    inFlight.acquire(concurrency);
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+    double rps = ok.get() / seconds;
+    System.out.printf("target=%s concurrency=%4d requests/s=%7.0f per-core=%7.0f p50=%6.1fms p99=%7.1fms errors=%d%n",
+        target, concurrency, rps, rps / SERVER_CORES,
+        sorted.length == 0 ? 0 : sorted[sorted.length / 2] / 1e6,
+        sorted.length == 0 ? 0 : sorted[(int) (sorted.length * 0.99)] / 1e6,
+        errors.get());
+  }
+
+  private String salesBody(long firstItem, long lastItem) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return IntStream.range(0, LINES_PER_REQUEST)
+        .mapToObj(i -> "{\"itemId\":" + random.nextLong(firstItem, lastItem + 1) + ",\"quantity\":1,"
+            + "\"operationType\":\"SELL\",\"storeId\":" + (random.nextInt(STORES) + 1) + "}")
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+}
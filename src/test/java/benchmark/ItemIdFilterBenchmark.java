@@ -0,0 +1,119 @@
+package benchmark;
+
+import com.org.service.ItemIdFilter;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+// Item id filter over the item table plus 1M seeded items, every other one then removed: build time and
+// memory at two false-positive rates, the rate measured on the removed ids, and the cost of answering
+// 10,000 unknown-id lines from the filter against the two IN-list reads per 500-line chunk the inventory
+// lanes would otherwise run.
+// Run with: mvn test -Dtest=ItemIdFilterBenchmark -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5433/instore_db
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+class ItemIdFilterBenchmark {
+
+  private static final String PREFIX = "item-filter-bench-";
+  private static final int ITEMS = 1_000_000;
+  private static final int UNKNOWN_LINES = 10_000;
+  private static final int CHUNK = 500;
+
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void itemIdFilter() {
+    try (HikariDataSource dataSource = new HikariDataSource()) {
+      dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url"));
+      dataSource.setUsername(System.getProperty("benchmark.jdbc.user", "admin"));
+      dataSource.setPassword(System.getProperty("benchmark.jdbc.password", "root"));
+      jdbcTemplate = new JdbcTemplate(dataSource);
+      try {
+        List<Long> removed = seed();
+        List<Long> unknown = removed.subList(0, UNKNOWN_LINES);
+
+        for (double rate : new double[]{0.01, 0.001}) {
+          SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+          ItemIdFilter filter = new ItemIdFilter(jdbcTemplate, new DataSourceTransactionManager(dataSource), meterRegistry,
+              true, rate, 100_000, 0);
+          filter.rebuild();
+          filter.rebuild();
+          long start = System.nanoTime();
+          long items = filter.rebuild();
+          double buildMillis = (System.nanoTime() - start) / 1e6;
+          System.out.printf("rate=%.3f items=%d build=%.0fms memory=%.2fMB estimated rate=%.5f measured rate=%.5f%n",
+              rate, items, buildMillis, meterRegistry.get("instore.item-filter.bytes").gauge().value() / 1e6,
+              meterRegistry.get("instore.item-filter.false-positive-rate").gauge().value(),
+              measuredRate(filter, removed));
+          if (rate == 0.01) {
+            rejectFromFilter(filter, unknown);
+          }
+        }
+        rejectFromDatabase(unknown);
+      } finally {
+        cleanUp();
+      }
+    }
+  }
+
+  private double measuredRate(ItemIdFilter filter, List<Long> removed) {
+    long passed = 0;
+    for (Long itemId : removed) {
+      passed += filter.mightExist(itemId) ? 1 : 0;
+    }
+    return (double) passed / removed.size();
+  }
+
+  private void rejectFromFilter(ItemIdFilter filter, List<Long> unknown) {
+    for (int warmup = 0; warmup < 5; warmup++) {
+      unknown.forEach(filter::mightExist);
+    }
+    long start = System.nanoTime();
+    int rejected = 0;
+    for (Long itemId : unknown) {
+      rejected += filter.mightExist(itemId) ? 0 : 1;
+    }
+    System.out.printf("path=filter   lines=%d rejected=%d time=%.2fms%n", unknown.size(), rejected,
+        (System.nanoTime() - start) / 1e6);
+  }
+
+  private void rejectFromDatabase(List<Long> unknown) {
+    for (int round = 0; round < 2; round++) {
+      long start = System.nanoTime();
+      int found = 0;
+      for (int from = 0; from < unknown.size(); from += CHUNK) {
+        Long[] chunk = unknown.subList(from, Math.min(from + CHUNK, unknown.size())).toArray(new Long[0]);
+        found += jdbcTemplate.query("SELECT item_id, available_quantity FROM inventory WHERE store_id = 1 AND item_id = ANY(?)",
+            (rs, rowNum) -> rs.getLong(1), (Object) chunk).size();
+        jdbcTemplate.query("SELECT item_id, item_name, is_deleted FROM item WHERE item_id = ANY(?)",
+            (rs, rowNum) -> rs.getLong(1), (Object) chunk);
+      }
+      if (round == 1) {
+        System.out.printf("path=database lines=%d found=%d time=%.2fms%n", unknown.size(), found,
+            (System.nanoTime() - start) / 1e6);
+      }
+    }
+  }
+
+  // Ids of the removed half, all below the highest live id, so the filter judges them
+  private List<Long> seed() {
+    cleanUp();
+    jdbcTemplate.update("""
+        INSERT INTO item (item_name, item_price, is_deleted)
+        SELECT ? || g, 1.00, false FROM generate_series(1, ?) g""", PREFIX, ITEMS);
+    List<Long> removed = new ArrayList<>(jdbcTemplate.queryForList(
+        "DELETE FROM item WHERE item_name LIKE ? AND item_id % 2 = 0 RETURNING item_id", Long.class, PREFIX + "%"));
+    long highestLive = jdbcTemplate.queryForObject("SELECT max(item_id) FROM item", Long.class);
+    removed.removeIf(itemId -> itemId > highestLive);
+    jdbcTemplate.execute("VACUUM ANALYZE item");
+    return removed;
+  }
+
+  private void cleanUp() {
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ?", PREFIX + "%");
+  }
+}
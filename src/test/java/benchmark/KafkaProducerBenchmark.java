@@ -0,0 +1,71 @@
+package benchmark;
+
+import com.org.kafka.KafkaProducer;
+import com.org.kafka.KafkaProducerConfig;
+import com.org.utility.ProducerProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+// Run with: mvn test -Dtest=KafkaProducerBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class KafkaProducerBenchmark {
+
+  private static final int EVENTS = 200_000;
+  private static final String EVENT = "{\"activityType\":\"SELL\",\"activityValue\":\"%d\","
+      + "\"activityTimeStamp\":\"2024-10-01T10:15:30Z\",\"itemId\":%d,\"itemName\":\"Item %d\",\"storeId\":%d}";
+
+  @Test
+  void eventsPerSecondByProfile() {
+    EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, 3, "activity");
+    broker.afterPropertiesSet();
+    try {
+      for (ProducerProfile profile : ProducerProfile.values()) {
+        run(profile, broker.getBrokersAsString());
+      }
+    } finally {
+      broker.destroy();
+    }
+  }
+
+  private void run(ProducerProfile profile, String bootstrapServers) {
+    DefaultKafkaProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(
+        KafkaProducerConfig.producerProperties(profile, Duration.ofSeconds(5), Map.of(
+            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+            ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+            ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class)));
+    KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    KafkaProducer kafkaProducer = new KafkaProducer(kafkaTemplate, meterRegistry, 10_000, EVENTS);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < EVENTS; i++) {
+      kafkaProducer.sendMessage(EVENT.formatted(i % 10, i % 50_000, i % 50_000, i % 8));
+      if (kafkaProducer.bufferedCount() > 0) {
+        kafkaProducer.retryBufferedMessages();
+      }
+    }
+    while (kafkaProducer.inFlightCount() > 0 || kafkaProducer.bufferedCount() > 0) {
+      kafkaProducer.retryBufferedMessages();
+      LockSupport.parkNanos(1_000_000L);
+    }
+    double seconds = (System.nanoTime() - start) / 1e9;
+
+    double compressionRate = kafkaTemplate.metrics().entrySet().stream()
+        .filter(e -> e.getKey().name().equals("compression-rate-avg"))
+        .mapToDouble(e -> ((Number) e.getValue().metricValue()).doubleValue())
+        .findFirst().orElse(1.0);
+    System.out.printf("profile=%-10s events=%d time=%.2fs throughput=%.0f events/s compressionRate=%.2f p99Ack=%.1fms%n",
+        profile, EVENTS, seconds, EVENTS / seconds, compressionRate,
+        meterRegistry.get("instore.kafka.ack.latency").timer().takeSnapshot().percentileValues()[1].value() / 1e6);
+    producerFactory.destroy();
+  }
+}
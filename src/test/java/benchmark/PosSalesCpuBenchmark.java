@@ -0,0 +1,204 @@
+package benchmark;
+
+import com.org.grpc.proto.InventoryLine;
+import com.org.grpc.proto.InventorySalesGrpc;
+import com.org.grpc.proto.SalesReply;
+import com.org.grpc.proto.SalesRequest;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+// Server CPU per recorded sale line: REST/JSON recordSales vs gRPC unary vs gRPC streaming, against one
+// already running instance. CPU is read from /proc/<pid>/stat so only the server's own work is counted.
+// mvn test -Dtest=PosSalesCpuBenchmark -Dbenchmark.server-pid=$(pgrep -f inStore) -Dbenchmark.items=4-1003
+@EnabledIfSystemProperty(named = "benchmark.server-pid", matches = "\\d+")
+class PosSalesCpuBenchmark {
+
+  private static final int LINES_PER_BASKET = 5;
+  private static final int CONCURRENCY = 32;
+  private static final int STREAMS = 4;
+  private static final int STORES = Integer.getInteger("benchmark.stores", 8);
+  private static final int BASKETS = Integer.getInteger("benchmark.baskets", 20_000);
+  private static final long CLOCK_TICKS = Long.getLong("benchmark.clock-ticks", 100);
+  private static final String REST_TARGET = System.getProperty("benchmark.rest", "http://localhost:8081");
+  private static final String GRPC_TARGET = System.getProperty("benchmark.grpc", "localhost:9090");
+
+  private long firstItem;
+  private long lastItem;
+
+  @Test
+  void cpuPerSale() throws Exception {
+    String[] items = System.getProperty("benchmark.items", "1-1000").split("-");
+    firstItem = Long.parseLong(items[0]);
+    lastItem = Long.parseLong(items[1]);
+    HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    ManagedChannel channel = NettyChannelBuilder.forTarget(GRPC_TARGET).usePlaintext().build();
+    try {
+      for (boolean warmup : new boolean[]{true, false}) {
+        int baskets = warmup ? BASKETS / 4 : BASKETS;
+        measure("rest", warmup, baskets, () -> rest(http, baskets));
+        measure("grpc-unary", warmup, baskets, () -> unary(channel, baskets));
+        measure("grpc-stream", warmup, baskets, () -> stream(channel, baskets));
+      }
+    } finally {
+      channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+  }
+
+  private void measure(String protocol, boolean warmup, int baskets, Load load) throws Exception {
+    long cpuBefore = serverCpuNanos();
+    long start = System.nanoTime();
+    long errors = load.run();
+    double seconds = (System.nanoTime() - start) / 1e9;
+    long cpu = serverCpuNanos() - cpuBefore;
+    if (warmup) {
+      return;
+    }
+    long lines = (long) baskets * LINES_PER_BASKET;
+    System.out.printf("protocol=%-11s baskets=%d lines/s=%8.0f server-cpu/line=%6.1fus errors=%d%n",
+        protocol, baskets, lines / seconds, cpu / 1e3 / lines, errors);
+  }
+
+  private long rest(HttpClient http, int baskets) throws Exception {
+    Semaphore inFlight = new Semaphore(CONCURRENCY);
+    AtomicLong errors = new AtomicLong();
+    for (int i = 0; i < baskets; i++) {
+      inFlight.acquire();
+      http.sendAsync(HttpRequest.newBuilder(URI.create(REST_TARGET + "/inventory/recordSales"))
+              .timeout(Duration.ofSeconds(30))
+              .header("Content-Type", "application/json")
+              .PUT(HttpRequest.BodyPublishers.ofString(jsonBasket()))
+              .build(), HttpResponse.BodyHandlers.ofByteArray())
+          .whenComplete((response, e) -> {
+            if (e != null || response.statusCode() >= 300) {
+              errors.incrementAndGet();
+            }
+            inFlight.release();
+          });
+    }
+    inFlight.acquire(CONCURRENCY);
+    return errors.get();
+  }
+
+  private long unary(ManagedChannel channel, int baskets) throws Exception {
+    InventorySalesGrpc.InventorySalesStub stub = InventorySalesGrpc.newStub(channel);
+    Semaphore inFlight = new Semaphore(CONCURRENCY);
+    AtomicLong errors = new AtomicLong();
+    for (int i = 0; i < baskets; i++) {
+      inFlight.acquire();
+      stub.recordSales(protoBasket(i), new StreamObserver<>() {
+        @Override
+        public void onNext(SalesReply reply) {
+          if (!reply.getComplete()) {
+            errors.incrementAndGet();
+          }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+          errors.incrementAndGet();
+          inFlight.release();
+        }
+
+        @Override
+        public void onCompleted() {
+          inFlight.release();
+        }
+      });
+    }
+    inFlight.acquire(CONCURRENCY);
+    return errors.get();
+  }
+
+  private long stream(ManagedChannel channel, int baskets) throws Exception {
+    InventorySalesGrpc.InventorySalesStub stub = InventorySalesGrpc.newStub(channel);
+    Semaphore inFlight = new Semaphore(CONCURRENCY);
+    AtomicLong errors = new AtomicLong();
+    List<CompletableFuture<Void>> closed = new ArrayList<>();
+    List<StreamObserver<SalesRequest>> streams = new ArrayList<>();
+    for (int s = 0; s < STREAMS; s++) {
+      CompletableFuture<Void> done = new CompletableFuture<>();
+      closed.add(done);
+      streams.add(stub.streamSales(new StreamObserver<>() {
+        @Override
+        public void onNext(SalesReply reply) {
+          if (!reply.getComplete()) {
+            errors.incrementAndGet();
+          }
+          inFlight.release();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+          done.completeExceptionally(t);
+        }
+
+        @Override
+        public void onCompleted() {
+          done.complete(null);
+        }
+      }));
+    }
+    for (int i = 0; i < baskets; i++) {
+      inFlight.acquire();
+      StreamObserver<SalesRequest> stream = streams.get(i % STREAMS);
+      synchronized (stream) {
+        stream.onNext(protoBasket(i));
+      }
+    }
+    streams.forEach(StreamObserver::onCompleted);
+    CompletableFuture.allOf(closed.toArray(new CompletableFuture[0])).get(1, TimeUnit.MINUTES);
+    return errors.get();
+  }
+
+  private String jsonBasket() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return IntStream.range(0, LINES_PER_BASKET)
+        .mapToObj(i -> "{\"itemId\":" + random.nextLong(firstItem, lastItem + 1) + ",\"quantity\":1,"
+            + "\"operationType\":\"SELL\",\"storeId\":" + (random.nextInt(STORES) + 1) + "}")
+        .collect(Collectors.joining(",", "[", "]"));
+  }
+
+  private SalesRequest protoBasket(long sequence) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    SalesRequest.Builder request = SalesRequest.newBuilder().setSequence(sequence);
+    for (int i = 0; i < LINES_PER_BASKET; i++) {
+      request.addLines(InventoryLine.newBuilder()
+          .setItemId(random.nextLong(firstItem, lastItem + 1))
+          .setQuantity(1)
+          .setOperationType("SELL")
+          .setStoreId(random.nextInt(STORES) + 1));
+    }
+    return request.build();
+  }
+
+  // utime + stime, fields 14 and 15 of /proc/<pid>/stat (counted after the ")" closing the command name)
+  private long serverCpuNanos() throws Exception {
+    String stat = Files.readString(Path.of("/proc", System.getProperty("benchmark.server-pid"), "stat"));
+    String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+    long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+    return ticks * 1_000_000_000L / CLOCK_TICKS;
+  }
+
+  private interface Load {
+    long run() throws Exception;
+  }
+}
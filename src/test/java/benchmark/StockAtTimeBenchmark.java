@@ -0,0 +1,121 @@
+package benchmark;
+
+import com.org.archive.ActivityArchive;
+import com.org.service.StockHistoryService;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+// Stock of one item at random times over a year of history: full replay of inventory_activity up to T
+// against the nearest 6-hourly checkpoint plus the activity in between. Each answer is checked against the
+// closed form of the synthetic history (every fourth row ADD 4, the rest SELL 1).
+// Run with: mvn test -Dtest=StockAtTimeBenchmark -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5433/instore_db
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+class StockAtTimeBenchmark {
+
+  private static final String ITEM_NAME = "stock-at-bench";
+  private static final int QUERIES = 200;
+  private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+  private static final Duration HISTORY = Duration.ofDays(365);
+  private static final Duration CHECKPOINT_INTERVAL = Duration.ofHours(6);
+
+  private static final String FULL_REPLAY_SQL = """
+      SELECT coalesce(sum(CASE upper(activity_type) WHEN 'ADD' THEN 1 ELSE -1 END * activity_value::bigint), 0)
+      FROM inventory_activity
+      WHERE item_id = ? AND activity_timestamp <= ? AND upper(activity_type) IN ('ADD', 'REMOVE', 'SELL')""";
+
+  private JdbcTemplate jdbcTemplate;
+  private long itemId;
+
+  @Test
+  void stockAtTime() {
+    try (HikariDataSource dataSource = new HikariDataSource()) {
+      dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url"));
+      dataSource.setUsername(System.getProperty("benchmark.jdbc.user", "admin"));
+      dataSource.setPassword(System.getProperty("benchmark.jdbc.password", "root"));
+      jdbcTemplate = new JdbcTemplate(dataSource);
+      StockHistoryService stockHistoryService = new StockHistoryService(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+          new ActivityArchive(jdbcTemplate, new SimpleMeterRegistry(), Path.of("archive")), 1L);
+      try {
+        for (int rows : new int[]{100_000, 1_000_000}) {
+          seed(rows);
+          long step = HISTORY.toMillis() / rows;
+          measure("full-replay", rows, step, at -> jdbcTemplate.queryForObject(FULL_REPLAY_SQL, Long.class, itemId, Timestamp.valueOf(at)));
+          measure("checkpoint", rows, step, at -> stockHistoryService.getStockAt(itemId, at, 1L).getBody().getTotalQuantity().longValue());
+        }
+      } finally {
+        cleanUp();
+      }
+    }
+  }
+
+  private interface StockQuery {
+    long stockAt(LocalDateTime at);
+  }
+
+  private void measure(String mode, int rows, long step, StockQuery query) {
+    long[] micros = new long[QUERIES];
+    for (int i = -QUERIES / 10; i < QUERIES; i++) {
+      LocalDateTime at = START.plusSeconds(ThreadLocalRandom.current().nextLong(HISTORY.toSeconds()));
+      long start = System.nanoTime();
+      long quantity = query.stockAt(at);
+      long elapsed = (System.nanoTime() - start) / 1_000;
+      if (quantity != expected(at, step)) {
+        throw new AssertionError(mode + " at " + at + ": " + quantity + ", expected " + expected(at, step));
+      }
+      // The first tenth warms up
+      if (i >= 0) {
+        micros[i] = elapsed;
+      }
+    }
+    Arrays.sort(micros);
+    System.out.printf("mode=%-11s history=%d rows queries=%d p50=%.2fms p99=%.2fms%n",
+        mode, rows, QUERIES, micros[QUERIES / 2] / 1000.0, micros[QUERIES * 99 / 100] / 1000.0);
+  }
+
+  // Row g (from 1) is at START + g * step; every fourth adds 4, the others sell 1
+  private long expected(LocalDateTime at, long step) {
+    long rows = Duration.between(START, at).toMillis() / step;
+    long adds = rows / 4;
+    return 4 * adds - (rows - adds);
+  }
+
+  private void seed(int rows) {
+    cleanUp();
+    long step = HISTORY.toMillis() / rows;
+    itemId = jdbcTemplate.queryForObject("INSERT INTO item (item_name, item_price, is_deleted) VALUES (?, 1.00, false) RETURNING item_id",
+        Long.class, ITEM_NAME);
+    jdbcTemplate.update("""
+        INSERT INTO inventory_activity (activity_type, activity_value, activity_timestamp, item_id, item_name, store_id)
+        SELECT CASE WHEN g % 4 = 0 THEN 'ADD' ELSE 'SELL' END, CASE WHEN g % 4 = 0 THEN '4' ELSE '1' END,
+               ?::timestamp + g * make_interval(secs => ? / 1000.0), ?, ?, 1
+        FROM generate_series(1, ?) g""", Timestamp.valueOf(START), step, itemId, ITEM_NAME, rows);
+    LocalDateTime end = START.plus(HISTORY);
+    jdbcTemplate.update("INSERT INTO inventory (item_id, store_id, available_quantity, updation_date) VALUES (?, 1, ?, ?)",
+        itemId, (int) expected(end, step), Timestamp.valueOf(end));
+    // What the checkpoint job would have written every six hours
+    long checkpoints = HISTORY.toMillis() / CHECKPOINT_INTERVAL.toMillis();
+    for (long k = 1; k < checkpoints; k++) {
+      LocalDateTime at = START.plus(CHECKPOINT_INTERVAL.multipliedBy(k));
+      jdbcTemplate.update("INSERT INTO stock_checkpoint (item_id, store_id, checkpoint_at, available_quantity) VALUES (?, 1, ?, ?)",
+          itemId, Timestamp.valueOf(at), (int) expected(at, step));
+    }
+    jdbcTemplate.execute("ANALYZE inventory_activity");
+  }
+
+  private void cleanUp() {
+    jdbcTemplate.update("DELETE FROM stock_checkpoint WHERE item_id IN (SELECT item_id FROM item WHERE item_name = ?)", ITEM_NAME);
+    jdbcTemplate.update("DELETE FROM inventory_activity WHERE item_name = ?", ITEM_NAME);
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name = ?)", ITEM_NAME);
+    jdbcTemplate.update("DELETE FROM item WHERE item_name = ?", ITEM_NAME);
+  }
+}
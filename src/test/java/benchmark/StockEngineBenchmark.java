@@ -0,0 +1,291 @@
+package benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.entity.Inventory;
+import com.org.entity.Item;
+import com.org.kafka.ActivitySpool;
+import com.org.kafka.KafkaProducer;
+import com.org.kafka.StockStatePublisher;
+import com.org.model.InventoryRequest;
+import com.org.model.InventoryResponse;
+import com.org.repository.InventoryRepository;
+import com.org.repository.InventoryRepositoryCustomImpl;
+import com.org.repository.ItemRepository;
+import com.org.service.AdaptiveChunking;
+import com.org.service.ExecutionLanes;
+import com.org.service.InventoryActivityEventProducer;
+import com.org.service.InventoryService;
+import com.org.service.ItemIdFilter;
+import com.org.service.JacksonConfig;
+import com.org.service.StockEngine;
+import com.org.service.StoreWriteRouter;
+import com.org.utility.ResponseStatus;
+import com.org.utility.StockOperationType;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+// inventory/update from 10 concurrent callers, 10 ADD or REMOVE lines per call on items drawn from a Zipfian
+// distribution (s = 0.99 over 10,000 items, so the top 10 items take about a quarter of the lines), through
+// InventoryService as deployed: store lanes (one lane task and one transaction per call, up to four at once for
+// the single store) and the stock engine at 1, 2, 4 and 8 shards. Reads and writes go to Postgres; stock rows
+// locked and read for a chunk are written back before commit when changed, as Hibernate's flush would.
+// Reported: lines per second, call p50 and p99, mean lines per engine commit, and lost updates (database
+// total against the committed lines).
+// Shard counts can only be compared on a host with cores to spare for both the shards and the database;
+// on a single core more shards just means smaller groups, so each row prints the cores it ran on.
+// Run with: mvn test -Dtest=StockEngineBenchmark -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5433/instore_db
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+class StockEngineBenchmark {
+
+  private static final String PREFIX = "stock-engine-bench-";
+  private static final int ITEMS = 10_000;
+  private static final double ZIPF_EXPONENT = 0.99;
+  private static final int CALLERS = 10;
+  private static final int LINES_PER_CALL = 10;
+  private static final int OPENING_STOCK = 1_000_000;
+  private static final int SECONDS = Integer.getInteger("benchmark.seconds", 20);
+  private static final int POOL_SIZE = 10;
+
+  private JdbcTemplate jdbcTemplate;
+  private TransactionTemplate transactionTemplate;
+  private long[] itemIds;
+  private double[] cumulative;
+
+  @Test
+  void zipfianUpdates() throws Exception {
+    try (HikariDataSource dataSource = new HikariDataSource()) {
+      dataSource.setJdbcUrl(System.getProperty("benchmark.jdbc.url"));
+      dataSource.setUsername(System.getProperty("benchmark.jdbc.user", "admin"));
+      dataSource.setPassword(System.getProperty("benchmark.jdbc.password", "root"));
+      dataSource.setMaximumPoolSize(POOL_SIZE);
+      jdbcTemplate = new JdbcTemplate(dataSource);
+      transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+      seed();
+      zipf();
+      try {
+        for (int shards : new int[]{0, 1, 2, 4, 8}) {
+          run(shards, true);
+          run(shards, false);
+        }
+      } finally {
+        cleanUp();
+      }
+    }
+  }
+
+  // shards = 0 is the store-lane path
+  private void run(int shards, boolean warmup) throws Exception {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    ActivitySpool spool = new ActivitySpool(Files.createTempDirectory("stock-engine-spool"), DataSize.ofMegabytes(64),
+        DataSize.ofGigabytes(4), "none", new SimpleMeterRegistry());
+    spool.open();
+    ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+    JacksonConfig jacksonConfig = new JacksonConfig() {
+      @Override
+      public ObjectMapper objectMapper() {
+        return objectMapper;
+      }
+    };
+    InventoryActivityEventProducer producer = new InventoryActivityEventProducer(
+        new KafkaProducer(null, new SimpleMeterRegistry(), 1, 1), jacksonConfig, Optional.of(spool));
+    StockStatePublisher stockStatePublisher = new StockStatePublisher(null, jacksonConfig, new SimpleMeterRegistry(),
+        "stock-state", false, null);
+    StockEngine stockEngine = new StockEngine(inventoryRepository(), transactionTemplate, producer, stockStatePublisher,
+        meterRegistry, shards > 0, Math.max(1, shards), 1_000, 50_000, 100_000);
+    stockEngine.start();
+    ExecutionLanes lanes = new ExecutionLanes(POOL_SIZE, POOL_SIZE, POOL_SIZE, new SimpleMeterRegistry());
+    StoreWriteRouter router = new StoreWriteRouter(1L, 60, 50_000, 4, Duration.ofSeconds(30), lanes,
+        inventoryRepository());
+    InventoryService inventoryService = new InventoryService(inventoryRepository(), itemRepository(), router, producer,
+        stockStatePublisher, transactionTemplate, new AdaptiveChunking(new MockEnvironment(), new SimpleMeterRegistry()),
+        unfiltered(), stockEngine, new SimpleMeterRegistry());
+
+    long stockBefore = totalStock();
+    AtomicLong lines = new AtomicLong();
+    AtomicLong netChange = new AtomicLong();
+    AtomicLong failedLines = new AtomicLong();
+    ConcurrentLinkedQueue<Long> callMicros = new ConcurrentLinkedQueue<>();
+    long seconds = warmup ? 5 : SECONDS;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    long start = System.nanoTime();
+    for (int i = 0; i < CALLERS; i++) {
+      callers.execute(() -> {
+        while (System.nanoTime() < deadline) {
+          List<InventoryRequest> call = call();
+          long sent = System.nanoTime();
+          List<InventoryResponse> responses = inventoryService.updateInventory(call).getBody();
+          callMicros.add((System.nanoTime() - sent) / 1_000);
+          for (int line = 0; line < call.size(); line++) {
+            if (responses.get(line).getStatus() == ResponseStatus.SUCCESS) {
+              InventoryRequest request = call.get(line);
+              netChange.addAndGet(request.getOperationType().equals("ADD") ? request.getQuantity() : -request.getQuantity());
+            } else {
+              failedLines.incrementAndGet();
+            }
+          }
+          lines.addAndGet(call.size());
+        }
+      });
+    }
+    callers.shutdown();
+    callers.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    stockEngine.stop();
+    router.shutdown();
+    spool.close();
+
+    if (!warmup) {
+      long[] sorted = callMicros.stream().mapToLong(Long::longValue).toArray();
+      Arrays.sort(sorted);
+      double groupLines = shards > 0 ? meterRegistry.get("instore.stock-engine.group.lines").summary().mean() : 1;
+      System.out.printf("cores=%d path=%-14s lines/s=%7.0f call p50=%6.1fms p99=%6.1fms lines/commit=%6.1f failed=%d lost updates=%d%n",
+          Runtime.getRuntime().availableProcessors(), shards > 0 ? "engine-" + shards : "store-lanes", lines.get() / elapsed,
+          sorted[sorted.length / 2] / 1000.0, sorted[(int) (sorted.length * 0.99)] / 1000.0,
+          shards > 0 ? groupLines : LINES_PER_CALL, failedLines.get(), stockBefore + netChange.get() - totalStock());
+    }
+  }
+
+  private List<InventoryRequest> call() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    List<InventoryRequest> call = new ArrayList<>(LINES_PER_CALL);
+    for (int i = 0; i < LINES_PER_CALL; i++) {
+      int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+      call.add(InventoryRequest.builder()
+          .itemId(itemIds[rank < 0 ? Math.min(-rank - 1, ITEMS - 1) : rank])
+          .storeId(1L)
+          .quantity(1 + random.nextInt(3))
+          .operationType(random.nextBoolean() ? StockOperationType.ADD.name() : StockOperationType.REMOVE.name())
+          .build());
+    }
+    return call;
+  }
+
+  // P(rank k) proportional to 1 / k^s
+  private void zipf() {
+    cumulative = new double[ITEMS];
+    double sum = 0;
+    for (int k = 1; k <= ITEMS; k++) {
+      sum += 1 / Math.pow(k, ZIPF_EXPONENT);
+      cumulative[k - 1] = sum;
+    }
+    for (int k = 0; k < ITEMS; k++) {
+      cumulative[k] /= sum;
+    }
+  }
+
+  private long totalStock() {
+    return jdbcTemplate.queryForObject("""
+        SELECT sum(inv.available_quantity) FROM inventory inv JOIN item i ON i.item_id = inv.item_id
+        WHERE i.item_name LIKE ?""", Long.class, PREFIX + "%");
+  }
+
+  @SuppressWarnings("unchecked")
+  private InventoryRepository inventoryRepository() {
+    InventoryRepositoryCustomImpl custom = new InventoryRepositoryCustomImpl(jdbcTemplate);
+    return (InventoryRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{InventoryRepository.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "existsByStoreId" -> true;
+          case "findAllByStoreIdAndItemIdIn" -> readForFlush((Long) args[0], (Collection<Long>) args[1]);
+          case "loadStock" -> custom.loadStock((List<Long>) args[0], (List<Long>) args[1]);
+          case "compareAndSetStock" -> custom.compareAndSetStock((List<Long>) args[0], (List<Long>) args[1],
+              (List<Integer>) args[2], (List<Integer>) args[3]);
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  // Rows locked in item order and held as the persistence context would hold them; the changed ones are
+  // written in one batch before commit
+  private List<Inventory> readForFlush(Long storeId, Collection<Long> itemIds) {
+    List<Inventory> rows = jdbcTemplate.query("""
+            SELECT inventory_id, item_id, store_id, available_quantity, updation_date FROM inventory
+            WHERE store_id = ? AND item_id = ANY(?::bigint[])
+            ORDER BY item_id FOR UPDATE""",
+        ps -> {
+          ps.setLong(1, storeId);
+          ps.setArray(2, ps.getConnection().createArrayOf("bigint", itemIds.toArray()));
+        },
+        (rs, rowNum) -> Inventory.builder()
+            .id(rs.getLong(1))
+            .itemId(rs.getLong(2))
+            .storeId(rs.getLong(3))
+            .availableQuantity(rs.getInt(4))
+            .updationDate(rs.getTimestamp(5).toLocalDateTime())
+            .build());
+    Map<Inventory, Integer> loaded = new HashMap<>();
+    rows.forEach(row -> loaded.put(row, row.getAvailableQuantity()));
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void beforeCommit(boolean readOnly) {
+        List<Inventory> dirty = loaded.entrySet().stream()
+            .filter(entry -> !entry.getKey().getAvailableQuantity().equals(entry.getValue()))
+            .map(Map.Entry::getKey)
+            .toList();
+        jdbcTemplate.batchUpdate("UPDATE inventory SET available_quantity = ?, updation_date = LOCALTIMESTAMP WHERE inventory_id = ?",
+            dirty, dirty.size(), (PreparedStatement ps, Inventory row) -> {
+              ps.setInt(1, row.getAvailableQuantity());
+              ps.setLong(2, row.getId());
+            });
+      }
+    });
+    return rows;
+  }
+
+  private ItemRepository itemRepository() {
+    return (ItemRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ItemRepository.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "findAllById" -> jdbcTemplate.query("SELECT item_id, item_name, is_deleted FROM item WHERE item_id = ANY(?::bigint[])",
+              ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ((Collection<?>) args[0]).toArray())),
+              (rs, rowNum) -> Item.builder().id(rs.getLong(1)).itemName(rs.getString(2)).isDeleted(rs.getBoolean(3)).build());
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  private void seed() {
+    cleanUp();
+    itemIds = jdbcTemplate.queryForList("""
+        INSERT INTO item (item_name, item_price, is_deleted)
+        SELECT ? || g, 1.00, false FROM generate_series(1, ?) g RETURNING item_id""", Long.class, PREFIX, ITEMS)
+        .stream().mapToLong(Long::longValue).toArray();
+    jdbcTemplate.update("""
+        INSERT INTO inventory (item_id, store_id, available_quantity)
+        SELECT item_id, 1, ? FROM item WHERE item_name LIKE ?""", OPENING_STOCK, PREFIX + "%");
+    jdbcTemplate.execute("VACUUM ANALYZE inventory");
+  }
+
+  private void cleanUp() {
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name LIKE ?)", PREFIX + "%");
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ?", PREFIX + "%");
+  }
+
+  // Never built, so every id passes
+  private ItemIdFilter unfiltered() {
+    return new ItemIdFilter(null, null, new SimpleMeterRegistry(), false, 0.01, 0, 0);
+  }
+}
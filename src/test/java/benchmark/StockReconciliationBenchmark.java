@@ -0,0 +1,63 @@
+package benchmark;
+
+import static org.mockito.Mockito.mock;
+
+import com.org.job.StockReconciliationJob;
+import com.org.kafka.StockStatePublisher;
+import com.org.model.ReconciliationReport;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+// Seeds 100k items with 100 activity rows each (10M rows) into a scratch database, then reconciles.
+// Run with: mvn test -Dtest=StockReconciliationBenchmark -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5433/bench_db
+// The database must already have the application schema (start the app against it once).
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+class StockReconciliationBenchmark {
+
+  private static final int ITEMS = 100_000;
+  private static final int EVENTS_PER_ITEM = 100;
+
+  @Test
+  void reconcileTenMillionActivityRows() {
+    DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getProperty("benchmark.jdbc.url"),
+        System.getProperty("benchmark.jdbc.user", "admin"), System.getProperty("benchmark.jdbc.password", "root"));
+    JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+    Long seeded = jdbcTemplate.queryForObject("SELECT count(*) FROM inventory_activity", Long.class);
+    if (seeded == null || seeded != (long) ITEMS * EVENTS_PER_ITEM) {
+      seed(jdbcTemplate);
+    }
+
+    for (int parallelism : new int[]{1, 4}) {
+      StockReconciliationJob job = new StockReconciliationJob(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+          mock(StockStatePublisher.class), 1L, parallelism, 20_000, 5_000, Duration.ofMinutes(1), false);
+      Runtime runtime = Runtime.getRuntime();
+      System.gc();
+      ReconciliationReport report = job.reconcile(false);
+      System.out.printf("parallelism=%d activityRows=%d stockRows=%d drifts=%d time=%.1fs heapUsed=%dMB%n",
+          parallelism, report.getActivityRowsRead(), report.getStockRowsChecked(), report.getDriftCount(),
+          report.getDurationMs() / 1000.0, (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024));
+    }
+  }
+
+  private void seed(JdbcTemplate jdbcTemplate) {
+    jdbcTemplate.execute("TRUNCATE inventory_activity, inventory, item RESTART IDENTITY CASCADE");
+    jdbcTemplate.update("INSERT INTO item (item_name, item_price) SELECT 'item-' || g, 1.00 FROM generate_series(1, ?) g", ITEMS);
+    // Every 1000th item gets a lost update, which the job must find
+    jdbcTemplate.update("""
+        INSERT INTO inventory (item_id, store_id, available_quantity, updation_date)
+        SELECT g, 1, ? - CASE WHEN g % 1000 = 0 THEN 1 ELSE 0 END, LOCALTIMESTAMP - interval '1 hour'
+        FROM generate_series(1, ?) g""", EVENTS_PER_ITEM / 2 * 10 - EVENTS_PER_ITEM / 2 * 3, ITEMS);
+    long seedStart = System.nanoTime();
+    jdbcTemplate.update("""
+        INSERT INTO inventory_activity (activity_type, activity_value, item_id, store_id, activity_timestamp)
+        SELECT CASE WHEN e % 2 = 0 THEN 'ADD' ELSE 'SELL' END, CASE WHEN e % 2 = 0 THEN '10' ELSE '3' END, g, 1, LOCALTIMESTAMP
+        FROM generate_series(1, ?) g, generate_series(1, ?) e""", ITEMS, EVENTS_PER_ITEM);
+    jdbcTemplate.execute("ANALYZE inventory_activity");
+    System.out.printf("seeded %d activity rows in %.1fs%n", (long) ITEMS * EVENTS_PER_ITEM, (System.nanoTime() - seedStart) / 1e9);
+  }
+}
@@ -0,0 +1,74 @@
+package benchmark;
+
+import com.org.kafka.KafkaProducerConfig;
+import com.org.kafka.StockStateCache;
+import com.org.service.JacksonConfig;
+import com.org.utility.ProducerProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+// Catch-up time of a fresh StockStateCache on 1M store/item keys: once from a fully compacted topic
+// (one record per key) and once with an uncompacted tail of another update per key on top.
+// Run with: mvn test -Dtest=StockStateBootstrapBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StockStateBootstrapBenchmark {
+
+  private static final String TOPIC = "stock-state";
+  private static final int STORES = 8;
+  private static final int ITEMS_PER_STORE = 125_000;
+  private static final String STATE = "{\"itemId\":%d,\"storeId\":%d,\"availableQuantity\":%d,\"updatedAt\":\"2024-10-01T10:15:30Z\"}";
+
+  @Test
+  void catchUpOnOneMillionKeys() {
+    EmbeddedKafkaKraftBroker broker = new EmbeddedKafkaKraftBroker(1, 6, TOPIC);
+    broker.afterPropertiesSet();
+    DefaultKafkaProducerFactory<String, String> producerFactory = new DefaultKafkaProducerFactory<>(
+        KafkaProducerConfig.producerProperties(ProducerProfile.THROUGHPUT, Duration.ofSeconds(30), Map.of(
+            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+            ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class)));
+    KafkaTemplate<String, String> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+    KafkaProperties kafkaProperties = new KafkaProperties();
+    kafkaProperties.setBootstrapServers(List.of(broker.getBrokersAsString()));
+    try {
+      for (int pass = 1; pass <= 2; pass++) {
+        for (long store = 1; store <= STORES; store++) {
+          for (long item = 1; item <= ITEMS_PER_STORE; item++) {
+            kafkaTemplate.send(TOPIC, store + ":" + item, STATE.formatted(item, store, 1_000 - pass));
+          }
+        }
+        kafkaTemplate.flush();
+        bootstrap(kafkaProperties, pass * STORES * ITEMS_PER_STORE);
+      }
+    } finally {
+      producerFactory.destroy();
+      broker.destroy();
+    }
+  }
+
+  private void bootstrap(KafkaProperties kafkaProperties, long records) {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+    StockStateCache cache = new StockStateCache(kafkaProperties, new JacksonConfig(), new SimpleMeterRegistry(),
+        TOPIC, Duration.ofMinutes(5));
+    long start = System.nanoTime();
+    cache.start();
+    double seconds = (System.nanoTime() - start) / 1e9;
+    System.gc();
+    long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+    System.out.printf("records=%d keys=%d catchUp=%.2fs throughput=%.0f records/s heap=%dMB%n",
+        records, cache.size(), seconds, records / seconds, (heapAfter - heapBefore) / (1024 * 1024));
+    cache.stop();
+  }
+}
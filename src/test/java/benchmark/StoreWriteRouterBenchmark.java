@@ -0,0 +1,191 @@
+package benchmark;
+
+import com.org.InStoreApplication;
+import com.org.kafka.StockStatePublisher;
+import com.org.model.InventoryRequest;
+import com.org.model.InventoryResponse;
+import com.org.repository.InventoryRepository;
+import com.org.repository.ItemRepository;
+import com.org.service.AdaptiveChunking;
+import com.org.service.ExecutionLanes;
+import com.org.service.InventoryActivityEventProducer;
+import com.org.service.InventoryService;
+import com.org.service.ItemIdFilter;
+import com.org.service.StockEngine;
+import com.org.service.StoreWriteRouter;
+import com.org.utility.ResponseStatus;
+import com.org.utility.StockOperationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// inventory/update through InventoryService with the application's JPA repositories, transaction manager and
+// lane budgets against Postgres: 10 concurrent callers, each call 10 ADD or REMOVE lines on one store drawn
+// at random, items uniform over 2,000 per store. Sweeps the number of stores written to (1, 4) and lanes per
+// store (1, 4). At most instore.lanes.bulk.max-connections chunks run at once, however many lanes there are.
+// Reported: lines per second, call p50 and p99, failed lines and lost updates (database total against the
+// committed lines). Each row prints the cores it ran on.
+// Run with: mvn test -Dtest=StoreWriteRouterBenchmark -Dbenchmark.jdbc.url=jdbc:postgresql://localhost:5433/instore_db
+@EnabledIfSystemProperty(named = "benchmark.jdbc.url", matches = ".+")
+@SpringBootTest(classes = InStoreApplication.class, properties = {"instore.consumer.retry.auto-create-topics=false",
+    "instore.stock-state.create-topic=false", "spring.kafka.listener.auto-startup=false",
+    "spring.datasource.url=${benchmark.jdbc.url}", "instore.spool.enabled=true", "instore.spool.dir=target/store-lane-bench-spool"})
+class StoreWriteRouterBenchmark {
+
+  private static final String PREFIX = "store-lane-bench-";
+  private static final int ITEMS = 2_000;
+  private static final int MAX_STORES = 4;
+  private static final int CALLERS = 10;
+  private static final int LINES_PER_CALL = 10;
+  private static final int OPENING_STOCK = 1_000_000;
+  private static final int SECONDS = Integer.getInteger("benchmark.seconds", 15);
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private InventoryRepository inventoryRepository;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private InventoryActivityEventProducer inventoryActivityEventProducer;
+
+  @Autowired
+  private StockStatePublisher stockStatePublisher;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private AdaptiveChunking adaptiveChunking;
+
+  @Autowired
+  private ItemIdFilter itemIdFilter;
+
+  @Autowired
+  private StockEngine stockEngine;
+
+  @Autowired
+  private ExecutionLanes executionLanes;
+
+  private long[] itemIds;
+
+  @Test
+  void updateThroughputByStoresAndLanes() throws Exception {
+    seed();
+    try {
+      for (int stores : new int[]{1, MAX_STORES}) {
+        for (int lanesPerStore : new int[]{1, 4}) {
+          run(stores, lanesPerStore, true);
+          run(stores, lanesPerStore, false);
+        }
+      }
+    } finally {
+      cleanUp();
+    }
+  }
+
+  private void run(int stores, int lanesPerStore, boolean warmup) throws Exception {
+    StoreWriteRouter router = new StoreWriteRouter(1L, 60, 50_000, lanesPerStore, Duration.ofSeconds(30), executionLanes,
+        inventoryRepository);
+    InventoryService inventoryService = new InventoryService(inventoryRepository, itemRepository, router,
+        inventoryActivityEventProducer, stockStatePublisher, transactionTemplate, adaptiveChunking, itemIdFilter, stockEngine,
+        new SimpleMeterRegistry());
+
+    long stockBefore = totalStock();
+    AtomicLong lines = new AtomicLong();
+    AtomicLong netChange = new AtomicLong();
+    AtomicLong failedLines = new AtomicLong();
+    ConcurrentLinkedQueue<Long> callMicros = new ConcurrentLinkedQueue<>();
+    long seconds = warmup ? 5 : SECONDS;
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+    ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    long start = System.nanoTime();
+    for (int i = 0; i < CALLERS; i++) {
+      callers.execute(() -> {
+        while (System.nanoTime() < deadline) {
+          List<InventoryRequest> call = call(stores);
+          long sent = System.nanoTime();
+          List<InventoryResponse> responses = inventoryService.updateInventory(call).getBody();
+          callMicros.add((System.nanoTime() - sent) / 1_000);
+          for (int line = 0; line < call.size(); line++) {
+            if (responses != null && responses.get(line).getStatus() == ResponseStatus.SUCCESS) {
+              InventoryRequest request = call.get(line);
+              netChange.addAndGet(request.getOperationType().equals("ADD") ? request.getQuantity() : -request.getQuantity());
+            } else {
+              failedLines.incrementAndGet();
+            }
+          }
+          lines.addAndGet(call.size());
+        }
+      });
+    }
+    callers.shutdown();
+    callers.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    router.shutdown();
+
+    if (!warmup) {
+      long[] sorted = callMicros.stream().mapToLong(Long::longValue).toArray();
+      Arrays.sort(sorted);
+      System.out.printf("cores=%d stores=%d lanes/store=%d lines/s=%7.0f call p50=%6.1fms p99=%6.1fms failed=%d lost updates=%d%n",
+          Runtime.getRuntime().availableProcessors(), stores, lanesPerStore, lines.get() / elapsed,
+          sorted[sorted.length / 2] / 1000.0, sorted[(int) (sorted.length * 0.99)] / 1000.0, failedLines.get(),
+          stockBefore + netChange.get() - totalStock());
+    }
+  }
+
+  private List<InventoryRequest> call(int stores) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long storeId = 1 + random.nextInt(stores);
+    List<InventoryRequest> call = new ArrayList<>(LINES_PER_CALL);
+    for (int i = 0; i < LINES_PER_CALL; i++) {
+      call.add(InventoryRequest.builder()
+          .itemId(itemIds[random.nextInt(ITEMS)])
+          .storeId(storeId)
+          .quantity(1 + random.nextInt(3))
+          .operationType(random.nextBoolean() ? StockOperationType.ADD.name() : StockOperationType.REMOVE.name())
+          .build());
+    }
+    return call;
+  }
+
+  private long totalStock() {
+    return jdbcTemplate.queryForObject("""
+        SELECT sum(inv.available_quantity) FROM inventory inv JOIN item i ON i.item_id = inv.item_id
+        WHERE i.item_name LIKE ?""", Long.class, PREFIX + "%");
+  }
+
+  private void seed() {
+    cleanUp();
+    itemIds = jdbcTemplate.queryForList("""
+        INSERT INTO item (item_name, item_price, is_deleted)
+        SELECT ? || g, 1.00, false FROM generate_series(1, ?) g RETURNING item_id""", Long.class, PREFIX, ITEMS)
+        .stream().mapToLong(Long::longValue).toArray();
+    jdbcTemplate.update("""
+        INSERT INTO inventory (item_id, store_id, available_quantity, updation_date)
+        SELECT i.item_id, s, ?, LOCALTIMESTAMP FROM item i CROSS JOIN generate_series(1, ?) s
+        WHERE i.item_name LIKE ?""", OPENING_STOCK, MAX_STORES, PREFIX + "%");
+  }
+
+  private void cleanUp() {
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name LIKE ?)", PREFIX + "%");
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ?", PREFIX + "%");
+  }
+}
@@ -0,0 +1,156 @@
+package com.org.inStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.org.job.ActivityArchiveJob;
+import com.org.job.StockReconciliationJob;
+import com.org.model.ActivitySummaryResponse;
+import com.org.model.ActivityTypeTotal;
+import com.org.model.ArchivedActivity;
+import com.org.model.StockAtTimeResponse;
+import com.org.service.ActivityHistoryService;
+import com.org.service.StockHistoryService;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Archiving against the local Postgres: ADD 100 and SELL 30 in January 2000, ADD 5 without a store in
+// February 2000 and REMOVE 10 yesterday. The retention reaches back to 2002, so only this item's 2000
+// activity is old enough to move. History, totals, stock at time and reconciliation must read the same
+// before and after the move.
+@SpringBootTest(properties = {"instore.consumer.retry.auto-create-topics=false", "instore.stock-state.create-topic=false",
+    "instore.grpc.port=0", "instore.purge.enabled=false", "spring.kafka.listener.auto-startup=false",
+    "instore.archive.enabled=true", "instore.archive.initial-delay=PT1H", "instore.archive.dir=target/archive-test",
+    "instore.archive.retention=P9000D"})
+class ActivityArchiveTest {
+
+  private static final String ITEM_NAME = "activity-archive-item";
+  private static final Path ARCHIVE_DIR = Path.of("target/archive-test");
+  private static final LocalDateTime JANUARY = LocalDateTime.of(2000, 1, 10, 9, 30);
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ActivityArchiveJob activityArchiveJob;
+
+  @Autowired
+  private ActivityHistoryService activityHistoryService;
+
+  @Autowired
+  private StockHistoryService stockHistoryService;
+
+  @Autowired
+  private StockReconciliationJob stockReconciliationJob;
+
+  private long itemId;
+
+  @BeforeEach
+  void createHistory() throws IOException {
+    deleteHistory();
+    itemId = jdbcTemplate.queryForObject("INSERT INTO item (item_name, item_price, is_deleted) VALUES (?, 1.00, false) RETURNING item_id",
+        Long.class, ITEM_NAME);
+    activity("ADD", "100", JANUARY, 1L);
+    activity("SELL", "30", JANUARY.plusDays(1), 1L);
+    activity("ADD", "5", JANUARY.plusMonths(1), null);
+    activity("REMOVE", "10", LocalDateTime.now().minusDays(1), 1L);
+    jdbcTemplate.update("INSERT INTO inventory (item_id, store_id, available_quantity, updation_date) VALUES (?, 1, 65, ?)",
+        itemId, Timestamp.valueOf(LocalDateTime.now().minusDays(1)));
+  }
+
+  @AfterEach
+  void deleteHistory() throws IOException {
+    jdbcTemplate.update("DELETE FROM activity_archive_balance WHERE item_id IN (SELECT item_id FROM item WHERE item_name = ?)", ITEM_NAME);
+    jdbcTemplate.update("DELETE FROM activity_archive_file WHERE month_start < '2002-01-01'");
+    jdbcTemplate.update("DELETE FROM inventory_activity WHERE item_name = ?", ITEM_NAME);
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name = ?)", ITEM_NAME);
+    jdbcTemplate.update("DELETE FROM item WHERE item_name = ?", ITEM_NAME);
+    if (Files.isDirectory(ARCHIVE_DIR)) {
+      try (Stream<Path> files = Files.walk(ARCHIVE_DIR)) {
+        files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+      }
+    }
+  }
+
+  @Test
+  void archive_ShouldMoveOldMonthsToFiles_AndKeepEveryReadTheSame() throws IOException {
+    List<ArchivedActivity> historyBefore = history();
+    StockAtTimeResponse stockBefore = stockHistoryService.getStockAt(itemId, JANUARY.plusDays(20), null).getBody();
+    ActivitySummaryResponse summaryBefore = activityHistoryService.getSummary(itemId, JANUARY.minusYears(1), LocalDateTime.now())
+        .getBody();
+
+    assertEquals(3, activityArchiveJob.archive());
+
+    assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM inventory_activity WHERE item_id = ?", Integer.class, itemId));
+    assertEquals(2, jdbcTemplate.queryForObject("SELECT count(*) FROM activity_archive_file WHERE ? BETWEEN item_from AND item_to",
+        Integer.class, itemId));
+    try (Stream<Path> files = Files.list(ARCHIVE_DIR)) {
+      assertEquals(2, files.filter(path -> path.toString().endsWith(".iac")).count());
+    }
+
+    List<ArchivedActivity> historyAfter = history();
+    assertEquals(List.of(true, true, true, false), historyAfter.stream().map(ArchivedActivity::isArchived).toList());
+    historyAfter.forEach(row -> row.setArchived(false));
+    assertEquals(historyBefore, historyAfter);
+
+    StockAtTimeResponse stockAfter = stockHistoryService.getStockAt(itemId, JANUARY.plusDays(20), null).getBody();
+    assertEquals(70, stockAfter.getTotalQuantity());
+    assertEquals(stockBefore, stockAfter);
+
+    ActivitySummaryResponse summaryAfter = activityHistoryService.getSummary(itemId, JANUARY.minusYears(1), LocalDateTime.now())
+        .getBody();
+    assertEquals(3L, summaryAfter.getArchivedActivities());
+    assertEquals(1L, summaryAfter.getLiveActivities());
+    assertEquals(totals(summaryBefore), totals(summaryAfter));
+    assertEquals(List.of(2L, 105L), totals(summaryAfter).get("ADD"));
+
+    assertTrue(stockReconciliationJob.reconcile(false).getDrifts().stream().noneMatch(drift -> drift.getItemId() == itemId));
+    // Nothing left old enough
+    assertEquals(0, activityArchiveJob.archive());
+  }
+
+  @Test
+  void reads_ShouldAnswer503_WhenArchiveFileIsNotOnThisInstance() {
+    // Catalogued by another instance; the file is on that instance's disk
+    jdbcTemplate.update("""
+        INSERT INTO activity_archive_file (file_name, item_from, item_to, month_start, month_end, row_count, file_bytes,
+          min_activity_id, max_activity_id)
+        VALUES (?, ?, ?, '2000-03-01', '2000-04-01', 1, 1, 1, 1)""", "activity-elsewhere-" + itemId + ".iac", itemId, itemId);
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+        activityHistoryService.getHistory(itemId, JANUARY.minusYears(1), LocalDateTime.now(), 100).getStatusCode());
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE,
+        activityHistoryService.getSummary(itemId, JANUARY.minusYears(1), LocalDateTime.now()).getStatusCode());
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, stockHistoryService.getStockAt(itemId, JANUARY.plusDays(20), null).getStatusCode());
+  }
+
+  private List<ArchivedActivity> history() {
+    return activityHistoryService.getHistory(itemId, JANUARY.minusYears(1), LocalDateTime.now(), 100).getBody();
+  }
+
+  private Map<String, List<Long>> totals(ActivitySummaryResponse summary) {
+    return summary.getTotals().stream().collect(Collectors.toMap(ActivityTypeTotal::getActivityType,
+        total -> List.of(total.getActivities(), total.getQuantity())));
+  }
+
+  private void activity(String type, String value, LocalDateTime at, Long storeId) {
+    jdbcTemplate.update("""
+        INSERT INTO inventory_activity (activity_type, activity_value, message, item_name, item_id, store_id, activity_timestamp)
+        VALUES (?, ?, ?, ?, ?, ?, ?)""", type, value, type + " " + value, ITEM_NAME, itemId, storeId, Timestamp.valueOf(at));
+  }
+}
@@ -0,0 +1,209 @@
+package com.org.inStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.org.service.StoreWriteRouter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Guards against per-line SQL creeping back into the write endpoints: each endpoint runs with 1, 100 and
+// 10,000 lines and must stay within a statement and transaction budget that grows per chunk, not per line.
+// Statements are counted at the JDBC boundary (a JDBC batch is one statement); transactions are commits
+// plus statements run in autocommit. Needs the local Postgres, like InStoreApplicationTests; activity events
+// go to a local spool so a slow broker doesn't stretch the run. Adaptive chunking is off, so chunks keep
+// their initial sizes.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "instore.consumer.retry.auto-create-topics=false", "instore.stock-state.create-topic=false", "instore.grpc.port=0",
+    "instore.purge.enabled=false", "spring.kafka.listener.auto-startup=false", "spring.jpa.show-sql=false",
+    "instore.spool.enabled=true", "instore.spool.dir=target/statement-budget-spool", "instore.chunking.adaptive=false"})
+class EndpointStatementBudgetTest {
+
+  private static final String PREFIX = "sql-budget-";
+  private static final long STORE_ID = 1L;
+  private static final AtomicLong STATEMENTS = new AtomicLong();
+  private static final AtomicLong TRANSACTIONS = new AtomicLong();
+
+  @Autowired
+  private TestRestTemplate restTemplate;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private StoreWriteRouter storeWriteRouter;
+
+  private final List<Long> itemIds = new ArrayList<>();
+
+  @TestConfiguration
+  static class CountingDataSourceConfig {
+
+    @Bean
+    static BeanPostProcessor countingDataSource() {
+      return new BeanPostProcessor() {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+          return bean instanceof DataSource dataSource ? counting(dataSource, DataSource.class) : bean;
+        }
+      };
+    }
+
+    // Connections and statements handed out are wrapped too, so every execute and commit is seen
+    private static Object counting(Object target, Class<?> type) {
+      return Proxy.newProxyInstance(EndpointStatementBudgetTest.class.getClassLoader(), new Class<?>[]{type},
+          (proxy, method, args) -> {
+            String name = method.getName();
+            if (target instanceof Statement statement && name.startsWith("execute")) {
+              STATEMENTS.incrementAndGet();
+              if (statement.getConnection().getAutoCommit()) {
+                TRANSACTIONS.incrementAndGet();
+              }
+            } else if (target instanceof Connection && name.equals("commit")) {
+              TRANSACTIONS.incrementAndGet();
+            }
+            Object result = invoke(target, method, args);
+            if (result instanceof Connection connection) {
+              return counting(connection, Connection.class);
+            }
+            if (result instanceof Statement statement && method.getReturnType() != Object.class) {
+              return counting(statement, method.getReturnType());
+            }
+            return result;
+          });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+      try {
+        return method.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        throw e.getCause();
+      }
+    }
+  }
+
+  private record Budget(long statements, long transactions) {
+  }
+
+  @BeforeEach
+  void createItems() {
+    deleteItems();
+    jdbcTemplate.update("""
+        INSERT INTO item (item_name, item_price, is_deleted)
+        SELECT ? || g, 10.00, false FROM generate_series(1, 10000) g""", PREFIX);
+    itemIds.addAll(jdbcTemplate.queryForList("SELECT item_id FROM item WHERE item_name LIKE ? ORDER BY item_id",
+        Long.class, PREFIX + "%"));
+    jdbcTemplate.update("""
+        INSERT INTO inventory (item_id, store_id, available_quantity)
+        SELECT item_id, ?, 1000000 FROM item WHERE item_name LIKE ?""", STORE_ID, PREFIX + "%");
+    // A store is looked up once per instance, before its first write; the budgets are per chunk
+    storeWriteRouter.isKnownStore(STORE_ID);
+  }
+
+  @AfterEach
+  void deleteItems() {
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name LIKE ?)", PREFIX + "%");
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ?", PREFIX + "%");
+    itemIds.clear();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 100, 10_000})
+  void addItem(int lines) {
+    List<Map<String, Object>> body = lines(lines, i -> Map.of("itemName", PREFIX + "added-" + i, "itemPrice", 1.5,
+        "inventory", Map.of("quantity", 5, "storeId", STORE_ID)));
+    // Per 1,000 lines: one INSERT for the items and one for their stock, in one transaction
+    assertWithinBudget("item/add", HttpMethod.POST, body, 201, budget(lines, 1_000, 2, 1));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 100, 10_000})
+  void updateItem(int lines) {
+    List<Map<String, Object>> body = lines(lines, i -> Map.of("itemId", itemIds.get(i), "itemPrice", 2.5));
+    assertWithinBudget("item/update", HttpMethod.PUT, body, 200, budget(lines, 1_000, 1, 1));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 100, 10_000})
+  void repriceItems(int lines) {
+    Map<String, Object> body = Map.of("prices", lines(lines, i -> Map.of("itemId", itemIds.get(i), "itemPrice", 3.5)));
+    assertWithinBudget("item/reprice", HttpMethod.PUT, body, 200, budget(lines, 10_000, 1, 1));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 100, 10_000})
+  void deleteItems(int lines) {
+    assertWithinBudget("item/delete", HttpMethod.POST, itemIds.subList(0, lines), 200, budget(lines, 10_000, 1, 1));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 100, 10_000})
+  void updateInventory(int lines) {
+    List<Map<String, Object>> body = lines(lines, i -> Map.of("itemId", itemIds.get(i), "quantity", 1,
+        "operationType", "ADD", "storeId", STORE_ID));
+    // Per 500 lines: stock rows and items read once, changed rows written in JDBC batches of 100
+    assertWithinBudget("inventory/update", HttpMethod.PUT, body, 200, budget(lines, 500, 7, 1));
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 100, 10_000})
+  void recordSales(int lines) {
+    List<Map<String, Object>> body = lines(lines, i -> Map.of("itemId", itemIds.get(i), "quantity", 1,
+        "operationType", "SELL", "storeId", STORE_ID));
+    assertWithinBudget("inventory/recordSales", HttpMethod.PUT, body, 200, budget(lines, 500, 7, 1));
+  }
+
+  private Budget budget(int lines, int chunkSize, int statementsPerChunk, int transactionsPerChunk) {
+    long chunks = (lines + chunkSize - 1) / chunkSize;
+    return new Budget(chunks * statementsPerChunk, chunks * transactionsPerChunk);
+  }
+
+  private List<Map<String, Object>> lines(int lines, IntFunction<Map<String, Object>> line) {
+    return IntStream.range(0, lines).mapToObj(line).toList();
+  }
+
+  private void assertWithinBudget(String path, HttpMethod method, Object body, int expectedStatus, Budget budget) {
+    STATEMENTS.set(0);
+    TRANSACTIONS.set(0);
+    ResponseEntity<String> response = restTemplate.exchange("/" + path, method, new HttpEntity<>(body), String.class);
+    long statements = STATEMENTS.get();
+    long transactions = TRANSACTIONS.get();
+    System.out.printf("endpoint=%s lines=%d statements=%d transactions=%d%n", path, size(body), statements, transactions);
+
+    assertEquals(expectedStatus, response.getStatusCode().value(), response.getBody());
+    assertTrue(statements <= budget.statements(), path + " ran " + statements + " statements, budget " + budget.statements());
+    assertTrue(transactions <= budget.transactions(),
+        path + " ran " + transactions + " transactions, budget " + budget.transactions());
+  }
+
+  private int size(Object body) {
+    if (body instanceof Map<?, ?> map) {
+      return size(map.get("prices"));
+    }
+    return ((List<?>) body).size();
+  }
+}
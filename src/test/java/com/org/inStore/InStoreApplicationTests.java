@@ -3,7 +3,8 @@ package com.org.inStore;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {"instore.consumer.retry.auto-create-topics=false", "instore.stock-state.create-topic=false",
+    "instore.grpc.port=0"})
 class InStoreApplicationTests {
 
 	@Test
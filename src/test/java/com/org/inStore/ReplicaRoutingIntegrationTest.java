@@ -0,0 +1,70 @@
+package com.org.inStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.org.datasource.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// The local Postgres standing in for both primary and replica. The replica pool's connections carry their
+// own application_name, so each transaction can tell which pool it was given.
+@SpringBootTest(properties = {"instore.consumer.retry.auto-create-topics=false", "instore.stock-state.create-topic=false",
+    "instore.grpc.port=0", "instore.purge.enabled=false", "spring.kafka.listener.auto-startup=false",
+    "instore.datasource.replica.url=${spring.datasource.url}",
+    "instore.datasource.replica.hikari.data-source-properties.ApplicationName=instore-replica"})
+class ReplicaRoutingIntegrationTest {
+
+  private static final String POOL_SQL = "SELECT current_setting('application_name')";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private PlatformTransactionManager transactionManager;
+
+  @Autowired
+  private ReplicaLagMonitor replicaLagMonitor;
+
+  @Autowired
+  @Qualifier("replicaDataSource")
+  private HikariDataSource replicaDataSource;
+
+  @BeforeEach
+  void probe() {
+    replicaLagMonitor.probe();
+  }
+
+  @Test
+  void readOnlyTransaction_ShouldRunOnReplicaPool() {
+    TransactionTemplate readTransaction = new TransactionTemplate(transactionManager);
+    readTransaction.setReadOnly(true);
+
+    assertTrue(replicaLagMonitor.isUsable());
+    assertEquals("instore-replica", readTransaction.execute(status -> jdbcTemplate.queryForObject(POOL_SQL, String.class)));
+  }
+
+  @Test
+  void writeTransaction_ShouldRunOnPrimaryPool() {
+    TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+
+    assertNotEquals("instore-replica", writeTransaction.execute(status -> jdbcTemplate.queryForObject(POOL_SQL, String.class)));
+    assertNotEquals("instore-replica", jdbcTemplate.queryForObject(POOL_SQL, String.class));
+  }
+
+  @Test
+  void replicaPool_ShouldRefuseWrites() {
+    assertThrows(DataAccessException.class, () -> new JdbcTemplate(replicaDataSource)
+        .update("UPDATE item SET item_name = item_name WHERE item_id = -1"));
+  }
+}
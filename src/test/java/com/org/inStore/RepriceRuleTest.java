@@ -0,0 +1,67 @@
+package com.org.inStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.org.model.RepriceRule;
+import com.org.repository.ItemRepository;
+import com.org.repository.ItemRepositoryCustom.RepriceCount;
+import java.math.BigDecimal;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Percentage rules against the local Postgres: items whose new price would round to zero or overflow
+// DECIMAL(10,2) keep their price and are counted, while the rest of the rule still applies.
+@SpringBootTest(properties = {"instore.consumer.retry.auto-create-topics=false", "instore.stock-state.create-topic=false",
+    "instore.grpc.port=0", "spring.kafka.listener.auto-startup=false"})
+class RepriceRuleTest {
+
+  private static final String PREFIX = "reprice-rule-item-";
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @BeforeEach
+  void createItems() {
+    deleteItems();
+    for (String price : new String[] {"0.50", "100.00", "60000000.00"}) {
+      jdbcTemplate.update("INSERT INTO item (item_name, item_price, is_deleted) VALUES (?, ?, false)", PREFIX + price, new BigDecimal(price));
+    }
+  }
+
+  @AfterEach
+  void deleteItems() {
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ?", PREFIX + "%");
+  }
+
+  private BigDecimal price(String name) {
+    return jdbcTemplate.queryForObject("SELECT item_price FROM item WHERE item_name = ?", BigDecimal.class, PREFIX + name);
+  }
+
+  @Test
+  void applyPriceRule_ShouldSkipItemsWhoseNewPriceWouldOverflow() {
+    RepriceCount count = itemRepository.applyPriceRule(RepriceRule.builder().percentage(BigDecimal.valueOf(100))
+        .itemNameContains(PREFIX).build());
+
+    assertEquals(new RepriceCount(3, 2), count);
+    assertEquals(new BigDecimal("1.00"), price("0.50"));
+    assertEquals(new BigDecimal("200.00"), price("100.00"));
+    assertEquals(new BigDecimal("60000000.00"), price("60000000.00"));
+  }
+
+  @Test
+  void applyPriceRule_ShouldSkipItemsWhoseNewPriceWouldRoundToZero() {
+    RepriceCount count = itemRepository.applyPriceRule(RepriceRule.builder().percentage(new BigDecimal("-99.999"))
+        .itemNameContains(PREFIX).maxPrice(new BigDecimal("1000")).build());
+
+    assertEquals(new RepriceCount(2, 0), count);
+    assertEquals(new BigDecimal("0.50"), price("0.50"));
+    assertEquals(new BigDecimal("100.00"), price("100.00"));
+  }
+}
@@ -0,0 +1,164 @@
+package com.org.inStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.org.model.AddItemRequest;
+import com.org.model.InventoryRequest;
+import com.org.service.InventoryService;
+import com.org.service.ItemService;
+import com.org.service.StoreWriteRouter;
+import com.org.utility.ExecutionLane;
+import com.org.utility.StockOperationType;
+import com.zaxxer.hikari.HikariDataSource;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Batch writes open their transactions on the store lanes and worker pools only; single-row endpoints keep a
+// transaction on the request thread. With a two-connection pool, more concurrent batch requests than
+// connections must all still succeed: a request thread that holds a connection while it waits for the workers
+// starves them until Hikari's connection timeout fails the lines.
+@SpringBootTest(properties = {"instore.consumer.retry.auto-create-topics=false", "instore.stock-state.create-topic=false",
+    "instore.grpc.port=0", "spring.kafka.listener.auto-startup=false",
+    "instore.spool.enabled=true", "instore.spool.dir=target/request-thread-spool",
+    "spring.datasource.hikari.maximum-pool-size=2", "spring.datasource.hikari.connection-timeout=2000"})
+class RequestThreadConnectionTest {
+
+  private static final String PREFIX = "request-thread-item-";
+  private static final int CALLERS = 6;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private InventoryService inventoryService;
+
+  @Autowired
+  private ItemService itemService;
+
+  @Autowired
+  private StoreWriteRouter storeWriteRouter;
+
+  @Autowired
+  private DataSource dataSource;
+
+  private long itemId;
+
+  @BeforeEach
+  void createItem() {
+    deleteItems();
+    itemId = jdbcTemplate.queryForObject(
+        "INSERT INTO item (item_name, item_price, is_deleted) VALUES (?, 1.00, false) RETURNING item_id", Long.class, PREFIX + "stock");
+    jdbcTemplate.update("INSERT INTO inventory (item_id, store_id, available_quantity) VALUES (?, 1, 1000)", itemId);
+  }
+
+  @AfterEach
+  void deleteItems() {
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name LIKE ?)", PREFIX + "%");
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ?", PREFIX + "%");
+  }
+
+  private List<HttpStatusCode> concurrently(Callable<HttpStatusCode> call) throws Exception {
+    ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    try {
+      List<Future<HttpStatusCode>> futures = new ArrayList<>();
+      for (int caller = 0; caller < CALLERS; caller++) {
+        futures.add(callers.submit(call));
+      }
+      List<HttpStatusCode> statuses = new ArrayList<>();
+      for (Future<HttpStatusCode> future : futures) {
+        statuses.add(future.get(60, TimeUnit.SECONDS));
+      }
+      return statuses;
+    } finally {
+      callers.shutdownNow();
+    }
+  }
+
+  @Test
+  void updateInventory_ShouldNotStarveStoreLanes_WhenRequestsOutnumberConnections() throws Exception {
+    InventoryRequest line = InventoryRequest.builder().itemId(itemId).storeId(1L).quantity(1)
+        .operationType(StockOperationType.ADD.name()).build();
+
+    List<HttpStatusCode> statuses = concurrently(() -> inventoryService.updateInventory(List.of(line)).getStatusCode());
+
+    assertEquals(List.of(200, 200, 200, 200, 200, 200), statuses.stream().map(HttpStatusCode::value).toList());
+    assertEquals(1000 + CALLERS, jdbcTemplate.queryForObject(
+        "SELECT available_quantity FROM inventory WHERE item_id = ? AND store_id = 1", Integer.class, itemId));
+  }
+
+  @Test
+  void batchWrites_ShouldHoldNoConnection_WhileWaitingOnAStoreLane() throws Exception {
+    InventoryRequest update = InventoryRequest.builder().itemId(itemId).storeId(1L).quantity(1)
+        .operationType(StockOperationType.ADD.name()).build();
+    InventoryRequest sale = InventoryRequest.builder().itemId(itemId).storeId(1L).quantity(1)
+        .operationType(StockOperationType.SELL.name()).build();
+    CountDownLatch release = new CountDownLatch(1);
+    // Occupies the store's lane, so both calls below queue behind it
+    CompletableFuture<Boolean> blocker = storeWriteRouter.submit(1L, ExecutionLane.INTERACTIVE,
+        () -> awaitQuietly(release));
+
+    FutureTask<HttpStatusCode> updating = new FutureTask<>(() -> inventoryService.updateInventory(List.of(update)).getStatusCode());
+    FutureTask<HttpStatusCode> selling = new FutureTask<>(() -> inventoryService.recordSales(List.of(sale)).getStatusCode());
+    Thread updater = new Thread(updating);
+    Thread seller = new Thread(selling);
+    updater.start();
+    seller.start();
+    try {
+      awaitWaiting(updater);
+      awaitWaiting(seller);
+      assertEquals(0, dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections());
+    } finally {
+      release.countDown();
+    }
+
+    assertTrue(blocker.get(10, TimeUnit.SECONDS));
+    assertEquals(200, updating.get(30, TimeUnit.SECONDS).value());
+    assertEquals(200, selling.get(30, TimeUnit.SECONDS).value());
+  }
+
+  private static boolean awaitQuietly(CountDownLatch latch) {
+    try {
+      return latch.await(30, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static void awaitWaiting(Thread caller) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (caller.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+      LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+    }
+    assertEquals(Thread.State.WAITING, caller.getState());
+  }
+
+  @Test
+  void addItem_ShouldNotStarveWorkers_WhenRequestsOutnumberConnections() throws Exception {
+    AddItemRequest item = AddItemRequest.builder().itemName(PREFIX + "added").itemPrice(BigDecimal.ONE)
+        .inventory(InventoryRequest.builder().storeId(1L).quantity(1).build()).build();
+
+    List<HttpStatusCode> statuses = concurrently(() -> itemService.addItem(List.of(item)).getStatusCode());
+
+    assertEquals(List.of(201, 201, 201, 201, 201, 201), statuses.stream().map(HttpStatusCode::value).toList());
+  }
+}
@@ -0,0 +1,125 @@
+package com.org.inStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import com.org.job.SoftDeletePurgeJob;
+import com.org.kafka.StockStatePublisher;
+import com.org.model.ArchivedActivity;
+import com.org.model.StockAtTimeResponse;
+import com.org.repository.ItemRepository;
+import com.org.service.ActivityHistoryService;
+import com.org.service.StockHistoryService;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// The purge against the local Postgres: an item soft-deleted in 2000 with stock in two stores, activity, an
+// archived balance and a checkpoint, next to a live item with the same history. The retention reaches back to
+// 2002, so only the deleted item and its stock may go; its ledger stays for history and stock-at-time.
+@SpringBootTest(properties = {"instore.consumer.retry.auto-create-topics=false", "instore.stock-state.create-topic=false",
+    "instore.grpc.port=0", "spring.kafka.listener.auto-startup=false"})
+class SoftDeletePurgeJobTest {
+
+  private static final String PREFIX = "soft-delete-purge-item-";
+  private static final String[] LEDGER = {"inventory_activity", "activity_archive_balance", "stock_checkpoint"};
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  @Autowired
+  private ActivityHistoryService activityHistoryService;
+
+  @Autowired
+  private StockHistoryService stockHistoryService;
+
+  private final StockStatePublisher stockStatePublisher = mock(StockStatePublisher.class);
+  private long deletedItemId;
+  private long liveItemId;
+
+  @BeforeEach
+  void createItems() {
+    deleteItems();
+    deletedItemId = item(PREFIX + "deleted");
+    liveItemId = item(PREFIX + "live");
+    jdbcTemplate.update("UPDATE item SET is_deleted = true, deleted_at = '2000-01-10' WHERE item_id = ?", deletedItemId);
+  }
+
+  private long item(String name) {
+    long itemId = jdbcTemplate.queryForObject(
+        "INSERT INTO item (item_name, item_price, is_deleted) VALUES (?, 1.00, false) RETURNING item_id", Long.class, name);
+    jdbcTemplate.update("INSERT INTO inventory (item_id, store_id, available_quantity) VALUES (?, 1, 5), (?, 2, 7)", itemId, itemId);
+    jdbcTemplate.update("INSERT INTO inventory_activity (activity_type, activity_value, activity_timestamp, item_id, item_name, store_id) "
+        + "VALUES ('ADD', '5', '2000-01-05', ?, ?, 1)", itemId, name);
+    jdbcTemplate.update("INSERT INTO activity_archive_balance (item_id, store_id, activities, net_quantity) VALUES (?, 2, 1, 7)", itemId);
+    jdbcTemplate.update("INSERT INTO stock_checkpoint (item_id, store_id, checkpoint_at, available_quantity) VALUES (?, 1, '2000-01-06', 5)",
+        itemId);
+    return itemId;
+  }
+
+  // The purged item's ledger outlives it, so it is found by name
+  @AfterEach
+  void deleteItems() {
+    for (String table : LEDGER) {
+      jdbcTemplate.update("DELETE FROM " + table + " WHERE item_id IN (SELECT item_id FROM item WHERE item_name LIKE ?)"
+          + " OR item_id IN (SELECT item_id FROM inventory_activity WHERE item_name LIKE ?)", PREFIX + "%", PREFIX + "%");
+    }
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name LIKE ?)", PREFIX + "%");
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ?", PREFIX + "%");
+  }
+
+  private int rows(String table, long itemId) {
+    return jdbcTemplate.queryForObject("SELECT count(*) FROM " + table + " WHERE item_id = ?", Integer.class, itemId);
+  }
+
+  @Test
+  void purge_ShouldRemoveItemWithItsStock_AndTombstoneIt() {
+    purge();
+
+    assertEquals(0, rows("item", deletedItemId));
+    assertEquals(0, rows("inventory", deletedItemId));
+    assertEquals(1, rows("item", liveItemId));
+    assertEquals(2, rows("inventory", liveItemId));
+    verify(stockStatePublisher).publishRemoved(1L, deletedItemId);
+    verify(stockStatePublisher).publishRemoved(2L, deletedItemId);
+    verifyNoMoreInteractions(stockStatePublisher);
+  }
+
+  @Test
+  void purge_ShouldKeepTheLedger_SoHistoryStillAnswers() {
+    purge();
+
+    for (String table : LEDGER) {
+      assertEquals(1, rows(table, deletedItemId), table);
+    }
+    List<ArchivedActivity> history = activityHistoryService.getHistory(deletedItemId,
+        LocalDateTime.of(2000, 1, 1, 0, 0), LocalDateTime.of(2000, 1, 8, 0, 0), 10).getBody();
+    assertEquals(1, history.size());
+    assertEquals("5", history.get(0).getActivityValue());
+
+    StockAtTimeResponse stock = stockHistoryService.getStockAt(deletedItemId, LocalDateTime.of(2000, 1, 7, 0, 0), null)
+        .getBody();
+    assertEquals(5, stock.getTotalQuantity());
+    assertEquals(1L, stock.getStores().get(0).getStoreId());
+  }
+
+  private void purge() {
+    new SoftDeletePurgeJob(itemRepository, transactionTemplate, stockStatePublisher, Duration.ofDays(9000), 500,
+        Duration.ZERO, 10).purge();
+  }
+}
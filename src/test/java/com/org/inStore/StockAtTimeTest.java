@@ -0,0 +1,109 @@
+package com.org.inStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import com.org.job.StockCheckpointJob;
+import com.org.model.StockAtTimeResponse;
+import com.org.service.StockHistoryService;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Stock at a point in time against the local Postgres: ADD 100, SELL 30, ADD 5 (legacy row without a
+// store), REMOVE 10, checkpointed, then SELL 15 after the checkpoint. Every answer must equal the full
+// replay of the history up to that time, whichever checkpoint it starts from.
+@SpringBootTest(properties = {"instore.consumer.retry.auto-create-topics=false", "instore.stock-state.create-topic=false",
+    "instore.grpc.port=0", "instore.purge.enabled=false", "spring.kafka.listener.auto-startup=false"})
+class StockAtTimeTest {
+
+  private static final String ITEM_NAME = "stock-at-time-item";
+  private static final LocalDateTime DAY = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private StockHistoryService stockHistoryService;
+
+  @Autowired
+  private StockCheckpointJob stockCheckpointJob;
+
+  private long itemId;
+
+  @BeforeEach
+  void createHistory() {
+    deleteHistory();
+    itemId = jdbcTemplate.queryForObject("INSERT INTO item (item_name, item_price, is_deleted) VALUES (?, 1.00, false) RETURNING item_id",
+        Long.class, ITEM_NAME);
+    activity("ADD", 100, at(10, 0), 1L);
+    activity("SELL", 30, at(10, 10), 1L);
+    activity("ADD", 5, at(10, 20), null);
+    activity("REMOVE", 10, at(10, 30), 1L);
+    jdbcTemplate.update("INSERT INTO inventory (item_id, store_id, available_quantity, updation_date) VALUES (?, 1, 65, ?)",
+        itemId, Timestamp.valueOf(at(10, 30)));
+  }
+
+  @AfterEach
+  void deleteHistory() {
+    jdbcTemplate.update("DELETE FROM stock_checkpoint WHERE item_id IN (SELECT item_id FROM item WHERE item_name = ?)", ITEM_NAME);
+    jdbcTemplate.update("DELETE FROM inventory_activity WHERE item_name = ?", ITEM_NAME);
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name = ?)", ITEM_NAME);
+    jdbcTemplate.update("DELETE FROM item WHERE item_name = ?", ITEM_NAME);
+  }
+
+  @Test
+  void getStockAt_ShouldMatchFullReplay_FromTheNearestCheckpoint() {
+    stockCheckpointJob.checkpoint();
+    // Only changed rows are checkpointed again
+    assertEquals(0, stockCheckpointJob.checkpoint());
+    jdbcTemplate.update("INSERT INTO stock_checkpoint (item_id, store_id, checkpoint_at, available_quantity) VALUES (?, 1, ?, 70)",
+        itemId, Timestamp.valueOf(at(10, 10)));
+    activity("SELL", 15, at(11, 0), 1L);
+    jdbcTemplate.update("UPDATE inventory SET available_quantity = 50, updation_date = ? WHERE item_id = ?",
+        Timestamp.valueOf(at(11, 0)), itemId);
+
+    assertStockAt(at(9, 0), 0, at(10, 10));
+    assertStockAt(at(10, 5), 100, at(10, 10));
+    assertStockAt(at(10, 25), 75, at(10, 30));
+    assertStockAt(at(10, 50), 65, at(11, 0));
+    assertStockAt(at(12, 0), 50, at(11, 0));
+  }
+
+  @Test
+  void getStockAt_ShouldReplayFromTheLiveRow_BeforeAnyCheckpoint() {
+    assertStockAt(at(10, 15), 70, at(10, 30));
+  }
+
+  @Test
+  void getStockAt_ShouldRejectFutureTimes_AndUnknownItems() {
+    assertEquals(HttpStatus.BAD_REQUEST, stockHistoryService.getStockAt(itemId, LocalDateTime.now().plusDays(1), null).getStatusCode());
+    assertEquals(HttpStatus.NOT_FOUND, stockHistoryService.getStockAt(-1L, at(10, 0), null).getStatusCode());
+  }
+
+  private void assertStockAt(LocalDateTime at, int expectedQuantity, LocalDateTime expectedCheckpoint) {
+    ResponseEntity<StockAtTimeResponse> response = stockHistoryService.getStockAt(itemId, at, 1L);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(1, response.getBody().getStores().size());
+    assertEquals(expectedQuantity, response.getBody().getTotalQuantity(), "stock at " + at);
+    assertEquals(expectedCheckpoint, response.getBody().getStores().get(0).getCheckpointAt(), "checkpoint for " + at);
+  }
+
+  private void activity(String type, int quantity, LocalDateTime at, Long storeId) {
+    jdbcTemplate.update("""
+        INSERT INTO inventory_activity (activity_type, activity_value, activity_timestamp, item_id, item_name, store_id)
+        VALUES (?, ?, ?, ?, ?, ?)""", type, Integer.toString(quantity), Timestamp.valueOf(at), itemId, ITEM_NAME, storeId);
+  }
+
+  private LocalDateTime at(int hour, int minute) {
+    return DAY.withHour(hour).withMinute(minute);
+  }
+}
@@ -0,0 +1,127 @@
+package com.org.inStore;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.org.model.InventoryRequest;
+import com.org.model.InventoryResponse;
+import com.org.service.InventoryService;
+import com.org.utility.LineOutcome;
+import com.org.utility.ResponseStatus;
+import com.org.utility.StockOperationType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// inventory/update and inventory/recordSales through the stock engine against the local Postgres: concurrent
+// callers on the same rows, a row changed behind the engine's back, and an item deleted after it was loaded.
+// Activity events go to a local spool so the missing broker doesn't hold the shard threads.
+@SpringBootTest(properties = {"instore.consumer.retry.auto-create-topics=false", "instore.stock-state.create-topic=false",
+    "instore.grpc.port=0", "instore.purge.enabled=false", "spring.kafka.listener.auto-startup=false",
+    "instore.spool.enabled=true", "instore.spool.dir=target/stock-engine-spool",
+    "instore.stock-engine.enabled=true", "instore.stock-engine.shards=2"})
+class StockEngineIntegrationTest {
+
+  private static final String PREFIX = "stock-engine-item-";
+  private static final int CALLERS = 10;
+  private static final int ROUNDS = 20;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private InventoryService inventoryService;
+
+  private final List<Long> itemIds = new ArrayList<>();
+
+  @BeforeEach
+  void createItems() {
+    deleteItems();
+    for (int i = 0; i < 3; i++) {
+      long itemId = jdbcTemplate.queryForObject(
+          "INSERT INTO item (item_name, item_price, is_deleted) VALUES (?, 1.00, false) RETURNING item_id", Long.class, PREFIX + i);
+      jdbcTemplate.update("INSERT INTO inventory (item_id, store_id, available_quantity) VALUES (?, 1, 1000)", itemId);
+      itemIds.add(itemId);
+    }
+  }
+
+  @AfterEach
+  void deleteItems() {
+    jdbcTemplate.update("DELETE FROM inventory WHERE item_id IN (SELECT item_id FROM item WHERE item_name LIKE ?)", PREFIX + "%");
+    jdbcTemplate.update("DELETE FROM item WHERE item_name LIKE ?", PREFIX + "%");
+    itemIds.clear();
+  }
+
+  private InventoryRequest line(long itemId, int quantity, StockOperationType operation) {
+    return InventoryRequest.builder().itemId(itemId).storeId(1L).quantity(quantity).operationType(operation.name()).build();
+  }
+
+  private int quantity(long itemId) {
+    return jdbcTemplate.queryForObject("SELECT available_quantity FROM inventory WHERE store_id = 1 AND item_id = ?",
+        Integer.class, itemId);
+  }
+
+  @Test
+  void concurrentCallers_ShouldLoseNoUpdate() throws Exception {
+    ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+    List<Future<HttpStatus>> statuses = new ArrayList<>();
+    for (int caller = 0; caller < CALLERS; caller++) {
+      statuses.add(callers.submit(() -> {
+        HttpStatus worst = HttpStatus.OK;
+        for (int round = 0; round < ROUNDS; round++) {
+          ResponseEntity<List<InventoryResponse>> response = inventoryService.updateInventory(List.of(
+              line(itemIds.get(0), 3, StockOperationType.REMOVE),
+              line(itemIds.get(1), 2, StockOperationType.ADD),
+              line(itemIds.get(0), 1, StockOperationType.ADD)));
+          worst = response.getStatusCode() == HttpStatus.OK ? worst : (HttpStatus) response.getStatusCode();
+          inventoryService.recordSales(List.of(line(itemIds.get(2), 1, StockOperationType.SELL)));
+        }
+        return worst;
+      }));
+    }
+    for (Future<HttpStatus> status : statuses) {
+      assertEquals(HttpStatus.OK, status.get());
+    }
+    callers.shutdown();
+
+    assertEquals(1000 - CALLERS * ROUNDS * 2, quantity(itemIds.get(0)));
+    assertEquals(1000 + CALLERS * ROUNDS * 2, quantity(itemIds.get(1)));
+    assertEquals(1000 - CALLERS * ROUNDS, quantity(itemIds.get(2)));
+  }
+
+  @Test
+  void rowChangedByAnotherWriter_ShouldBeReloaded() {
+    long itemId = itemIds.get(0);
+    inventoryService.recordSales(List.of(line(itemId, 10, StockOperationType.SELL)));
+    jdbcTemplate.update("UPDATE inventory SET available_quantity = 5 WHERE store_id = 1 AND item_id = ?", itemId);
+
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.recordSales(List.of(
+        line(itemId, 4, StockOperationType.SELL), line(itemId, 4, StockOperationType.SELL)));
+
+    assertEquals(ResponseStatus.SUCCESS, response.getBody().get(0).getStatus());
+    assertEquals(LineOutcome.INSUFFICIENT_STOCK.getMessage(), response.getBody().get(1).getMessage());
+    assertEquals(1, quantity(itemId));
+  }
+
+  @Test
+  void itemDeletedAfterLoad_ShouldNotBeWritten() {
+    long itemId = itemIds.get(0);
+    inventoryService.updateInventory(List.of(line(itemId, 1, StockOperationType.ADD)));
+    jdbcTemplate.update("UPDATE item SET is_deleted = true WHERE item_id = ?", itemId);
+
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.updateInventory(List.of(
+        line(itemId, 1, StockOperationType.ADD)));
+
+    assertEquals(LineOutcome.ITEM_NOT_FOUND.getMessage(), response.getBody().get(0).getMessage());
+    assertEquals(1001, quantity(itemId));
+  }
+}
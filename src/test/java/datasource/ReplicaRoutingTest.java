@@ -0,0 +1,112 @@
+package datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.org.datasource.ReplicaLagMonitor;
+import com.org.datasource.ReplicaRoutingConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReplicaRoutingTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final DataSource primary = mock(DataSource.class);
+  private final DataSource replica = mock(DataSource.class);
+  private final Connection primaryConnection = mock(Connection.class);
+  private final Connection replicaConnection = mock(Connection.class);
+
+  private ReplicaLagMonitor lagMonitor;
+  private DataSource routing;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    when(primary.getConnection()).thenReturn(primaryConnection);
+    when(primaryConnection.createStatement()).thenReturn(mock(Statement.class));
+    lagMonitor = new ReplicaLagMonitor(replica, meterRegistry, Duration.ofSeconds(5));
+    routing = new ReplicaRoutingConfig().dataSource(primary, replica, lagMonitor);
+  }
+
+  private void replicaLag(double seconds) throws SQLException {
+    Connection probeConnection = mock(Connection.class);
+    Statement statement = mock(Statement.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(replica.getConnection()).thenReturn(probeConnection, replicaConnection);
+    when(probeConnection.createStatement()).thenReturn(statement);
+    when(statement.executeQuery(anyString())).thenReturn(resultSet);
+    when(resultSet.next()).thenReturn(true, false);
+    when(resultSet.getMetaData()).thenReturn(metaData);
+    when(metaData.getColumnCount()).thenReturn(1);
+    when(resultSet.getDouble(1)).thenReturn(seconds);
+    when(replicaConnection.createStatement()).thenReturn(mock(Statement.class));
+  }
+
+  // Runs one statement on a connection marked read-only the way a read-only transaction marks it
+  private void readOnlyStatement() throws SQLException {
+    try (Connection connection = routing.getConnection()) {
+      connection.setReadOnly(true);
+      connection.createStatement();
+    }
+  }
+
+  @Test
+  void readOnlyConnection_ShouldComeFromReplica_WhenLagIsWithinLimit() throws SQLException {
+    replicaLag(0.5);
+    lagMonitor.probe();
+
+    readOnlyStatement();
+
+    verify(replicaConnection).createStatement();
+    verify(primaryConnection, never()).createStatement();
+    assertEquals(0.5, meterRegistry.get("instore.datasource.replica.lag").gauge().value());
+  }
+
+  @Test
+  void readOnlyConnection_ShouldFallBackToPrimary_WhenReplicaLagsTooFar() throws SQLException {
+    replicaLag(30);
+    lagMonitor.probe();
+
+    readOnlyStatement();
+
+    verify(primaryConnection).createStatement();
+    verify(replicaConnection, never()).createStatement();
+    assertEquals(1.0, meterRegistry.get("instore.datasource.replica.fallbacks").counter().count());
+  }
+
+  @Test
+  void readOnlyConnection_ShouldFallBackToPrimary_WhenLagProbeFails() throws SQLException {
+    when(replica.getConnection()).thenThrow(new SQLException("replica down"));
+    lagMonitor.probe();
+
+    readOnlyStatement();
+
+    verify(primaryConnection).createStatement();
+    assertEquals(0.0, meterRegistry.get("instore.datasource.replica.usable").gauge().value());
+  }
+
+  @Test
+  void writeConnection_ShouldComeFromPrimary_WhenReplicaIsUsable() throws SQLException {
+    replicaLag(0);
+    lagMonitor.probe();
+
+    try (Connection connection = routing.getConnection()) {
+      connection.createStatement();
+    }
+
+    verify(primaryConnection).createStatement();
+    verify(replicaConnection, never()).createStatement();
+  }
+}
@@ -0,0 +1,236 @@
+package grpc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.org.grpc.ClientIdInterceptor;
+import com.org.grpc.InventoryGrpcService;
+import com.org.grpc.proto.InventoryLine;
+import com.org.grpc.proto.InventorySalesGrpc;
+import com.org.grpc.proto.SaleStatus;
+import com.org.grpc.proto.SalesReply;
+import com.org.grpc.proto.SalesRequest;
+import com.org.model.InventoryRequest;
+import com.org.model.InventoryResponse;
+import com.org.service.AdmissionControl;
+import com.org.service.InventoryService;
+import com.org.utility.ResponseStatus;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+
+class InventoryGrpcServiceTest {
+
+  private final InventoryService inventoryService = mock(InventoryService.class);
+  private final AdmissionControl admissionControl = new AdmissionControl(new MockEnvironment()
+      .withProperty("instore.admission.record-sales.max-queued-lines", "3"), new SimpleMeterRegistry());
+
+  private Server server;
+  private ManagedChannel channel;
+
+  @AfterEach
+  void tearDown() {
+    channel.shutdownNow();
+    server.shutdownNow();
+  }
+
+  private void start(int streamWindow) throws Exception {
+    String name = InProcessServerBuilder.generateName();
+    server = InProcessServerBuilder.forName(name)
+        .addService(ServerInterceptors.intercept(new InventoryGrpcService(inventoryService, admissionControl, streamWindow),
+            new ClientIdInterceptor()))
+        .build()
+        .start();
+    channel = InProcessChannelBuilder.forName(name).build();
+  }
+
+  @Test
+  void recordSales_ShouldMapSellLinesAndReportEachResult() throws Exception {
+    start(8);
+    when(inventoryService.recordSalesAsync(anyList())).thenReturn(CompletableFuture.completedFuture(
+        new ResponseEntity<>(List.of(result(ResponseStatus.SUCCESS, null), result(ResponseStatus.FAILED, "Insufficient stock")),
+            HttpStatus.PARTIAL_CONTENT)));
+
+    SalesReply reply = InventorySalesGrpc.newBlockingStub(channel).recordSales(SalesRequest.newBuilder()
+        .setSequence(7)
+        .addLines(InventoryLine.newBuilder().setItemId(1).setQuantity(2).setStoreId(5))
+        .addLines(InventoryLine.newBuilder().setItemId(2).setQuantity(1).setOperationType("ADD"))
+        .addLines(InventoryLine.newBuilder().setItemId(3).setQuantity(9).setOperationType("SELL"))
+        .build());
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<InventoryRequest>> captor = ArgumentCaptor.forClass(List.class);
+    verify(inventoryService).recordSalesAsync(captor.capture());
+    assertEquals(List.of(1L, 3L), captor.getValue().stream().map(InventoryRequest::getItemId).toList());
+    assertEquals(5L, captor.getValue().get(0).getStoreId());
+    assertEquals(null, captor.getValue().get(1).getStoreId());
+
+    assertEquals(7, reply.getSequence());
+    assertFalse(reply.getComplete());
+    assertEquals(SaleStatus.SUCCESS, reply.getResults(0).getStatus());
+    assertEquals(5L, reply.getResults(0).getStoreId());
+    assertEquals(3L, reply.getResults(1).getItemId());
+    assertFalse(reply.getResults(1).hasStoreId());
+    assertEquals(SaleStatus.FAILED, reply.getResults(1).getStatus());
+    assertEquals("Insufficient stock", reply.getResults(1).getMessage());
+  }
+
+  @Test
+  void recordSales_ShouldPassUnknownOperationTypeOn_SoOnlyThatLineFails() throws Exception {
+    start(8);
+    when(inventoryService.recordSalesAsync(anyList())).thenReturn(CompletableFuture.completedFuture(
+        new ResponseEntity<>(List.of(result(ResponseStatus.SUCCESS, null), result(ResponseStatus.FAILED, "Invalid operation type")),
+            HttpStatus.PARTIAL_CONTENT)));
+
+    SalesReply reply = InventorySalesGrpc.newBlockingStub(channel).recordSales(SalesRequest.newBuilder()
+        .addLines(InventoryLine.newBuilder().setItemId(1).setQuantity(1).setOperationType("sell"))
+        .addLines(InventoryLine.newBuilder().setItemId(2).setQuantity(1).setOperationType("add"))
+        .addLines(InventoryLine.newBuilder().setItemId(3).setQuantity(1).setOperationType("STEAL"))
+        .build());
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<InventoryRequest>> captor = ArgumentCaptor.forClass(List.class);
+    verify(inventoryService).recordSalesAsync(captor.capture());
+    assertEquals(List.of("sell", "STEAL"), captor.getValue().stream().map(InventoryRequest::getOperationType).toList());
+    assertEquals(SaleStatus.SUCCESS, reply.getResults(0).getStatus());
+    assertEquals(3L, reply.getResults(1).getItemId());
+    assertEquals("Invalid operation type", reply.getResults(1).getMessage());
+  }
+
+  @Test
+  void recordSales_ShouldFailWithResourceExhausted_WhenBasketExceedsAdmissionBudget() throws Exception {
+    start(8);
+
+    StatusRuntimeException e = assertThrows(StatusRuntimeException.class,
+        () -> InventorySalesGrpc.newBlockingStub(channel).recordSales(basket(1, 4)));
+
+    assertEquals(Status.Code.RESOURCE_EXHAUSTED, e.getStatus().getCode());
+    verify(inventoryService, never()).recordSalesAsync(anyList());
+  }
+
+  @Test
+  void streamSales_ShouldReplyPerBasketAndKeepStreamOpen_WhenOneBasketIsRefused() throws Exception {
+    start(8);
+    when(inventoryService.recordSalesAsync(anyList())).thenAnswer(invocation -> {
+      List<InventoryRequest> lines = invocation.getArgument(0);
+      return CompletableFuture.completedFuture(new ResponseEntity<>(
+          lines.stream().map(line -> result(ResponseStatus.SUCCESS, null)).toList(), HttpStatus.OK));
+    });
+    Replies replies = new Replies();
+
+    StreamObserver<SalesRequest> requests = InventorySalesGrpc.newStub(channel).streamSales(replies);
+    requests.onNext(basket(1, 2));
+    requests.onNext(basket(2, 4));
+    requests.onNext(basket(3, 1));
+    requests.onCompleted();
+
+    assertTrue(replies.done.await(5, TimeUnit.SECONDS));
+    assertEquals(null, replies.error);
+    assertEquals(3, replies.received.size());
+    SalesReply refused = replies.received.stream().filter(reply -> reply.getSequence() == 2).findFirst().orElseThrow();
+    assertTrue(refused.getError().startsWith("RESOURCE_EXHAUSTED"));
+    assertEquals(0, refused.getResultsCount());
+    assertTrue(replies.received.stream().filter(reply -> reply.getSequence() != 2).allMatch(SalesReply::getComplete));
+  }
+
+  @Test
+  void streamSales_ShouldReplyAndComplete_WhenServiceThrowsSynchronously() throws Exception {
+    start(8);
+    when(inventoryService.recordSalesAsync(anyList())).thenThrow(new IllegalStateException("lane rejected"));
+    Replies replies = new Replies();
+
+    StreamObserver<SalesRequest> requests = InventorySalesGrpc.newStub(channel).streamSales(replies);
+    requests.onNext(basket(1, 1));
+    requests.onCompleted();
+
+    assertTrue(replies.done.await(5, TimeUnit.SECONDS));
+    assertEquals(null, replies.error);
+    assertEquals(1, replies.received.size());
+    assertTrue(replies.received.get(0).getError().startsWith("UNKNOWN"));
+  }
+
+  @Test
+  void streamSales_ShouldOnlyPullMoreBaskets_AsRepliesGoOut() throws Exception {
+    start(2);
+    CompletableFuture<ResponseEntity<List<InventoryResponse>>> held = new CompletableFuture<>();
+    when(inventoryService.recordSalesAsync(anyList()))
+        .thenReturn(held)
+        .thenReturn(new CompletableFuture<>())
+        .thenReturn(CompletableFuture.completedFuture(new ResponseEntity<>(List.of(result(ResponseStatus.SUCCESS, null)), HttpStatus.OK)));
+    Replies replies = new Replies();
+
+    StreamObserver<SalesRequest> requests = InventorySalesGrpc.newStub(channel).streamSales(replies);
+    for (int sequence = 1; sequence <= 3; sequence++) {
+      requests.onNext(basket(sequence, 1));
+    }
+
+    verify(inventoryService, timeout(1_000).times(2)).recordSalesAsync(anyList());
+    Thread.sleep(100);
+    verify(inventoryService, times(2)).recordSalesAsync(anyList());
+
+    held.complete(new ResponseEntity<>(List.of(result(ResponseStatus.SUCCESS, null)), HttpStatus.OK));
+    verify(inventoryService, timeout(1_000).times(3)).recordSalesAsync(anyList());
+    requests.onCompleted();
+  }
+
+  private SalesRequest basket(long sequence, int lines) {
+    SalesRequest.Builder request = SalesRequest.newBuilder().setSequence(sequence);
+    for (int i = 0; i < lines; i++) {
+      request.addLines(InventoryLine.newBuilder().setItemId(i + 1).setQuantity(1));
+    }
+    return request.build();
+  }
+
+  private InventoryResponse result(ResponseStatus status, String message) {
+    return InventoryResponse.builder().status(status).message(message).build();
+  }
+
+  private static class Replies implements StreamObserver<SalesReply> {
+
+    private final List<SalesReply> received = new CopyOnWriteArrayList<>();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile Throwable error;
+
+    @Override
+    public void onNext(SalesReply reply) {
+      received.add(reply);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      error = t;
+      done.countDown();
+    }
+
+    @Override
+    public void onCompleted() {
+      done.countDown();
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package job;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.org.job.StockLedgerMerger;
+import com.org.job.StockLedgerMerger.LedgerRow;
+import com.org.job.StockLedgerMerger.StockRow;
+import com.org.model.StockDrift;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class StockLedgerMergerTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+  private final StockLedgerMerger merger = new StockLedgerMerger(1L, NOW);
+
+  @Test
+  void merge_ShouldReportNoDrift_WhenStockMatchesLedger() {
+    List<StockDrift> drifts = new ArrayList<>();
+
+    StockLedgerMerger.Result result = merger.merge(
+        List.of(stock(1, 1, 7), stock(1, 2, 3), stock(2, 1, 0)).iterator(),
+        List.of(ledger(1, null, "ADD", "10"), ledger(1, 1L, "SELL", "3"), ledger(1, 2L, "add", "3"),
+            ledger(2, 1L, "ADD", "5"), ledger(2, 1L, "REMOVE", "5")).iterator(),
+        drifts::add);
+
+    assertEquals(3, result.stockRows());
+    assertEquals(5, result.activityRows());
+    assertEquals(0, result.drifts());
+    assertEquals(0, drifts.size());
+  }
+
+  @Test
+  void merge_ShouldReportLostUpdatesAndMissingRows() {
+    List<StockDrift> drifts = new ArrayList<>();
+
+    StockLedgerMerger.Result result = merger.merge(
+        List.of(stock(1, 1, 9), stock(3, 1, 4)).iterator(),
+        List.of(ledger(1, 1L, "ADD", "10"), ledger(1, 1L, "SELL", "2"), ledger(2, 1L, "ADD", "6")).iterator(),
+        drifts::add);
+
+    assertEquals(3, result.drifts());
+    assertEquals(new StockDrift(1L, 1L, 9, 8L), drifts.get(0));
+    assertEquals(2L, drifts.get(1).getItemId());
+    assertNull(drifts.get(1).getAvailableQuantity());
+    assertEquals(new StockDrift(3L, 1L, 4, 0L), drifts.get(2));
+  }
+
+  @Test
+  void merge_ShouldSkipRowsUpdatedAfterSettleCutoff() {
+    List<StockDrift> drifts = new ArrayList<>();
+
+    StockLedgerMerger.Result result = merger.merge(
+        List.of(new StockRow(1, 1, 5, NOW.plusSeconds(1))).iterator(),
+        List.of(ledger(1, 1L, "ADD", "10")).iterator(),
+        drifts::add);
+
+    assertEquals(0, result.drifts());
+  }
+
+  private StockRow stock(long itemId, long storeId, int quantity) {
+    return new StockRow(itemId, storeId, quantity, NOW.minusHours(1));
+  }
+
+  private LedgerRow ledger(long itemId, Long storeId, String type, String value) {
+    return new LedgerRow(itemId, storeId, type, value);
+  }
+}
@@ -0,0 +1,62 @@
+package kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.org.kafka.ActivitySpool;
+import com.org.kafka.ActivitySpool.Position;
+import com.org.kafka.ActivitySpoolForwarder;
+import com.org.kafka.KafkaProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class ActivitySpoolForwarderTest {
+
+  @TempDir
+  Path directory;
+
+  private final KafkaProducer kafkaProducer = mock(KafkaProducer.class);
+  private ActivitySpool activitySpool;
+  private ActivitySpoolForwarder forwarder;
+
+  @BeforeEach
+  void setUp() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    activitySpool = new ActivitySpool(directory, DataSize.ofKilobytes(4), DataSize.ofMegabytes(1), "none", meterRegistry);
+    activitySpool.open();
+    forwarder = new ActivitySpoolForwarder(activitySpool, kafkaProducer, meterRegistry, 10,
+        Duration.ofMillis(100), Duration.ofMillis(200), Duration.ofSeconds(1));
+  }
+
+  @Test
+  void forward_ShouldShipEverything_AndMoveCheckpointToHead() throws Exception {
+    when(kafkaProducer.sendTracked(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    IntStream.range(0, 25).forEach(i -> activitySpool.append("event-" + i));
+
+    assertEquals(25, forwarder.forward());
+    assertEquals(activitySpool.head(), activitySpool.checkpoint());
+  }
+
+  @Test
+  void forward_ShouldKeepCheckpoint_WhenBatchIsNotAcked() {
+    when(kafkaProducer.sendTracked(anyString()))
+        .thenReturn(CompletableFuture.completedFuture(null))
+        .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+    IntStream.range(0, 5).forEach(i -> activitySpool.append("event-" + i));
+    Position before = activitySpool.checkpoint();
+
+    assertThrows(ExecutionException.class, forwarder::forward);
+    assertEquals(before, activitySpool.checkpoint());
+  }
+}
@@ -0,0 +1,133 @@
+package kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.org.kafka.ActivitySpool;
+import com.org.kafka.ActivitySpool.Batch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class ActivitySpoolTest {
+
+  @TempDir
+  Path directory;
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private ActivitySpool open(long segmentBytes, long maxBytes) {
+    return open(segmentBytes, maxBytes, "every-write");
+  }
+
+  private ActivitySpool open(long segmentBytes, long maxBytes, String fsyncPolicy) {
+    ActivitySpool spool = new ActivitySpool(directory, DataSize.ofBytes(segmentBytes), DataSize.ofBytes(maxBytes),
+        fsyncPolicy, meterRegistry);
+    spool.open();
+    return spool;
+  }
+
+  @Test
+  void read_ShouldReturnAppendedRecordsInOrder_AcrossSegments() throws IOException {
+    ActivitySpool spool = open(256, 64 * 1024);
+    List<String> events = IntStream.range(0, 40).mapToObj(i -> "{\"itemId\":" + i + "}").toList();
+    events.forEach(event -> assertTrue(spool.append(event)));
+
+    Batch batch = spool.read(spool.checkpoint(), 1_000);
+
+    assertEquals(events, batch.records());
+    assertEquals(spool.head(), batch.end());
+    assertTrue(segmentCount() > 1);
+  }
+
+  @Test
+  void commit_ShouldDeleteForwardedSegments_AndSurviveRestart() throws IOException {
+    ActivitySpool spool = open(256, 64 * 1024);
+    IntStream.range(0, 40).forEach(i -> spool.append("event-" + i));
+    Batch first = spool.read(spool.checkpoint(), 25);
+    spool.commit(first.end());
+    spool.close();
+
+    ActivitySpool reopened = open(256, 64 * 1024);
+    Batch rest = reopened.read(reopened.checkpoint(), 1_000);
+
+    assertEquals(IntStream.range(25, 40).mapToObj(i -> "event-" + i).toList(), rest.records());
+    assertEquals(reopened.head().segment() - first.end().segment() + 1, segmentCount());
+    assertTrue(reopened.append("after-restart"));
+    assertEquals(List.of("after-restart"), reopened.read(rest.end(), 10).records());
+  }
+
+  @Test
+  void open_ShouldTruncateTornRecord() throws IOException {
+    ActivitySpool spool = open(4096, 64 * 1024);
+    spool.append("complete");
+    int tornOffset = spool.head().offset();
+    spool.close();
+    // Length written but payload/checksum missing, as after a crash mid-append
+    try (FileChannel channel = FileChannel.open(onlySegment(), StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(4).putInt(0, 50), tornOffset);
+    }
+
+    ActivitySpool reopened = open(4096, 64 * 1024);
+
+    assertEquals(tornOffset, reopened.head().offset());
+    assertEquals(List.of("complete"), reopened.read(reopened.checkpoint(), 10).records());
+  }
+
+  @Test
+  void append_ShouldRefuse_WhenSpoolIsFull() {
+    ActivitySpool spool = open(128, 256);
+
+    long accepted = IntStream.range(0, 100).filter(i -> spool.append("event-" + i)).count();
+
+    assertTrue(accepted > 0 && accepted < 100);
+    assertFalse(spool.append("x".repeat(200)));
+    spool.commit(spool.read(spool.checkpoint(), 1_000).end());
+    assertTrue(spool.append("after-drain"));
+  }
+
+  @Test
+  void fsyncNone_ShouldNeverForceSegments() {
+    ActivitySpool spool = open(256, 64 * 1024, "none");
+    IntStream.range(0, 40).forEach(i -> spool.append("event-" + i));
+    spool.flush();
+    spool.close();
+
+    assertEquals(0.0, meterRegistry.get("instore.spool.forces").counter().count());
+    assertEquals(40, open(256, 64 * 1024, "none").read(spool.checkpoint(), 1_000).records().size());
+  }
+
+  @Test
+  void fsyncInterval_ShouldForceOnlyOnFlush() {
+    ActivitySpool spool = open(4096, 64 * 1024, "interval");
+    IntStream.range(0, 10).forEach(i -> spool.append("event-" + i));
+
+    assertEquals(0.0, meterRegistry.get("instore.spool.forces").counter().count());
+    spool.flush();
+    spool.flush();
+    assertEquals(1.0, meterRegistry.get("instore.spool.forces").counter().count());
+  }
+
+  private long segmentCount() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.getFileName().toString().startsWith("segment-")).count();
+    }
+  }
+
+  private Path onlySegment() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(path -> path.getFileName().toString().startsWith("segment-")).findFirst().orElseThrow();
+    }
+  }
+}
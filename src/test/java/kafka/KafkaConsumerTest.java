@@ -0,0 +1,103 @@
+package kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import com.org.entity.InventoryActivity;
+import com.org.kafka.ActivityEventReader;
+import com.org.kafka.InvalidActivityEventException;
+import com.org.kafka.KafkaConsumer;
+import com.org.repository.InventoryActivityRepository;
+import com.org.service.ActivityDeadLetterService;
+import com.org.service.JacksonConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.support.KafkaHeaders;
+
+class KafkaConsumerTest {
+
+  private final InventoryActivityRepository repository = mock(InventoryActivityRepository.class);
+  private final ActivityDeadLetterService activityDeadLetterService = mock(ActivityDeadLetterService.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final KafkaConsumer kafkaConsumer = new KafkaConsumer(new ActivityEventReader(new JacksonConfig()),
+      repository, activityDeadLetterService, meterRegistry);
+
+  @Test
+  void consume_ShouldSaveActivity() {
+    kafkaConsumer.consume(record("activity", "{\"activityType\":\"SELL\",\"activityValue\":\"2\","
+        + "\"activityTimeStamp\":\"2024-10-01T10:15:30Z\",\"itemId\":7,\"itemName\":\"Tea\",\"storeId\":3}"));
+
+    ArgumentCaptor<InventoryActivity> captor = ArgumentCaptor.forClass(InventoryActivity.class);
+    verify(repository).save(captor.capture());
+    assertEquals(LocalDateTime.of(2024, 10, 1, 10, 15, 30), captor.getValue().getActivityTimestamp());
+    assertEquals(3L, captor.getValue().getStoreId());
+    assertEquals(1, meterRegistry.get("instore.activity.consumed").tag("outcome", "processed").counter().count());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void consume_ShouldSaveOneSellRowPerLine_WhenEventIsABasket() {
+    kafkaConsumer.consume(record("activity", "{\"activityType\":\"BASKET_SALE\",\"activityValue\":\"5\","
+        + "\"activityTimeStamp\":\"2024-10-01T10:15:30Z\",\"storeId\":3,\"lines\":["
+        + "{\"itemId\":7,\"itemName\":\"Tea\",\"quantity\":2},{\"itemId\":9,\"itemName\":\"Milk\",\"quantity\":3}]}"));
+
+    ArgumentCaptor<List<InventoryActivity>> captor = ArgumentCaptor.forClass(List.class);
+    verify(repository).saveAll(captor.capture());
+    List<InventoryActivity> rows = captor.getValue();
+    assertEquals(2, rows.size());
+    assertEquals("SELL", rows.get(1).getActivityType());
+    assertEquals("3", rows.get(1).getActivityValue());
+    assertEquals(9L, rows.get(1).getItemId());
+    assertEquals(3L, rows.get(1).getStoreId());
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void consume_ShouldRejectAsInvalid_WhenTimestampIsMissing() {
+    ConsumerRecord<String, String> record = record("activity", "{\"activityType\":\"SELL\",\"activityValue\":\"2\",\"itemId\":7}");
+
+    assertThrows(InvalidActivityEventException.class, () -> kafkaConsumer.consume(record));
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void consume_ShouldRejectAsInvalid_WhenJsonIsMalformed() {
+    assertThrows(InvalidActivityEventException.class, () -> kafkaConsumer.consume(record("activity", "{not json")));
+  }
+
+  @Test
+  void consume_ShouldCountRetries_WhenReadFromRetryTopic() {
+    kafkaConsumer.consume(record("activity-retry-1000", "{\"activityType\":\"ADD\",\"activityValue\":\"2\","
+        + "\"activityTimeStamp\":\"2024-10-01T10:15:30Z\",\"itemId\":7}"));
+
+    assertEquals(1, meterRegistry.get("instore.activity.consumed").tag("outcome", "retried").counter().count());
+  }
+
+  @Test
+  void deadLetter_ShouldRecordPayloadWithOriginalCoordinates() {
+    ConsumerRecord<String, String> record = record("activity-dlt", "{not json");
+    record.headers().add(KafkaHeaders.EXCEPTION_MESSAGE, "Malformed".getBytes(StandardCharsets.UTF_8));
+    record.headers().add(KafkaHeaders.ORIGINAL_TOPIC, "activity".getBytes(StandardCharsets.UTF_8));
+    record.headers().add(KafkaHeaders.ORIGINAL_PARTITION, ByteBuffer.allocate(4).putInt(2).array());
+    record.headers().add(KafkaHeaders.ORIGINAL_OFFSET, ByteBuffer.allocate(8).putLong(42L).array());
+
+    kafkaConsumer.deadLetter(record);
+
+    verify(activityDeadLetterService).record("{not json", "Malformed", "activity", 2, 42L);
+    assertEquals(1, meterRegistry.get("instore.activity.consumed").tag("outcome", "dead-lettered").counter().count());
+  }
+
+  private ConsumerRecord<String, String> record(String topic, String value) {
+    return new ConsumerRecord<>(topic, 0, 0L, "key", value);
+  }
+}
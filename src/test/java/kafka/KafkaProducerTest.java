@@ -0,0 +1,91 @@
+package kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.org.kafka.KafkaProducer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+class KafkaProducerTest {
+
+  @SuppressWarnings("unchecked")
+  private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final KafkaProducer kafkaProducer = new KafkaProducer(kafkaTemplate, meterRegistry, 2, 10);
+
+  private static String event(long itemId) {
+    return "{\"activityType\":\"ADD\",\"activityValue\":\"1\",\"itemId\":" + itemId + ",\"storeId\":3}";
+  }
+
+  @Test
+  void sendMessage_ShouldBufferInsteadOfBlocking_WhenInFlightLimitReached() {
+    CompletableFuture<SendResult<String, String>> pending = new CompletableFuture<>();
+    when(kafkaTemplate.send(eq("activity"), anyString(), anyString())).thenReturn(pending);
+
+    kafkaProducer.sendMessage(event(1));
+    kafkaProducer.sendMessage(event(2));
+    kafkaProducer.sendMessage(event(3));
+
+    assertEquals(2, kafkaProducer.inFlightCount());
+    assertEquals(1, kafkaProducer.bufferedCount());
+    assertEquals(1, meterRegistry.get("instore.kafka.send").tag("result", "deferred").counter().count());
+
+    pending.complete(null);
+    assertEquals(0, kafkaProducer.inFlightCount());
+    assertEquals(2, meterRegistry.get("instore.kafka.send").tag("result", "acked").counter().count());
+  }
+
+  @Test
+  void sendMessage_ShouldBufferFailedSends_AndRetryThem() {
+    when(kafkaTemplate.send(eq("activity"), anyString(), anyString()))
+        .thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker down")))
+        .thenThrow(new TimeoutException("metadata not available"))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    kafkaProducer.sendMessage(event(1));
+    kafkaProducer.sendMessage(event(2));
+    assertEquals(2, kafkaProducer.bufferedCount());
+    assertEquals(0, kafkaProducer.inFlightCount());
+
+    kafkaProducer.retryBufferedMessages();
+
+    assertEquals(0, kafkaProducer.bufferedCount());
+    // A resend carries the key of the first attempt
+    verify(kafkaTemplate, times(2)).send("activity", "3:1", event(1));
+    verify(kafkaTemplate, times(2)).send("activity", "3:2", event(2));
+    assertEquals(2, meterRegistry.get("instore.kafka.send").tag("result", "failed").counter().count());
+    assertEquals(2, meterRegistry.get("instore.kafka.send").tag("result", "acked").counter().count());
+  }
+
+  @Test
+  void sendMessage_ShouldDropAndCount_WhenRetryBufferIsFull() {
+    when(kafkaTemplate.send(eq("activity"), anyString(), anyString()))
+        .thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker down")));
+
+    for (int i = 0; i < 12; i++) {
+      kafkaProducer.sendMessage(event(i));
+    }
+
+    assertEquals(10, kafkaProducer.bufferedCount());
+    assertEquals(2, meterRegistry.get("instore.kafka.send").tag("result", "dropped").counter().count());
+  }
+
+  @Test
+  void key_ShouldBeStoreAndItem_OrStoreForABasket() {
+    assertEquals("3:7", KafkaProducer.key(event(7)));
+    assertEquals("3", KafkaProducer.key(
+        "{\"activityType\":\"BASKET_SALE\",\"storeId\":3,\"lines\":[{\"itemId\":7,\"quantity\":1}]}"));
+    assertNull(KafkaProducer.key("not json"));
+  }
+}
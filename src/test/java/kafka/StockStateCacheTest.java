@@ -0,0 +1,88 @@
+package kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.org.kafka.StockStateCache;
+import com.org.service.JacksonConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+class StockStateCacheTest {
+
+  private static final String TOPIC = "stock-state";
+
+  private static EmbeddedKafkaKraftBroker broker;
+  private static DefaultKafkaProducerFactory<String, String> producerFactory;
+  private static KafkaTemplate<String, String> kafkaTemplate;
+
+  @BeforeAll
+  static void startBroker() {
+    broker = new EmbeddedKafkaKraftBroker(1, 2, TOPIC);
+    broker.afterPropertiesSet();
+    producerFactory = new DefaultKafkaProducerFactory<>(Map.of(
+        ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+        ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+        ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class));
+    kafkaTemplate = new KafkaTemplate<>(producerFactory);
+  }
+
+  @AfterAll
+  static void stopBroker() {
+    producerFactory.destroy();
+    broker.destroy();
+  }
+
+  @Test
+  void start_ShouldLoadLatestStatePerKey_ThenFollowNewRecords() throws Exception {
+    send("1:10", 5);
+    send("1:10", 3);
+    send("2:10", 8);
+    send("1:11", 4);
+    kafkaTemplate.send(TOPIC, "1:11", null);
+    kafkaTemplate.send(TOPIC, "bad-key", "{}");
+    kafkaTemplate.flush();
+
+    KafkaProperties kafkaProperties = new KafkaProperties();
+    kafkaProperties.setBootstrapServers(List.of(broker.getBrokersAsString()));
+    StockStateCache cache = new StockStateCache(kafkaProperties, new JacksonConfig(), new SimpleMeterRegistry(),
+        TOPIC, Duration.ofSeconds(30));
+    cache.start();
+    try {
+      assertTrue(cache.isLoaded());
+      assertEquals(2, cache.size());
+      assertEquals(Optional.of(3), cache.availableQuantity(1L, 10L));
+      assertEquals(Optional.of(8), cache.availableQuantity(2L, 10L));
+      assertEquals(Optional.empty(), cache.availableQuantity(1L, 11L));
+
+      send("2:10", 7);
+      kafkaTemplate.flush();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!cache.availableQuantity(2L, 10L).equals(Optional.of(7)) && System.nanoTime() < deadline) {
+        Thread.sleep(20);
+      }
+      assertEquals(Optional.of(7), cache.availableQuantity(2L, 10L));
+    } finally {
+      cache.stop();
+    }
+  }
+
+  private void send(String key, int quantity) {
+    String[] ids = key.split(":");
+    kafkaTemplate.send(TOPIC, key, "{\"itemId\":" + ids[1] + ",\"storeId\":" + ids[0] + ",\"availableQuantity\":" + quantity
+        + ",\"updatedAt\":\"2024-10-01T10:15:30Z\"}");
+  }
+}
@@ -0,0 +1,91 @@
+package kafka;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.org.kafka.StockStatePublisher;
+import com.org.service.JacksonConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+class StockStatePublisherTest {
+
+  private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2024, 10, 1, 10, 15, 30);
+
+  @SuppressWarnings("unchecked")
+  private final KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private StockStatePublisher publisher(boolean enabled) {
+    return new StockStatePublisher(kafkaTemplate, new JacksonConfig(), meterRegistry, "stock-state", enabled, Duration.ofSeconds(1));
+  }
+
+  @Test
+  void flush_ShouldSendOnlyLatestStatePerKey() {
+    when(kafkaTemplate.send(eq("stock-state"), anyString(), anyString())).thenReturn(CompletableFuture.completedFuture(null));
+    StockStatePublisher publisher = publisher(true);
+
+    publisher.publish(3L, 7L, 10, UPDATED_AT);
+    publisher.publish(3L, 7L, 9, UPDATED_AT);
+    publisher.publish(4L, 7L, 5, UPDATED_AT);
+
+    assertEquals(2, publisher.flush());
+    ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+    verify(kafkaTemplate).send(eq("stock-state"), eq("3:7"), value.capture());
+    assertTrue(value.getValue().contains("\"availableQuantity\":9"));
+    assertTrue(value.getValue().contains("\"updatedAt\":\"2024-10-01T10:15:30Z\""));
+    verify(kafkaTemplate).send(eq("stock-state"), eq("4:7"), anyString());
+    assertEquals(1, meterRegistry.get("instore.stock-state.records").tag("result", "coalesced").counter().count());
+    assertEquals(0, publisher.pendingCount());
+  }
+
+  @Test
+  void flush_ShouldRequeueFailedState_UnlessANewerOneIsPending() {
+    CompletableFuture<SendResult<String, String>> first = new CompletableFuture<>();
+    when(kafkaTemplate.send(eq("stock-state"), anyString(), anyString()))
+        .thenReturn(first)
+        .thenThrow(new TimeoutException("metadata not available"))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    StockStatePublisher publisher = publisher(true);
+
+    publisher.publish(3L, 7L, 10, UPDATED_AT);
+    publisher.flush();
+    publisher.publish(3L, 8L, 4, UPDATED_AT);
+    publisher.flush();
+    // 3:8 was refused synchronously and is back in the queue; 3:7 is still in flight
+    assertEquals(1, publisher.pendingCount());
+
+    publisher.publish(3L, 7L, 9, UPDATED_AT);
+    first.completeExceptionally(new TimeoutException("broker down"));
+    assertEquals(2, publisher.pendingCount());
+
+    publisher.flush();
+    ArgumentCaptor<String> value = ArgumentCaptor.forClass(String.class);
+    verify(kafkaTemplate, times(2)).send(eq("stock-state"), eq("3:7"), value.capture());
+    assertTrue(value.getValue().contains("\"availableQuantity\":9"));
+  }
+
+  @Test
+  void publish_ShouldDoNothing_WhenDisabled() {
+    StockStatePublisher publisher = publisher(false);
+
+    publisher.publish(3L, 7L, 10, UPDATED_AT);
+
+    assertEquals(0, publisher.flush());
+    verify(kafkaTemplate, never()).send(anyString(), anyString(), anyString());
+  }
+}
@@ -0,0 +1,103 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.org.entity.ActivityDeadLetter;
+import com.org.kafka.ActivityEventReader;
+import com.org.kafka.KafkaProducer;
+import com.org.model.DeadLetterReplayRequest;
+import com.org.model.DeadLetterReplayResponse;
+import com.org.repository.ActivityDeadLetterRepository;
+import com.org.service.ActivityDeadLetterService;
+import com.org.service.JacksonConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+class ActivityDeadLetterServiceTest {
+
+  private static final String VALID_EVENT = "{\"activityType\":\"SELL\",\"activityValue\":\"1\","
+      + "\"activityTimeStamp\":\"2024-10-01T10:15:30Z\",\"itemId\":1}";
+
+  @Mock
+  private ActivityDeadLetterRepository activityDeadLetterRepository;
+
+  @Mock
+  private KafkaProducer kafkaProducer;
+
+  private ActivityDeadLetterService activityDeadLetterService;
+
+  @BeforeEach
+  void setUp() {
+    MockitoAnnotations.openMocks(this);
+    activityDeadLetterService = new ActivityDeadLetterService(activityDeadLetterRepository,
+        new ActivityEventReader(new JacksonConfig()), kafkaProducer, new SimpleMeterRegistry(), Duration.ofSeconds(1));
+  }
+
+  @Test
+  void replay_ShouldPublishCorrectedPayloads_AndReportTheRest() {
+    ActivityDeadLetter missingTimestamp = deadLetter(1L, "{\"activityType\":\"SELL\",\"activityValue\":\"1\"}");
+    ActivityDeadLetter malformed = deadLetter(2L, "{not json");
+    when(activityDeadLetterRepository.findAllById(List.of(1L, 2L, 3L))).thenReturn(List.of(missingTimestamp, malformed));
+    when(kafkaProducer.sendTracked(anyString())).thenReturn(CompletableFuture.completedFuture(null));
+
+    ResponseEntity<DeadLetterReplayResponse> response = activityDeadLetterService.replay(List.of(
+        new DeadLetterReplayRequest(1L, VALID_EVENT),
+        new DeadLetterReplayRequest(2L, null),
+        new DeadLetterReplayRequest(3L, VALID_EVENT)));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertEquals(1, response.getBody().getReplayed());
+    assertEquals(List.of(2L, 3L), List.copyOf(response.getBody().getFailures().keySet()));
+    // The parser's own text is not passed back to the client
+    assertEquals("Invalid payload", response.getBody().getFailures().get(2L));
+    verify(kafkaProducer).sendTracked(VALID_EVENT);
+    assertEquals(VALID_EVENT, missingTimestamp.getPayload());
+    assertNotNull(missingTimestamp.getReplayedAt());
+    verify(activityDeadLetterRepository).saveAll(List.of(missingTimestamp));
+  }
+
+  @Test
+  void replay_ShouldLeaveRecordPending_WhenPublishFails() {
+    ActivityDeadLetter deadLetter = deadLetter(1L, VALID_EVENT);
+    when(activityDeadLetterRepository.findAllById(List.of(1L))).thenReturn(List.of(deadLetter));
+    when(kafkaProducer.sendTracked(anyString())).thenReturn(CompletableFuture.failedFuture(new IllegalStateException("down")));
+
+    ResponseEntity<DeadLetterReplayResponse> response = activityDeadLetterService.replay(
+        List.of(new DeadLetterReplayRequest(1L, null)));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertEquals(0, response.getBody().getReplayed());
+    assertNull(deadLetter.getReplayedAt());
+  }
+
+  @Test
+  void replay_ShouldReturnBadRequest_WhenIdIsMissing() {
+    ResponseEntity<DeadLetterReplayResponse> response = activityDeadLetterService.replay(
+        List.of(new DeadLetterReplayRequest(null, VALID_EVENT)));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    verify(activityDeadLetterRepository, never()).findAllById(anyList());
+  }
+
+  private ActivityDeadLetter deadLetter(Long id, String payload) {
+    ActivityDeadLetter deadLetter = new ActivityDeadLetter();
+    deadLetter.setId(id);
+    deadLetter.setPayload(payload);
+    return deadLetter;
+  }
+}
@@ -0,0 +1,93 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.org.service.AdaptiveChunking;
+import com.org.service.AdaptiveChunking.ChunkPlan;
+import com.org.utility.ChunkedWrite;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class AdaptiveChunkingTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+  private static final long SLOW = TimeUnit.SECONDS.toNanos(1);
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private AdaptiveChunking adaptiveChunking(MockEnvironment environment) {
+    return new AdaptiveChunking(environment
+        .withProperty("instore.chunking.item-add.min-size", "100")
+        .withProperty("instore.chunking.item-add.initial-size", "400")
+        .withProperty("instore.chunking.item-add.max-size", "500")
+        .withProperty("instore.chunking.item-add.max-parallelism", "4"), meterRegistry);
+  }
+
+  @Test
+  void record_ShouldGrowSizeAdditivelyUpToMax_WhenChunksStayWithinTargets() {
+    AdaptiveChunking adaptiveChunking = adaptiveChunking(new MockEnvironment());
+
+    adaptiveChunking.record(adaptiveChunking.plan(ChunkedWrite.ITEM_ADD), FAST, FAST);
+    assertEquals(500, adaptiveChunking.plan(ChunkedWrite.ITEM_ADD).size());
+    adaptiveChunking.record(adaptiveChunking.plan(ChunkedWrite.ITEM_ADD), FAST, FAST);
+    assertEquals(500, adaptiveChunking.plan(ChunkedWrite.ITEM_ADD).size());
+  }
+
+  @Test
+  void record_ShouldHalveSizeDownToMin_WhenCommitsAreSlow() {
+    AdaptiveChunking adaptiveChunking = adaptiveChunking(new MockEnvironment());
+
+    adaptiveChunking.record(adaptiveChunking.plan(ChunkedWrite.ITEM_ADD), FAST, SLOW);
+    ChunkPlan plan = adaptiveChunking.plan(ChunkedWrite.ITEM_ADD);
+    assertEquals(200, plan.size());
+    assertEquals(4, plan.parallelism());
+    adaptiveChunking.record(plan, FAST, SLOW);
+    adaptiveChunking.record(adaptiveChunking.plan(ChunkedWrite.ITEM_ADD), FAST, SLOW);
+    assertEquals(100, adaptiveChunking.plan(ChunkedWrite.ITEM_ADD).size());
+    assertEquals(2.0, meterRegistry.get("instore.chunking.decisions")
+        .tag("write", "item-add").tag("decision", "decrease-latency").counter().count());
+  }
+
+  @Test
+  void record_ShouldHalveParallelism_WhenConnectionWaitIsLong() {
+    AdaptiveChunking adaptiveChunking = adaptiveChunking(new MockEnvironment());
+
+    adaptiveChunking.record(adaptiveChunking.plan(ChunkedWrite.ITEM_ADD), SLOW, FAST);
+    ChunkPlan plan = adaptiveChunking.plan(ChunkedWrite.ITEM_ADD);
+    assertEquals(2, plan.parallelism());
+    assertEquals(400, plan.size());
+    assertEquals(2.0, meterRegistry.get("instore.chunking.parallelism").tag("write", "item-add").gauge().value());
+
+    // One more round of chunks within targets adds one back
+    adaptiveChunking.record(adaptiveChunking.plan(ChunkedWrite.ITEM_ADD), FAST, FAST);
+    adaptiveChunking.record(adaptiveChunking.plan(ChunkedWrite.ITEM_ADD), FAST, FAST);
+    assertEquals(3, adaptiveChunking.plan(ChunkedWrite.ITEM_ADD).parallelism());
+  }
+
+  @Test
+  void record_ShouldDecreaseOncePerDecision_WhenChunksFromBeforeItReportLate() {
+    AdaptiveChunking adaptiveChunking = adaptiveChunking(new MockEnvironment());
+    ChunkPlan first = adaptiveChunking.plan(ChunkedWrite.ITEM_ADD);
+    ChunkPlan second = adaptiveChunking.plan(ChunkedWrite.ITEM_ADD);
+
+    adaptiveChunking.record(first, FAST, SLOW);
+    adaptiveChunking.record(second, FAST, SLOW);
+
+    assertEquals(200, adaptiveChunking.plan(ChunkedWrite.ITEM_ADD).size());
+  }
+
+  @Test
+  void plan_ShouldKeepInitialSize_WhenAdaptiveIsOff() {
+    AdaptiveChunking adaptiveChunking = adaptiveChunking(new MockEnvironment()
+        .withProperty("instore.chunking.adaptive", "false"));
+
+    adaptiveChunking.record(adaptiveChunking.plan(ChunkedWrite.ITEM_ADD), SLOW, SLOW);
+
+    ChunkPlan plan = adaptiveChunking.plan(ChunkedWrite.ITEM_ADD);
+    assertEquals(400, plan.size());
+    assertEquals(4, plan.parallelism());
+    assertEquals(500, adaptiveChunking.plan(ChunkedWrite.INVENTORY_UPDATE).size());
+  }
+}
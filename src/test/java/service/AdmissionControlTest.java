@@ -0,0 +1,115 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.org.service.AdmissionControl;
+import com.org.service.AdmissionControl.Ticket;
+import com.org.utility.AdmissionEndpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+class AdmissionControlTest {
+
+  private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+  private AdmissionControl admissionControl(MockEnvironment environment) {
+    return new AdmissionControl(environment, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void tryAdmit_ShouldRejectWith503_WhenEndpointBudgetIsExhausted() {
+    AdmissionControl admissionControl = admissionControl(new MockEnvironment()
+        .withProperty("instore.admission.record-sales.max-queued-lines", "100"));
+
+    Ticket first = admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, request, 80);
+    Ticket second = admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, request, 30);
+
+    assertTrue(first.isAdmitted());
+    assertFalse(second.isAdmitted());
+    ResponseEntity<Object> rejection = second.rejection();
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejection.getStatusCode());
+    assertEquals("1", rejection.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+    first.close();
+    assertTrue(admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, request, 30).isAdmitted());
+  }
+
+  @Test
+  void tryAdmit_ShouldShareGlobalBudgetAcrossEndpoints() {
+    AdmissionControl admissionControl = admissionControl(new MockEnvironment()
+        .withProperty("instore.admission.max-in-flight-lines", "100"));
+
+    assertTrue(admissionControl.tryAdmit(AdmissionEndpoint.ITEM_ADD, request, 70).isAdmitted());
+    Ticket rejected = admissionControl.tryAdmit(AdmissionEndpoint.INVENTORY_UPDATE, request, 40);
+
+    assertFalse(rejected.isAdmitted());
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.rejection().getStatusCode());
+    // The endpoint budget taken before the global check failed must have been handed back
+    assertTrue(admissionControl.tryAdmit(AdmissionEndpoint.INVENTORY_UPDATE, request, 30).isAdmitted());
+  }
+
+  @Test
+  void tryAdmit_ShouldRejectWith413_WhenBatchCanNeverFit() {
+    AdmissionControl admissionControl = admissionControl(new MockEnvironment()
+        .withProperty("instore.admission.item-add.max-queued-lines", "10"));
+
+    Ticket ticket = admissionControl.tryAdmit(AdmissionEndpoint.ITEM_ADD, request, 11);
+
+    assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, ticket.rejection().getStatusCode());
+  }
+
+  @Test
+  void tryAdmit_ShouldRejectWith429_WhenClientExceedsItsRate() {
+    AdmissionControl admissionControl = admissionControl(new MockEnvironment()
+        .withProperty("instore.admission.client.lines-per-second", "10")
+        .withProperty("instore.admission.client.burst-lines", "20"));
+    request.addHeader(AdmissionControl.CLIENT_ID_HEADER, "till-7");
+    MockHttpServletRequest otherClient = new MockHttpServletRequest();
+    otherClient.addHeader(AdmissionControl.CLIENT_ID_HEADER, "till-8");
+
+    try (Ticket ticket = admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, request, 20)) {
+      assertTrue(ticket.isAdmitted());
+    }
+    Ticket limited = admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, request, 15);
+
+    assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.rejection().getStatusCode());
+    assertEquals("2", limited.rejection().getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    assertTrue(admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, otherClient, 15).isAdmitted());
+  }
+
+  @Test
+  void tryAdmit_ShouldRejectWith413_WhenBatchExceedsClientBurst() {
+    AdmissionControl admissionControl = admissionControl(new MockEnvironment()
+        .withProperty("instore.admission.client.lines-per-second", "10")
+        .withProperty("instore.admission.client.burst-lines", "20"));
+
+    Ticket ticket = admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, request, 21);
+
+    assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, ticket.rejection().getStatusCode());
+    assertTrue(admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, request, 20).isAdmitted());
+  }
+
+  @Test
+  void tryAdmit_ShouldNotSpendClientRate_WhenBudgetIsSaturated() {
+    AdmissionControl admissionControl = admissionControl(new MockEnvironment()
+        .withProperty("instore.admission.record-sales.max-queued-lines", "20")
+        .withProperty("instore.admission.client.lines-per-second", "10")
+        .withProperty("instore.admission.client.burst-lines", "20"));
+    MockHttpServletRequest otherClient = new MockHttpServletRequest();
+    otherClient.addHeader(AdmissionControl.CLIENT_ID_HEADER, "till-8");
+
+    Ticket held = admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, otherClient, 20);
+    Ticket saturated = admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, request, 20);
+    held.close();
+
+    assertEquals(HttpStatus.SERVICE_UNAVAILABLE, saturated.rejection().getStatusCode());
+    assertTrue(admissionControl.tryAdmit(AdmissionEndpoint.RECORD_SALES, request, 20).isAdmitted());
+  }
+}
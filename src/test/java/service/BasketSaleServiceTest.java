@@ -0,0 +1,155 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.org.entity.Inventory;
+import com.org.kafka.StockStatePublisher;
+import com.org.model.ActivityLine;
+import com.org.model.BasketSaleRequest;
+import com.org.model.BasketSaleResponse;
+import com.org.model.InventoryRequest;
+import com.org.repository.InventoryRepository;
+import com.org.repository.InventoryRepositoryCustom.LockedStock;
+import com.org.service.BasketSaleService;
+import com.org.service.ExecutionLanes;
+import com.org.service.InventoryActivityEventProducer;
+import com.org.service.StoreWriteRouter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class BasketSaleServiceTest {
+
+  private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+  private final InventoryActivityEventProducer inventoryActivityEventProducer = mock(InventoryActivityEventProducer.class);
+  private final StockStatePublisher stockStatePublisher = mock(StockStatePublisher.class);
+  private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private BasketSaleService basketSaleService;
+
+  @BeforeEach
+  void setUp() {
+    when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+    when(inventoryRepository.existsByStoreId(1L)).thenReturn(true);
+    basketSaleService = new BasketSaleService(inventoryRepository,
+        new StoreWriteRouter(1L, 60, 1_000, 4, Duration.ofSeconds(30), new ExecutionLanes(4, 4, 1, new SimpleMeterRegistry()),
+            inventoryRepository),
+        inventoryActivityEventProducer, stockStatePublisher, new TransactionTemplate(transactionManager), meterRegistry);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void sellBasket_ShouldLockInItemOrder_AndCommitAllLinesWithOneEvent() {
+    when(inventoryRepository.lockStock(1L, List.of(3L, 9L))).thenReturn(List.of(
+        new LockedStock(3L, 10, "Tea"), new LockedStock(9L, 10, "Milk")));
+    Inventory tea = Inventory.builder().itemId(3L).storeId(1L).availableQuantity(7).updationDate(LocalDateTime.now()).build();
+    Inventory milk = Inventory.builder().itemId(9L).storeId(1L).availableQuantity(9).updationDate(LocalDateTime.now()).build();
+    when(inventoryRepository.decrementStock(1L, List.of(3L, 9L), List.of(3, 1))).thenReturn(List.of(tea, milk));
+
+    ResponseEntity<BasketSaleResponse> response = basketSaleService.sellBasket(basket(line(9L, 1), line(3L, 2), line(3L, 1)));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(2, response.getBody().getLines());
+    assertEquals(4, response.getBody().getUnits());
+    verify(stockStatePublisher).publish(tea);
+    verify(stockStatePublisher).publish(milk);
+    ArgumentCaptor<List<ActivityLine>> lines = ArgumentCaptor.forClass(List.class);
+    verify(inventoryActivityEventProducer, times(1)).sendBasketSaleEvent(eq(1L), any(), lines.capture());
+    assertEquals("Tea", lines.getValue().get(0).getItemName());
+    assertEquals(3, lines.getValue().get(0).getQuantity());
+    verify(inventoryActivityEventProducer, never()).sendInventoryActivityEvent(any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void sellBasket_ShouldRecordNothing_WhenOneLineIsShort() {
+    when(inventoryRepository.lockStock(1L, List.of(3L, 9L))).thenReturn(List.of(
+        new LockedStock(3L, 10, "Tea"), new LockedStock(9L, 0, "Milk")));
+
+    ResponseEntity<BasketSaleResponse> response = basketSaleService.sellBasket(basket(line(3L, 2), line(9L, 1)));
+
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(1, response.getBody().getFailures().size());
+    assertEquals(9L, response.getBody().getFailures().get(0).getItemId());
+    assertEquals("Insufficient stock", response.getBody().getFailures().get(0).getMessage());
+    verify(inventoryRepository, never()).decrementStock(any(), anyList(), anyList());
+    verify(inventoryActivityEventProducer, never()).sendBasketSaleEvent(any(), any(), anyList());
+    verify(transactionManager).commit(argThat(TransactionStatus::isRollbackOnly));
+  }
+
+  @Test
+  void sellBasket_ShouldRejectInvalidLines_WithoutLocking() {
+    InventoryRequest restock = line(3L, 1);
+    restock.setOperationType("ADD");
+
+    ResponseEntity<BasketSaleResponse> response = basketSaleService.sellBasket(basket(restock, line(9L, 0), line(null, 1)));
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(3, response.getBody().getFailures().size());
+    assertEquals("Invalid operation type", response.getBody().getFailures().get(0).getMessage());
+    verify(inventoryRepository, never()).lockStock(any(), anyList());
+  }
+
+  @Test
+  void sellBasket_ShouldAnswerNotFound_ForStoreWithoutStock() {
+    BasketSaleRequest request = basket(line(3L, 1), line(9L, 1));
+    request.setStoreId(42L);
+
+    ResponseEntity<BasketSaleResponse> response = basketSaleService.sellBasket(request);
+
+    assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(2, response.getBody().getFailures().size());
+    assertEquals("Item not found", response.getBody().getFailures().get(0).getMessage());
+    verify(inventoryRepository, never()).lockStock(any(), anyList());
+  }
+
+  @Test
+  void sellBasket_ShouldRetryWholeBasket_AfterDeadlock() {
+    PessimisticLockingFailureException deadlock = new PessimisticLockingFailureException("deadlock",
+        new SQLException("deadlock detected", "40P01"));
+    when(inventoryRepository.lockStock(1L, List.of(3L)))
+        .thenThrow(deadlock)
+        .thenReturn(List.of(new LockedStock(3L, 10, "Tea")));
+    when(inventoryRepository.decrementStock(1L, List.of(3L), List.of(1))).thenReturn(List.of(
+        Inventory.builder().itemId(3L).storeId(1L).availableQuantity(9).updationDate(LocalDateTime.now()).build()));
+
+    ResponseEntity<BasketSaleResponse> response = basketSaleService.sellBasket(basket(line(3L, 1)));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(1.0, meterRegistry.counter("instore.basket.deadlocks").count());
+    assertEquals(1.0, meterRegistry.counter("instore.basket.sales", "outcome", "committed").count());
+  }
+
+  private BasketSaleRequest basket(InventoryRequest... lines) {
+    return BasketSaleRequest.builder().basketId("r-1").lines(List.of(lines)).build();
+  }
+
+  private InventoryRequest line(Long itemId, Integer quantity) {
+    return InventoryRequest.builder().itemId(itemId).quantity(quantity).build();
+  }
+}
@@ -0,0 +1,57 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.org.service.ExecutionLanes;
+import com.org.utility.ExecutionLane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ExecutionLanesTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ExecutionLanes executionLanes = new ExecutionLanes(2, 3, 1, meterRegistry);
+
+  @Test
+  void tryStart_ShouldShrinkBulkBudget_WhileInteractiveWorkIsQueued() {
+    assertTrue(start(ExecutionLane.BULK));
+    assertTrue(start(ExecutionLane.BULK));
+
+    long saleQueuedAt = executionLanes.enqueued(ExecutionLane.INTERACTIVE);
+    assertFalse(start(ExecutionLane.BULK));
+
+    assertTrue(executionLanes.tryStart(ExecutionLane.INTERACTIVE, saleQueuedAt, 0, TimeUnit.MILLISECONDS));
+    executionLanes.finished(ExecutionLane.INTERACTIVE);
+    assertTrue(start(ExecutionLane.BULK));
+  }
+
+  @Test
+  void tryStart_ShouldCapInteractiveConcurrency() {
+    assertTrue(start(ExecutionLane.INTERACTIVE));
+    assertTrue(start(ExecutionLane.INTERACTIVE));
+    assertFalse(start(ExecutionLane.INTERACTIVE));
+  }
+
+  @Test
+  void run_ShouldRecordQueueWaitPerLane() {
+    long queuedAt = executionLanes.enqueued(ExecutionLane.INTERACTIVE);
+
+    assertEquals("done", executionLanes.run(ExecutionLane.INTERACTIVE, queuedAt, () -> "done"));
+
+    assertEquals(1, meterRegistry.get("instore.lane.queue.wait").tag("lane", "interactive").timer().count());
+    assertEquals(0, meterRegistry.get("instore.lane.running").tag("lane", "interactive").gauge().value());
+    assertEquals(0, meterRegistry.get("instore.lane.queued").tag("lane", "interactive").gauge().value());
+  }
+
+  private boolean start(ExecutionLane lane) {
+    long queuedAt = executionLanes.enqueued(lane);
+    boolean started = executionLanes.tryStart(lane, queuedAt, 0, TimeUnit.MILLISECONDS);
+    if (!started) {
+      executionLanes.dropped(lane);
+    }
+    return started;
+  }
+}
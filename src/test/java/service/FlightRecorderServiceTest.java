@@ -0,0 +1,99 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.org.diagnostics.InventoryBatchEvent;
+import com.org.service.FlightRecorderService;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class FlightRecorderServiceTest {
+
+  private final FlightRecorderService flightRecorderService = new FlightRecorderService(true, Duration.ofMinutes(1),
+      DataSize.ofMegabytes(16), Duration.ZERO, Duration.ofSeconds(10));
+
+  @AfterEach
+  void tearDown() {
+    flightRecorderService.stop();
+  }
+
+  @Test
+  void record_ShouldDownloadRecordingWithInventoryEvents() throws Exception {
+    ResponseEntity<StreamingResponseBody> response = flightRecorderService.record(Duration.ofSeconds(2), "default");
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompletableFuture<Void> download = CompletableFuture.runAsync(() -> {
+      try {
+        response.getBody().writeTo(out);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    Thread.sleep(500);
+    assertEquals(HttpStatus.CONFLICT, flightRecorderService.record(Duration.ofSeconds(1), "default").getStatusCode());
+    commitBatch("recordSales", 3);
+    download.join();
+
+    List<RecordedEvent> batches = batchEvents(out.toByteArray());
+    assertTrue(batches.stream().anyMatch(event -> "recordSales".equals(event.getString("endpoint"))
+        && event.getInt("batchSize") == 3));
+    assertEquals(HttpStatus.OK, flightRecorderService.record(Duration.ofSeconds(1), "default").getStatusCode());
+  }
+
+  @Test
+  void record_ShouldRejectUnknownSettingsAndTooLongDurations() {
+    assertEquals(HttpStatus.BAD_REQUEST, flightRecorderService.record(Duration.ofMinutes(1), "default").getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, flightRecorderService.record(Duration.ZERO, "default").getStatusCode());
+    assertEquals(HttpStatus.BAD_REQUEST, flightRecorderService.record(Duration.ofSeconds(1), "no-such-settings").getStatusCode());
+  }
+
+  @Test
+  void dumpContinuous_ShouldReturnEventsRecordedSoFar() throws Exception {
+    assertEquals(HttpStatus.NOT_FOUND, flightRecorderService.dumpContinuous().getStatusCode());
+    flightRecorderService.start();
+    commitBatch("updateInventory", 7);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ResponseEntity<StreamingResponseBody> response = flightRecorderService.dumpContinuous();
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    response.getBody().writeTo(out);
+
+    assertTrue(batchEvents(out.toByteArray()).stream().anyMatch(event -> event.getInt("batchSize") == 7));
+  }
+
+  private void commitBatch(String endpoint, int batchSize) {
+    InventoryBatchEvent event = new InventoryBatchEvent();
+    event.begin();
+    event.endpoint = endpoint;
+    event.batchSize = batchSize;
+    event.commit();
+  }
+
+  private List<RecordedEvent> batchEvents(byte[] recording) throws Exception {
+    Path file = Files.createTempFile("recording", ".jfr");
+    try {
+      Files.write(file, recording);
+      return RecordingFile.readAllEvents(file).stream()
+          .filter(event -> event.getEventType().getName().equals("com.org.inventory.Batch"))
+          .toList();
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
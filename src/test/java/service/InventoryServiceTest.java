@@ -3,34 +3,53 @@ package service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.org.entity.Inventory;
 import com.org.entity.Item;
+import com.org.kafka.StockStatePublisher;
 import com.org.model.AddItemRequest;
+import com.org.model.BatchSummaryResponse;
 import com.org.model.InventoryRequest;
 import com.org.model.InventoryResponse;
+import com.org.model.StockAvailabilityResponse;
 import com.org.repository.InventoryRepository;
 import com.org.repository.ItemRepository;
+import com.org.service.AdaptiveChunking;
+import com.org.service.ExecutionLanes;
 import com.org.service.InventoryActivityEventProducer;
 import com.org.service.InventoryService;
+import com.org.service.ItemIdFilter;
+import com.org.service.StockEngine;
+import com.org.service.StoreWriteRouter;
+import com.org.utility.LineOutcome;
 import com.org.utility.ResponseStatus;
 import com.org.utility.StockOperationType;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 class InventoryServiceTest {
 
@@ -46,24 +65,141 @@ class InventoryServiceTest {
   @Mock
   private InventoryActivityEventProducer inventoryActivityEventProducer;
 
+  @Mock
+  private StockStatePublisher stockStatePublisher;
+
+  @Spy
+  private StoreWriteRouter storeWriteRouter = new StoreWriteRouter(1L, 60, 1_000, 4, Duration.ofSeconds(30),
+      new ExecutionLanes(4, 4, 1, new SimpleMeterRegistry()), stores());
+
+  @Spy
+  private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @Spy
+  private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+  @Spy
+  private AdaptiveChunking adaptiveChunking = new AdaptiveChunking(new MockEnvironment(), new SimpleMeterRegistry());
+
+  // Never built, so every id passes unless a test says otherwise
+  @Spy
+  private ItemIdFilter itemIdFilter = new ItemIdFilter(null, null, new SimpleMeterRegistry(), false, 0.01, 0, 0);
+
+  // Disabled, so lines take the store lanes
+  @Spy
+  private StockEngine stockEngine = new StockEngine(null, null, null, null, new SimpleMeterRegistry(), false, 1, 1, 1, 1);
+
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
   }
 
+  // Every store holds stock as far as the router can tell; tests stub a store away where it matters
+  private static InventoryRepository stores() {
+    InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    when(inventoryRepository.existsByStoreId(any())).thenReturn(true);
+    return inventoryRepository;
+  }
+
   @Test
-  void testAddItem() {
+  void testAddItems() {
     AddItemRequest request = new AddItemRequest();
     request.setInventory(InventoryRequest.of(null));
     request.getInventory().setQuantity(10);
+    AddItemRequest otherStore = new AddItemRequest();
+    otherStore.setInventory(InventoryRequest.of(4));
+    otherStore.getInventory().setStoreId(3L);
+
+    inventoryService.addItems(List.of(request, otherStore), List.of(1L, 2L));
+
+    verify(inventoryRepository, times(1)).insertStock(List.of(1L, 2L), List.of(1L, 3L), List.of(10, 4));
+    verify(inventoryRepository, never()).save(any());
+  }
+
+  @Test
+  void testRegisterStoresOfOpeningStock() {
+    inventoryService.registerStores(List.of(Inventory.builder().itemId(1L).storeId(1L).build(),
+        Inventory.builder().itemId(2L).storeId(3L).build(), Inventory.builder().itemId(3L).storeId(3L).build()));
+
+    verify(storeWriteRouter, times(1)).registerStore(1L);
+    verify(storeWriteRouter, times(1)).registerStore(3L);
+  }
+
+  @Test
+  void testUpdateInventoryUsesRequestedStore() {
+    InventoryRequest request = new InventoryRequest();
+    request.setItemId(1L);
+    request.setStoreId(7L);
+    request.setQuantity(5);
+    request.setOperationType(StockOperationType.ADD.name());
+
+    Inventory inventory = Inventory.builder().itemId(1L).storeId(7L).availableQuantity(10).build();
+
+    when(inventoryRepository.findAllByStoreIdAndItemIdIn(eq(7L), any())).thenReturn(List.of(inventory));
+    when(itemRepository.findAllById(any())).thenReturn(List.of(Item.builder().id(1L).isDeleted(false).build()));
+
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.updateInventory(
+        List.of(request));
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(15, inventory.getAvailableQuantity());
+    verify(stockStatePublisher).publish(inventory);
+  }
+
+  @Test
+  void testUpdateInventoryAnswersNotFound_ForStoreWithoutStock() {
+    InventoryRequest request = InventoryRequest.builder().itemId(1L).storeId(99L).quantity(5)
+        .operationType(StockOperationType.ADD.name()).build();
+    doReturn(false).when(storeWriteRouter).isKnownStore(99L);
+
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.updateInventory(List.of(request));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals("Item not found", response.getBody().get(0).getMessage());
+    verify(storeWriteRouter, never()).submit(any(), any(), any(), any());
+    verify(inventoryRepository, never()).findAllByStoreIdAndItemIdIn(any(), any());
+  }
+
+  @Test
+  void testUpdateInventoryGoesToStockEngine_WhenEnabled() {
+    InventoryRequest add = InventoryRequest.builder().itemId(1L).quantity(5).operationType(StockOperationType.ADD.name()).build();
+    InventoryRequest sale = InventoryRequest.builder().itemId(2L).quantity(9).operationType(StockOperationType.SELL.name()).build();
+    doReturn(true).when(stockEngine).isEnabled();
+    doReturn(CompletableFuture.completedFuture(LineOutcome.SUCCESS))
+        .when(stockEngine).submit(1L, 1L, 5, StockOperationType.ADD, false);
+    doReturn(CompletableFuture.completedFuture(LineOutcome.INSUFFICIENT_STOCK))
+        .when(stockEngine).submit(1L, 2L, 9, StockOperationType.SELL, false);
 
-    inventoryService.addItem(request, 1L);
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.updateInventory(List.of(add, sale));
 
-    ArgumentCaptor<Inventory> inventoryCaptor = ArgumentCaptor.forClass(Inventory.class);
-    verify(inventoryRepository, times(1)).save(inventoryCaptor.capture());
-    Inventory savedInventory = inventoryCaptor.getValue();
-    assertEquals(1L, savedInventory.getItemId());
-    assertEquals(10, savedInventory.getAvailableQuantity());
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertEquals(ResponseStatus.SUCCESS, response.getBody().get(0).getStatus());
+    assertEquals(LineOutcome.INSUFFICIENT_STOCK.getMessage(), response.getBody().get(1).getMessage());
+    verify(inventoryRepository, never()).findAllByStoreIdAndItemIdIn(any(), any());
+  }
+
+  @Test
+  void testGetAvailabilityAggregatesStores() {
+    when(inventoryRepository.findAllByItemId(1L)).thenReturn(List.of(
+        Inventory.builder().itemId(1L).storeId(1L).availableQuantity(10).build(),
+        Inventory.builder().itemId(1L).storeId(2L).availableQuantity(4).build()));
+
+    ResponseEntity<StockAvailabilityResponse> response = inventoryService.getAvailability(1L);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(14, response.getBody().getTotalQuantity());
+    assertEquals(2, response.getBody().getStores().size());
+  }
+
+  @Test
+  void testGetAvailabilityForUnknownItem() {
+    when(inventoryRepository.findAllByItemId(1L)).thenReturn(List.of());
+
+    ResponseEntity<StockAvailabilityResponse> response = inventoryService.getAvailability(1L);
+
+    assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
   }
 
   @Test
@@ -83,10 +219,8 @@ class InventoryServiceTest {
     inventory.setItemId(1L);
     inventory.setAvailableQuantity(10);
 
-    when(inventoryRepository.save(inventory)).thenReturn(inventory);
-    when(inventoryRepository.findByItemId(1L)).thenReturn(Optional.of(inventory));
-    when(itemRepository.findById(1L)).thenReturn(
-        Optional.of(Item.builder().isDeleted(false).build())); // Assume Item class exists
+    when(inventoryRepository.findAllByStoreIdAndItemIdIn(eq(1L), any())).thenReturn(List.of(inventory));
+    when(itemRepository.findAllById(any())).thenReturn(List.of(Item.builder().id(1L).isDeleted(false).build()));
 
     ResponseEntity<List<InventoryResponse>> response = inventoryService.updateInventory(
         List.of(request));
@@ -101,7 +235,7 @@ class InventoryServiceTest {
     request.setQuantity(5);
     request.setOperationType(StockOperationType.ADD.name());
 
-    when(inventoryRepository.findByItemId(1L)).thenReturn(Optional.empty());
+    when(inventoryRepository.findAllByStoreIdAndItemIdIn(eq(1L), any())).thenReturn(List.of());
 
     ResponseEntity<List<InventoryResponse>> response = inventoryService.updateInventory(
         List.of(request));
@@ -113,6 +247,60 @@ class InventoryServiceTest {
     assertEquals(ResponseStatus.FAILED, body.get(0).getStatus());
   }
 
+  @Test
+  void testUpdateInventoryRejectsFilteredItemWithoutTouchingStore() {
+    InventoryRequest request = new InventoryRequest();
+    request.setItemId(99L);
+    request.setQuantity(5);
+    request.setOperationType(StockOperationType.ADD.name());
+    doReturn(false).when(itemIdFilter).mightExist(99L);
+
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.updateInventory(List.of(request));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals("Item not found", response.getBody().get(0).getMessage());
+    verify(inventoryRepository, never()).findAllByStoreIdAndItemIdIn(any(), any());
+    verify(itemRepository, never()).findAllById(any());
+  }
+
+  @Test
+  void testUpdateInventoryRejectsUnknownOperationWithoutTouchingStore() {
+    InventoryRequest request = new InventoryRequest();
+    request.setItemId(1L);
+    request.setQuantity(5);
+    request.setOperationType("RESTOCK");
+
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.updateInventory(List.of(request));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals("Invalid operation type", response.getBody().get(0).getMessage());
+    assertEquals(1L, response.getBody().get(0).getItemId());
+    verify(inventoryRepository, never()).findAllByStoreIdAndItemIdIn(any(), any());
+    assertEquals(1.0, meterRegistry.counter("instore.inventory.lines", "outcome", "invalid-operation").count());
+  }
+
+  @Test
+  void testUpdateInventoryReportsDeletedItemAsNotFound() {
+    InventoryRequest request = new InventoryRequest();
+    request.setItemId(1L);
+    request.setQuantity(5);
+    request.setOperationType("add");
+
+    Inventory inventory = Inventory.builder().itemId(1L).storeId(1L).availableQuantity(10).build();
+    when(inventoryRepository.findAllByStoreIdAndItemIdIn(eq(1L), any())).thenReturn(List.of(inventory));
+    when(itemRepository.findAllById(any())).thenReturn(List.of(Item.builder().id(1L).isDeleted(true).build()));
+
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.updateInventory(List.of(request));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals("Item not found", response.getBody().get(0).getMessage());
+    assertEquals(10, inventory.getAvailableQuantity());
+    verify(inventoryRepository, never()).save(any());
+  }
+
   @Test
   void testModifyInventoryWithEmptyRequests() {
     ResponseEntity<List<InventoryResponse>> response = inventoryService.recordSales(null);
@@ -130,10 +318,8 @@ class InventoryServiceTest {
     inventory.setItemId(1L);
     inventory.setAvailableQuantity(10);
 
-    when(inventoryRepository.save(inventory)).thenReturn(inventory);
-    when(inventoryRepository.findByItemId(1L)).thenReturn(Optional.of(inventory));
-    when(itemRepository.findById(1L)).thenReturn(
-        Optional.of(Item.builder().isDeleted(false).build())); // Assume Item class exists
+    when(inventoryRepository.findAllByStoreIdAndItemIdIn(eq(1L), any())).thenReturn(List.of(inventory));
+    when(itemRepository.findAllById(any())).thenReturn(List.of(Item.builder().id(1L).isDeleted(false).build()));
 
     ResponseEntity<List<InventoryResponse>> response = inventoryService.recordSales(
         List.of(request));
@@ -142,32 +328,139 @@ class InventoryServiceTest {
   }
 
   @Test
-  void testProcessInventorySoldWithInsufficientStock() throws JsonProcessingException {
-    Inventory inventory = new Inventory();
-    inventory.setItemId(1L);
-    inventory.setAvailableQuantity(2);
+  void testRecordSalesFailsOnlyTheLineWithUnknownOperation() {
+    InventoryRequest sale = new InventoryRequest();
+    sale.setItemId(1L);
+    sale.setQuantity(1);
+    sale.setOperationType(StockOperationType.SELL.name());
+    InventoryRequest restock = new InventoryRequest();
+    restock.setItemId(2L);
+    restock.setQuantity(1);
+    restock.setOperationType(StockOperationType.ADD.name());
+    InventoryRequest unknown = new InventoryRequest();
+    unknown.setItemId(3L);
+    unknown.setQuantity(1);
+    unknown.setOperationType("STEAL");
+
+    Inventory inventory = Inventory.builder().itemId(1L).storeId(1L).availableQuantity(10).build();
+    when(inventoryRepository.findAllByStoreIdAndItemIdIn(eq(1L), any())).thenReturn(List.of(inventory));
+    when(itemRepository.findAllById(any())).thenReturn(List.of(Item.builder().id(1L).isDeleted(false).build()));
+
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.recordSales(List.of(sale, restock, unknown));
 
-    InventoryResponse response = inventoryService.processInventorySold(inventory, 5);
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(2, response.getBody().size());
+    assertEquals(ResponseStatus.SUCCESS, response.getBody().get(0).getStatus());
+    assertEquals(3L, response.getBody().get(1).getItemId());
+    assertEquals("Invalid operation type", response.getBody().get(1).getMessage());
+    assertEquals(9, inventory.getAvailableQuantity());
+  }
+
+  @Test
+  void testRecordSalesFailuresOnlyKeysFailedLinesByRequestIndex() {
+    InventoryRequest restock = new InventoryRequest();
+    restock.setItemId(2L);
+    restock.setQuantity(1);
+    restock.setOperationType(StockOperationType.ADD.name());
+    InventoryRequest sale = new InventoryRequest();
+    sale.setItemId(1L);
+    sale.setQuantity(1);
+    sale.setOperationType(StockOperationType.SELL.name());
+    InventoryRequest oversell = new InventoryRequest();
+    oversell.setItemId(1L);
+    oversell.setQuantity(100);
+    oversell.setOperationType(StockOperationType.SELL.name());
+    InventoryRequest unknown = new InventoryRequest();
+    unknown.setItemId(3L);
+    unknown.setQuantity(1);
+    unknown.setOperationType("STEAL");
+
+    Inventory inventory = Inventory.builder().itemId(1L).storeId(1L).availableQuantity(10).build();
+    when(inventoryRepository.findAllByStoreIdAndItemIdIn(eq(1L), any())).thenReturn(List.of(inventory));
+    when(itemRepository.findAllById(any())).thenReturn(List.of(Item.builder().id(1L).isDeleted(false).build()));
+
+    ResponseEntity<BatchSummaryResponse> response = inventoryService.recordSalesFailures(List.of(restock, sale, oversell, unknown));
 
-    assertEquals(ResponseStatus.FAILED, response.getStatus());
-    assertEquals("Insufficient stock", response.getMessage());
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    BatchSummaryResponse body = response.getBody();
+    assertNotNull(body);
+    assertEquals(4, body.getLines());
+    assertEquals(1, body.getSucceeded());
+    assertEquals(1, body.getSkipped());
+    assertEquals(2, body.getFailed());
+    assertEquals(Map.of(2, "Insufficient stock", 3, "Invalid operation type"), body.getFailures());
+    assertEquals(9, inventory.getAvailableQuantity());
   }
 
   @Test
-  void testProcessInventorySoldSuccessfully() throws JsonProcessingException {
-    Inventory inventory = new Inventory();
-    inventory.setItemId(1L);
-    inventory.setAvailableQuantity(10);
+  void testRecordSalesReadsStoreOnceAndAppliesLinesInOrder() {
+    InventoryRequest first = new InventoryRequest();
+    first.setItemId(1L);
+    first.setQuantity(6);
+    first.setOperationType(StockOperationType.SELL.name());
+    InventoryRequest second = new InventoryRequest();
+    second.setItemId(1L);
+    second.setQuantity(6);
+    second.setOperationType(StockOperationType.SELL.name());
+
+    Inventory inventory = Inventory.builder().itemId(1L).storeId(1L).availableQuantity(10).build();
+    when(inventoryRepository.findAllByStoreIdAndItemIdIn(eq(1L), any())).thenReturn(List.of(inventory));
+    when(itemRepository.findAllById(any())).thenReturn(List.of(Item.builder().id(1L).isDeleted(false).build()));
+
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.recordSales(List.of(first, second));
 
-    Item item = Item.builder().id(1L).itemName("Item1").itemPrice(BigDecimal.valueOf(100.0)).isDeleted(false).build();
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(ResponseStatus.SUCCESS, response.getBody().get(0).getStatus());
+    assertEquals("Insufficient stock", response.getBody().get(1).getMessage());
+    assertEquals(4, inventory.getAvailableQuantity());
+    verify(inventoryRepository, times(1)).findAllByStoreIdAndItemIdIn(eq(1L), any());
+    verify(itemRepository, times(1)).findAllById(any());
+    verify(inventoryRepository, never()).save(any());
+  }
+
+  @Test
+  void testRecordSalesWithInsufficientStock() {
+    InventoryRequest sale = new InventoryRequest();
+    sale.setItemId(1L);
+    sale.setQuantity(5);
+    sale.setOperationType(StockOperationType.SELL.name());
+
+    Inventory inventory = Inventory.builder().itemId(1L).storeId(1L).availableQuantity(2).build();
+    when(inventoryRepository.findAllByStoreIdAndItemIdIn(eq(1L), any())).thenReturn(List.of(inventory));
+    when(itemRepository.findAllById(any())).thenReturn(List.of(Item.builder().id(1L).isDeleted(false).build()));
+
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.recordSales(List.of(sale));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(ResponseStatus.FAILED, response.getBody().get(0).getStatus());
+    assertEquals("Insufficient stock", response.getBody().get(0).getMessage());
+    assertEquals(2, inventory.getAvailableQuantity());
+    verify(inventoryActivityEventProducer, never()).sendInventoryActivityEvent(any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void testRecordSalesSuccessfully() {
+    InventoryRequest sale = new InventoryRequest();
+    sale.setItemId(1L);
+    sale.setQuantity(5);
+    sale.setOperationType(StockOperationType.SELL.name());
+
+    Inventory inventory = Inventory.builder().itemId(1L).storeId(1L).availableQuantity(10).build();
+    when(inventoryRepository.findAllByStoreIdAndItemIdIn(eq(1L), any())).thenReturn(List.of(inventory));
+    when(itemRepository.findAllById(any()))
+        .thenReturn(List.of(Item.builder().id(1L).itemName("Item1").itemPrice(BigDecimal.valueOf(100.0)).isDeleted(false).build()));
 
-    when(inventoryRepository.save(inventory)).thenReturn(inventory);
-    when(itemRepository.findById(1L)).thenReturn(Optional.of(item));
-    InventoryResponse response = inventoryService.processInventorySold(inventory, 5);
+    ResponseEntity<List<InventoryResponse>> response = inventoryService.recordSales(List.of(sale));
 
-    assertEquals(ResponseStatus.SUCCESS, response.getStatus());
-    assertNull(response.getMessage());
-    assertEquals(5, inventory.getAvailableQuantity()); // Check if inventory quantity is updated
-    verify(inventoryRepository, times(1)).save(inventory);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertNotNull(response.getBody());
+    assertEquals(ResponseStatus.SUCCESS, response.getBody().get(0).getStatus());
+    assertNull(response.getBody().get(0).getMessage());
+    assertEquals(5, inventory.getAvailableQuantity());
+    verify(inventoryActivityEventProducer, times(1))
+        .sendInventoryActivityEvent(eq(StockOperationType.SELL.name()), eq("5"), any(), eq(1L), eq("Item1"), eq(1L));
   }
 }
@@ -0,0 +1,84 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.org.service.ItemIdFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.ResultSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ItemIdFilterTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+  // Live items 1..1000 and 2000, judged up to 2000 less a margin of 100
+  private ItemIdFilter builtFilter() throws Exception {
+    when(jdbcTemplate.queryForObject(any(String.class), eq(Long.class))).thenReturn(1001L);
+    doAnswer(invocation -> {
+      RowCallbackHandler handler = invocation.getArgument(1);
+      ResultSet rs = mock(ResultSet.class);
+      for (long itemId = 1; itemId <= 1000; itemId++) {
+        when(rs.getLong(1)).thenReturn(itemId);
+        handler.processRow(rs);
+      }
+      when(rs.getLong(1)).thenReturn(2000L);
+      handler.processRow(rs);
+      return null;
+    }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+    ItemIdFilter itemIdFilter = new ItemIdFilter(jdbcTemplate, mock(PlatformTransactionManager.class), meterRegistry,
+        true, 0.01, 1_000, 100);
+    assertEquals(1001, itemIdFilter.rebuild());
+    return itemIdFilter;
+  }
+
+  @Test
+  void mightExist_ShouldRejectIdsNeverScanned_WithinTheJudgedRange() throws Exception {
+    ItemIdFilter itemIdFilter = builtFilter();
+
+    for (long itemId = 1; itemId <= 1000; itemId++) {
+      assertTrue(itemIdFilter.mightExist(itemId));
+    }
+    int passed = 0;
+    for (long itemId = 1001; itemId <= 1900; itemId++) {
+      passed += itemIdFilter.mightExist(itemId) ? 1 : 0;
+    }
+    // 1% target rate; allow for the small sample
+    assertTrue(passed < 30, passed + " of 900 unknown ids passed");
+    assertFalse(itemIdFilter.mightExist(-5L));
+    assertEquals(900 - passed + 1, meterRegistry.get("instore.item-filter.rejected").counter().count());
+  }
+
+  @Test
+  void mightExist_ShouldPassIdsAboveTheJudgedRange_AndIdsAddedSinceTheBuild() throws Exception {
+    ItemIdFilter itemIdFilter = builtFilter();
+
+    assertTrue(itemIdFilter.mightExist(1950L));
+    assertTrue(itemIdFilter.mightExist(5000L));
+    itemIdFilter.add(List.of(1500L));
+    assertTrue(itemIdFilter.mightExist(1500L));
+    assertTrue(meterRegistry.get("instore.item-filter.bytes").gauge().value() > 0);
+  }
+
+  @Test
+  void mightExist_ShouldPassEveryId_UntilBuilt() {
+    ItemIdFilter itemIdFilter = new ItemIdFilter(jdbcTemplate, mock(PlatformTransactionManager.class), meterRegistry,
+        true, 0.01, 1_000, 100);
+
+    assertTrue(itemIdFilter.mightExist(42L));
+    assertTrue(itemIdFilter.mightExist(null));
+  }
+}
@@ -2,38 +2,58 @@ package service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.org.entity.Inventory;
 import com.org.entity.Item;
+import com.org.kafka.StockStatePublisher;
 import com.org.model.AddItemRequest;
 import com.org.model.AddItemResponse;
+import com.org.model.BatchSummaryResponse;
+import com.org.model.BulkDeleteResponse;
+import com.org.model.BulkRepriceRequest;
+import com.org.model.BulkRepriceResponse;
 import com.org.model.InventoryRequest;
+import com.org.model.RepriceRule;
 import com.org.model.UpdateItemRequest;
 import com.org.model.UpdateItemResponse;
 import com.org.repository.ItemRepository;
+import com.org.repository.ItemRepositoryCustom.RepriceCount;
+import com.org.service.AdaptiveChunking;
+import com.org.service.ExecutionLanes;
 import com.org.service.InventoryActivityEventProducer;
 import com.org.service.InventoryService;
+import com.org.service.ItemIdFilter;
 import com.org.service.ItemService;
 import com.org.utility.ResponseStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 class ItemServiceTest {
 
@@ -46,12 +66,28 @@ class ItemServiceTest {
   @Mock
   private ExecutorService executorService;
 
+  @Spy
+  private ExecutionLanes executionLanes = new ExecutionLanes(4, 4, 1, new SimpleMeterRegistry());
+
+  @Spy
+  private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+  @Spy
+  private AdaptiveChunking adaptiveChunking = new AdaptiveChunking(new MockEnvironment(), new SimpleMeterRegistry());
+
+  // Never built, so every id passes unless a test says otherwise
+  @Spy
+  private ItemIdFilter itemIdFilter = new ItemIdFilter(null, null, new SimpleMeterRegistry(), false, 0.01, 0, 0);
+
   @InjectMocks
   private ItemService itemService;
 
   @Mock
   InventoryActivityEventProducer inventoryActivityEventProducer;
 
+  @Mock
+  private StockStatePublisher stockStatePublisher;
+
   @BeforeEach
   void setUp() {
     MockitoAnnotations.openMocks(this);
@@ -67,13 +103,76 @@ class ItemServiceTest {
     Item item1 = Item.builder().id(1L).itemName("Item1").itemPrice(BigDecimal.valueOf(100.0)).isDeleted(false).build();
     Item item2 = Item.builder().id(2L).itemName("Item2").itemPrice(BigDecimal.valueOf(200.0)).isDeleted(false).build();
 
-    when(itemRepository.save(any(Item.class))).thenReturn(item1, item2);
+    Inventory stock1 = Inventory.builder().itemId(1L).storeId(1L).availableQuantity(10).build();
+    Inventory stock2 = Inventory.builder().itemId(2L).storeId(1L).availableQuantity(20).build();
+
+    when(itemRepository.insertItems(anyList(), anyList())).thenReturn(List.of(item1, item2));
+    when(inventoryService.addItems(requests, List.of(1L, 2L))).thenReturn(List.of(stock1, stock2));
 
     ResponseEntity<List<AddItemResponse>> response = itemService.addItem(requests);
 
     assertEquals(HttpStatus.CREATED, response.getStatusCode());
     assertEquals(2, Objects.requireNonNull(response.getBody()).size());
     assertEquals(ResponseStatus.SUCCESS, response.getBody().get(0).getStatus());
+    verify(inventoryService).addItems(requests, List.of(1L, 2L));
+    verify(itemIdFilter).add(List.of(1L, 2L));
+    verify(stockStatePublisher).publish(stock1);
+    verify(stockStatePublisher).publish(stock2);
+    verify(stockStatePublisher, times(2)).publish(any(Inventory.class));
+    verify(inventoryService).registerStores(List.of(stock1, stock2));
+    verify(itemRepository, never()).save(any(Item.class));
+  }
+
+  @Test
+  void addItem_ShouldRejectInvalidLines_WithoutFailingTheChunk() {
+    AddItemRequest valid = new AddItemRequest("Item1", BigDecimal.valueOf(100.0), InventoryRequest.of(10));
+    AddItemRequest longName = new AddItemRequest("x".repeat(101), BigDecimal.valueOf(1.0), InventoryRequest.of(1));
+    AddItemRequest noPrice = new AddItemRequest("Item3", null, InventoryRequest.of(1));
+    AddItemRequest noStock = new AddItemRequest("Item4", BigDecimal.valueOf(1.0), null);
+
+    when(itemRepository.insertItems(List.of("Item1"), List.of(BigDecimal.valueOf(100.0))))
+        .thenReturn(List.of(Item.builder().id(1L).itemName("Item1").isDeleted(false).build()));
+
+    ResponseEntity<List<AddItemResponse>> response = itemService.addItem(List.of(valid, longName, noPrice, noStock));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    List<AddItemResponse> body = Objects.requireNonNull(response.getBody());
+    assertEquals(ResponseStatus.SUCCESS, body.get(0).getStatus());
+    assertEquals("Invalid item name", body.get(1).getMessage());
+    assertEquals("Invalid item price", body.get(2).getMessage());
+    assertEquals("Quantity is required", body.get(3).getMessage());
+    verify(itemRepository, times(1)).insertItems(anyList(), anyList());
+  }
+
+  @Test
+  void addItemFailures_ShouldReturnCountsAndOnlyTheFailedLines() {
+    AddItemRequest valid = new AddItemRequest("Item1", BigDecimal.valueOf(100.0), InventoryRequest.of(10));
+    AddItemRequest noPrice = new AddItemRequest("Item2", null, InventoryRequest.of(1));
+
+    when(itemRepository.insertItems(List.of("Item1"), List.of(BigDecimal.valueOf(100.0))))
+        .thenReturn(List.of(Item.builder().id(1L).itemName("Item1").isDeleted(false).build()));
+
+    ResponseEntity<BatchSummaryResponse> response = itemService.addItemFailures(List.of(valid, noPrice));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    BatchSummaryResponse body = Objects.requireNonNull(response.getBody());
+    assertEquals(2, body.getLines());
+    assertEquals(1, body.getSucceeded());
+    assertEquals(1, body.getFailed());
+    assertEquals(Map.of(1, "Invalid item price"), body.getFailures());
+    verify(inventoryService).addItems(List.of(valid), List.of(1L));
+  }
+
+  @Test
+  void addItemFailures_ShouldNotReturnDatabaseErrorText() {
+    AddItemRequest valid = new AddItemRequest("Item1", BigDecimal.valueOf(100.0), InventoryRequest.of(10));
+
+    when(itemRepository.insertItems(anyList(), anyList()))
+        .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \"item_pkey\""));
+
+    ResponseEntity<BatchSummaryResponse> response = itemService.addItemFailures(List.of(valid));
+
+    assertEquals(Map.of(0, "Failed to add item"), Objects.requireNonNull(response.getBody()).getFailures());
   }
 
   @Test
@@ -84,7 +183,8 @@ class ItemServiceTest {
     Item existingItem = Item.builder().id(1L).itemName("Item1").itemPrice(BigDecimal.valueOf(100.0)).isDeleted(false)
         .build();
 
-    when(itemRepository.findById(1L)).thenReturn(Optional.of(existingItem));
+    when(itemRepository.updateItems(List.of(1L), List.of("UpdatedItem1"), List.of(BigDecimal.valueOf(150.0))))
+        .thenReturn(List.of(existingItem.getId()));
 
     ResponseEntity<List<UpdateItemResponse>> response = itemService.updateItem(requests);
 
@@ -102,8 +202,7 @@ class ItemServiceTest {
     Item existingItem = Item.builder().id(1L).itemName("Item1").itemPrice(BigDecimal.valueOf(100.0)).isDeleted(false)
         .build();
 
-    when(itemRepository.findById(1L)).thenReturn(Optional.of(existingItem));
-    when(itemRepository.findById(2L)).thenReturn(Optional.empty());
+    when(itemRepository.updateItems(anyList(), anyList(), anyList())).thenReturn(List.of(existingItem.getId()));
 
     ResponseEntity<List<UpdateItemResponse>> response = itemService.updateItem(requests);
 
@@ -111,6 +210,39 @@ class ItemServiceTest {
     assertEquals(2, Objects.requireNonNull(response.getBody()).size());
     assertEquals(ResponseStatus.SUCCESS, response.getBody().get(0).getStatus());
     assertEquals(ResponseStatus.FAILED, response.getBody().get(1).getStatus());
+    assertEquals("Item not found", response.getBody().get(1).getMessage());
+    verify(itemRepository, never()).findById(any());
+  }
+
+  @Test
+  void updateItem_ShouldMergeLinesForTheSameItem() {
+    UpdateItemRequest rename = new UpdateItemRequest(1L, "Renamed", null);
+    UpdateItemRequest reprice = new UpdateItemRequest(1L, null, BigDecimal.valueOf(9.5));
+    UpdateItemRequest badPrice = new UpdateItemRequest(2L, null, BigDecimal.valueOf(-1));
+
+    when(itemRepository.updateItems(List.of(1L), List.of("Renamed"), List.of(BigDecimal.valueOf(9.5))))
+        .thenReturn(List.of(1L));
+
+    ResponseEntity<List<UpdateItemResponse>> response = itemService.updateItem(List.of(rename, reprice, badPrice));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    List<UpdateItemResponse> body = Objects.requireNonNull(response.getBody());
+    assertEquals(ResponseStatus.SUCCESS, body.get(0).getStatus());
+    assertEquals(ResponseStatus.SUCCESS, body.get(1).getStatus());
+    assertEquals("Invalid item price", body.get(2).getMessage());
+  }
+
+  @Test
+  void updateItem_ShouldReportDatabaseErrors_AsFailedNotBusy() {
+    UpdateItemRequest request = new UpdateItemRequest(1L, "Renamed", null);
+
+    when(itemRepository.updateItems(anyList(), anyList(), anyList()))
+        .thenThrow(new DataIntegrityViolationException("value too long for type character varying(100)"));
+
+    ResponseEntity<List<UpdateItemResponse>> response = itemService.updateItem(List.of(request));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertEquals("Failed to update item", Objects.requireNonNull(response.getBody()).get(0).getMessage());
   }
 
   @Test
@@ -141,42 +273,106 @@ class ItemServiceTest {
   }
 
   @Test
-  void addItem_ShouldExecuteInParallel_WhenMultipleItemsAdded() throws Exception {
-    AddItemRequest request1 = new AddItemRequest("Item1", BigDecimal.valueOf(100.0), InventoryRequest.of(10));
-    AddItemRequest request2 = new AddItemRequest("Item2", BigDecimal.valueOf(200.0), InventoryRequest.of(20));
-    List<AddItemRequest> requests = Arrays.asList(request1, request2);
+  void addItem_ShouldInsertEachChunkInOneStatement_AndRunChunksInParallel() throws Exception {
+    List<AddItemRequest> requests = IntStream.range(0, 2_500)
+        .mapToObj(i -> new AddItemRequest("Item" + i, BigDecimal.valueOf(1.0), InventoryRequest.of(1)))
+        .toList();
+
+    // Both workers must be inside insertItems at once for either to return
+    CountDownLatch bothRunning = new CountDownLatch(2);
+    when(itemRepository.insertItems(anyList(), anyList())).thenAnswer(invocation -> {
+      bothRunning.countDown();
+      bothRunning.await(5, TimeUnit.SECONDS);
+      List<String> names = invocation.getArgument(0);
+      return names.stream().map(name -> Item.builder().id((long) name.hashCode()).itemName(name).isDeleted(false).build())
+          .toList();
+    });
 
-    Item item1 = Item.builder().id(1L).itemName("Item1").itemPrice(BigDecimal.valueOf(100.0)).isDeleted(false).build();
-    Item item2 = Item.builder().id(2L).itemName("Item2").itemPrice(BigDecimal.valueOf(200.0)).isDeleted(false).build();
+    ResponseEntity<List<AddItemResponse>> response = itemService.addItem(requests);
 
-    CountDownLatch latch = new CountDownLatch(2);
+    assertEquals(0, bothRunning.getCount());
+    assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    assertEquals(2_500, Objects.requireNonNull(response.getBody()).size());
+    verify(itemRepository, times(3)).insertItems(anyList(), anyList());
+    verify(inventoryService, times(3)).addItems(anyList(), anyList());
+    verify(itemRepository, never()).save(any(Item.class));
+  }
 
-    when(itemRepository.save(any(Item.class))).thenAnswer(invocation -> {
-      latch.countDown();
-      if (latch.getCount() == 1) {
-        return item1;
-      } else {
-        return item2;
-      }
-    });
+  @Test
+  void repriceItems_ShouldReturnOnlyFailedRows_WhenSomeItemsNotFound() {
+    BulkRepriceRequest request = BulkRepriceRequest.builder()
+        .prices(List.of(
+            new UpdateItemRequest(1L, null, BigDecimal.valueOf(10.0)),
+            new UpdateItemRequest(2L, null, BigDecimal.valueOf(20.0)),
+            new UpdateItemRequest(3L, null, BigDecimal.valueOf(-1))))
+        .build();
 
-    ExecutorService realExecutor = Executors.newFixedThreadPool(2);
-    when(executorService.submit(any(Callable.class))).thenAnswer(invocation -> {
-      Callable<AddItemResponse> task = invocation.getArgument(0);
-      return realExecutor.submit(task);
-    });
+    when(itemRepository.updatePrices(anyList(), anyList())).thenReturn(List.of(1L));
 
-    ResponseEntity<List<AddItemResponse>> response = itemService.addItem(requests);
+    ResponseEntity<BulkRepriceResponse> response = itemService.repriceItems(request);
 
-    latch.await(5, TimeUnit.SECONDS);
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    BulkRepriceResponse body = Objects.requireNonNull(response.getBody());
+    assertEquals(3, body.getRequested());
+    assertEquals(1, body.getUpdated());
+    assertEquals(2, body.getFailures().size());
+    assertEquals(3L, body.getFailures().get(0).getItemId());
+    assertEquals(2L, body.getFailures().get(1).getItemId());
+    verify(itemRepository, times(1)).updatePrices(List.of(1L, 2L),
+        List.of(BigDecimal.valueOf(10.0), BigDecimal.valueOf(20.0)));
+  }
 
-    assertEquals(HttpStatus.CREATED, response.getStatusCode());
-    assertEquals(2, Objects.requireNonNull(response.getBody()).size());
-    assertEquals(ResponseStatus.SUCCESS, response.getBody().get(0).getStatus());
-    assertEquals(ResponseStatus.SUCCESS, response.getBody().get(1).getStatus());
+  @Test
+  void repriceItems_ShouldApplyRuleInOneStatement() throws Exception {
+    RepriceRule rule = RepriceRule.builder().percentage(BigDecimal.valueOf(-10)).itemNameContains("Iphone").build();
+    when(itemRepository.applyPriceRule(rule)).thenReturn(new RepriceCount(42, 42));
 
-    verify(itemRepository, times(2)).save(any(Item.class));
+    ResponseEntity<BulkRepriceResponse> response = itemService.repriceItems(BulkRepriceRequest.builder().rule(rule).build());
 
-    realExecutor.shutdown();
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(42, Objects.requireNonNull(response.getBody()).getUpdated());
+    verify(inventoryActivityEventProducer, times(1)).sendInventoryActivityEvent(
+        any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void repriceItems_ShouldReturnPartialContent_WhenRuleSkipsItemsOutOfPriceRange() {
+    RepriceRule rule = RepriceRule.builder().percentage(new BigDecimal("-99.999")).build();
+    when(itemRepository.applyPriceRule(rule)).thenReturn(new RepriceCount(10, 7));
+
+    ResponseEntity<BulkRepriceResponse> response = itemService.repriceItems(BulkRepriceRequest.builder().rule(rule).build());
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    assertEquals(10, Objects.requireNonNull(response.getBody()).getRequested());
+    assertEquals(7, response.getBody().getUpdated());
+  }
+
+  @Test
+  void repriceItems_ShouldReturnBadRequest_WhenBothPricesAndRuleGiven() {
+    BulkRepriceRequest request = BulkRepriceRequest.builder()
+        .prices(List.of(new UpdateItemRequest(1L, null, BigDecimal.TEN)))
+        .rule(RepriceRule.builder().percentage(BigDecimal.TEN).build())
+        .build();
+
+    assertEquals(HttpStatus.BAD_REQUEST, itemService.repriceItems(request).getStatusCode());
+  }
+
+  @Test
+  void deleteItems_ShouldSoftDeleteInOneStatement_AndReportUnknownIds() {
+    when(itemRepository.markDeleted(List.of(1L, 2L, 3L))).thenReturn(List.of(1L, 3L));
+
+    ResponseEntity<BulkDeleteResponse> response = itemService.deleteItems(List.of(1L, 2L, 3L, 3L));
+
+    assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+    BulkDeleteResponse body = Objects.requireNonNull(response.getBody());
+    assertEquals(4, body.getRequested());
+    assertEquals(2, body.getDeleted());
+    assertEquals(List.of(2L), body.getNotFound());
+    verify(itemRepository, times(1)).markDeleted(anyList());
+  }
+
+  @Test
+  void deleteItems_ShouldReturnBadRequest_WhenNoIds() {
+    assertEquals(HttpStatus.BAD_REQUEST, itemService.deleteItems(List.of()).getStatusCode());
   }
 }
@@ -0,0 +1,210 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.org.entity.Inventory;
+import com.org.kafka.StockStatePublisher;
+import com.org.repository.InventoryRepository;
+import com.org.repository.InventoryRepositoryCustom.OwnedStock;
+import com.org.service.InventoryActivityEventProducer;
+import com.org.service.StockEngine;
+import com.org.utility.LineOutcome;
+import com.org.utility.StockOperationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// The repository is backed by a map of item id to quantity for store 1, so the compare-and-set behaves as the SQL does
+class StockEngineTest {
+
+  private final InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+  private final InventoryActivityEventProducer producer = mock(InventoryActivityEventProducer.class);
+  private final StockStatePublisher stockStatePublisher = mock(StockStatePublisher.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final Map<Long, Integer> table = new ConcurrentHashMap<>();
+  private volatile CountDownLatch commitGate = new CountDownLatch(0);
+  // Commits that fail as the loser of a deadlock before one goes through
+  private final AtomicInteger deadlocks = new AtomicInteger();
+  private StockEngine stockEngine;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    when(inventoryRepository.loadStock(anyList(), anyList())).thenAnswer(invocation -> {
+      List<Long> itemIds = invocation.getArgument(1);
+      List<OwnedStock> rows = new ArrayList<>();
+      for (Long itemId : itemIds) {
+        if (table.containsKey(itemId)) {
+          rows.add(new OwnedStock(1L, itemId, table.get(itemId), "item-" + itemId));
+        }
+      }
+      return rows;
+    });
+    when(inventoryRepository.compareAndSetStock(anyList(), anyList(), anyList(), anyList())).thenAnswer(invocation -> {
+      commitGate.await(5, TimeUnit.SECONDS);
+      if (deadlocks.getAndUpdate(left -> Math.max(left - 1, 0)) > 0) {
+        throw new CannotAcquireLockException("deadlock detected");
+      }
+      List<Long> itemIds = invocation.getArgument(1);
+      List<Integer> expected = invocation.getArgument(2);
+      List<Integer> quantities = invocation.getArgument(3);
+      List<Inventory> written = new ArrayList<>();
+      for (int i = 0; i < itemIds.size(); i++) {
+        if (table.replace(itemIds.get(i), expected.get(i), quantities.get(i))) {
+          written.add(Inventory.builder().itemId(itemIds.get(i)).storeId(1L).availableQuantity(quantities.get(i))
+              .updationDate(LocalDateTime.now()).build());
+        }
+      }
+      return written;
+    });
+    stockEngine = engine(100, 100);
+  }
+
+  private StockEngine engine(int maxGroupLines, int maxRowsPerShard) {
+    StockEngine engine = new StockEngine(inventoryRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+        producer, stockStatePublisher, meterRegistry, true, 2, maxGroupLines, 100, maxRowsPerShard);
+    engine.start();
+    return engine;
+  }
+
+  @AfterEach
+  void tearDown() {
+    stockEngine.stop();
+  }
+
+  private LineOutcome submit(long itemId, int quantity, StockOperationType operation, boolean sale) {
+    return stockEngine.submit(1L, itemId, quantity, operation, sale).join();
+  }
+
+  @Test
+  void submit_ShouldApplyLinesOfOneItemInOrder() {
+    table.put(1L, 4);
+    CompletableFuture<LineOutcome> add = stockEngine.submit(1L, 1L, 5, StockOperationType.ADD, false);
+    CompletableFuture<LineOutcome> sale = stockEngine.submit(1L, 1L, 3, StockOperationType.SELL, true);
+    CompletableFuture<LineOutcome> oversold = stockEngine.submit(1L, 1L, 10, StockOperationType.SELL, true);
+
+    assertEquals(LineOutcome.SUCCESS, add.join());
+    assertEquals(LineOutcome.SUCCESS, sale.join());
+    assertEquals(LineOutcome.INSUFFICIENT_STOCK, oversold.join());
+    assertEquals(6, table.get(1L));
+    verify(producer).sendInventoryActivityEvent(eq("ADD"), eq("5"), any(), eq(1L), eq("item-1"), eq(1L));
+    verify(producer).sendInventoryActivityEvent(eq("SELL"), eq("3"), any(), eq(1L), eq("item-1"), eq(1L));
+  }
+
+  @Test
+  void submit_ShouldCompleteOnlyAfterCommit() {
+    table.put(1L, 10);
+    commitGate = new CountDownLatch(1);
+
+    CompletableFuture<LineOutcome> sale = stockEngine.submit(1L, 1L, 2, StockOperationType.SELL, true);
+    verify(inventoryRepository, timeout(5_000)).compareAndSetStock(anyList(), anyList(), anyList(), anyList());
+    assertFalse(sale.isDone());
+
+    commitGate.countDown();
+    assertEquals(LineOutcome.SUCCESS, sale.join());
+    assertEquals(8, table.get(1L));
+  }
+
+  @Test
+  void submit_ShouldReloadAndReapply_WhenAnotherWriterChangedTheRow() {
+    table.put(1L, 10);
+    assertEquals(LineOutcome.SUCCESS, submit(1L, 2, StockOperationType.SELL, true));
+    // Written behind the engine's back, e.g. by a basket sale
+    table.put(1L, 20);
+
+    assertEquals(LineOutcome.SUCCESS, submit(1L, 5, StockOperationType.SELL, true));
+
+    assertEquals(15, table.get(1L));
+    assertEquals(1.0, meterRegistry.get("instore.stock-engine.conflicts").counter().count());
+    verify(inventoryRepository, times(2)).loadStock(anyList(), eq(List.of(1L)));
+  }
+
+  @Test
+  void submit_ShouldRetryGroup_WhenItsCommitLosesADeadlock() {
+    table.put(1L, 10);
+    deadlocks.set(1);
+
+    assertEquals(LineOutcome.SUCCESS, submit(1L, 3, StockOperationType.SELL, true));
+
+    assertEquals(7, table.get(1L));
+    assertEquals(1.0, meterRegistry.get("instore.stock-engine.lock-conflicts").counter().count());
+    verify(inventoryRepository, times(2)).compareAndSetStock(anyList(), anyList(), anyList(), anyList());
+  }
+
+  @Test
+  void submit_ShouldAnswerError_WhenEveryAttemptLosesADeadlock() {
+    table.put(1L, 10);
+    deadlocks.set(Integer.MAX_VALUE);
+
+    assertEquals(LineOutcome.ERROR, submit(1L, 3, StockOperationType.SELL, true));
+
+    assertEquals(10, table.get(1L));
+    verify(inventoryRepository, times(3)).compareAndSetStock(anyList(), anyList(), anyList(), anyList());
+  }
+
+  @Test
+  void submit_ShouldRereadRow_BeforeRefusingSaleOnCachedQuantity() {
+    table.put(1L, 2);
+    assertEquals(LineOutcome.SUCCESS, submit(1L, 2, StockOperationType.SELL, true));
+    // Restocked by another instance; nothing the engine writes would notice
+    table.put(1L, 100);
+
+    assertEquals(LineOutcome.SUCCESS, submit(1L, 5, StockOperationType.SELL, true));
+    assertEquals(95, table.get(1L));
+    assertEquals(LineOutcome.INSUFFICIENT_STOCK, submit(1L, 500, StockOperationType.SELL, true));
+    assertEquals(2.0, meterRegistry.get("instore.stock-engine.rereads").counter().count());
+  }
+
+  @Test
+  void submit_ShouldLoadEvictedRowAgain_WhenShardHoldsMoreRowsThanItsBound() {
+    stockEngine.stop();
+    stockEngine = engine(1, 1);
+    // Both items on one shard of two
+    table.put(2L, 10);
+    table.put(4L, 10);
+
+    assertEquals(LineOutcome.SUCCESS, submit(2L, 1, StockOperationType.ADD, false));
+    assertEquals(LineOutcome.SUCCESS, submit(4L, 1, StockOperationType.ADD, false));
+    assertEquals(LineOutcome.SUCCESS, submit(2L, 1, StockOperationType.ADD, false));
+
+    assertEquals(12, table.get(2L));
+    verify(inventoryRepository, times(2)).loadStock(anyList(), eq(List.of(2L)));
+  }
+
+  @Test
+  void submit_ShouldAnswerNotFoundWithoutWriting_WhenRowIsMissing() {
+    assertEquals(LineOutcome.ITEM_NOT_FOUND, submit(42L, 1, StockOperationType.ADD, false));
+
+    verify(inventoryRepository, never()).compareAndSetStock(anyList(), anyList(), anyList(), anyList());
+  }
+
+  @Test
+  void submit_ShouldAnswerBusy_WhenStopped() {
+    stockEngine.stop();
+
+    assertEquals(LineOutcome.STORE_BUSY, submit(1L, 1, StockOperationType.ADD, false));
+  }
+}
@@ -0,0 +1,211 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.org.repository.InventoryRepository;
+import com.org.service.ExecutionLanes;
+import com.org.service.StoreWriteRouter;
+import com.org.utility.ExecutionLane;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class StoreWriteRouterTest {
+
+  private static final Long UNKNOWN_STORE = 9L;
+  private static final Duration UNKNOWN_STORE_TTL = Duration.ofSeconds(30);
+
+  private final InventoryRepository inventoryRepository = stores();
+  private final StoreWriteRouter router = new StoreWriteRouter(1L, 60, 1_000, 4, UNKNOWN_STORE_TTL, lanes(4, 4, 1),
+      inventoryRepository);
+
+  @AfterEach
+  void tearDown() {
+    router.shutdown();
+  }
+
+  @Test
+  void resolveStoreId_ShouldFallBackToDefaultStore() {
+    assertEquals(1L, router.resolveStoreId(null));
+    assertEquals(5L, router.resolveStoreId(5L));
+  }
+
+  @Test
+  void submit_ShouldRunNoMoreWritesOfAStoreThanItHasLanes() {
+    StoreWriteRouter twoLanes = new StoreWriteRouter(1L, 60, 1_000, 2, UNKNOWN_STORE_TTL, lanes(8, 8, 8), stores());
+    AtomicInteger active = new AtomicInteger();
+    AtomicInteger maxActive = new AtomicInteger();
+    try {
+      List<CompletableFuture<Integer>> futures = IntStream.range(0, 20)
+          .mapToObj(i -> twoLanes.submit(3L, ExecutionLane.BULK, () -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(5));
+            active.decrementAndGet();
+            return i;
+          }))
+          .toList();
+      futures.forEach(CompletableFuture::join);
+    } finally {
+      twoLanes.shutdown();
+    }
+
+    assertTrue(maxActive.get() <= 2);
+  }
+
+  @Test
+  void submit_ShouldRunWritesOfOneStoreSideBySide() throws Exception {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+
+    CompletableFuture<String> first = router.submit(1L, ExecutionLane.BULK, () -> awaitOther(bothStarted));
+    CompletableFuture<String> second = router.submit(1L, ExecutionLane.BULK, () -> awaitOther(bothStarted));
+
+    assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+    assertNotEquals(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void submit_ShouldRunDifferentStoresConcurrently() throws Exception {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+
+    CompletableFuture<String> store1 = router.submit(1L, ExecutionLane.INTERACTIVE, () -> awaitOther(bothStarted));
+    CompletableFuture<String> store2 = router.submit(2L, ExecutionLane.INTERACTIVE, () -> awaitOther(bothStarted));
+
+    assertTrue(bothStarted.await(5, TimeUnit.SECONDS));
+    assertNotEquals(store1.get(5, TimeUnit.SECONDS), store2.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void isKnownStore_ShouldLookUpStoreWithoutStock_OncePerTtl() {
+    assertFalse(router.isKnownStore(UNKNOWN_STORE));
+    assertFalse(router.isKnownStore(UNKNOWN_STORE));
+    router.submit(UNKNOWN_STORE, ExecutionLane.BULK, () -> "ran");
+
+    verify(inventoryRepository, times(1)).existsByStoreId(UNKNOWN_STORE);
+  }
+
+  @Test
+  void isKnownStore_ShouldLookUpStoreWithoutStockAgain_AfterTtl() {
+    StoreWriteRouter noTtl = new StoreWriteRouter(1L, 60, 1_000, 1, Duration.ZERO, lanes(4, 4, 1), inventoryRepository);
+
+    assertFalse(noTtl.isKnownStore(UNKNOWN_STORE));
+    assertFalse(noTtl.isKnownStore(UNKNOWN_STORE));
+
+    verify(inventoryRepository, times(2)).existsByStoreId(UNKNOWN_STORE);
+  }
+
+  @Test
+  void registerStore_ShouldMakeStoreKnown_WithoutLookup() {
+    assertFalse(router.isKnownStore(UNKNOWN_STORE));
+
+    router.registerStore(UNKNOWN_STORE);
+
+    assertTrue(router.isKnownStore(UNKNOWN_STORE));
+    assertEquals("ran", router.submit(UNKNOWN_STORE, ExecutionLane.BULK, () -> "ran").join());
+    verify(inventoryRepository, times(1)).existsByStoreId(UNKNOWN_STORE);
+  }
+
+  @Test
+  void submit_ShouldRejectStoreWithoutStock() {
+    assertFalse(router.isKnownStore(UNKNOWN_STORE));
+    assertTrue(router.isKnownStore(null));
+
+    CompletableFuture<String> rejected = router.submit(UNKNOWN_STORE, ExecutionLane.INTERACTIVE, () -> "ran");
+
+    assertTrue(rejected.isCompletedExceptionally());
+    assertEquals("busy", router.submit(UNKNOWN_STORE, ExecutionLane.BULK, () -> "ran", () -> "busy").join());
+  }
+
+  @Test
+  void submit_ShouldFailFuture_WhenLaneQueueIsFull() throws Exception {
+    StoreWriteRouter smallRouter = new StoreWriteRouter(1L, 60, 1, 1, UNKNOWN_STORE_TTL, lanes(4, 4, 1), stores());
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      smallRouter.submit(1L, ExecutionLane.BULK, () -> {
+        started.countDown();
+        try {
+          release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return "running";
+      });
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      smallRouter.submit(1L, ExecutionLane.BULK, () -> "queued");
+
+      CompletableFuture<String> rejected = smallRouter.submit(1L, ExecutionLane.BULK, () -> "rejected");
+
+      assertTrue(rejected.isCompletedExceptionally());
+    } finally {
+      release.countDown();
+      smallRouter.shutdown();
+    }
+  }
+
+  @Test
+  void submit_ShouldRunQueuedSalesBeforeQueuedBulkWork() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> order = Collections.synchronizedList(new ArrayList<>());
+    StoreWriteRouter oneLane = new StoreWriteRouter(1L, 60, 1_000, 1, UNKNOWN_STORE_TTL, lanes(4, 4, 1), stores());
+
+    oneLane.submit(4L, ExecutionLane.BULK, () -> {
+      started.countDown();
+      try {
+        release.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return order.add("bulk-running");
+    });
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    List<CompletableFuture<Boolean>> futures = List.of(
+        oneLane.submit(4L, ExecutionLane.BULK, () -> order.add("bulk-1")),
+        oneLane.submit(4L, ExecutionLane.BULK, () -> order.add("bulk-2")),
+        oneLane.submit(4L, ExecutionLane.INTERACTIVE, () -> order.add("sale")));
+    release.countDown();
+    futures.forEach(CompletableFuture::join);
+    oneLane.shutdown();
+
+    assertEquals(List.of("bulk-running", "sale", "bulk-1", "bulk-2"), order);
+  }
+
+  // Store 9 holds no stock
+  private static InventoryRepository stores() {
+    InventoryRepository inventoryRepository = mock(InventoryRepository.class);
+    when(inventoryRepository.existsByStoreId(any())).thenAnswer(invocation -> !UNKNOWN_STORE.equals(invocation.getArgument(0)));
+    return inventoryRepository;
+  }
+
+  private static ExecutionLanes lanes(int interactive, int bulk, int bulkContended) {
+    return new ExecutionLanes(interactive, bulk, bulkContended, new SimpleMeterRegistry());
+  }
+
+  private String awaitOther(CountDownLatch latch) {
+    latch.countDown();
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return Thread.currentThread().getName();
+  }
+}